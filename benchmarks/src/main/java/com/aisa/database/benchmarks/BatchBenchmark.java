@@ -0,0 +1,72 @@
+package com.aisa.database.benchmarks;
+
+import com.aisa.database.BatchExecutor;
+import com.aisa.database.DB2UtilLib;
+import com.aisa.database.FakeDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the client-side cost of batch DML: parameter binding, chunking and commits in
+ * {@link BatchExecutor}, and statement building in the DB2 multi-row insert path. The fake
+ * database has no latency, so only client work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO orders (id, customer_name, amount, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final List<String> COLUMNS = Arrays.asList("id", "customer_name", "amount", "created_at");
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private List<Object[]> data;
+    private FakeDatabase database;
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(new Object[]{(long) i, "customer-" + i, BigDecimal.valueOf(i, 2),
+                    new Timestamp(1_700_000_000_000L + i)});
+        }
+        database = FakeDatabase.create("batch-benchmark");
+        connection = DriverManager.getConnection(database.getUrl());
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.drop();
+    }
+
+    @Benchmark
+    public List<int[]> executeBatch() throws SQLException {
+        return BatchExecutor.executeBatch(connection, INSERT_SQL, data, batchSize);
+    }
+
+    @Benchmark
+    public List<int[]> multiRowInsert() throws SQLException {
+        return DB2UtilLib.bulkInsert(connection, "orders", COLUMNS, data, batchSize);
+    }
+}
@@ -0,0 +1,78 @@
+package com.aisa.database.benchmarks;
+
+import com.aisa.database.GenerateRowMapper;
+import com.aisa.database.FakeTable;
+import com.aisa.database.MySQLUtilLib;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code mapResultSetToPOJO} with the reflective mapping plan and with a compile-time
+ * generated row mapper, over the same columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PojoMappingBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private FakeTable table;
+
+    @Setup
+    public void setUp() {
+        table = FakeTable.of(rows, "id BIGINT", "customer_name VARCHAR", "amount DECIMAL",
+                "quantity INTEGER", "created_at TIMESTAMP");
+    }
+
+    @Benchmark
+    public List<Order> reflective() throws SQLException {
+        return MySQLUtilLib.mapResultSetToPOJO(table.resultSet(), Order.class);
+    }
+
+    @Benchmark
+    public List<GeneratedOrder> generated() throws SQLException {
+        return MySQLUtilLib.mapResultSetToPOJO(table.resultSet(), GeneratedOrder.class);
+    }
+
+    public static class Order {
+        private long id;
+        private String customerName;
+        private BigDecimal amount;
+        private int quantity;
+        private Timestamp createdAt;
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public void setCustomerName(String customerName) {
+            this.customerName = customerName;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public void setCreatedAt(Timestamp createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    @GenerateRowMapper
+    public static class GeneratedOrder extends Order {
+    }
+}
@@ -0,0 +1,72 @@
+package com.aisa.database.benchmarks;
+
+import com.aisa.database.FakeDatabase;
+import com.aisa.database.FakeTable;
+import com.aisa.database.PostgreSQLUtilLib;
+import com.aisa.database.QueryResultCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a {@link QueryResultCache} hit, a miss that loads and stores the result, and the
+ * same query through the statement cache without result caching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryCacheBenchmark {
+
+    private static final String QUERY = "SELECT id, customer_name, amount FROM orders WHERE customer_id = ?";
+
+    @Param({"10", "1000"})
+    private int rows;
+
+    private FakeDatabase database;
+    private Connection connection;
+    private QueryResultCache cache;
+    private long missKey;
+
+    @Setup
+    public void setUp() throws SQLException {
+        database = FakeDatabase.create("cache-benchmark");
+        database.addTable("orders", FakeTable.of(rows, "id BIGINT", "customer_name VARCHAR", "amount DECIMAL"));
+        connection = DriverManager.getConnection(database.getUrl());
+        cache = new QueryResultCache(64L * 1024 * 1024, Duration.ofHours(1));
+        cache.query(connection, QUERY, -1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.close();
+        PostgreSQLUtilLib.closeConnection(connection);
+        database.drop();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> hit() throws SQLException {
+        return cache.query(connection, QUERY, -1L);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> miss() throws SQLException {
+        return cache.query(connection, QUERY, missKey++);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> uncached() throws SQLException {
+        try (ResultSet resultSet = PostgreSQLUtilLib.executeQuery(connection, QUERY, -1L)) {
+            return PostgreSQLUtilLib.resultSetToList(resultSet);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.aisa.database.benchmarks;
+
+import com.aisa.database.FakeTable;
+import com.aisa.database.OracleDBUtilLib;
+import com.aisa.database.PostgreSQLUtilLib;
+import com.aisa.database.ResultSetIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting a whole result into the shapes the library offers: a List of row Maps,
+ * the per-cell Map shape of {@code parseResultSet}, a {@code TabularResult} and lazy iteration.
+ *
+ * Run with {@code -prof gc} to compare allocation as well: {@code gc.alloc.rate.norm} of
+ * {@code parseResultSetToTable} is expected to stay well under a third of {@code parseResultSet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowConversionBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"8", "20"})
+    private int columns;
+
+    @Param({"INTEGER,VARCHAR,DECIMAL,TIMESTAMP"})
+    private String types;
+
+    private FakeTable table;
+
+    @Setup
+    public void setUp() {
+        table = FakeTable.generate(rows, columns, types);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> resultSetToList() throws SQLException {
+        return PostgreSQLUtilLib.resultSetToList(table.resultSet());
+    }
+
+    @Benchmark
+    public List<List<Map<String, Object>>> parseResultSet() throws SQLException {
+        return OracleDBUtilLib.parseResultSet(table.resultSet());
+    }
+
+    @Benchmark
+    public Object parseResultSetToTable() throws SQLException {
+        return OracleDBUtilLib.parseResultSetToTable(table.resultSet());
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) throws SQLException {
+        try (ResultSetIterator iterator = new ResultSetIterator(null, table.resultSet())) {
+            iterator.forEachRemaining(blackhole::consume);
+        }
+    }
+}
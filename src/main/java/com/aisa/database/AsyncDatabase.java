@@ -0,0 +1,211 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs queries and updates asynchronously, returning {@link CompletableFuture}s.
+ *
+ * Each call borrows a connection from the DataSource, runs on the executor and returns the
+ * connection when done. At most {@code maxConcurrency} calls hold a connection at the same time;
+ * further calls wait for a permit, so fan-out never asks a pool for more connections than it has.
+ *
+ * By default calls run on an executor created by {@link AsyncExecutors}: a bounded thread pool on
+ * Java 8 to 20, and a virtual thread per call on Java 21 and later. Futures complete exceptionally
+ * with the {@link SQLException} thrown by the call.
+ */
+public class AsyncDatabase implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDatabase.class);
+
+    private final DataSource dataSource;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    /**
+     * Creates an async facade over a connection pool, allowing as many concurrent calls as the
+     * pool has connections.
+     *
+     * @param pool the connection pool
+     */
+    public AsyncDatabase(ConnectionPool pool) {
+        this(pool, pool.getMaxPoolSize());
+    }
+
+    /**
+     * Creates an async facade over a DataSource using the default executor.
+     *
+     * @param dataSource     the DataSource to borrow connections from
+     * @param maxConcurrency the maximum number of calls holding a connection at once
+     */
+    public AsyncDatabase(DataSource dataSource, int maxConcurrency) {
+        this(dataSource, maxConcurrency, AsyncExecutors.defaultExecutor(maxConcurrency), true);
+    }
+
+    /**
+     * Creates an async facade over a DataSource using the given executor. The executor is not
+     * shut down by {@link #close()}.
+     *
+     * @param dataSource     the DataSource to borrow connections from
+     * @param maxConcurrency the maximum number of calls holding a connection at once
+     * @param executor       the executor running the blocking JDBC calls
+     */
+    public AsyncDatabase(DataSource dataSource, int maxConcurrency, Executor executor) {
+        this(dataSource, maxConcurrency, executor, false);
+    }
+
+    private AsyncDatabase(DataSource dataSource, int maxConcurrency, Executor executor, boolean ownsExecutor) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Executes a parameterized query asynchronously and reads all rows.
+     *
+     * @param sql    the SQL query with {@code ?} placeholders
+     * @param params the parameter values, in placeholder order
+     * @return a future of the rows, each a map from column name to value
+     */
+    public CompletableFuture<List<Map<String, Object>>> queryAsync(String sql, Object... params) {
+        return withConnectionAsync(connection -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            try (ResultSet resultSet = StatementCache.executeQuery(connection, sql, params)) {
+                ColumnIndex columns = ColumnIndex.from(resultSet.getMetaData());
+                while (resultSet.next()) {
+                    rows.add(CompactRow.read(columns, resultSet));
+                }
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Executes a parameterized query asynchronously and maps every row.
+     *
+     * @param sql    the SQL query with {@code ?} placeholders
+     * @param mapper the mapper converting each row
+     * @param params the parameter values, in placeholder order
+     * @param <T>    the type of the mapped rows
+     * @return a future of the mapped rows
+     */
+    public <T> CompletableFuture<List<T>> queryAsync(String sql, RowMapper<T> mapper, Object... params) {
+        return withConnectionAsync(connection -> {
+            List<T> rows = new ArrayList<>();
+            try (ResultSet resultSet = StatementCache.executeQuery(connection, sql, params)) {
+                while (resultSet.next()) {
+                    rows.add(mapper.mapRow(resultSet));
+                }
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Executes a parameterized insert, update, delete or DDL statement asynchronously.
+     *
+     * @param sql    the SQL statement with {@code ?} placeholders
+     * @param params the parameter values, in placeholder order
+     * @return a future of the number of rows affected
+     */
+    public CompletableFuture<Integer> updateAsync(String sql, Object... params) {
+        return withConnectionAsync(connection -> StatementCache.executeUpdate(connection, sql, params));
+    }
+
+    /**
+     * Runs arbitrary work with a borrowed connection asynchronously. The connection is closed,
+     * or returned to its pool, when the work completes.
+     *
+     * @param work the work to run
+     * @param <T>  the type of the result
+     * @return a future of the result of the work
+     */
+    public <T> CompletableFuture<T> withConnectionAsync(SqlFunction<Connection, T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(work, future));
+        } catch (RejectedExecutionException e) {
+            logger.error("Async database call rejected by the executor.", e);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(SqlFunction<Connection, T> work, CompletableFuture<T> future) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return;
+        }
+        T result = null;
+        Throwable failure = null;
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                result = work.apply(connection);
+            } finally {
+                StatementCache.release(connection);
+            }
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+        } finally {
+            permits.release();
+        }
+        // Complete only once the connection and permit are back, so dependent calls can reuse them.
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(result);
+        }
+    }
+
+    /**
+     * Gets the maximum number of calls that hold a connection at once.
+     *
+     * @return the concurrency limit
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Gets the number of calls currently waiting for a permit to run.
+     *
+     * @return the number of waiting calls
+     */
+    public int getWaitingCalls() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Shuts down the default executor, letting calls already submitted finish. An executor
+     * passed to the constructor is left running.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.aisa.database;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors used by {@link AsyncDatabase}.
+ *
+ * This is the Java 8 implementation. The library is a multi-release JAR, and on Java 21 and later
+ * a variant of this class that runs each query on its own virtual thread is loaded instead.
+ */
+public final class AsyncExecutors {
+
+    /**
+     * The number of tasks a default executor queues before rejecting new ones.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private static final AtomicInteger EXECUTOR_SEQUENCE = new AtomicInteger();
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * Creates the default executor for running blocking database calls.
+     *
+     * @param maxConcurrency the number of calls expected to run at the same time
+     * @return a bounded pool of {@code maxConcurrency} daemon threads
+     */
+    public static ExecutorService defaultExecutor(int maxConcurrency) {
+        return newBoundedExecutor(maxConcurrency, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a pool of daemon platform threads with a bounded task queue. Idle threads time out
+     * after a minute. Tasks submitted while the queue is full are rejected.
+     *
+     * @param threads       the number of threads
+     * @param queueCapacity the number of tasks that may wait for a thread
+     * @return the executor
+     */
+    public static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+        int executorId = EXECUTOR_SEQUENCE.incrementAndGet();
+        AtomicInteger threadSequence = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "db-async-" + executorId + "-" + threadSequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Tells whether the default executor runs calls on virtual threads.
+     *
+     * @return false on this Java 8 implementation
+     */
+    public static boolean usesVirtualThreads() {
+        return false;
+    }
+}
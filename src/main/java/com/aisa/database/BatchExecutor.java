@@ -0,0 +1,142 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Executes one parameterized DML statement for many parameter rows using JDBC batching.
+ *
+ * Rows are added to the batch with {@code addBatch} and sent to the server every {@code batchSize}
+ * rows, so loading N rows takes N / batchSize round trips instead of N. When the connection is in
+ * auto-commit mode each chunk is committed as one transaction, and auto-commit is restored
+ * afterwards; otherwise the caller's transaction is left open.
+ */
+public final class BatchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchExecutor.class);
+
+    /**
+     * The batch size used when a non-positive size is requested.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private BatchExecutor() {
+    }
+
+    /**
+     * Executes the SQL once per parameter row, flushing the batch every {@code batchSize} rows.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row, in placeholder order
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each flushed chunk, in execution order
+     * @throws SQLException if a database access error occurs; with auto-commit on, chunks flushed
+     *                      before the failing one stay committed
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Iterable<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return executeBatch(connection, sql, rows.iterator(), batchSize);
+    }
+
+    /**
+     * Executes the SQL once per parameter row of a stream, flushing the batch every
+     * {@code batchSize} rows. The stream is consumed lazily, so it may be larger than memory.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row, in placeholder order
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each flushed chunk, in execution order
+     * @throws SQLException if a database access error occurs
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Stream<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return executeBatch(connection, sql, rows.iterator(), batchSize);
+    }
+
+    private static List<int[]> executeBatch(Connection connection, String sql, Iterator<Object[]> rows,
+                                            int batchSize) throws SQLException {
+        int chunkSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        boolean autoCommit = connection.getAutoCommit();
+        List<int[]> counts = new ArrayList<>();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int pending = 0;
+            long total = 0;
+            while (rows.hasNext()) {
+                ParameterBinder.bind(statement, rows.next());
+                statement.addBatch();
+                if (++pending == chunkSize) {
+                    counts.add(flush(connection, statement, sql, autoCommit));
+                    total += pending;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                counts.add(flush(connection, statement, sql, autoCommit));
+                total += pending;
+            }
+            logger.info("Executed batch of {} rows in {} chunks: {}", total, counts.size(), sql);
+            return counts;
+        } catch (SQLException | RuntimeException e) {
+            if (autoCommit) {
+                rollbackQuietly(connection);
+            }
+            throw e;
+        } finally {
+            try {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                QueryResultCache.invalidateForUpdate(connection, sql);
+            }
+        }
+    }
+
+    private static int[] flush(Connection connection, PreparedStatement statement, String sql,
+                               boolean commit) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int[] counts = statement.executeBatch();
+            statement.clearBatch();
+            if (commit) {
+                connection.commit();
+            }
+            failed = false;
+            return counts;
+        } finally {
+            DatabaseMetrics.recordExecute(sql, start, failed);
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.error("Error rolling back failed batch.", e);
+        }
+    }
+
+    /**
+     * Adds a query parameter to a URL-style JDBC URL unless the parameter is already present.
+     */
+    static String withUrlParameter(String dbUrl, String name, String value) {
+        if (dbUrl.contains(name + "=")) {
+            return dbUrl;
+        }
+        return dbUrl + (dbUrl.indexOf('?') < 0 ? '?' : '&') + name + "=" + value;
+    }
+}
@@ -0,0 +1,95 @@
+package com.aisa.database;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings for a SQL Server bulk copy started through {@link MSSQLUtilLib}.
+ *
+ * The defaults send rows in batches of 5000 without a table lock or timeout, mapping source
+ * columns to destination columns by position. Adjust them through the setters.
+ */
+public class BulkCopyOptions {
+
+    private int batchSize = 5000;
+    private boolean tableLock = false;
+    private int timeoutSeconds = 0;
+    private final Map<String, String> columnMappings = new LinkedHashMap<>();
+
+    /**
+     * Gets the number of rows sent to the server per batch.
+     *
+     * @return the batch size; 0 sends all rows in a single batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows sent to the server per batch.
+     *
+     * @param batchSize the batch size; 0 sends all rows in a single batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets whether a bulk update table lock is held for the duration of the copy.
+     *
+     * @return true if the table is locked
+     */
+    public boolean isTableLock() {
+        return tableLock;
+    }
+
+    /**
+     * Sets whether a bulk update table lock is held for the duration of the copy. Locking the
+     * table allows minimally logged inserts into heaps and is usually the fastest option for
+     * loading staging tables.
+     *
+     * @param tableLock true to lock the table
+     */
+    public void setTableLock(boolean tableLock) {
+        this.tableLock = tableLock;
+    }
+
+    /**
+     * Gets how long the copy may run before it is cancelled.
+     *
+     * @return the timeout in seconds; 0 means no limit
+     */
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /**
+     * Sets how long the copy may run before it is cancelled.
+     *
+     * @param timeoutSeconds the timeout in seconds; 0 means no limit
+     */
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Maps a source column to a destination column. Once any mapping is added, only mapped
+     * columns are copied.
+     *
+     * @param sourceColumn      the column name in the row source
+     * @param destinationColumn the column name in the destination table
+     */
+    public void addColumnMapping(String sourceColumn, String destinationColumn) {
+        columnMappings.put(sourceColumn, destinationColumn);
+    }
+
+    /**
+     * Gets the source to destination column mappings, in the order they were added.
+     *
+     * @return the column mappings
+     */
+    public Map<String, String> getColumnMappings() {
+        return Collections.unmodifiableMap(columnMappings);
+    }
+}
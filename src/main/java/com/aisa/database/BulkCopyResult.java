@@ -0,0 +1,47 @@
+package com.aisa.database;
+
+/**
+ * The outcome of a bulk load: how many rows were copied and how long it took.
+ */
+public final class BulkCopyResult {
+
+    private final long rowCount;
+    private final long elapsedNanos;
+
+    BulkCopyResult(long rowCount, long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of rows sent to the server.
+     *
+     * @return the row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the wall-clock duration of the copy.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000L;
+    }
+
+    /**
+     * Gets the copy throughput.
+     *
+     * @return the rows copied per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount * 1_000_000_000d / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %d ms (%.0f rows/sec)", rowCount, getElapsedMillis(), getRowsPerSecond());
+    }
+}
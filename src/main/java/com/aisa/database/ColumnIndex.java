@@ -0,0 +1,123 @@
+package com.aisa.database;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable description of the columns of a result, shared by every row read from it.
+ *
+ * The column names are read from the ResultSetMetaData once, and the name to position lookup is
+ * built once, instead of for every row. When a result contains the same column name more than
+ * once, lookups by name resolve to the last occurrence, which matches the behaviour of the
+ * HashMap rows previously produced by resultSetToList.
+ */
+public final class ColumnIndex {
+
+    private final String[] names;
+    private final Map<String, Integer> positions;
+    private final int[] keyPositions;
+    private final int hashCode;
+
+    /**
+     * Creates an index over the given column names.
+     *
+     * @param names the column names, in result order
+     */
+    public ColumnIndex(String... names) {
+        this.names = names.clone();
+        this.positions = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            positions.put(names[i], i);
+        }
+        this.keyPositions = new int[positions.size()];
+        int k = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (positions.get(names[i]) == i) {
+                keyPositions[k++] = i;
+            }
+        }
+        this.hashCode = Arrays.hashCode(this.names);
+    }
+
+    /**
+     * Builds an index from the metadata of a ResultSet.
+     *
+     * @param metaData the ResultSetMetaData to read the column names from
+     * @return the column index
+     * @throws SQLException if the metadata cannot be read
+     */
+    public static ColumnIndex from(ResultSetMetaData metaData) throws SQLException {
+        String[] names = new String[metaData.getColumnCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = metaData.getColumnName(i + 1);
+        }
+        return new ColumnIndex(names);
+    }
+
+    /**
+     * Gets the number of columns, including duplicate names.
+     *
+     * @return the column count
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets the name of the column at the given zero-based position.
+     *
+     * @param index the zero-based column position
+     * @return the column name
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Gets the zero-based position of the column with the given name.
+     *
+     * @param name the column name
+     * @return the column position, or -1 if the result has no such column
+     */
+    public int indexOf(Object name) {
+        Integer position = positions.get(name);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Gets the number of distinct column names, which is the size of a row seen as a Map.
+     *
+     * @return the number of distinct column names
+     */
+    int keyCount() {
+        return keyPositions.length;
+    }
+
+    /**
+     * Gets the column position backing the n-th distinct column name.
+     */
+    int keyPosition(int n) {
+        return keyPositions[n];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof ColumnIndex && Arrays.equals(names, ((ColumnIndex) other).names);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+}
@@ -0,0 +1,271 @@
+package com.aisa.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * A result row stored as a plain {@code Object[]} that shares its column names with every other
+ * row of the same result through a {@link ColumnIndex}.
+ *
+ * The row implements {@code Map<String, Object>} so it can be used wherever the HashMap rows
+ * previously returned by resultSetToList were used, but it only costs one array per row instead
+ * of a hash table with an entry object per column. Values can be replaced and removed, and keys
+ * that are not columns of the result can be added; those are kept in a small side map that is
+ * only allocated when needed.
+ */
+public final class CompactRow extends AbstractMap<String, Object> {
+
+    private static final Object ABSENT = new Object();
+
+    private final ColumnIndex columns;
+    private final Object[] values;
+    private Map<String, Object> extras;
+    private int absentCount;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Creates a row over the given values. The array is used as is, not copied.
+     *
+     * @param columns the column index shared by the rows of the result
+     * @param values  the column values, in result order
+     */
+    public CompactRow(ColumnIndex columns, Object[] values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values but got " + values.length);
+        }
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Reads the current row of a ResultSet.
+     *
+     * @param columns   the column index built from the ResultSet metadata
+     * @param resultSet the ResultSet positioned on the row to read
+     * @return the row
+     * @throws SQLException if a column value cannot be read
+     */
+    public static CompactRow read(ColumnIndex columns, ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resultSet.getObject(i + 1);
+        }
+        return new CompactRow(columns, values);
+    }
+
+    /**
+     * Gets the column index shared by the rows of the result.
+     *
+     * @return the column index
+     */
+    public ColumnIndex getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets a column value by its zero-based position, without a name lookup.
+     *
+     * @param index the zero-based column position
+     * @return the column value
+     */
+    public Object getValue(int index) {
+        Object value = values[index];
+        return value == ABSENT ? null : value;
+    }
+
+    /**
+     * Estimates the heap size of the values in this row.
+     */
+    long estimateBytes() {
+        long bytes = 0;
+        for (Object value : values) {
+            if (value != ABSENT) {
+                bytes += DatabaseMetrics.estimateBytes(value);
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = columns.indexOf(key);
+        if (index >= 0) {
+            Object value = values[index];
+            return value == ABSENT ? null : value;
+        }
+        return extras == null ? null : extras.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = columns.indexOf(key);
+        if (index >= 0) {
+            return values[index] != ABSENT;
+        }
+        return extras != null && extras.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int index = columns.indexOf(key);
+        if (index >= 0) {
+            Object previous = values[index];
+            values[index] = value;
+            if (previous == ABSENT) {
+                absentCount--;
+                return null;
+            }
+            return previous;
+        }
+        if (extras == null) {
+            extras = new LinkedHashMap<>();
+        }
+        return extras.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int index = columns.indexOf(key);
+        if (index >= 0) {
+            Object previous = values[index];
+            if (previous == ABSENT) {
+                return null;
+            }
+            values[index] = ABSENT;
+            absentCount++;
+            return previous;
+        }
+        return extras == null ? null : extras.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        for (int n = 0; n < columns.keyCount(); n++) {
+            values[columns.keyPosition(n)] = ABSENT;
+        }
+        absentCount = columns.keyCount();
+        extras = null;
+    }
+
+    @Override
+    public int size() {
+        return columns.keyCount() - absentCount + (extras == null ? 0 : extras.size());
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CompactRow.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int nextKey = advance(0);
+        private int lastPosition = -1;
+        private Iterator<Map.Entry<String, Object>> extrasIterator;
+
+        private int advance(int from) {
+            int n = from;
+            while (n < columns.keyCount() && values[columns.keyPosition(n)] == ABSENT) {
+                n++;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextKey < columns.keyCount()) {
+                return true;
+            }
+            if (extrasIterator == null && extras != null) {
+                extrasIterator = extras.entrySet().iterator();
+            }
+            return extrasIterator != null && extrasIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextKey < columns.keyCount()) {
+                lastPosition = columns.keyPosition(nextKey);
+                nextKey = advance(nextKey + 1);
+                return new ColumnEntry(lastPosition);
+            }
+            lastPosition = -1;
+            return extrasIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastPosition >= 0) {
+                if (values[lastPosition] == ABSENT) {
+                    throw new IllegalStateException();
+                }
+                values[lastPosition] = ABSENT;
+                absentCount++;
+            } else if (extrasIterator != null) {
+                extrasIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private final class ColumnEntry implements Map.Entry<String, Object> {
+        private final int position;
+
+        private ColumnEntry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() {
+            return columns.getName(position);
+        }
+
+        @Override
+        public Object getValue() {
+            return CompactRow.this.getValue(position);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = getValue();
+            values[position] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+            return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
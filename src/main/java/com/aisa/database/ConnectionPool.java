@@ -0,0 +1,561 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lightweight pooled {@link DataSource} shared by all the *UtilLib classes.
+ *
+ * Connections handed out by the pool are proxies: calling {@link Connection#close()} on them,
+ * directly or through any of the closeConnection helpers, returns the physical connection to the
+ * pool instead of tearing it down. The pool keeps at least {@code minIdle} idle connections open,
+ * never holds more than {@code maxPoolSize}, evicts connections that stay idle too long and
+ * optionally validates idle connections before handing them out again.
+ *
+ * {@link Connection#unwrap(Class)} returns the lease itself for {@code Connection}. Unwrapping to
+ * a vendor interface such as {@code PGConnection} returns the physical connection, which must not
+ * be closed and must not be used after the lease has been closed.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
+    private static final int MAX_WARM_UP_THREADS = 16;
+
+    private final String url;
+    private final Properties properties;
+    private final ConnectionPoolConfig config;
+    private final String poolName;
+
+    // Most recently returned connections sit at the head, so borrowers reuse warm connections
+    // and the evictor trims from the tail.
+    private final LinkedBlockingDeque<PooledEntry> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore borrowPermits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    // Connections a warm-up is opening for the idle connections
+    private final AtomicInteger warmingConnections = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+
+    private volatile boolean closed;
+    private volatile PrintWriter logWriter;
+    private volatile int loginTimeout;
+
+    /**
+     * Creates a pool of connections to the given JDBC URL.
+     *
+     * @param url      the JDBC URL of the database
+     * @param user     the database user
+     * @param password the user's password
+     * @param config   the pool settings
+     */
+    public ConnectionPool(String url, String user, String password, ConnectionPoolConfig config) {
+        this(url, credentials(user, password), config);
+    }
+
+    /**
+     * Creates a pool of connections to the given JDBC URL using a Properties object.
+     *
+     * @param url        the JDBC URL of the database
+     * @param properties the connection properties, including user and password
+     * @param config     the pool settings
+     */
+    public ConnectionPool(String url, Properties properties, ConnectionPoolConfig config) {
+        if (config.getMaxPoolSize() < 1) {
+            throw new IllegalArgumentException("maxPoolSize must be at least 1");
+        }
+        this.url = url;
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+        this.config = config;
+        this.poolName = "aisa-db-pool-" + POOL_SEQUENCE.incrementAndGet();
+        this.borrowPermits = new Semaphore(config.getMaxPoolSize(), config.isFair());
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, poolName + "-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor.scheduleWithFixedDelay(this::maintain, 0L,
+                config.getEvictionIntervalMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Created connection pool {} (min idle {}, max size {}).",
+                poolName, config.getMinIdle(), config.getMaxPoolSize());
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new physical connection if no idle one is
+     * available and the pool has not reached its maximum size.
+     *
+     * @return a pooled connection; closing it returns it to the pool
+     * @throws SQLException if the pool is closed, the borrow times out or a database access error occurs
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        try {
+            acquirePermit();
+        } catch (SQLException e) {
+            DatabaseMetrics.recordAcquire(start, true);
+            throw e;
+        }
+        try {
+            PooledEntry entry;
+            while ((entry = idleConnections.pollFirst()) != null) {
+                if (!config.isValidateOnBorrow() || isUsable(entry)) {
+                    Connection lease = entry.lease();
+                    DatabaseMetrics.recordAcquire(start, false);
+                    return lease;
+                }
+                logger.warn("Discarding invalid connection from pool {}.", poolName);
+                discard(entry);
+            }
+            Connection lease = openEntry().lease();
+            DatabaseMetrics.recordAcquire(start, false);
+            return lease;
+        } catch (SQLException | RuntimeException e) {
+            borrowPermits.release();
+            DatabaseMetrics.recordAcquire(start, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Not supported: a pool always connects with the credentials it was created with.
+     *
+     * @param username ignored
+     * @param password ignored
+     * @return never returns normally
+     * @throws SQLException always
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("ConnectionPool does not support per-call credentials.");
+    }
+
+    /**
+     * Gets the maximum number of physical connections the pool may hold.
+     *
+     * @return the maximum pool size
+     */
+    public int getMaxPoolSize() {
+        return config.getMaxPoolSize();
+    }
+
+    /**
+     * Gets the number of physical connections currently held by the pool.
+     *
+     * @return the number of open physical connections
+     */
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /**
+     * Gets the number of connections waiting in the pool to be borrowed.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Gets the number of connections currently borrowed from the pool.
+     *
+     * @return the number of active connections
+     */
+    public int getActiveConnections() {
+        return config.getMaxPoolSize() - borrowPermits.availablePermits();
+    }
+
+    /**
+     * Gets an estimate of the number of threads waiting for a connection.
+     *
+     * @return the number of waiting threads
+     */
+    public int getWaitingThreads() {
+        return borrowPermits.getQueueLength();
+    }
+
+    /**
+     * Opens connections in parallel until the pool holds the given number, so the first
+     * requests after startup do not pay for connecting, TLS negotiation and authentication.
+     *
+     * Each new connection is validated and the given statements are prepared on it through the
+     * {@link StatementCache} before it is added to the idle connections. Connections that fail
+     * are closed and logged; the call only fails if none could be opened.
+     *
+     * @param connections   the number of connections the pool should hold, capped at the maximum pool size
+     * @param hotStatements SQL to prepare on each new connection; may be empty
+     * @return the number of connections opened
+     * @throws SQLException if the pool is closed, the call is interrupted or no connection could be opened
+     */
+    public int warmUp(int connections, List<String> hotStatements) throws SQLException {
+        ensureOpen();
+        int toOpen = Math.min(connections, config.getMaxPoolSize()) - totalConnections.get();
+        if (toOpen <= 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        AtomicInteger threadSequence = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(toOpen, MAX_WARM_UP_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, poolName + "-warmup-" + threadSequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>(toOpen);
+            for (int i = 0; i < toOpen; i++) {
+                warmingConnections.incrementAndGet();
+                tasks.add(executor.submit(() -> {
+                    try {
+                        if (!offerIdle(openWarm(hotStatements))) {
+                            throw new SQLException("Connection pool " + poolName + " was closed during warm-up.");
+                        }
+                        return null;
+                    } finally {
+                        warmingConnections.decrementAndGet();
+                    }
+                }));
+            }
+            int opened = 0;
+            SQLException failure = null;
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                    opened++;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    logger.warn("Could not open a connection while warming up pool {}.", poolName, cause);
+                    if (failure == null) {
+                        failure = cause instanceof SQLException ? (SQLException) cause
+                                : new SQLException("Error warming up connection pool " + poolName, cause);
+                    }
+                }
+            }
+            logger.info("Warmed up {} of {} connections in pool {} in {} ms.", opened, toOpen, poolName,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (opened == 0 && failure != null) {
+                throw failure;
+            }
+            return opened;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while warming up connection pool " + poolName, e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Closes the pool. Idle connections are closed immediately; borrowed connections are
+     * closed when they are returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idleConnections.pollFirst()) != null) {
+            discard(entry);
+        }
+        logger.info("Connection pool {} closed.", poolName);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("ConnectionPool logs through SLF4J.");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ConnectionPool is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Indicates whether a connection is a lease handed out by a ConnectionPool.
+     */
+    static boolean isLease(Connection connection) {
+        return Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof LeaseHandler;
+    }
+
+    /**
+     * Gets the physical connection behind a pool lease, or the connection itself if it is not
+     * a lease.
+     */
+    static Connection physicalConnection(Connection connection) {
+        if (isLease(connection)) {
+            return ((LeaseHandler) Proxy.getInvocationHandler(connection)).entry.connection;
+        }
+        return connection;
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool " + poolName + " is closed.");
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!borrowPermits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMillis()
+                        + " ms waiting for a connection from pool " + poolName + ".");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+        }
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        try {
+            return entry.connection.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry openEntry() throws SQLException {
+        totalConnections.incrementAndGet();
+        try {
+            return new PooledEntry(DriverManager.getConnection(url, properties));
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private PooledEntry openWarm(List<String> hotStatements) throws SQLException {
+        PooledEntry entry = openEntry();
+        try {
+            if (!entry.connection.isValid(config.getValidationTimeoutSeconds())) {
+                throw new SQLException("New connection in pool " + poolName + " failed validation.");
+            }
+            for (String sql : hotStatements) {
+                StatementCache.preload(entry.connection, sql);
+            }
+            return entry;
+        } catch (SQLException | RuntimeException e) {
+            discard(entry);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a newly opened connection to the back of the idle connections, or closes it if the
+     * pool has been closed. The second check catches a close that drained the idle connections
+     * between the first check and the offer.
+     */
+    private boolean offerIdle(PooledEntry entry) {
+        if (!closed) {
+            idleConnections.offerLast(entry);
+            if (!closed || !idleConnections.removeFirstOccurrence(entry)) {
+                return true;
+            }
+        }
+        discard(entry);
+        return false;
+    }
+
+    private void discard(PooledEntry entry) {
+        StatementCache.evict(entry.connection);
+        try {
+            entry.connection.close();
+        } catch (SQLException e) {
+            logger.error("Error closing pooled connection.", e);
+        } finally {
+            totalConnections.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes a connection back from a borrower. Transactions left open are rolled back so the
+     * next borrower always starts in auto-commit mode.
+     */
+    private void release(PooledEntry entry) {
+        try {
+            if (closed || entry.connection.isClosed()) {
+                discard(entry);
+                return;
+            }
+            if (!entry.connection.getAutoCommit()) {
+                try {
+                    entry.connection.rollback();
+                } finally {
+                    QueryResultCache.transactionEnded(entry.connection);
+                }
+                entry.connection.setAutoCommit(true);
+            }
+            entry.lastReleasedAt = System.nanoTime();
+            idleConnections.offerFirst(entry);
+        } catch (SQLException e) {
+            logger.warn("Discarding connection that could not be reset for reuse.", e);
+            discard(entry);
+        } finally {
+            borrowPermits.release();
+        }
+    }
+
+    /**
+     * Evicts connections idle for longer than the idle timeout, then tops the pool back up to
+     * its minimum idle size.
+     */
+    private void maintain() {
+        try {
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+            long now = System.nanoTime();
+            Iterator<PooledEntry> oldestFirst = idleConnections.descendingIterator();
+            while (oldestFirst.hasNext() && idleConnections.size() > config.getMinIdle()) {
+                PooledEntry entry = oldestFirst.next();
+                if (now - entry.lastReleasedAt > idleTimeoutNanos && idleConnections.removeFirstOccurrence(entry)) {
+                    logger.debug("Evicting idle connection from pool {}.", poolName);
+                    discard(entry);
+                }
+            }
+            // Borrowed connections do not count towards minIdle, so a busy pool still keeps spare
+            // connections ready, up to the maximum pool size.
+            while (!closed && idleConnections.size() + warmingConnections.get() < config.getMinIdle()
+                    && totalConnections.get() < config.getMaxPoolSize()) {
+                offerIdle(openEntry());
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Connection pool {} maintenance failed.", poolName, e);
+        }
+    }
+
+    private static Properties credentials(String user, String password) {
+        Properties properties = new Properties();
+        if (user != null) {
+            properties.setProperty("user", user);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        return properties;
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledEntry {
+        private final Connection connection;
+        private volatile long lastReleasedAt = System.nanoTime();
+
+        private PooledEntry(Connection connection) {
+            this.connection = connection;
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Handles calls made on a borrowed connection. Each borrow gets its own handler so a
+     * connection closed by one borrower cannot be used to reach the next borrower's session.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || entry.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return poolName + " lease of " + entry.connection;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    return invokeLeased(method, args);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) invokeLeased(method, args);
+                default:
+                    return invokeLeased(method, args);
+            }
+        }
+
+        private Object invokeLeased(Method method, Object[] args) throws Throwable {
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to pool " + poolName + ".");
+            }
+            try {
+                return method.invoke(entry.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
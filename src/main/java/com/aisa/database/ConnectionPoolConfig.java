@@ -0,0 +1,163 @@
+package com.aisa.database;
+
+/**
+ * Sizing and housekeeping settings for a {@link ConnectionPool}.
+ *
+ * All durations are expressed in milliseconds unless stated otherwise. The defaults
+ * are suitable for a small service or test suite and can be adjusted through the setters.
+ */
+public class ConnectionPoolConfig {
+
+    private int minIdle = 0;
+    private int maxPoolSize = 10;
+    private long borrowTimeoutMillis = 30_000L;
+    private long idleTimeoutMillis = 600_000L;
+    private long evictionIntervalMillis = 30_000L;
+    private boolean validateOnBorrow = true;
+    private int validationTimeoutSeconds = 5;
+    private boolean fair = true;
+
+    /**
+     * Gets the number of idle connections the pool tries to keep open.
+     *
+     * @return the minimum number of idle connections
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Sets the number of idle connections the pool tries to keep open.
+     *
+     * @param minIdle the minimum number of idle connections
+     */
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * Gets the maximum number of physical connections the pool may hold.
+     *
+     * @return the maximum pool size
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Sets the maximum number of physical connections the pool may hold.
+     *
+     * @param maxPoolSize the maximum pool size
+     */
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * Gets how long a caller waits for a free connection before giving up.
+     *
+     * @return the borrow timeout in milliseconds
+     */
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a caller waits for a free connection before giving up.
+     *
+     * @param borrowTimeoutMillis the borrow timeout in milliseconds
+     */
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    /**
+     * Gets how long a connection may stay idle before it is evicted.
+     *
+     * @return the idle timeout in milliseconds
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a connection may stay idle before it is evicted.
+     *
+     * @param idleTimeoutMillis the idle timeout in milliseconds
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Gets the interval between two runs of the idle connection evictor.
+     *
+     * @return the eviction interval in milliseconds
+     */
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    /**
+     * Sets the interval between two runs of the idle connection evictor.
+     *
+     * @param evictionIntervalMillis the eviction interval in milliseconds
+     */
+    public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    /**
+     * Indicates whether idle connections are validated before being handed out.
+     *
+     * @return true if connections are validated on borrow
+     */
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    /**
+     * Sets whether idle connections are validated before being handed out.
+     *
+     * @param validateOnBorrow true to validate connections on borrow
+     */
+    public void setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    /**
+     * Gets the timeout passed to {@link java.sql.Connection#isValid(int)} during validation.
+     *
+     * @return the validation timeout in seconds
+     */
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    /**
+     * Sets the timeout passed to {@link java.sql.Connection#isValid(int)} during validation.
+     *
+     * @param validationTimeoutSeconds the validation timeout in seconds
+     */
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Indicates whether waiting callers are served in arrival order.
+     *
+     * @return true if the borrow queue is fair
+     */
+    public boolean isFair() {
+        return fair;
+    }
+
+    /**
+     * Sets whether waiting callers are served in arrival order.
+     *
+     * @param fair true to use a first-in first-out borrow queue
+     */
+    public void setFair(boolean fair) {
+        this.fair = fair;
+    }
+}
@@ -0,0 +1,19 @@
+package com.aisa.database;
+
+/**
+ * The PostgreSQL COPY data formats supported for row-level COPY.
+ */
+public enum CopyFormat {
+
+    /**
+     * Tab-separated text with backslash escapes and {@code \N} for NULL. Values are read back
+     * as Strings.
+     */
+    TEXT,
+
+    /**
+     * The PostgreSQL binary COPY format. Cheaper for the server to parse, but each Java value
+     * must match the type of its target column exactly, e.g. a Long for a {@code bigint} column.
+     */
+    BINARY
+}
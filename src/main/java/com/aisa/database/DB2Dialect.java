@@ -0,0 +1,92 @@
+package com.aisa.database;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The DB2 dialect. Settings are appended to the URL in the JCC {@code :name=value;} format, and
+ * queries are marked {@code FOR FETCH ONLY} so the server can block-fetch their rows.
+ */
+final class DB2Dialect implements Dialect {
+
+    private static final Pattern READ_ONLY_CANDIDATE = Pattern.compile("^\\s*(SELECT|WITH)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CURSOR_INTENT = Pattern.compile(
+            "\\bFOR\\s+(UPDATE|READ\\s+ONLY|FETCH\\s+ONLY)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern TRAILING_CLAUSES = Pattern.compile(
+            "(\\s+OPTIMIZE\\s+FOR\\s+\\d+\\s+ROWS?)?(\\s+WITH\\s+(UR|CS|RS|RR)(\\s+USE\\s+AND\\s+KEEP\\s+\\w+\\s+LOCKS)?)?\\s*;?\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
+    private final DialectProfile profile = new DialectProfile();
+
+    DB2Dialect() {
+        profile.setQueryBlockSize(DB2UtilLib.DEFAULT_QUERY_DATA_SIZE);
+        profile.setReadOnlyHints(true);
+    }
+
+    @Override
+    public String getName() {
+        return "DB2";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "com.ibm.db2.jcc.DB2Driver";
+    }
+
+    @Override
+    public boolean acceptsUrl(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:db2:");
+    }
+
+    @Override
+    public DialectProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public String prepareUrl(String dbUrl) {
+        // JCC properties follow the database name as ":name=value;name=value;"
+        StringBuilder url = new StringBuilder(dbUrl);
+        int databaseStart = dbUrl.contains("//") ? dbUrl.lastIndexOf('/') + 1
+                : dbUrl.indexOf(':', dbUrl.indexOf(':') + 1) + 1;
+        boolean hasProperties = dbUrl.indexOf(':', databaseStart) >= 0;
+        if (!hasProperties) {
+            url.append(':');
+        } else if (!dbUrl.endsWith(";")) {
+            url.append(';');
+        }
+        if (profile.getQueryBlockSize() > 0 && !dbUrl.contains("queryDataSize=")) {
+            url.append("queryDataSize=").append(profile.getQueryBlockSize()).append(';');
+        }
+        if (!dbUrl.contains("enableRowsetSupport=")) {
+            url.append("enableRowsetSupport=1;");
+        }
+        if (profile.getLoginTimeoutSeconds() > 0 && !dbUrl.contains("loginTimeout=")) {
+            url.append("loginTimeout=").append(profile.getLoginTimeoutSeconds()).append(';');
+        }
+        String prepared = url.toString();
+        return prepared.endsWith(":") ? dbUrl : prepared;
+    }
+
+    @Override
+    public String prepareQuery(String query) {
+        return profile.isReadOnlyHints() ? withReadOnlyHint(query) : query;
+    }
+
+    /**
+     * Appends {@code FOR FETCH ONLY} to a SELECT or WITH query that does not declare its cursor
+     * intent, so DB2 opens a read-only cursor and block-fetches its rows. The clause is placed
+     * before any trailing OPTIMIZE FOR or isolation clause.
+     */
+    static String withReadOnlyHint(String query) {
+        if (!READ_ONLY_CANDIDATE.matcher(query).find() || CURSOR_INTENT.matcher(query).find()) {
+            return query;
+        }
+        Matcher trailing = TRAILING_CLAUSES.matcher(query);
+        trailing.find();
+        String tail = query.substring(trailing.start()).replaceFirst("\\s*;?\\s*$", "");
+        return query.substring(0, trailing.start()) + " FOR FETCH ONLY" + tail;
+    }
+}
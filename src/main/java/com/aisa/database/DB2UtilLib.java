@@ -1,7 +1,11 @@
 package com.aisa.database;
 
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,16 +15,28 @@ import org.slf4j.LoggerFactory;
  * This class provides various methods to interact with a DB2 database, including
  * establishing connections, executing queries and updates,
  * and converting ResultSets to more usable formats.
+ *
+ * The shared operations run on a {@link DialectEngine} for {@link Dialects#DB2}; its
+ * {@link DialectProfile} holds the query block size and read-only hint defaults.
  */
 public class DB2UtilLib {
 
     private static final Logger logger = LoggerFactory.getLogger(DB2UtilLib.class);
 
-    private static final String JDBC_DRIVER = "com.ibm.db2.jcc.DB2Driver";
+    private static final DialectEngine ENGINE = new DialectEngine(Dialects.DB2);
+
+    /**
+     * The query block size, in bytes, requested from the server on connections opened by this
+     * class. Larger blocks carry more rows of a read-only cursor per round trip.
+     */
+    public static final int DEFAULT_QUERY_DATA_SIZE = 65535;
 
     /**
      * Establishes a connection to the DB2 database.
      *
+     * Unless the URL sets them, the connection requests query blocks of
+     * {@value #DEFAULT_QUERY_DATA_SIZE} bytes and multi-row fetch on DB2 for z/OS.
+     *
      * @param dbUrl    the database URL in the format jdbc:db2://host:port/database
      * @param user     the database user
      * @param password the user's password
@@ -28,28 +44,73 @@ public class DB2UtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static Connection getConnection(String dbUrl, String user, String password) throws SQLException {
-        logger.info("Establishing connection to the DB2 database.");
-        try {
-            Class.forName(JDBC_DRIVER);
-        } catch (ClassNotFoundException e) {
-            logger.error("DB2 JDBC driver not found.", e);
-            throw new SQLException("DB2 JDBC driver not found.", e);
-        }
-        return DriverManager.getConnection(dbUrl, user, password);
+        return ENGINE.getConnection(dbUrl, user, password);
+    }
+
+    /**
+     * Creates a pool of connections to the DB2 database.
+     *
+     * Connections borrowed from the pool are returned to it by {@link #closeConnection(Connection)}
+     * instead of being torn down.
+     *
+     * @param dbUrl    the database URL
+     * @param user     the database user
+     * @param password the user's password
+     * @param config   the pool sizing, eviction and validation settings
+     * @return the connection pool
+     * @throws SQLException if the JDBC driver cannot be loaded
+     */
+    public static ConnectionPool createConnectionPool(String dbUrl, String user, String password,
+                                                      ConnectionPoolConfig config) throws SQLException {
+        return ENGINE.createConnectionPool(dbUrl, user, password, config);
+    }
+
+    /**
+     * Warms up a DB2 connection pool at startup so that latency right after a deploy matches
+     * steady state.
+     *
+     * The JDBC driver is registered once, the given number of connections are opened and
+     * validated in parallel, and each hot statement is prepared on every new connection so that
+     * the first parameterized executeQuery or executeUpdate with the same SQL reuses it.
+     *
+     * @param pool          a pool created by {@link #createConnectionPool(String, String, String, ConnectionPoolConfig)}
+     * @param connections   the number of connections the pool should hold afterwards
+     * @param hotStatements SQL with {@code ?} placeholders to prepare on each new connection
+     * @return the number of connections opened
+     * @throws SQLException if the driver cannot be loaded or no connection could be opened
+     */
+    public static int warmUp(ConnectionPool pool, int connections, String... hotStatements) throws SQLException {
+        return ENGINE.warmUp(pool, connections, Arrays.asList(hotStatements));
+    }
+
+    /**
+     * Borrows a connection from a pooled DataSource such as a {@link ConnectionPool}.
+     *
+     * @param dataSource the DataSource to borrow from
+     * @return the connection object
+     * @throws SQLException if a database access error occurs or no connection becomes available in time
+     */
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        logger.info("Borrowing connection from the connection pool.");
+        return dataSource.getConnection();
     }
 
     /**
      * Executes a query on the DB2 database.
      *
+     * SELECT and WITH queries without a FOR UPDATE, FOR READ ONLY or FOR FETCH ONLY clause are
+     * run with {@code FOR FETCH ONLY} appended, which lets the server block-fetch the rows.
+     *
+     * The Statement is closed when the returned ResultSet is closed, so close the ResultSet, or
+     * use {@link #query(Connection, String, RowHandler)} to have both closed automatically.
+     *
      * @param connection the connection object
      * @param query      the SQL query to be executed
      * @return the ResultSet object containing the results of the query
      * @throws SQLException if a database access error occurs
      */
     public static ResultSet executeQuery(Connection connection, String query) throws SQLException {
-        logger.info("Executing query: {}", query);
-        Statement stmt = connection.createStatement();
-        return stmt.executeQuery(query);
+        return ENGINE.executeQuery(connection, query);
     }
 
     /**
@@ -61,34 +122,328 @@ public class DB2UtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static int executeUpdate(Connection connection, String update) throws SQLException {
-        logger.info("Executing update: {}", update);
-        Statement stmt = connection.createStatement();
-        return stmt.executeUpdate(update);
+        return ENGINE.executeUpdate(connection, update);
+    }
+
+    /**
+     * Executes a parameterized query on the DB2 database.
+     *
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSet executeQuery(Connection connection, String query, Object... params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a query with named parameters on the DB2 database.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     * @see NamedParameterSql
+     */
+    public static ResultSet executeQuery(Connection connection, String query, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a parameterized query on the DB2 database, or returns its cached rows when the
+     * same query was run with equal parameters recently. Updates made through this class
+     * invalidate cached results of the tables they write to; see {@link QueryResultCache}.
+     *
+     * @param connection the connection object, only used when the result is not cached
+     * @param cache      the cache to answer from and store the result in
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return a read-only List of read-only rows
+     * @throws SQLException if a database access error occurs
+     */
+    public static List<Map<String, Object>> executeCachedQuery(Connection connection, QueryResultCache cache,
+                                                              String query, Object... params) throws SQLException {
+        return ENGINE.executeCachedQuery(connection, cache, query, params);
+    }
+
+    /**
+     * Executes a parameterized update on the DB2 database.
+     *
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs
+     */
+    public static int executeUpdate(Connection connection, String update, Object... params) throws SQLException {
+        return ENGINE.executeUpdate(connection, update, params);
+    }
+
+    /**
+     * Executes an update with named parameters on the DB2 database.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     * @see NamedParameterSql
+     */
+    public static int executeUpdate(Connection connection, String update, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeUpdate(connection, update, params);
+    }
+
+    /**
+     * Executes a parameterized statement once per parameter row on the DB2 database,
+     * sending the rows in batches of {@code batchSize}.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Iterable<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Executes a parameterized statement once per row of a stream on the DB2 database,
+     * sending the rows in batches of {@code batchSize}. The stream is consumed lazily.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Stream<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Bulk loads rows into a DB2 table with multi-row INSERT statements sent in JCC batches.
+     *
+     * Rows are grouped into INSERT statements of up to 100 rows, fewer for wide tables so the
+     * statement stays within DB2's parameter limit, and about {@code batchSize} rows are sent
+     * per round trip. Rows are read from the iterable as they are sent.
+     *
+     * @param connection the connection object
+     * @param table      the target table
+     * @param columns    the target columns, in row order
+     * @param rows       the values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     */
+    public static List<int[]> bulkInsert(Connection connection, String table, List<String> columns,
+                                         Iterable<Object[]> rows, int batchSize) throws SQLException {
+        logger.info("Executing bulk insert into {}", table);
+        return MultiRowInsert.execute(connection, table, columns, rows.iterator(), batchSize);
+    }
+
+    /**
+     * Bulk loads a stream of rows into a DB2 table with multi-row INSERT statements sent in JCC
+     * batches. The stream is consumed lazily.
+     *
+     * @param connection the connection object
+     * @param table      the target table
+     * @param columns    the target columns, in row order
+     * @param rows       the values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see #bulkInsert(Connection, String, List, Iterable, int)
+     */
+    public static List<int[]> bulkInsert(Connection connection, String table, List<String> columns,
+                                         Stream<Object[]> rows, int batchSize) throws SQLException {
+        logger.info("Executing bulk insert into {}", table);
+        return MultiRowInsert.execute(connection, table, columns, rows.iterator(), batchSize);
     }
 
     /**
      * Converts a ResultSet to a List of Maps.
      *
+     * Each row is a {@link CompactRow}: the column names are read once and shared by all rows,
+     * and the values of a row are held in a single array.
+     *
      * @param resultSet the ResultSet to be converted
      * @return a List of Maps, where each Map represents a row with column names as keys
      *         and column values as values
      * @throws SQLException if there is an error accessing the ResultSet
      */
     public static List<Map<String, Object>> resultSetToList(ResultSet resultSet) throws SQLException {
-        logger.info("Converting ResultSet to List of Maps.");
-        List<Map<String, Object>> list = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        return ENGINE.resultSetToList(resultSet);
+    }
+
+    /**
+     * Reads a ResultSet into a result that keeps rows on the heap up to a byte budget and
+     * spills the rest to a memory-mapped temporary file.
+     *
+     * Use it instead of {@link #resultSetToList(ResultSet)} when the whole result is needed for
+     * random access but may be too large for the heap. Rows are read by index and column in the
+     * same way as a {@link TabularResult}.
+     *
+     * @param resultSet         the ResultSet to be read
+     * @param memoryBudgetBytes the estimated heap size rows may take before spilling
+     * @return the result; close it to delete the spill file
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public static SpillableResult resultSetToSpillable(ResultSet resultSet, long memoryBudgetBytes) throws SQLException {
+        return ENGINE.resultSetToSpillable(resultSet, memoryBudgetBytes);
+    }
+
+    /**
+     * Maps a ResultSet to a list of POJOs.
+     *
+     * Columns are matched to setters or fields once per POJO class and result shape, and the
+     * resolved plan is cached; see {@link PojoMapper}.
+     *
+     * @param resultSet the ResultSet to be mapped
+     * @param pojoClass the class of the POJO; it must have a no-argument constructor
+     * @param <T>       the type of the POJO
+     * @return a List of POJOs, one per row
+     * @throws SQLException if a database access error occurs or a value cannot be converted
+     */
+    public static <T> List<T> mapResultSetToPOJO(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
+        return ENGINE.mapResultSetToPOJO(resultSet, pojoClass);
+    }
 
-        while (resultSet.next()) {
-            Map<String, Object> row = new HashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                row.put(metaData.getColumnName(i), resultSet.getObject(i));
-            }
-            list.add(row);
-        }
+    /**
+     * Executes a query on the DB2 database and returns an iterator that fetches rows lazily.
+     *
+     * Unlike {@link #resultSetToList(ResultSet)}, rows are read from the driver only as the
+     * iterator advances. The Statement and ResultSet are closed once the last row has been read
+     * or when the iterator is closed.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the fetch size of the dialect profile
+     * @return a closeable iterator over the rows of the result
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSetIterator iterateQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return ENGINE.iterateQuery(connection, query, fetchSize);
+    }
 
-        return list;
+    /**
+     * Executes a query on the DB2 database and returns a Stream that fetches rows lazily.
+     *
+     * The Stream must be closed, for example with try-with-resources, unless it is always
+     * consumed to the end.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the fetch size of the dialect profile
+     * @return a Stream of rows backed by an open ResultSet
+     * @throws SQLException if a database access error occurs
+     * @see #iterateQuery(Connection, String, int)
+     */
+    public static Stream<Map<String, Object>> streamQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return iterateQuery(connection, query, fetchSize).stream();
+    }
+
+    /**
+     * Executes a query on the DB2 database and writes its rows to a stream as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched, so memory use stays flat however many
+     * rows the query returns.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param out        the stream to write to; flushed but not closed
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public static long exportQuery(Connection connection, String query, OutputStream out, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, out, format, options);
+    }
+
+    /**
+     * Executes a query on the DB2 database and writes its rows to a file as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param file       the file to write; it is created or truncated
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the file cannot be written
+     */
+    public static long exportQuery(Connection connection, String query, Path file, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, file, format, options);
+    }
+
+    /**
+     * Returns the saved snapshot of a query on the DB2 database, taking a new one if the file
+     * is missing or was saved under a different version key.
+     *
+     * Expensive baseline queries that are read on every run, such as in regression suites, are
+     * then only executed when the version key changes; later runs read the rows from the
+     * memory-mapped snapshot through {@link ResultSnapshot#resultSet()} or by row index.
+     *
+     * @param connection the connection object; only used when the snapshot has to be taken
+     * @param query      the SQL query to be executed
+     * @param file       the snapshot file
+     * @param versionKey the key the snapshot must be valid for, such as a schema or data version
+     * @return the loaded snapshot
+     * @throws SQLException if a database access error occurs or the snapshot cannot be written or read
+     */
+    public static ResultSnapshot snapshotQuery(Connection connection, String query, Path file, String versionKey)
+            throws SQLException {
+        return ENGINE.snapshotQuery(connection, query, file, versionKey);
+    }
+
+    /**
+     * Executes a query on the DB2 database and passes each row to a handler.
+     *
+     * Unlike {@link #executeQuery(Connection, String)}, nothing is left for the caller to
+     * close: the Statement and ResultSet are closed when the last row has been handled or when
+     * the query or the handler throws, so cursors cannot leak.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler) throws SQLException {
+        return ENGINE.query(connection, query, handler);
+    }
+
+    /**
+     * Executes a parameterized query on the DB2 database through the statement cache and
+     * passes each row to a handler, closing the ResultSet when done.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler, Object... params)
+            throws SQLException {
+        return ENGINE.query(connection, query, handler, params);
     }
 
     /**
@@ -98,9 +453,7 @@ public class DB2UtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static void commitTransaction(Connection connection) throws SQLException {
-        logger.info("Committing transaction.");
-        connection.commit();
-        connection.setAutoCommit(true);
+        ENGINE.commitTransaction(connection);
     }
 
     /**
@@ -110,25 +463,17 @@ public class DB2UtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static void rollbackTransaction(Connection connection) throws SQLException {
-        logger.info("Rolling back transaction.");
-        connection.rollback();
-        connection.setAutoCommit(true);
+        ENGINE.rollbackTransaction(connection);
     }
 
     /**
-     * Closes the database connection.
+     * Closes the database connection. Connections borrowed from a {@link ConnectionPool}
+     * are returned to the pool.
      *
      * @param connection the connection object to be closed
      */
     public static void closeConnection(Connection connection) {
-        logger.info("Closing database connection.");
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database connection.", e);
-            }
-        }
+        ENGINE.closeConnection(connection);
     }
 
     /**
@@ -137,14 +482,7 @@ public class DB2UtilLib {
      * @param statement the statement object to be closed
      */
     public static void closeStatement(Statement statement) {
-        logger.info("Closing database statement.");
-        if (statement != null) {
-            try {
-                statement.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database statement.", e);
-            }
-        }
+        ENGINE.closeStatement(statement);
     }
 
     /**
@@ -153,13 +491,6 @@ public class DB2UtilLib {
      * @param resultSet the ResultSet object to be closed
      */
     public static void closeResultSet(ResultSet resultSet) {
-        logger.info("Closing database ResultSet.");
-        if (resultSet != null) {
-            try {
-                resultSet.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database ResultSet.", e);
-            }
-        }
+        ENGINE.closeResultSet(resultSet);
     }
 }
\ No newline at end of file
@@ -0,0 +1,460 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Records latency and throughput of the statements, fetches, pool borrows and closes performed
+ * by this library, and publishes them through JMX and {@link MetricsListener}s.
+ *
+ * Executions are grouped by statement fingerprint: the SQL text with string and numeric literals
+ * replaced by {@code ?} and {@code IN} lists collapsed, so statements that differ only in inlined
+ * values share one latency histogram. The fingerprint of each distinct SQL text is computed once
+ * and cached for up to {@value #MAX_SQL_TEXTS} texts, after which recording a measurement performs
+ * no allocation; texts beyond that limit are fingerprinted on every execution. Once
+ * {@value #MAX_FINGERPRINTS} fingerprints are tracked, statements with a new fingerprint are
+ * counted under {@link #OTHER}.
+ *
+ * Call {@link #registerMBean()} once at startup to expose the metrics as {@value #OBJECT_NAME}.
+ */
+public final class DatabaseMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMetrics.class);
+
+    /**
+     * The JMX object name the metrics are registered under.
+     */
+    public static final String OBJECT_NAME = "com.aisa.database:type=DatabaseMetrics";
+
+    /**
+     * The fingerprint fetches are recorded under when the statement that produced the rows is
+     * not known, such as for {@code resultSetToList} on a caller's ResultSet.
+     */
+    public static final String UNATTRIBUTED = "<unattributed>";
+
+    /**
+     * The fingerprint statements are recorded under once the tracking limits are reached.
+     */
+    public static final String OTHER = "<other>";
+
+    static final int MAX_FINGERPRINTS = 1000;
+
+    static final int MAX_SQL_TEXTS = 10000;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w$.])[-+]?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Map<String, StatementMetrics> BY_SQL = new ConcurrentHashMap<>();
+    private static final Map<String, StatementMetrics> BY_FINGERPRINT = new ConcurrentHashMap<>();
+
+    private static final LatencyHistogram ACQUIRE_LATENCY = new LatencyHistogram();
+    private static final AtomicLong ACQUIRE_ERRORS = new AtomicLong();
+    private static final AtomicLong CLOSES = new AtomicLong();
+
+    private static final Object LISTENER_LOCK = new Object();
+
+    private static volatile MetricsListener[] listeners = new MetricsListener[0];
+
+    private static volatile boolean enabled = true;
+
+    private DatabaseMetrics() {
+    }
+
+    /**
+     * Turns recording on or off. Recording is on by default.
+     *
+     * @param enabled true to record measurements
+     */
+    public static void setEnabled(boolean enabled) {
+        DatabaseMetrics.enabled = enabled;
+    }
+
+    /**
+     * Gets whether measurements are being recorded.
+     *
+     * @return true if recording is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a listener that receives every measurement from now on.
+     *
+     * @param listener the listener to add
+     */
+    public static void addListener(MetricsListener listener) {
+        synchronized (LISTENER_LOCK) {
+            MetricsListener[] current = listeners;
+            MetricsListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            listeners = updated;
+        }
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(MetricsListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public static void removeListener(MetricsListener listener) {
+        synchronized (LISTENER_LOCK) {
+            List<MetricsListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+            remaining.remove(listener);
+            listeners = remaining.toArray(new MetricsListener[0]);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the metrics of every statement fingerprint, slowest total time first.
+     *
+     * @return one snapshot per fingerprint
+     */
+    public static List<StatementStats> getStatementStats() {
+        List<StatementMetrics> all = new ArrayList<>(BY_FINGERPRINT.values());
+        all.sort(Comparator.comparingLong((StatementMetrics metrics) -> metrics.latency.getTotalNanos()).reversed());
+        List<StatementStats> stats = new ArrayList<>(all.size());
+        for (StatementMetrics metrics : all) {
+            stats.add(metrics.snapshot());
+        }
+        return stats;
+    }
+
+    /**
+     * Gets the snapshot of one statement fingerprint.
+     *
+     * @param sql the SQL text of the statement, or a fingerprint
+     * @return the snapshot, or null if nothing was recorded for the statement
+     */
+    public static StatementStats getStatementStats(String sql) {
+        StatementMetrics metrics = BY_FINGERPRINT.get(fingerprint(sql));
+        return metrics == null ? null : metrics.snapshot();
+    }
+
+    /**
+     * Gets the histogram of the time callers waited to borrow a pooled connection.
+     *
+     * @return the live histogram
+     */
+    public static LatencyHistogram getConnectionAcquireLatency() {
+        return ACQUIRE_LATENCY;
+    }
+
+    /**
+     * Discards all recorded measurements and statement fingerprints.
+     */
+    public static void reset() {
+        BY_SQL.clear();
+        BY_FINGERPRINT.clear();
+        ACQUIRE_LATENCY.reset();
+        ACQUIRE_ERRORS.set(0);
+        CLOSES.set(0);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as {@value #OBJECT_NAME}. Calling
+     * this method more than once has no effect.
+     *
+     * @throws IllegalStateException if the MBean cannot be registered
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+                logger.info("Registered database metrics MBean {}.", OBJECT_NAME);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Removes the MBean registered by {@link #registerMBean()}, if any.
+     */
+    public static synchronized void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.error("Error unregistering MBean {}.", OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Records the execution of a statement or batch that started at {@code startNanos}.
+     */
+    static void recordExecute(String sql, long startNanos, boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        StatementMetrics metrics = metricsFor(sql);
+        metrics.latency.record(elapsed);
+        if (failed) {
+            metrics.errors.incrementAndGet();
+        }
+        MetricsListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            try {
+                current[i].onExecute(metrics.fingerprint, elapsed, failed);
+            } catch (RuntimeException e) {
+                logger.warn("Metrics listener failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Records rows read from the result of a statement, or of an unknown statement if
+     * {@code sql} is null. COPY and bulk loads record the rows they send the same way.
+     */
+    static void recordFetch(String sql, long rows, long estimatedBytes, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        StatementMetrics metrics = sql == null ? unattributed() : metricsFor(sql);
+        metrics.rows.addAndGet(rows);
+        metrics.bytes.addAndGet(estimatedBytes);
+        MetricsListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            try {
+                current[i].onFetch(metrics.fingerprint, rows, estimatedBytes, elapsed);
+            } catch (RuntimeException e) {
+                logger.warn("Metrics listener failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Records a pool borrow that started at {@code startNanos}.
+     */
+    static void recordAcquire(long startNanos, boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        ACQUIRE_LATENCY.record(elapsed);
+        if (failed) {
+            ACQUIRE_ERRORS.incrementAndGet();
+        }
+        MetricsListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            try {
+                current[i].onConnectionAcquire(elapsed, failed);
+            } catch (RuntimeException e) {
+                logger.warn("Metrics listener failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Records closing a {@code "connection"}, {@code "statement"} or {@code "resultSet"}.
+     */
+    static void recordClose(String resourceType, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        CLOSES.incrementAndGet();
+        MetricsListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            try {
+                current[i].onClose(resourceType, elapsed);
+            } catch (RuntimeException e) {
+                logger.warn("Metrics listener failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap size of a column value read from a ResultSet.
+     */
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        } else if (value instanceof BigDecimal) {
+            return 40 + ((BigDecimal) value).precision() / 2;
+        } else if (value instanceof java.util.Date) {
+            return 32;
+        }
+        return 24;
+    }
+
+    /**
+     * Replaces literals in the SQL with {@code ?}, collapses {@code IN} lists to a single
+     * placeholder and normalizes whitespace.
+     */
+    static String fingerprint(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMERIC_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private static StatementMetrics metricsFor(String sql) {
+        StatementMetrics metrics = BY_SQL.get(sql);
+        if (metrics != null) {
+            return metrics;
+        }
+        String fingerprint = fingerprint(sql);
+        metrics = BY_FINGERPRINT.get(fingerprint);
+        if (metrics == null) {
+            String key = BY_FINGERPRINT.size() >= MAX_FINGERPRINTS ? OTHER : fingerprint;
+            metrics = BY_FINGERPRINT.computeIfAbsent(key, StatementMetrics::new);
+        }
+        if (BY_SQL.size() >= MAX_SQL_TEXTS) {
+            return metrics;
+        }
+        StatementMetrics existing = BY_SQL.putIfAbsent(sql, metrics);
+        return existing != null ? existing : metrics;
+    }
+
+    private static StatementMetrics unattributed() {
+        StatementMetrics metrics = BY_FINGERPRINT.get(UNATTRIBUTED);
+        return metrics != null ? metrics : BY_FINGERPRINT.computeIfAbsent(UNATTRIBUTED, StatementMetrics::new);
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * The live measurements of one statement fingerprint.
+     */
+    private static final class StatementMetrics {
+        private final String fingerprint;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private StatementMetrics(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private StatementStats snapshot() {
+            return new StatementStats(fingerprint, latency.getCount(), errors.get(), rows.get(), bytes.get(),
+                    toMicros((long) latency.getMeanNanos()), toMicros(latency.getValueAtPercentile(50)),
+                    toMicros(latency.getValueAtPercentile(99)), toMicros(latency.getValueAtPercentile(99.9)),
+                    toMicros(latency.getMaxNanos()));
+        }
+    }
+
+    /**
+     * The JMX view of the static metrics.
+     */
+    private static final class MXBean implements DatabaseMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return DatabaseMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            DatabaseMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public long getExecutionCount() {
+            long total = 0;
+            for (StatementMetrics metrics : BY_FINGERPRINT.values()) {
+                total += metrics.latency.getCount();
+            }
+            return total;
+        }
+
+        @Override
+        public long getErrorCount() {
+            long total = 0;
+            for (StatementMetrics metrics : BY_FINGERPRINT.values()) {
+                total += metrics.errors.get();
+            }
+            return total;
+        }
+
+        @Override
+        public long getRowsFetched() {
+            long total = 0;
+            for (StatementMetrics metrics : BY_FINGERPRINT.values()) {
+                total += metrics.rows.get();
+            }
+            return total;
+        }
+
+        @Override
+        public long getBytesEstimated() {
+            long total = 0;
+            for (StatementMetrics metrics : BY_FINGERPRINT.values()) {
+                total += metrics.bytes.get();
+            }
+            return total;
+        }
+
+        @Override
+        public long getConnectionAcquireCount() {
+            return ACQUIRE_LATENCY.getCount();
+        }
+
+        @Override
+        public long getConnectionAcquireErrorCount() {
+            return ACQUIRE_ERRORS.get();
+        }
+
+        @Override
+        public long getConnectionAcquireP50Micros() {
+            return toMicros(ACQUIRE_LATENCY.getValueAtPercentile(50));
+        }
+
+        @Override
+        public long getConnectionAcquireP99Micros() {
+            return toMicros(ACQUIRE_LATENCY.getValueAtPercentile(99));
+        }
+
+        @Override
+        public long getConnectionAcquireP999Micros() {
+            return toMicros(ACQUIRE_LATENCY.getValueAtPercentile(99.9));
+        }
+
+        @Override
+        public long getCloseCount() {
+            return CLOSES.get();
+        }
+
+        @Override
+        public List<StatementStats> getStatementStats() {
+            return DatabaseMetrics.getStatementStats();
+        }
+
+        @Override
+        public void reset() {
+            DatabaseMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.aisa.database;
+
+import java.util.List;
+
+/**
+ * The JMX view of {@link DatabaseMetrics}, registered as
+ * {@value DatabaseMetrics#OBJECT_NAME} by {@link DatabaseMetrics#registerMBean()}.
+ */
+public interface DatabaseMetricsMXBean {
+
+    /**
+     * Gets whether measurements are being recorded.
+     *
+     * @return true if recording is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns recording on or off.
+     *
+     * @param enabled true to record measurements
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Gets the number of statement and batch executions across all fingerprints.
+     *
+     * @return the execution count
+     */
+    long getExecutionCount();
+
+    /**
+     * Gets the number of failed executions across all fingerprints.
+     *
+     * @return the error count
+     */
+    long getErrorCount();
+
+    /**
+     * Gets the number of rows read from results.
+     *
+     * @return the rows fetched
+     */
+    long getRowsFetched();
+
+    /**
+     * Gets the estimated heap size of all values read from results.
+     *
+     * @return the estimated bytes
+     */
+    long getBytesEstimated();
+
+    /**
+     * Gets the number of connections borrowed from pools.
+     *
+     * @return the acquire count
+     */
+    long getConnectionAcquireCount();
+
+    /**
+     * Gets the number of failed pool borrows, such as timeouts.
+     *
+     * @return the acquire error count
+     */
+    long getConnectionAcquireErrorCount();
+
+    /**
+     * Gets the median time to borrow a pooled connection.
+     *
+     * @return the 50th percentile in microseconds
+     */
+    long getConnectionAcquireP50Micros();
+
+    /**
+     * Gets the 99th percentile time to borrow a pooled connection.
+     *
+     * @return the 99th percentile in microseconds
+     */
+    long getConnectionAcquireP99Micros();
+
+    /**
+     * Gets the 99.9th percentile time to borrow a pooled connection.
+     *
+     * @return the 99.9th percentile in microseconds
+     */
+    long getConnectionAcquireP999Micros();
+
+    /**
+     * Gets the number of connections, statements and result sets closed.
+     *
+     * @return the close count
+     */
+    long getCloseCount();
+
+    /**
+     * Gets the metrics of every statement fingerprint.
+     *
+     * @return one snapshot per fingerprint
+     */
+    List<StatementStats> getStatementStats();
+
+    /**
+     * Discards all recorded measurements.
+     */
+    void reset();
+}
@@ -0,0 +1,99 @@
+package com.aisa.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Describes how to connect to and run statements on one kind of database.
+ *
+ * A dialect names its JDBC driver, recognizes its JDBC URLs and carries a {@link DialectProfile}
+ * of tuned defaults, which it applies by rewriting connection URLs, connection properties and
+ * queries. {@link DialectEngine} runs every operation of the database facades through a dialect,
+ * so a setting added here applies to all of them at once.
+ *
+ * The built-in dialects are available from {@link Dialects}. Further dialects can be added by
+ * listing their implementation classes in {@code META-INF/services/com.aisa.database.Dialect};
+ * {@link Dialects#forUrl(String)} finds them with {@link java.util.ServiceLoader}.
+ */
+public interface Dialect {
+
+    /**
+     * Gets the name of the database, used in log messages.
+     *
+     * @return the database name
+     */
+    String getName();
+
+    /**
+     * Gets the class name of the JDBC driver.
+     *
+     * @return the driver class name
+     */
+    String getDriverClassName();
+
+    /**
+     * Tells whether a JDBC URL belongs to this database.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @return true if this dialect handles the URL
+     */
+    boolean acceptsUrl(String jdbcUrl);
+
+    /**
+     * Gets the tuned defaults of this dialect. The returned profile is live: changes apply to
+     * connections and statements created afterwards.
+     *
+     * @return the profile
+     */
+    DialectProfile getProfile();
+
+    /**
+     * Adds the profile's connection settings to a JDBC URL, leaving settings the URL already
+     * has untouched.
+     *
+     * @param jdbcUrl the JDBC URL given by the caller
+     * @return the URL to connect with
+     */
+    default String prepareUrl(String jdbcUrl) {
+        return jdbcUrl;
+    }
+
+    /**
+     * Adds the profile's connection settings to connection properties, leaving properties the
+     * caller set untouched.
+     *
+     * @param properties the connection properties given by the caller; not modified
+     * @return the properties to connect with
+     */
+    default Properties prepareProperties(Properties properties) {
+        Properties prepared = new Properties();
+        if (properties != null) {
+            prepared.putAll(properties);
+        }
+        return prepared;
+    }
+
+    /**
+     * Adds the profile's hints to a query before it is run.
+     *
+     * @param query the SQL query given by the caller
+     * @return the SQL to run
+     */
+    default String prepareQuery(String query) {
+        return query;
+    }
+
+    /**
+     * Measures how far a read replica is behind its primary, for {@link RoutingDataSource}.
+     *
+     * @param connection a connection to the replica
+     * @return the replication lag in milliseconds, 0 if the server is not replicating from a
+     * primary, {@link Long#MAX_VALUE} if replication is stopped, or -1 if this dialect cannot
+     * measure it
+     * @throws SQLException if a database access error occurs
+     */
+    default long replicationLagMillis(Connection connection) throws SQLException {
+        return -1;
+    }
+}
@@ -0,0 +1,657 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * The execution core shared by the database facades.
+ *
+ * Connecting, running queries and updates, batching, converting results, transactions and
+ * closing resources are implemented once here, and the dialect-specific parts (the driver, URL
+ * and property tuning, query hints and default fetch size) are taken from a {@link Dialect}. The
+ * static facades such as {@link OracleDBUtilLib} and {@link MSSQLUtilLib} delegate to one engine
+ * each; an engine can also be created directly for a dialect registered through the
+ * {@link Dialect} service interface.
+ */
+public final class DialectEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DialectEngine.class);
+
+    private static final Set<String> REGISTERED_DRIVERS = ConcurrentHashMap.newKeySet();
+
+    private final Dialect dialect;
+
+    /**
+     * Creates an engine for the given dialect.
+     *
+     * @param dialect the dialect to connect and run statements with
+     */
+    public DialectEngine(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Gets the dialect of this engine.
+     *
+     * @return the dialect
+     */
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Establishes a connection with the dialect's URL and property tuning applied.
+     *
+     * @param dbUrl    the database URL
+     * @param user     the database user
+     * @param password the user's password
+     * @return the connection object
+     * @throws SQLException if the driver cannot be loaded or a database access error occurs
+     */
+    public Connection getConnection(String dbUrl, String user, String password) throws SQLException {
+        logger.info("Establishing connection to the {} database.", dialect.getName());
+        registerDriver();
+        Properties tuned = dialect.prepareProperties(null);
+        if (tuned.isEmpty()) {
+            return DriverManager.getConnection(dialect.prepareUrl(dbUrl), user, password);
+        }
+        return DriverManager.getConnection(dialect.prepareUrl(dbUrl), withCredentials(tuned, user, password));
+    }
+
+    /**
+     * Establishes a connection with the given properties plus the dialect's tuning.
+     *
+     * @param dbUrl      the database URL
+     * @param properties the connection properties, including the credentials
+     * @return the connection object
+     * @throws SQLException if the driver cannot be loaded or a database access error occurs
+     */
+    public Connection getConnection(String dbUrl, Properties properties) throws SQLException {
+        logger.info("Establishing connection to the {} database with properties.", dialect.getName());
+        registerDriver();
+        return DriverManager.getConnection(dialect.prepareUrl(dbUrl), dialect.prepareProperties(properties));
+    }
+
+    /**
+     * Creates a pool of connections with the dialect's URL and property tuning applied.
+     *
+     * @param dbUrl    the database URL
+     * @param user     the database user
+     * @param password the user's password
+     * @param config   the pool sizing, eviction and validation settings
+     * @return the connection pool
+     * @throws SQLException if the JDBC driver cannot be loaded
+     */
+    public ConnectionPool createConnectionPool(String dbUrl, String user, String password,
+                                               ConnectionPoolConfig config) throws SQLException {
+        logger.info("Creating connection pool for the {} database.", dialect.getName());
+        registerDriver();
+        Properties tuned = dialect.prepareProperties(null);
+        if (tuned.isEmpty()) {
+            return new ConnectionPool(dialect.prepareUrl(dbUrl), user, password, config);
+        }
+        return new ConnectionPool(dialect.prepareUrl(dbUrl), withCredentials(tuned, user, password), config);
+    }
+
+    /**
+     * Creates a router that sends reads to the replicas and writes to the primary, measuring
+     * replication lag with this dialect.
+     *
+     * @param primary  the data source of the primary database
+     * @param replicas the data sources of the read replicas
+     * @param config   the balancing, stickiness and lag settings
+     * @return the routing data source
+     */
+    public RoutingDataSource createRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                                     RoutingConfig config) {
+        return new RoutingDataSource(dialect, primary, replicas, config);
+    }
+
+    /**
+     * Loads the dialect's JDBC driver so that it registers with DriverManager. Each driver class
+     * is loaded once per JVM; later calls, including the ones made by every getConnection, return
+     * without a class lookup.
+     *
+     * @throws SQLException if the driver class cannot be found
+     */
+    public void registerDriver() throws SQLException {
+        String driverClassName = dialect.getDriverClassName();
+        if (REGISTERED_DRIVERS.contains(driverClassName)) {
+            return;
+        }
+        try {
+            Class.forName(driverClassName);
+        } catch (ClassNotFoundException e) {
+            logger.error("{} JDBC driver not found.", dialect.getName(), e);
+            throw new SQLException(dialect.getName() + " JDBC driver not found.", e);
+        }
+        if (REGISTERED_DRIVERS.add(driverClassName)) {
+            logger.info("Registered {} JDBC driver {}.", dialect.getName(), driverClassName);
+        }
+    }
+
+    /**
+     * Prepares a pool for traffic: registers the driver, opens and validates connections in
+     * parallel until the pool holds the given number, and prepares the hot statements on each
+     * new connection so they are in its statement cache before the first request.
+     *
+     * @param pool          the pool to warm up, created for this dialect
+     * @param connections   the number of connections the pool should hold afterwards
+     * @param hotStatements SQL to prepare on each new connection, in the form passed to the
+     *                      parameterized executeQuery and executeUpdate methods
+     * @return the number of connections opened
+     * @throws SQLException if the driver cannot be loaded or no connection could be opened
+     */
+    public int warmUp(ConnectionPool pool, int connections, List<String> hotStatements) throws SQLException {
+        registerDriver();
+        List<String> prepared = new ArrayList<>(hotStatements.size());
+        for (String sql : hotStatements) {
+            prepared.add(dialect.prepareQuery(sql));
+        }
+        return pool.warmUp(connections, prepared);
+    }
+
+    private static Properties withCredentials(Properties properties, String user, String password) {
+        if (user != null) {
+            properties.setProperty("user", user);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        return properties;
+    }
+
+    /**
+     * Executes a query with the dialect's hints and default fetch size. The Statement is set to
+     * close together with the returned ResultSet, and is closed right away if the query fails.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs
+     */
+    public ResultSet executeQuery(Connection connection, String query) throws SQLException {
+        String prepared = dialect.prepareQuery(query);
+        logger.info("Executing query: {}", prepared);
+        Statement statement = connection.createStatement();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int fetchSize = dialect.getProfile().getFetchSize();
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+            ResultSet resultSet = statement.executeQuery(prepared);
+            statement.closeOnCompletion();
+            failed = false;
+            return LeakDetector.track(resultSet, statement, "Statement", prepared);
+        } finally {
+            DatabaseMetrics.recordExecute(prepared, start, failed);
+            if (failed) {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /**
+     * Executes a query and passes each row to a handler, closing the Statement and ResultSet
+     * when the rows are exhausted or the handler throws.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param handler    the handler called once per row
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public long query(Connection connection, String query, RowHandler handler) throws SQLException {
+        ResultSet resultSet = executeQuery(connection, query);
+        Statement statement = resultSet.getStatement();
+        try (ResultSet rows = resultSet) {
+            return handleRows(query, rows, handler);
+        } finally {
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Executes a parameterized query through the {@link StatementCache} and passes each row to a
+     * handler, closing the ResultSet when the rows are exhausted or the handler throws.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param handler    the handler called once per row
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public long query(Connection connection, String query, RowHandler handler, Object... params) throws SQLException {
+        try (ResultSet rows = executeQuery(connection, query, params)) {
+            return handleRows(query, rows, handler);
+        }
+    }
+
+    private static long handleRows(String query, ResultSet resultSet, RowHandler handler) throws SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        while (resultSet.next()) {
+            handler.handle(resultSet);
+            rows++;
+        }
+        DatabaseMetrics.recordFetch(query, rows, 0, start);
+        return rows;
+    }
+
+    private static void closeQuietly(Statement statement) {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.error("Error closing database statement.", e);
+            }
+        }
+    }
+
+    /**
+     * Executes an update and invalidates cached query results of the table it writes to.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update to be executed
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs
+     */
+    public int executeUpdate(Connection connection, String update) throws SQLException {
+        logger.info("Executing update: {}", update);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (Statement statement = connection.createStatement()) {
+            int count = statement.executeUpdate(update);
+            failed = false;
+            return count;
+        } finally {
+            DatabaseMetrics.recordExecute(update, start, failed);
+            QueryResultCache.invalidateForUpdate(connection, update);
+        }
+    }
+
+    /**
+     * Executes a parameterized query through the per-connection {@link StatementCache}, with the
+     * dialect's hints applied.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs
+     */
+    public ResultSet executeQuery(Connection connection, String query, Object... params) throws SQLException {
+        String prepared = dialect.prepareQuery(query);
+        logger.info("Executing parameterized query: {}", prepared);
+        return StatementCache.executeQuery(connection, prepared, params);
+    }
+
+    /**
+     * Executes a query with named parameters.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     */
+    public ResultSet executeQuery(Connection connection, String query, Map<String, ?> params) throws SQLException {
+        NamedParameterSql parsed = NamedParameterSql.parse(query);
+        return executeQuery(connection, parsed.getSql(), parsed.toPositional(params));
+    }
+
+    /**
+     * Executes a parameterized query, or returns its cached rows from the given cache.
+     *
+     * @param connection the connection object, only used when the result is not cached
+     * @param cache      the cache to answer from and store the result in
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return a read-only List of read-only rows
+     * @throws SQLException if a database access error occurs
+     */
+    public List<Map<String, Object>> executeCachedQuery(Connection connection, QueryResultCache cache,
+                                                       String query, Object... params) throws SQLException {
+        return cache.query(connection, dialect.prepareQuery(query), params);
+    }
+
+    /**
+     * Executes a parameterized update through the per-connection {@link StatementCache}.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs
+     */
+    public int executeUpdate(Connection connection, String update, Object... params) throws SQLException {
+        logger.info("Executing parameterized update: {}", update);
+        return StatementCache.executeUpdate(connection, update, params);
+    }
+
+    /**
+     * Executes an update with named parameters.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     */
+    public int executeUpdate(Connection connection, String update, Map<String, ?> params) throws SQLException {
+        NamedParameterSql parsed = NamedParameterSql.parse(update);
+        return executeUpdate(connection, parsed.getSql(), parsed.toPositional(params));
+    }
+
+    /**
+     * Executes a parameterized statement once per parameter row, in batches of {@code batchSize}.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public List<int[]> executeBatch(Connection connection, String sql, Iterable<Object[]> rows,
+                                    int batchSize) throws SQLException {
+        return BatchExecutor.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Executes a parameterized statement once per row of a stream, in batches of {@code batchSize}.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row; consumed lazily
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public List<int[]> executeBatch(Connection connection, String sql, Stream<Object[]> rows,
+                                    int batchSize) throws SQLException {
+        return BatchExecutor.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Converts a ResultSet to a List of {@link CompactRow}s sharing one set of column names.
+     *
+     * @param resultSet the ResultSet to be converted
+     * @return a List of Maps, one per row
+     * @throws SQLException if there is an error accessing the ResultSet
+     */
+    public List<Map<String, Object>> resultSetToList(ResultSet resultSet) throws SQLException {
+        logger.info("Converting ResultSet to List of Maps.");
+        long start = System.nanoTime();
+        long bytes = 0;
+        List<Map<String, Object>> list = new ArrayList<>();
+        ColumnIndex columns = ColumnIndex.from(resultSet.getMetaData());
+        while (resultSet.next()) {
+            CompactRow row = CompactRow.read(columns, resultSet);
+            bytes += row.estimateBytes();
+            list.add(row);
+        }
+        DatabaseMetrics.recordFetch(null, list.size(), bytes, start);
+        return list;
+    }
+
+    /**
+     * Reads a ResultSet into a {@link SpillableResult} that keeps rows on the heap up to the
+     * given budget and maps the rest from a temporary file.
+     *
+     * @param resultSet         the ResultSet to be read
+     * @param memoryBudgetBytes the estimated heap size rows may take before spilling
+     * @return the result; it must be closed to delete the spill file
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public SpillableResult resultSetToSpillable(ResultSet resultSet, long memoryBudgetBytes) throws SQLException {
+        logger.info("Converting ResultSet to SpillableResult with a {} byte memory budget.", memoryBudgetBytes);
+        long start = System.nanoTime();
+        SpillableResult result = SpillableResult.from(resultSet, memoryBudgetBytes);
+        DatabaseMetrics.recordFetch(null, result.getRowCount(), result.getMemoryBytes() + result.getSpillBytes(), start);
+        return result;
+    }
+
+    /**
+     * Maps a ResultSet to a list of POJOs; see {@link PojoMapper}.
+     *
+     * @param resultSet the ResultSet to be mapped
+     * @param pojoClass the class of the POJO; it must have a no-argument constructor
+     * @param <T>       the type of the POJO
+     * @return a List of POJOs, one per row
+     * @throws SQLException if a database access error occurs or a value cannot be converted
+     */
+    public <T> List<T> mapResultSetToPOJO(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
+        logger.info("Mapping ResultSet to POJO: {}", pojoClass.getName());
+        return PojoMapper.mapAll(resultSet, pojoClass);
+    }
+
+    /**
+     * Executes a query and returns an iterator that fetches rows lazily.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the dialect's default
+     * @return a closeable iterator over the rows of the result
+     * @throws SQLException if a database access error occurs
+     */
+    public ResultSetIterator iterateQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        String prepared = dialect.prepareQuery(query);
+        int effectiveFetchSize = fetchSize != 0 ? fetchSize : dialect.getProfile().getFetchSize();
+        logger.info("Executing streaming query with fetch size {}: {}", effectiveFetchSize, prepared);
+        return ResultSetIterator.open(connection, prepared, effectiveFetchSize);
+    }
+
+    /**
+     * Executes a query and returns a Stream that fetches rows lazily. The Stream must be closed
+     * unless it is always consumed to the end.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the dialect's default
+     * @return a Stream of rows backed by an open ResultSet
+     * @throws SQLException if a database access error occurs
+     */
+    public Stream<Map<String, Object>> streamQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return iterateQuery(connection, query, fetchSize).stream();
+    }
+
+    /**
+     * Executes a query and writes its rows to a stream as they are fetched, so memory use does
+     * not grow with the size of the result.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param out        the stream to write to; flushed but not closed
+     * @param format     the output format
+     * @param options    the output settings
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public long exportQuery(Connection connection, String query, OutputStream out, ExportFormat format,
+                            ExportOptions options) throws SQLException {
+        String prepared = dialect.prepareQuery(query);
+        logger.info("Exporting query as {}: {}", format, prepared);
+        try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            int fetchSize = dialect.getProfile().getFetchSize();
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+            long start = System.nanoTime();
+            ResultSet resultSet;
+            try {
+                resultSet = statement.executeQuery(prepared);
+            } catch (SQLException e) {
+                DatabaseMetrics.recordExecute(prepared, start, true);
+                throw e;
+            }
+            DatabaseMetrics.recordExecute(prepared, start, false);
+            try (ResultSet rows = resultSet) {
+                return ResultSetExporter.export(rows, out, format, options);
+            }
+        }
+    }
+
+    /**
+     * Executes a query and writes its rows to a file as they are fetched.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param file       the file to write; it is created or truncated
+     * @param format     the output format
+     * @param options    the output settings
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the file cannot be written
+     */
+    public long exportQuery(Connection connection, String query, Path file, ExportFormat format,
+                            ExportOptions options) throws SQLException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), options.getBufferSize())) {
+            return exportQuery(connection, query, out, format, options);
+        } catch (IOException e) {
+            throw new SQLException("Error writing export file " + file, e);
+        }
+    }
+
+    /**
+     * Loads the snapshot of a query saved under the given version key, running the query and
+     * saving a new snapshot first if there is none or it was saved under another key.
+     *
+     * @param connection the connection object; only used when the snapshot has to be taken
+     * @param query      the SQL query to be executed
+     * @param file       the snapshot file
+     * @param versionKey the key the snapshot must be valid for
+     * @return the loaded snapshot
+     * @throws SQLException if a database access error occurs or the snapshot cannot be written or read
+     */
+    public ResultSnapshot snapshotQuery(Connection connection, String query, Path file, String versionKey)
+            throws SQLException {
+        ResultSnapshot snapshot = ResultSnapshot.load(file, versionKey);
+        if (snapshot != null) {
+            logger.info("Using snapshot {} for query: {}", file, query);
+            return snapshot;
+        }
+        ResultSet resultSet = executeQuery(connection, query);
+        try {
+            ResultSnapshot.write(resultSet, file, versionKey);
+        } finally {
+            Statement statement = resultSet.getStatement();
+            closeResultSet(resultSet);
+            closeStatement(statement);
+        }
+        return ResultSnapshot.load(file, versionKey);
+    }
+
+    /**
+     * Commits the transaction on the given connection and switches auto-commit back on. Cached
+     * query results of the tables written in the transaction are invalidated again, now that
+     * the writes are visible to other connections.
+     *
+     * @param connection the connection object
+     * @throws SQLException if a database access error occurs
+     */
+    public void commitTransaction(Connection connection) throws SQLException {
+        logger.info("Committing transaction.");
+        try {
+            connection.commit();
+        } finally {
+            QueryResultCache.transactionEnded(connection);
+        }
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Rolls back the transaction on the given connection and switches auto-commit back on.
+     *
+     * @param connection the connection object
+     * @throws SQLException if a database access error occurs
+     */
+    public void rollbackTransaction(Connection connection) throws SQLException {
+        logger.info("Rolling back transaction.");
+        try {
+            connection.rollback();
+        } finally {
+            QueryResultCache.transactionEnded(connection);
+        }
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Closes the database connection, or returns it to its {@link ConnectionPool}.
+     *
+     * @param connection the connection object to be closed
+     */
+    public void closeConnection(Connection connection) {
+        logger.info("Closing {} database connection.", dialect.getName());
+        if (connection != null) {
+            StatementCache.release(connection);
+            long start = System.nanoTime();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.error("Error closing database connection.", e);
+            }
+            DatabaseMetrics.recordClose("connection", start);
+        }
+    }
+
+    /**
+     * Closes the database statement.
+     *
+     * @param statement the statement object to be closed
+     */
+    public void closeStatement(Statement statement) {
+        logger.info("Closing database statement.");
+        if (statement != null) {
+            long start = System.nanoTime();
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.error("Error closing database statement.", e);
+            }
+            LeakDetector.untrack(statement);
+            DatabaseMetrics.recordClose("statement", start);
+        }
+    }
+
+    /**
+     * Closes the result set.
+     *
+     * @param resultSet the result set object to be closed
+     */
+    public void closeResultSet(ResultSet resultSet) {
+        logger.info("Closing result set.");
+        if (resultSet != null) {
+            long start = System.nanoTime();
+            try {
+                resultSet.close();
+            } catch (SQLException e) {
+                logger.error("Error closing result set.", e);
+            }
+            DatabaseMetrics.recordClose("resultSet", start);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.aisa.database;
+
+/**
+ * The performance settings a {@link Dialect} applies to the connections and statements it
+ * creates.
+ *
+ * Every dialect starts from defaults tuned for its driver and can be adjusted at run time, for
+ * example {@code Dialects.SQL_SERVER.getProfile().setLoginTimeoutSeconds(15)}. Settings take
+ * effect for connections and statements created after the change. Settings a driver has no
+ * equivalent for are ignored by its dialect, and a zero value leaves the driver's own default in
+ * place. URL and connection properties set by the caller always win over the profile.
+ */
+public class DialectProfile {
+
+    private volatile int fetchSize;
+    private volatile int rowPrefetch;
+    private volatile int lobPrefetchSize;
+    private volatile int queryBlockSize;
+    private volatile int statementCacheSize;
+    private volatile boolean batchRewrite;
+    private volatile boolean readOnlyHints;
+    private volatile int loginTimeoutSeconds;
+
+    /**
+     * Gets the fetch size set on statements that run queries.
+     *
+     * @return the number of rows fetched per round trip; 0 for the driver default
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the fetch size set on statements that run queries.
+     *
+     * @param fetchSize the number of rows fetched per round trip; 0 for the driver default
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Gets the connection-wide row prefetch. Used by Oracle.
+     *
+     * @return the number of rows prefetched per round trip; 0 for the driver default
+     */
+    public int getRowPrefetch() {
+        return rowPrefetch;
+    }
+
+    /**
+     * Sets the connection-wide row prefetch. Used by Oracle.
+     *
+     * @param rowPrefetch the number of rows prefetched per round trip; 0 for the driver default
+     */
+    public void setRowPrefetch(int rowPrefetch) {
+        this.rowPrefetch = rowPrefetch;
+    }
+
+    /**
+     * Gets the number of LOB bytes returned with each row. Used by Oracle.
+     *
+     * @return the LOB prefetch size in bytes; 0 for the driver default
+     */
+    public int getLobPrefetchSize() {
+        return lobPrefetchSize;
+    }
+
+    /**
+     * Sets the number of LOB bytes returned with each row. Used by Oracle.
+     *
+     * @param lobPrefetchSize the LOB prefetch size in bytes; 0 for the driver default
+     */
+    public void setLobPrefetchSize(int lobPrefetchSize) {
+        this.lobPrefetchSize = lobPrefetchSize;
+    }
+
+    /**
+     * Gets the size of the blocks in which the server returns query rows. Used by DB2.
+     *
+     * @return the query block size in bytes; 0 for the driver default
+     */
+    public int getQueryBlockSize() {
+        return queryBlockSize;
+    }
+
+    /**
+     * Sets the size of the blocks in which the server returns query rows. Used by DB2.
+     *
+     * @param queryBlockSize the query block size in bytes; 0 for the driver default
+     */
+    public void setQueryBlockSize(int queryBlockSize) {
+        this.queryBlockSize = queryBlockSize;
+    }
+
+    /**
+     * Gets the size of the driver's own prepared statement cache, per connection. Used by
+     * Oracle, SQL Server, PostgreSQL and MySQL.
+     *
+     * @return the number of cached statements; 0 for the driver default
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Sets the size of the driver's own prepared statement cache, per connection.
+     *
+     * @param statementCacheSize the number of cached statements; 0 for the driver default
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Gets whether the driver rewrites batched inserts into multi-row INSERT statements. Used by
+     * PostgreSQL and MySQL.
+     *
+     * @return true if batched inserts are rewritten
+     */
+    public boolean isBatchRewrite() {
+        return batchRewrite;
+    }
+
+    /**
+     * Sets whether the driver rewrites batched inserts into multi-row INSERT statements.
+     *
+     * @param batchRewrite true to rewrite batched inserts
+     */
+    public void setBatchRewrite(boolean batchRewrite) {
+        this.batchRewrite = batchRewrite;
+    }
+
+    /**
+     * Gets whether queries without a cursor intent clause are marked read-only so the server can
+     * block-fetch them. Used by DB2.
+     *
+     * @return true if read-only hints are added
+     */
+    public boolean isReadOnlyHints() {
+        return readOnlyHints;
+    }
+
+    /**
+     * Sets whether queries without a cursor intent clause are marked read-only.
+     *
+     * @param readOnlyHints true to add read-only hints
+     */
+    public void setReadOnlyHints(boolean readOnlyHints) {
+        this.readOnlyHints = readOnlyHints;
+    }
+
+    /**
+     * Gets how long opening a connection may take.
+     *
+     * @return the login timeout in seconds; 0 for the driver default
+     */
+    public int getLoginTimeoutSeconds() {
+        return loginTimeoutSeconds;
+    }
+
+    /**
+     * Sets how long opening a connection may take.
+     *
+     * @param loginTimeoutSeconds the login timeout in seconds; 0 for the driver default
+     */
+    public void setLoginTimeoutSeconds(int loginTimeoutSeconds) {
+        this.loginTimeoutSeconds = loginTimeoutSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "DialectProfile{fetchSize=" + fetchSize + ", rowPrefetch=" + rowPrefetch
+                + ", lobPrefetchSize=" + lobPrefetchSize + ", queryBlockSize=" + queryBlockSize
+                + ", statementCacheSize=" + statementCacheSize + ", batchRewrite=" + batchRewrite
+                + ", readOnlyHints=" + readOnlyHints + ", loginTimeoutSeconds=" + loginTimeoutSeconds + "}";
+    }
+}
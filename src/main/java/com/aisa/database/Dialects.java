@@ -0,0 +1,64 @@
+package com.aisa.database;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The built-in {@link Dialect}s and lookup of a dialect by JDBC URL.
+ */
+public final class Dialects {
+
+    /**
+     * Oracle Database through the ojdbc thin driver.
+     */
+    public static final Dialect ORACLE = new OracleDialect();
+
+    /**
+     * Microsoft SQL Server and Azure SQL Database through mssql-jdbc.
+     */
+    public static final Dialect SQL_SERVER = new SqlServerDialect();
+
+    /**
+     * PostgreSQL through pgJDBC.
+     */
+    public static final Dialect POSTGRESQL = new PostgreSQLDialect();
+
+    /**
+     * MySQL through Connector/J.
+     */
+    public static final Dialect MYSQL = new MySQLDialect();
+
+    /**
+     * IBM DB2 through the JCC driver.
+     */
+    public static final Dialect DB2 = new DB2Dialect();
+
+    private static final List<Dialect> BUILT_IN = Arrays.asList(ORACLE, SQL_SERVER, POSTGRESQL, MYSQL, DB2);
+
+    private Dialects() {
+    }
+
+    /**
+     * Finds the dialect of a JDBC URL among the built-in dialects and those registered through
+     * {@code META-INF/services/com.aisa.database.Dialect}.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @return the dialect
+     * @throws SQLException if no dialect accepts the URL
+     */
+    public static Dialect forUrl(String jdbcUrl) throws SQLException {
+        for (Dialect dialect : BUILT_IN) {
+            if (dialect.acceptsUrl(jdbcUrl)) {
+                return dialect;
+            }
+        }
+        for (Dialect dialect : ServiceLoader.load(Dialect.class)) {
+            if (dialect.acceptsUrl(jdbcUrl)) {
+                return dialect;
+            }
+        }
+        throw new SQLException("No dialect found for URL " + jdbcUrl);
+    }
+}
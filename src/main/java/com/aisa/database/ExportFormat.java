@@ -0,0 +1,23 @@
+package com.aisa.database;
+
+/**
+ * The file formats {@link ResultSetExporter} writes.
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma-separated values as described in RFC 4180, with an optional header line of column
+     * labels. Values containing the delimiter, a quote or a line break are quoted.
+     */
+    CSV,
+
+    /**
+     * A single JSON array with one object per row, keyed by column label.
+     */
+    JSON_ARRAY,
+
+    /**
+     * Newline-delimited JSON: one object per row, each on its own line.
+     */
+    NDJSON
+}
@@ -0,0 +1,126 @@
+package com.aisa.database;
+
+/**
+ * Settings for writing a result with {@link ResultSetExporter}.
+ *
+ * The defaults write uncompressed output through a 64 KiB buffer; CSV output has a header line,
+ * uses commas, writes NULL as an empty field and ends lines with {@code \n}. Adjust them through
+ * the setters.
+ */
+public class ExportOptions {
+
+    private boolean gzip = false;
+    private int bufferSize = 64 * 1024;
+    private boolean header = true;
+    private char delimiter = ',';
+    private String nullValue = "";
+    private String lineSeparator = "\n";
+
+    /**
+     * Gets whether the output is gzip-compressed.
+     *
+     * @return true if the output is compressed
+     */
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * Sets whether the output is gzip-compressed.
+     *
+     * @param gzip true to compress the output
+     */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    /**
+     * Gets the size of the buffer between the serializer and the target.
+     *
+     * @return the buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the size of the buffer between the serializer and the target.
+     *
+     * @param bufferSize the buffer size in bytes
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Gets whether CSV output starts with a line of column labels.
+     *
+     * @return true if a header line is written
+     */
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * Sets whether CSV output starts with a line of column labels.
+     *
+     * @param header true to write a header line
+     */
+    public void setHeader(boolean header) {
+        this.header = header;
+    }
+
+    /**
+     * Gets the character separating CSV fields.
+     *
+     * @return the delimiter
+     */
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Sets the character separating CSV fields, such as {@code '\t'} for tab-separated output.
+     *
+     * @param delimiter the delimiter
+     */
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Gets the text written for NULL in CSV output.
+     *
+     * @return the NULL representation
+     */
+    public String getNullValue() {
+        return nullValue;
+    }
+
+    /**
+     * Sets the text written for NULL in CSV output. It is written unquoted.
+     *
+     * @param nullValue the NULL representation
+     */
+    public void setNullValue(String nullValue) {
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * Gets the line separator of CSV output.
+     *
+     * @return the line separator
+     */
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    /**
+     * Sets the line separator of CSV output, such as {@code "\r\n"} for strict RFC 4180 output.
+     *
+     * @param lineSeparator the line separator
+     */
+    public void setLineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator;
+    }
+}
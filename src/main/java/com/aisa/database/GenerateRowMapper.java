@@ -0,0 +1,26 @@
+package com.aisa.database;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requests a compile-time generated {@link RowMapper} for a POJO.
+ *
+ * When this library is on the annotation processor path, {@link RowMapperProcessor} generates a
+ * class named {@code <Pojo>_RowMapper} (nested class names joined with {@code _}) in the package
+ * of the annotated class. The generated mapper calls {@code getInt}, {@code getString} and the
+ * other typed ResultSet getters by column position and invokes the POJO setters directly, so
+ * mapping involves no reflection at all. {@link PojoMapper} and every mapResultSetToPOJO method
+ * use the generated mapper automatically when it is present.
+ *
+ * Columns are matched to setters with the same rules as {@link PojoMapper}. Only public setters
+ * are mapped; the class needs a non-private no-argument constructor.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateRowMapper {
+}
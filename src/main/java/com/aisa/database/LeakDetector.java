@@ -0,0 +1,291 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds Statements and ResultSets that callers forget to close.
+ *
+ * When enabled, every Statement or ResultSet handed out by the facades is recorded together with
+ * the stack trace of the code that asked for it. A background thread checks the recorded
+ * resources every second and logs a warning with that stack trace, once per resource, for each
+ * one still open after the threshold. Leaked statements hold server cursors (on Oracle they
+ * count against {@code OPEN_CURSORS}) until the connection closes, so the allocation site is
+ * what is needed to fix them.
+ *
+ * Detection is off by default because capturing a stack trace per statement is not free. The
+ * recorded resources are only weakly referenced, so the detector never keeps them alive. While
+ * detection is on, query results are handed out wrapped so that closing them is seen at once; a
+ * resource that is garbage-collected without having been closed is logged with its allocation
+ * site as well. Statements closed directly rather than through their ResultSet or the
+ * closeStatement helpers are only seen closed at the next check.
+ */
+public final class LeakDetector {
+
+    /**
+     * The threshold used until {@link #setThresholdMillis(long)} is called: one minute.
+     */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 60_000L;
+
+    private static final Logger logger = LoggerFactory.getLogger(LeakDetector.class);
+
+    private static final long SCAN_INTERVAL_MILLIS = 1_000L;
+
+    private static final Map<Long, Allocation> OPEN = new ConcurrentHashMap<>();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final AtomicLong COLLECTED = new AtomicLong();
+
+    private static volatile boolean enabled;
+    private static volatile long thresholdMillis = DEFAULT_THRESHOLD_MILLIS;
+    private static ScheduledExecutorService scanner;
+
+    private LeakDetector() {
+    }
+
+    /**
+     * Turns leak detection on or off. Turning it off forgets the recorded resources.
+     *
+     * @param enabled true to record and check new resources
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        LeakDetector.enabled = enabled;
+        if (enabled && scanner == null) {
+            scanner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "aisa-db-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scanner.scheduleWithFixedDelay(LeakDetector::report, SCAN_INTERVAL_MILLIS,
+                    SCAN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } else if (!enabled && scanner != null) {
+            scanner.shutdownNow();
+            scanner = null;
+            OPEN.clear();
+            COLLECTED.set(0L);
+        }
+    }
+
+    /**
+     * Gets whether leak detection is on.
+     *
+     * @return true if new resources are recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets how long a resource may stay open before it is reported.
+     *
+     * @param thresholdMillis the threshold in milliseconds
+     */
+    public static void setThresholdMillis(long thresholdMillis) {
+        LeakDetector.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Gets how long a resource may stay open before it is reported.
+     *
+     * @return the threshold in milliseconds
+     */
+    public static long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * Gets the number of recorded resources that have not been seen closed yet.
+     *
+     * @return the number of tracked resources
+     */
+    public static int getTrackedCount() {
+        return OPEN.size();
+    }
+
+    /**
+     * Gets the number of recorded resources that were garbage-collected without being closed
+     * since detection was turned on. Each of them is logged with its allocation site when found.
+     *
+     * @return the number of collected leaks
+     */
+    public static long getCollectedLeakCount() {
+        return COLLECTED.get();
+    }
+
+    /**
+     * Checks the recorded resources now and returns those open longer than the threshold,
+     * including ones already reported.
+     *
+     * @return the leaked resources, oldest first
+     */
+    public static List<ResourceLeak> findLeaks() {
+        List<ResourceLeak> leaks = new ArrayList<>();
+        for (Allocation allocation : openPastThreshold()) {
+            leaks.add(allocation.toLeak());
+        }
+        leaks.sort((a, b) -> Long.compare(b.getAgeMillis(), a.getAgeMillis()));
+        return leaks;
+    }
+
+    /**
+     * Records a Statement or ResultSet that was just handed out, if detection is on.
+     *
+     * @return the id to pass to {@link #untrack(long)} when the resource is closed, or 0 if it
+     * is not tracked
+     */
+    static long track(AutoCloseable resource, String resourceType, String sql) {
+        if (!enabled || resource == null) {
+            return 0L;
+        }
+        long id = SEQUENCE.incrementAndGet();
+        OPEN.put(id, new Allocation(resource, resourceType, sql, Thread.currentThread().getName(),
+                new Throwable(resourceType + " allocated here")));
+        return id;
+    }
+
+    /**
+     * Records the resource behind a query result, if detection is on, and returns the ResultSet
+     * to hand out in place of the given one: closing it stops tracking the resource.
+     */
+    static ResultSet track(ResultSet resultSet, AutoCloseable resource, String resourceType, String sql) {
+        long id = track(resource, resourceType, sql);
+        if (id == 0L) {
+            return resultSet;
+        }
+        return (ResultSet) Proxy.newProxyInstance(LeakDetector.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            try {
+                                resultSet.close();
+                            } finally {
+                                untrack(id);
+                            }
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(resultSet, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    /**
+     * Stops tracking a resource that has been closed.
+     */
+    static void untrack(long id) {
+        if (id != 0L) {
+            OPEN.remove(id);
+        }
+    }
+
+    /**
+     * Stops tracking a resource that has been closed, looking it up among the recorded ones.
+     */
+    static void untrack(AutoCloseable resource) {
+        if (!enabled || resource == null) {
+            return;
+        }
+        OPEN.values().removeIf(allocation -> allocation.resource.get() == resource);
+    }
+
+    private static void report() {
+        try {
+            for (Allocation allocation : openPastThreshold()) {
+                if (!allocation.reported) {
+                    allocation.reported = true;
+                    logger.warn("Possible leak: {} open for {} ms on thread {}: {}", allocation.resourceType,
+                            allocation.ageMillis(), allocation.threadName, allocation.sql, allocation.allocationSite);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error checking for leaked statements.", e);
+        }
+    }
+
+    /**
+     * Drops closed resources, logs and drops resources collected without being closed, and
+     * returns the remaining ones older than the threshold.
+     */
+    private static List<Allocation> openPastThreshold() {
+        long threshold = thresholdMillis;
+        List<Allocation> leaked = new ArrayList<>();
+        for (Iterator<Allocation> it = OPEN.values().iterator(); it.hasNext(); ) {
+            Allocation allocation = it.next();
+            if (allocation.resource.get() == null) {
+                it.remove();
+                COLLECTED.incrementAndGet();
+                logger.warn("Leak: {} was garbage-collected without being closed, {} ms after it was opened on thread {}: {}",
+                        allocation.resourceType, allocation.ageMillis(), allocation.threadName, allocation.sql,
+                        allocation.allocationSite);
+            } else if (!allocation.isOpen()) {
+                it.remove();
+            } else if (allocation.ageMillis() >= threshold) {
+                leaked.add(allocation);
+            }
+        }
+        return leaked;
+    }
+
+    private static final class Allocation {
+        private final WeakReference<AutoCloseable> resource;
+        private final String resourceType;
+        private final String sql;
+        private final String threadName;
+        private final Throwable allocationSite;
+        private final long createdNanos = System.nanoTime();
+        private volatile boolean reported;
+
+        private Allocation(AutoCloseable resource, String resourceType, String sql, String threadName,
+                           Throwable allocationSite) {
+            this.resource = new WeakReference<>(resource);
+            this.resourceType = resourceType;
+            this.sql = sql;
+            this.threadName = threadName;
+            this.allocationSite = allocationSite;
+        }
+
+        private boolean isOpen() {
+            AutoCloseable current = resource.get();
+            try {
+                if (current instanceof Statement) {
+                    return !((Statement) current).isClosed();
+                } else if (current instanceof ResultSet) {
+                    return !((ResultSet) current).isClosed();
+                }
+                return false;
+            } catch (SQLException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        private long ageMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdNanos);
+        }
+
+        private ResourceLeak toLeak() {
+            return new ResourceLeak(resourceType, sql, threadName, ageMillis(), allocationSite.getStackTrace());
+        }
+    }
+}
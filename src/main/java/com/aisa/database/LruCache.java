@@ -0,0 +1,34 @@
+package com.aisa.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A size-bounded, access-ordered map that evicts its least recently used entry once the bound
+ * is exceeded. Not thread-safe; callers synchronize on the instance.
+ */
+final class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    private final int maxSize;
+    private final BiConsumer<K, V> onEvict;
+
+    LruCache(int maxSize) {
+        this(maxSize, (key, value) -> { });
+    }
+
+    LruCache(int maxSize, BiConsumer<K, V> onEvict) {
+        super(16, 0.75f, true);
+        this.maxSize = maxSize;
+        this.onEvict = onEvict;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        if (size() > maxSize) {
+            onEvict.accept(eldest.getKey(), eldest.getValue());
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,7 +1,11 @@
 package com.aisa.database;
 
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,16 +15,22 @@ import org.slf4j.LoggerFactory;
  * This class provides various methods to interact with a MSSQL database, including
  * establishing connections, executing queries and updates,
  * and converting ResultSets to more usable formats.
+ *
+ * The shared operations run on a {@link DialectEngine} for {@link Dialects#SQL_SERVER}; its
+ * {@link DialectProfile} holds the login timeout and statement pooling defaults.
  */
 public class MSSQLUtilLib {
 
     private static final Logger logger = LoggerFactory.getLogger(MSSQLUtilLib.class);
 
-    private static final String JDBC_DRIVER = "com.microsoft.sqlserver.jdbc.SQLServerDriver";
+    private static final DialectEngine ENGINE = new DialectEngine(Dialects.SQL_SERVER);
 
     /**
      * Establishes a connection to the MSSQL database.
      *
+     * Unless the URL sets them, the connection is encrypted, uses the login timeout of the
+     * dialect profile (30 seconds by default) and enables driver statement pooling.
+     *
      * @param dbUrl    the database URL in the format jdbc:sqlserver://[serverName[\instanceName][:portNumber]][;property=value[;property=value]]
      * @param user     the database user
      * @param password the user's password
@@ -28,40 +38,71 @@ public class MSSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static Connection getConnection(String dbUrl, String user, String password) throws SQLException {
-        logger.info("Establishing connection to the MSSQL database.");
-        try {
-            Class.forName(JDBC_DRIVER);
-        } catch (ClassNotFoundException e) {
-            logger.error("MSSQL JDBC driver not found.", e);
-            throw new SQLException("MSSQL JDBC driver not found.", e);
-        }
+        return ENGINE.getConnection(dbUrl, user, password);
+    }
 
-        // Append Azure SQL Database specific properties to the URL if not already present
-        if (!dbUrl.contains("encrypt=")) {
-            dbUrl += ";encrypt=true";
-        }
-        if (!dbUrl.contains("trustServerCertificate=")) {
-            dbUrl += ";trustServerCertificate=false";
-        }
+    /**
+     * Creates a pool of connections to the MSSQL database. The same Azure SQL Database
+     * properties as {@link #getConnection(String, String, String)} are applied to the URL.
+     *
+     * Connections borrowed from the pool are returned to it by {@link #closeConnection(Connection)}
+     * instead of being torn down.
+     *
+     * @param dbUrl    the database URL in the format jdbc:sqlserver://[serverName[\instanceName][:portNumber]][;property=value[;property=value]]
+     * @param user     the database user
+     * @param password the user's password
+     * @param config   the pool sizing, eviction and validation settings
+     * @return the connection pool
+     * @throws SQLException if the JDBC driver cannot be loaded
+     */
+    public static ConnectionPool createConnectionPool(String dbUrl, String user, String password,
+                                                      ConnectionPoolConfig config) throws SQLException {
+        return ENGINE.createConnectionPool(dbUrl, user, password, config);
+    }
 
-        // For Azure SQL Database, you may also want to set additional properties like login timeout, etc.
-        dbUrl += ";loginTimeout=30";
+    /**
+     * Warms up an MSSQL connection pool at startup so that latency right after a deploy matches
+     * steady state.
+     *
+     * The JDBC driver is registered once, the given number of connections are opened and
+     * validated in parallel, and each hot statement is prepared on every new connection so that
+     * the first parameterized executeQuery or executeUpdate with the same SQL reuses it.
+     *
+     * @param pool          a pool created by {@link #createConnectionPool(String, String, String, ConnectionPoolConfig)}
+     * @param connections   the number of connections the pool should hold afterwards
+     * @param hotStatements SQL with {@code ?} placeholders to prepare on each new connection
+     * @return the number of connections opened
+     * @throws SQLException if the driver cannot be loaded or no connection could be opened
+     */
+    public static int warmUp(ConnectionPool pool, int connections, String... hotStatements) throws SQLException {
+        return ENGINE.warmUp(pool, connections, Arrays.asList(hotStatements));
+    }
 
-        return DriverManager.getConnection(dbUrl, user, password);
+    /**
+     * Borrows a connection from a pooled DataSource such as a {@link ConnectionPool}.
+     *
+     * @param dataSource the DataSource to borrow from
+     * @return the connection object
+     * @throws SQLException if a database access error occurs or no connection becomes available in time
+     */
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        logger.info("Borrowing connection from the connection pool.");
+        return dataSource.getConnection();
     }
 
     /**
      * Executes a query on the MSSQL database.
      *
+     * The Statement is closed when the returned ResultSet is closed, so close the ResultSet, or
+     * use {@link #query(Connection, String, RowHandler)} to have both closed automatically.
+     *
      * @param connection the connection object
      * @param query      the SQL query to be executed
      * @return the ResultSet object containing the results of the query
      * @throws SQLException if a database access error occurs
      */
     public static ResultSet executeQuery(Connection connection, String query) throws SQLException {
-        logger.info("Executing query: {}", query);
-        Statement stmt = connection.createStatement();
-        return stmt.executeQuery(query);
+        return ENGINE.executeQuery(connection, query);
     }
 
     /**
@@ -73,34 +114,339 @@ public class MSSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static int executeUpdate(Connection connection, String update) throws SQLException {
-        logger.info("Executing update: {}", update);
-        Statement stmt = connection.createStatement();
-        return stmt.executeUpdate(update);
+        return ENGINE.executeUpdate(connection, update);
+    }
+
+    /**
+     * Executes a parameterized query on the MSSQL database.
+     *
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSet executeQuery(Connection connection, String query, Object... params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a query with named parameters on the MSSQL database.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     * @see NamedParameterSql
+     */
+    public static ResultSet executeQuery(Connection connection, String query, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a parameterized query on the MSSQL database, or returns its cached rows when the
+     * same query was run with equal parameters recently. Updates made through this class
+     * invalidate cached results of the tables they write to; see {@link QueryResultCache}.
+     *
+     * @param connection the connection object, only used when the result is not cached
+     * @param cache      the cache to answer from and store the result in
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return a read-only List of read-only rows
+     * @throws SQLException if a database access error occurs
+     */
+    public static List<Map<String, Object>> executeCachedQuery(Connection connection, QueryResultCache cache,
+                                                              String query, Object... params) throws SQLException {
+        return ENGINE.executeCachedQuery(connection, cache, query, params);
+    }
+
+    /**
+     * Executes a parameterized update on the MSSQL database.
+     *
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs
+     */
+    public static int executeUpdate(Connection connection, String update, Object... params) throws SQLException {
+        return ENGINE.executeUpdate(connection, update, params);
+    }
+
+    /**
+     * Executes an update with named parameters on the MSSQL database.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     * @see NamedParameterSql
+     */
+    public static int executeUpdate(Connection connection, String update, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeUpdate(connection, update, params);
+    }
+
+    /**
+     * Executes a parameterized statement once per parameter row on the MSSQL database,
+     * sending the rows in batches of {@code batchSize}.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Iterable<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Executes a parameterized statement once per row of a stream on the MSSQL database,
+     * sending the rows in batches of {@code batchSize}. The stream is consumed lazily.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Stream<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Bulk loads rows into an MSSQL table using the driver's bulk copy protocol.
+     *
+     * Rows are streamed to the server as the iterator is read, so the data set does not need to
+     * fit in memory. Values are converted using the types of the destination columns.
+     *
+     * @param connection the connection object
+     * @param table      the destination table
+     * @param columns    the source column names, in row order; mapped to destination columns by
+     *                   name through {@link BulkCopyOptions#addColumnMapping(String, String)} or
+     *                   otherwise by position
+     * @param rows       the values of each row
+     * @param options    the batch size, table lock, timeout and column mappings; null for the defaults
+     * @return the number of rows copied and the throughput
+     * @throws SQLException if a database access error occurs
+     */
+    public static BulkCopyResult bulkInsert(Connection connection, String table, List<String> columns,
+                                            Iterator<Object[]> rows, BulkCopyOptions options) throws SQLException {
+        logger.info("Starting bulk copy into {}", table);
+        try {
+            return SqlServerBulkLoader.copy(connection, table, columns, rows,
+                    options != null ? options : new BulkCopyOptions());
+        } finally {
+            QueryResultCache.invalidateTableEverywhere(connection, table);
+        }
+    }
+
+    /**
+     * Bulk loads all rows of a ResultSet into an MSSQL table using the driver's bulk copy protocol.
+     *
+     * The source is typically a query streamed from another connection or database; rows are
+     * sent as they are read from it.
+     *
+     * @param connection the connection object for the destination database
+     * @param table      the destination table
+     * @param source     the rows to copy; it is read to the end but not closed
+     * @param options    the batch size, table lock, timeout and column mappings; null for the defaults
+     * @return the number of rows copied and the throughput
+     * @throws SQLException if a database access error occurs
+     */
+    public static BulkCopyResult bulkInsert(Connection connection, String table, ResultSet source,
+                                            BulkCopyOptions options) throws SQLException {
+        logger.info("Starting bulk copy into {}", table);
+        try {
+            return SqlServerBulkLoader.copy(connection, table, source,
+                    options != null ? options : new BulkCopyOptions());
+        } finally {
+            QueryResultCache.invalidateTableEverywhere(connection, table);
+        }
     }
 
     /**
      * Converts a ResultSet to a List of Maps.
      *
+     * Each row is a {@link CompactRow}: the column names are read once and shared by all rows,
+     * and the values of a row are held in a single array.
+     *
      * @param resultSet the ResultSet to be converted
      * @return a List of Maps, where each Map represents a row with column names as keys
      *         and column values as values
      * @throws SQLException if there is an error accessing the ResultSet
      */
     public static List<Map<String, Object>> resultSetToList(ResultSet resultSet) throws SQLException {
-        logger.info("Converting ResultSet to List of Maps.");
-        List<Map<String, Object>> list = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
-
-        while (resultSet.next()) {
-            Map<String, Object> row = new HashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                row.put(metaData.getColumnName(i), resultSet.getObject(i));
-            }
-            list.add(row);
-        }
+        return ENGINE.resultSetToList(resultSet);
+    }
+
+    /**
+     * Reads a ResultSet into a result that keeps rows on the heap up to a byte budget and
+     * spills the rest to a memory-mapped temporary file.
+     *
+     * Use it instead of {@link #resultSetToList(ResultSet)} when the whole result is needed for
+     * random access but may be too large for the heap. Rows are read by index and column in the
+     * same way as a {@link TabularResult}.
+     *
+     * @param resultSet         the ResultSet to be read
+     * @param memoryBudgetBytes the estimated heap size rows may take before spilling
+     * @return the result; close it to delete the spill file
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public static SpillableResult resultSetToSpillable(ResultSet resultSet, long memoryBudgetBytes) throws SQLException {
+        return ENGINE.resultSetToSpillable(resultSet, memoryBudgetBytes);
+    }
+
+    /**
+     * Maps a ResultSet to a list of POJOs.
+     *
+     * Columns are matched to setters or fields once per POJO class and result shape, and the
+     * resolved plan is cached; see {@link PojoMapper}.
+     *
+     * @param resultSet the ResultSet to be mapped
+     * @param pojoClass the class of the POJO; it must have a no-argument constructor
+     * @param <T>       the type of the POJO
+     * @return a List of POJOs, one per row
+     * @throws SQLException if a database access error occurs or a value cannot be converted
+     */
+    public static <T> List<T> mapResultSetToPOJO(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
+        return ENGINE.mapResultSetToPOJO(resultSet, pojoClass);
+    }
+
+    /**
+     * Executes a query on the MSSQL database and returns an iterator that fetches rows lazily.
+     *
+     * Unlike {@link #resultSetToList(ResultSet)}, rows are read from the driver only as the
+     * iterator advances. The Statement and ResultSet are closed once the last row has been read
+     * or when the iterator is closed.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the fetch size of the dialect profile
+     * @return a closeable iterator over the rows of the result
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSetIterator iterateQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return ENGINE.iterateQuery(connection, query, fetchSize);
+    }
+
+    /**
+     * Executes a query on the MSSQL database and returns a Stream that fetches rows lazily.
+     *
+     * The Stream must be closed, for example with try-with-resources, unless it is always
+     * consumed to the end.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the fetch size of the dialect profile
+     * @return a Stream of rows backed by an open ResultSet
+     * @throws SQLException if a database access error occurs
+     * @see #iterateQuery(Connection, String, int)
+     */
+    public static Stream<Map<String, Object>> streamQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return iterateQuery(connection, query, fetchSize).stream();
+    }
 
-        return list;
+    /**
+     * Executes a query on the MSSQL database and writes its rows to a stream as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched, so memory use stays flat however many
+     * rows the query returns.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param out        the stream to write to; flushed but not closed
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public static long exportQuery(Connection connection, String query, OutputStream out, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, out, format, options);
+    }
+
+    /**
+     * Executes a query on the MSSQL database and writes its rows to a file as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param file       the file to write; it is created or truncated
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the file cannot be written
+     */
+    public static long exportQuery(Connection connection, String query, Path file, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, file, format, options);
+    }
+
+    /**
+     * Returns the saved snapshot of a query on the MSSQL database, taking a new one if the file
+     * is missing or was saved under a different version key.
+     *
+     * Expensive baseline queries that are read on every run, such as in regression suites, are
+     * then only executed when the version key changes; later runs read the rows from the
+     * memory-mapped snapshot through {@link ResultSnapshot#resultSet()} or by row index.
+     *
+     * @param connection the connection object; only used when the snapshot has to be taken
+     * @param query      the SQL query to be executed
+     * @param file       the snapshot file
+     * @param versionKey the key the snapshot must be valid for, such as a schema or data version
+     * @return the loaded snapshot
+     * @throws SQLException if a database access error occurs or the snapshot cannot be written or read
+     */
+    public static ResultSnapshot snapshotQuery(Connection connection, String query, Path file, String versionKey)
+            throws SQLException {
+        return ENGINE.snapshotQuery(connection, query, file, versionKey);
+    }
+
+    /**
+     * Executes a query on the MSSQL database and passes each row to a handler.
+     *
+     * Unlike {@link #executeQuery(Connection, String)}, nothing is left for the caller to
+     * close: the Statement and ResultSet are closed when the last row has been handled or when
+     * the query or the handler throws, so cursors cannot leak.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler) throws SQLException {
+        return ENGINE.query(connection, query, handler);
+    }
+
+    /**
+     * Executes a parameterized query on the MSSQL database through the statement cache and
+     * passes each row to a handler, closing the ResultSet when done.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler, Object... params)
+            throws SQLException {
+        return ENGINE.query(connection, query, handler, params);
     }
 
     /**
@@ -110,9 +456,7 @@ public class MSSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static void commitTransaction(Connection connection) throws SQLException {
-        logger.info("Committing transaction.");
-        connection.commit();
-        connection.setAutoCommit(true);
+        ENGINE.commitTransaction(connection);
     }
 
     /**
@@ -122,25 +466,17 @@ public class MSSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static void rollbackTransaction(Connection connection) throws SQLException {
-        logger.info("Rolling back transaction.");
-        connection.rollback();
-        connection.setAutoCommit(true);
+        ENGINE.rollbackTransaction(connection);
     }
 
     /**
-     * Closes the database connection.
+     * Closes the database connection. Connections borrowed from a {@link ConnectionPool}
+     * are returned to the pool.
      *
      * @param connection the connection object to be closed
      */
     public static void closeConnection(Connection connection) {
-        logger.info("Closing database connection.");
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database connection.", e);
-            }
-        }
+        ENGINE.closeConnection(connection);
     }
 
     /**
@@ -149,14 +485,7 @@ public class MSSQLUtilLib {
      * @param statement the statement object to be closed
      */
     public static void closeStatement(Statement statement) {
-        logger.info("Closing database statement.");
-        if (statement != null) {
-            try {
-                statement.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database statement.", e);
-            }
-        }
+        ENGINE.closeStatement(statement);
     }
 
     /**
@@ -165,13 +494,6 @@ public class MSSQLUtilLib {
      * @param resultSet the ResultSet object to be closed
      */
     public static void closeResultSet(ResultSet resultSet) {
-        logger.info("Closing database ResultSet.");
-        if (resultSet != null) {
-            try {
-                resultSet.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database ResultSet.", e);
-            }
-        }
+        ENGINE.closeResultSet(resultSet);
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.aisa.database;
+
+/**
+ * Receives every measurement recorded by {@link DatabaseMetrics}, for forwarding to a metrics
+ * system such as Micrometer or Prometheus.
+ *
+ * Callbacks run synchronously on the thread that executed the statement, so implementations must
+ * be thread-safe and fast. All arguments are primitives or the cached fingerprint strings, so
+ * forwarding them does not allocate. Every method has an empty default implementation.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called after a statement or batch has been executed.
+     *
+     * @param fingerprint  the statement text with literals replaced by {@code ?}
+     * @param elapsedNanos how long the execution took
+     * @param failed       true if the execution threw an exception
+     */
+    default void onExecute(String fingerprint, long elapsedNanos, boolean failed) {
+    }
+
+    /**
+     * Called after rows of a result have been read, or after rows have been sent by a COPY,
+     * bulk copy or multi-row insert.
+     *
+     * @param fingerprint    the statement fingerprint, or {@link DatabaseMetrics#UNATTRIBUTED} if
+     *                       the statement that produced the rows is not known
+     * @param rows           the number of rows read
+     * @param estimatedBytes the estimated heap size of the values read
+     * @param elapsedNanos   how long reading the rows took
+     */
+    default void onFetch(String fingerprint, long rows, long estimatedBytes, long elapsedNanos) {
+    }
+
+    /**
+     * Called after a connection has been borrowed from a {@link ConnectionPool}.
+     *
+     * @param elapsedNanos how long the caller waited, including validation and opening
+     * @param failed       true if no connection could be obtained
+     */
+    default void onConnectionAcquire(long elapsedNanos, boolean failed) {
+    }
+
+    /**
+     * Called after a connection, statement or result set has been closed.
+     *
+     * @param resourceType {@code "connection"}, {@code "statement"} or {@code "resultSet"}
+     * @param elapsedNanos how long closing took
+     */
+    default void onClose(String resourceType, long elapsedNanos) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.aisa.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Loads rows with multi-row {@code INSERT ... VALUES (...), (...)} statements executed in JDBC
+ * batches, so one round trip carries many statements of many rows each.
+ *
+ * Rows are grouped as they are read from the source; full groups share one prepared statement
+ * and the remaining rows are sent with a shorter statement at the end. Each batch is recorded in
+ * {@link DatabaseMetrics} by {@link BatchExecutor}; the rows inserted are counted once each
+ * statement is done.
+ */
+final class MultiRowInsert {
+
+    /**
+     * The number of rows in each INSERT statement, before the parameter limit is applied.
+     */
+    static final int DEFAULT_ROWS_PER_INSERT = 100;
+
+    /**
+     * The most parameter markers DB2 accepts in one statement.
+     */
+    static final int MAX_PARAMETERS = 32767;
+
+    private MultiRowInsert() {
+    }
+
+    /**
+     * Inserts the rows, sending about {@code batchSize} rows per round trip.
+     */
+    static List<int[]> execute(Connection connection, String table, List<String> columns,
+                               Iterator<Object[]> rows, int batchSize) throws SQLException {
+        int rowsPerInsert = rowsPerInsert(columns.size(), batchSize);
+        int statementsPerBatch = Math.max(1, batchSize / rowsPerInsert);
+        GroupingIterator groups = new GroupingIterator(rows, rowsPerInsert, columns.size());
+        String sql = insertSql(table, columns, rowsPerInsert);
+        long start = System.nanoTime();
+        List<int[]> counts;
+        try {
+            counts = new ArrayList<>(BatchExecutor.executeBatch(connection, sql, () -> groups, statementsPerBatch));
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        DatabaseMetrics.recordFetch(sql, groups.groupCount * (long) rowsPerInsert, 0, start);
+        List<Object[]> remainder = groups.remainder();
+        if (!remainder.isEmpty()) {
+            String remainderSql = insertSql(table, columns, remainder.size());
+            start = System.nanoTime();
+            counts.addAll(BatchExecutor.executeBatch(connection, remainderSql,
+                    Collections.singletonList(flatten(remainder, columns.size())), 1));
+            DatabaseMetrics.recordFetch(remainderSql, remainder.size(), 0, start);
+        }
+        return counts;
+    }
+
+    static int rowsPerInsert(int columnCount, int batchSize) {
+        int limit = Math.max(1, MAX_PARAMETERS / Math.max(1, columnCount));
+        int wanted = batchSize > 0 ? Math.min(batchSize, DEFAULT_ROWS_PER_INSERT) : DEFAULT_ROWS_PER_INSERT;
+        return Math.min(wanted, limit);
+    }
+
+    static String insertSql(String table, List<String> columns, int rowCount) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            row.append(i == 0 ? "?" : ", ?");
+        }
+        row.append(')');
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(i == 0 ? "" : ", ").append(row);
+        }
+        return sql.toString();
+    }
+
+    private static Object[] flatten(List<Object[]> rows, int columnCount) throws SQLException {
+        Object[] values = new Object[rows.size() * columnCount];
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            if (row.length != columnCount) {
+                throw new SQLException("Expected " + columnCount + " values per row but got " + row.length);
+            }
+            System.arraycopy(row, 0, values, i * columnCount, columnCount);
+        }
+        return values;
+    }
+
+    /**
+     * Yields the parameters of each full group of rows as one flat array, keeping the rows of a
+     * final partial group for {@link #remainder()}.
+     */
+    private static final class GroupingIterator implements Iterator<Object[]> {
+        private final Iterator<Object[]> rows;
+        private final int groupSize;
+        private final int columnCount;
+        private List<Object[]> pending = new ArrayList<>();
+        private long groupCount;
+
+        private GroupingIterator(Iterator<Object[]> rows, int groupSize, int columnCount) {
+            this.rows = rows;
+            this.groupSize = groupSize;
+            this.columnCount = columnCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.size() < groupSize && rows.hasNext()) {
+                pending.add(rows.next());
+            }
+            return pending.size() == groupSize;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<Object[]> group = pending;
+            pending = new ArrayList<>(groupSize);
+            groupCount++;
+            try {
+                return flatten(group, columnCount);
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e.getMessage(), e);
+            }
+        }
+
+        private List<Object[]> remainder() {
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.aisa.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The MySQL dialect. Settings are added to the URL as query parameters.
+ */
+final class MySQLDialect implements Dialect {
+
+    private final DialectProfile profile = new DialectProfile();
+
+    MySQLDialect() {
+        profile.setBatchRewrite(true);
+        profile.setStatementCacheSize(250);
+    }
+
+    @Override
+    public String getName() {
+        return "MySQL";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "com.mysql.cj.jdbc.Driver";
+    }
+
+    @Override
+    public boolean acceptsUrl(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:mysql:");
+    }
+
+    @Override
+    public DialectProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public String prepareUrl(String jdbcUrl) {
+        String url = jdbcUrl;
+        if (profile.isBatchRewrite()) {
+            // Let Connector/J send batched inserts as multi-row INSERTs unless the caller configured it
+            url = BatchExecutor.withUrlParameter(url, "rewriteBatchedStatements", "true");
+        }
+        if (profile.getStatementCacheSize() > 0) {
+            url = BatchExecutor.withUrlParameter(url, "cachePrepStmts", "true");
+            url = BatchExecutor.withUrlParameter(url, "prepStmtCacheSize", String.valueOf(profile.getStatementCacheSize()));
+        }
+        if (profile.getLoginTimeoutSeconds() > 0) {
+            url = BatchExecutor.withUrlParameter(url, "connectTimeout",
+                    String.valueOf(profile.getLoginTimeoutSeconds() * 1000));
+        }
+        return url;
+    }
+
+    @Override
+    public long replicationLagMillis(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet resultSet;
+            try {
+                resultSet = statement.executeQuery("SHOW REPLICA STATUS");
+            } catch (SQLException e) {
+                // Servers before 8.0.22 only know the old spelling
+                resultSet = statement.executeQuery("SHOW SLAVE STATUS");
+            }
+            try {
+                if (!resultSet.next()) {
+                    return 0;
+                }
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    String label = metaData.getColumnLabel(i);
+                    if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                        long seconds = resultSet.getLong(i);
+                        return resultSet.wasNull() ? Long.MAX_VALUE : seconds * 1000;
+                    }
+                }
+                return -1;
+            } finally {
+                resultSet.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.aisa.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL with {@code :name} parameters rewritten to JDBC {@code ?} placeholders.
+ *
+ * Parsing skips string literals, quoted identifiers, comments and PostgreSQL {@code ::} casts.
+ * Parse results are cached by SQL text, so a statement executed repeatedly is only parsed once
+ * on the client.
+ */
+public final class NamedParameterSql {
+
+    private static final int CACHE_SIZE = 1024;
+
+    private static final LruCache<String, NamedParameterSql> CACHE = new LruCache<>(CACHE_SIZE);
+
+    private final String sql;
+    private final List<String> parameterNames;
+
+    private NamedParameterSql(String sql, List<String> parameterNames) {
+        this.sql = sql;
+        this.parameterNames = Collections.unmodifiableList(parameterNames);
+    }
+
+    /**
+     * Parses SQL containing {@code :name} parameters, returning a cached result when the same
+     * SQL text has been parsed before.
+     *
+     * @param namedSql the SQL with named parameters
+     * @return the parsed SQL
+     */
+    public static NamedParameterSql parse(String namedSql) {
+        synchronized (CACHE) {
+            NamedParameterSql parsed = CACHE.get(namedSql);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+        NamedParameterSql parsed = doParse(namedSql);
+        synchronized (CACHE) {
+            CACHE.put(namedSql, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Gets the SQL with every named parameter replaced by {@code ?}.
+     *
+     * @return the JDBC SQL
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets the parameter names in placeholder order. A name used several times appears once
+     * per use.
+     *
+     * @return the parameter names
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * Orders named parameter values to match the {@code ?} placeholders.
+     *
+     * @param params the parameter values by name
+     * @return the positional parameter values
+     * @throws SQLException if a parameter has no value
+     */
+    public Object[] toPositional(Map<String, ?> params) throws SQLException {
+        Object[] values = new Object[parameterNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            String name = parameterNames.get(i);
+            if (!params.containsKey(name)) {
+                throw new SQLException("No value supplied for parameter :" + name);
+            }
+            values[i] = params.get(name);
+        }
+        return values;
+    }
+
+    private static NamedParameterSql doParse(String namedSql) {
+        StringBuilder sql = new StringBuilder(namedSql.length());
+        List<String> names = new ArrayList<>();
+        int length = namedSql.length();
+        int i = 0;
+        while (i < length) {
+            char c = namedSql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = namedSql.indexOf(c, i + 1);
+                // A doubled quote inside a literal is an escaped quote, not the end of the literal.
+                while (end >= 0 && end + 1 < length && namedSql.charAt(end + 1) == c) {
+                    end = namedSql.indexOf(c, end + 2);
+                }
+                end = end < 0 ? length : end + 1;
+                sql.append(namedSql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && namedSql.charAt(i + 1) == '-') {
+                int end = namedSql.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                sql.append(namedSql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && namedSql.charAt(i + 1) == '*') {
+                int end = namedSql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                sql.append(namedSql, i, end);
+                i = end;
+            } else if (c == ':' && i + 1 < length && namedSql.charAt(i + 1) == ':') {
+                sql.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(namedSql.charAt(i + 1))) {
+                int end = i + 2;
+                while (end < length && Character.isJavaIdentifierPart(namedSql.charAt(end))) {
+                    end++;
+                }
+                names.add(namedSql.substring(i + 1, end));
+                sql.append('?');
+                i = end;
+            } else {
+                sql.append(c);
+                i++;
+            }
+        }
+        return new NamedParameterSql(sql.toString(), names);
+    }
+}
@@ -1,19 +1,47 @@
 package com.aisa.database;
 
+import oracle.jdbc.OracleStatement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * OracleDBUtil provides utility methods to interact with an Oracle database,
  * including methods for connecting to the database, executing queries, 
  * and mapping results to POJOs.
+ *
+ * The shared operations run on a {@link DialectEngine} for {@link Dialects#ORACLE}; its
+ * {@link DialectProfile} holds the prefetch and statement cache defaults.
  */
 public class OracleDBUtilLib {
 
     private static final Logger logger = LoggerFactory.getLogger(OracleDBUtilLib.class);
 
+    /**
+     * The number of rows fetched per round trip on connections opened by this class, instead of
+     * the driver default of 10. This is the initial row prefetch of the {@link Dialects#ORACLE}
+     * profile, which can be changed at run time.
+     */
+    public static final int DEFAULT_ROW_PREFETCH = 500;
+
+    /**
+     * The number of LOB bytes returned with each row on connections opened by this class, so small
+     * LOBs are read without an extra round trip per value.
+     */
+    public static final int DEFAULT_LOB_PREFETCH_SIZE = 32768;
+
+    /**
+     * The size of the driver's implicit statement cache on connections opened by this class.
+     */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 50;
+
+    private static final DialectEngine ENGINE = new DialectEngine(Dialects.ORACLE);
+
     // Load the Oracle JDBC driver
     static {
         try {
@@ -28,6 +56,9 @@ public class OracleDBUtilLib {
     /**
      * Gets a connection to the Oracle database.
      *
+     * The connection uses a row prefetch of {@value #DEFAULT_ROW_PREFETCH}, a LOB prefetch of
+     * {@value #DEFAULT_LOB_PREFETCH_SIZE} bytes and the driver's implicit statement cache.
+     *
      * @param url the JDBC URL of the Oracle database.
      * @param username the username to connect to the database.
      * @param password the password to connect to the database.
@@ -35,35 +66,130 @@ public class OracleDBUtilLib {
      * @throws SQLException if a database access error occurs.
      */
     public static Connection getConnection(String url, String username, String password) throws SQLException {
-        logger.info("Getting connection to Oracle database.");
-        return DriverManager.getConnection(url, username, password);
+        return ENGINE.getConnection(url, username, password);
     }
 
     /**
      * Gets a connection to the Oracle database using a Properties object.
      *
+     * The row prefetch, LOB prefetch and implicit statement cache defaults of
+     * {@link #getConnection(String, String, String)} apply unless the properties set
+     * {@code defaultRowPrefetch}, {@code oracle.jdbc.defaultLobPrefetchSize} or
+     * {@code oracle.jdbc.implicitStatementCacheSize} themselves.
+     *
      * @param url the JDBC URL of the Oracle database.
      * @param properties the Properties object containing the connection properties.
      * @return a Connection object.
      * @throws SQLException if a database access error occurs.
      */
     public static Connection getConnection(String url, Properties properties) throws SQLException {
-        logger.info("Getting connection to Oracle database with properties.");
-        return DriverManager.getConnection(url, properties);
+        return ENGINE.getConnection(url, properties);
+    }
+
+    /**
+     * Creates a pool of connections to the Oracle database.
+     *
+     * Connections borrowed from the pool are returned to it by {@link #closeConnection(Connection)}
+     * instead of being torn down. They use the same prefetch and statement cache settings as
+     * {@link #getConnection(String, String, String)}.
+     *
+     * @param url the JDBC URL of the Oracle database.
+     * @param username the username to connect to the database.
+     * @param password the password to connect to the database.
+     * @param config the pool sizing, eviction and validation settings.
+     * @return the connection pool.
+     */
+    public static ConnectionPool createConnectionPool(String url, String username, String password,
+                                                      ConnectionPoolConfig config) {
+        try {
+            return ENGINE.createConnectionPool(url, username, password, config);
+        } catch (SQLException e) {
+            // Unreachable: the driver is loaded by the static initializer
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Warms up an Oracle connection pool at startup so that latency right after a deploy matches
+     * steady state.
+     *
+     * The JDBC driver is registered once, the given number of connections are opened and
+     * validated in parallel, and each hot statement is prepared on every new connection so that
+     * the first parameterized executeQuery or executeUpdate with the same SQL reuses it.
+     *
+     * @param pool          a pool created by {@link #createConnectionPool(String, String, String, ConnectionPoolConfig)}
+     * @param connections   the number of connections the pool should hold afterwards
+     * @param hotStatements SQL with {@code ?} placeholders to prepare on each new connection
+     * @return the number of connections opened
+     * @throws SQLException if the driver cannot be loaded or no connection could be opened
+     */
+    public static int warmUp(ConnectionPool pool, int connections, String... hotStatements) throws SQLException {
+        return ENGINE.warmUp(pool, connections, Arrays.asList(hotStatements));
+    }
+
+    /**
+     * Borrows a connection from a pooled DataSource such as a {@link ConnectionPool}.
+     *
+     * @param dataSource the DataSource to borrow from.
+     * @return a Connection object.
+     * @throws SQLException if a database access error occurs or no connection becomes available in time.
+     */
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        logger.info("Borrowing connection from the Oracle connection pool.");
+        return dataSource.getConnection();
     }
 
     /**
      * Executes a query on the Oracle database.
      *
+     * The Statement is closed when the returned ResultSet is closed, so close the ResultSet, or
+     * use {@link #query(Connection, String, RowHandler)} to have both closed automatically.
+     *
      * @param connection the Connection object.
      * @param query the SQL query to execute.
      * @return a ResultSet object containing the result of the query.
      * @throws SQLException if a database access error occurs.
      */
     public static ResultSet executeQuery(Connection connection, String query) throws SQLException {
-        logger.info("Executing query: {}", query);
+        return ENGINE.executeQuery(connection, query);
+    }
+
+    /**
+     * Executes a query on the Oracle database with explicit row and LOB prefetch sizes.
+     *
+     * Large reads benefit from a row prefetch in the hundreds, which cuts the number of round
+     * trips; the LOB prefetch returns the first bytes of each CLOB or BLOB with the row. Named
+     * apart from {@link #executeQuery(Connection, String, Object...)} so that two integer
+     * parameters are never mistaken for prefetch sizes.
+     *
+     * @param connection the Connection object.
+     * @param query the SQL query to execute.
+     * @param rowPrefetch the number of rows fetched per round trip; 0 keeps the connection default.
+     * @param lobPrefetchSize the number of LOB bytes returned with each row; -1 keeps the connection default.
+     * @return a ResultSet object containing the result of the query.
+     * @throws SQLException if a database access error occurs.
+     */
+    public static ResultSet executeQueryWithPrefetch(Connection connection, String query, int rowPrefetch,
+                                                     int lobPrefetchSize) throws SQLException {
+        logger.info("Executing query with row prefetch {} and LOB prefetch {}: {}", rowPrefetch, lobPrefetchSize, query);
         Statement statement = connection.createStatement();
-        return statement.executeQuery(query);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            statement.setFetchSize(rowPrefetch);
+            if (lobPrefetchSize >= 0 && statement.isWrapperFor(OracleStatement.class)) {
+                statement.unwrap(OracleStatement.class).setLobPrefetchSize(lobPrefetchSize);
+            }
+            ResultSet resultSet = statement.executeQuery(query);
+            statement.closeOnCompletion();
+            failed = false;
+            return LeakDetector.track(resultSet, statement, "Statement", query);
+        } finally {
+            DatabaseMetrics.recordExecute(query, start, failed);
+            if (failed) {
+                closeStatement(statement);
+            }
+        }
     }
 
     /**
@@ -75,25 +201,205 @@ public class OracleDBUtilLib {
      * @throws SQLException if a database access error occurs.
      */
     public static int executeUpdate(Connection connection, String query) throws SQLException {
-        logger.info("Executing update: {}", query);
-        Statement statement = connection.createStatement();
-        return statement.executeUpdate(query);
+        return ENGINE.executeUpdate(connection, query);
     }
 
     /**
-     * Closes the connection to the Oracle database.
+     * Executes a parameterized query on the Oracle database.
      *
-     * @param connection the Connection object to close.
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the Connection object.
+     * @param query      the SQL query to execute, with {@code ?} placeholders.
+     * @param params     the parameter values, in placeholder order.
+     * @return a ResultSet object containing the result of the query.
+     * @throws SQLException if a database access error occurs.
      */
-    public static void closeConnection(Connection connection) {
-        if (connection != null) {
-            try {
-                connection.close();
-                logger.info("Oracle database connection closed.");
-            } catch (SQLException e) {
-                logger.error("Error closing Oracle database connection.", e);
+    public static ResultSet executeQuery(Connection connection, String query, Object... params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a query with named parameters on the Oracle database.
+     *
+     * @param connection the Connection object.
+     * @param query      the SQL query to execute, with {@code :name} placeholders.
+     * @param params     the parameter values by name.
+     * @return a ResultSet object containing the result of the query.
+     * @throws SQLException if a database access error occurs or a named parameter has no value.
+     * @see NamedParameterSql
+     */
+    public static ResultSet executeQuery(Connection connection, String query, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a parameterized query on the Oracle database, or returns its cached rows when the
+     * same query was run with equal parameters recently. Updates made through this class
+     * invalidate cached results of the tables they write to; see {@link QueryResultCache}.
+     *
+     * @param connection the Connection object, only used when the result is not cached.
+     * @param cache      the cache to answer from and store the result in.
+     * @param query      the SQL query to execute, with {@code ?} placeholders.
+     * @param params     the parameter values, in placeholder order.
+     * @return a read-only List of read-only rows.
+     * @throws SQLException if a database access error occurs.
+     */
+    public static List<Map<String, Object>> executeCachedQuery(Connection connection, QueryResultCache cache,
+                                                              String query, Object... params) throws SQLException {
+        return ENGINE.executeCachedQuery(connection, cache, query, params);
+    }
+
+    /**
+     * Executes a parameterized update on the Oracle database.
+     *
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the Connection object.
+     * @param query      the SQL statement to execute, with {@code ?} placeholders.
+     * @param params     the parameter values, in placeholder order.
+     * @return the number of rows affected by the update.
+     * @throws SQLException if a database access error occurs.
+     */
+    public static int executeUpdate(Connection connection, String query, Object... params) throws SQLException {
+        return ENGINE.executeUpdate(connection, query, params);
+    }
+
+    /**
+     * Executes an update with named parameters on the Oracle database.
+     *
+     * @param connection the Connection object.
+     * @param query      the SQL statement to execute, with {@code :name} placeholders.
+     * @param params     the parameter values by name.
+     * @return the number of rows affected by the update.
+     * @throws SQLException if a database access error occurs or a named parameter has no value.
+     * @see NamedParameterSql
+     */
+    public static int executeUpdate(Connection connection, String query, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeUpdate(connection, query, params);
+    }
+
+    /**
+     * Executes a parameterized statement once per parameter row on the Oracle database,
+     * sending the rows in batches of {@code batchSize}.
+     *
+     * @param connection the Connection object.
+     * @param sql        the SQL statement with {@code ?} placeholders.
+     * @param rows       the parameter values of each row.
+     * @param batchSize  the number of rows sent per round trip.
+     * @return the update counts of each batch.
+     * @throws SQLException if a database access error occurs.
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Iterable<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Executes a parameterized statement once per row of a stream on the Oracle database,
+     * sending the rows in batches of {@code batchSize}. The stream is consumed lazily.
+     *
+     * @param connection the Connection object.
+     * @param sql        the SQL statement with {@code ?} placeholders.
+     * @param rows       the parameter values of each row.
+     * @param batchSize  the number of rows sent per round trip.
+     * @return the update counts of each batch.
+     * @throws SQLException if a database access error occurs.
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Stream<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Inserts rows into an Oracle table with a batched INSERT. The driver sends each batch as one
+     * array-bound execution, so a batch of N rows costs a single round trip.
+     *
+     * @param connection the Connection object.
+     * @param table the target table.
+     * @param columns the target columns, in row order.
+     * @param rows the values of each row.
+     * @param batchSize the number of rows sent per round trip.
+     * @return the update counts of each batch.
+     * @throws SQLException if a database access error occurs.
+     */
+    public static List<int[]> bulkInsert(Connection connection, String table, List<String> columns,
+                                         Iterable<Object[]> rows, int batchSize) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        return executeBatch(connection, sql.toString(), rows, batchSize);
+    }
+
+    /**
+     * Inserts or updates rows of an Oracle table with a batched MERGE keyed on the given columns.
+     *
+     * @param connection the Connection object.
+     * @param table the target table.
+     * @param keyColumns the columns identifying a row; must also appear in {@code columns}.
+     * @param columns the columns to merge, in row order.
+     * @param rows the values of each row.
+     * @param batchSize the number of rows sent per round trip.
+     * @return the update counts of each batch.
+     * @throws SQLException if a database access error occurs.
+     * @see #buildMergeSql(String, List, List)
+     */
+    public static List<int[]> bulkMerge(Connection connection, String table, List<String> keyColumns,
+                                        List<String> columns, Iterable<Object[]> rows, int batchSize) throws SQLException {
+        return executeBatch(connection, buildMergeSql(table, keyColumns, columns), rows, batchSize);
+    }
+
+    /**
+     * Builds a MERGE statement that takes one row of bind values, in {@code columns} order, and
+     * updates the matching row of the table or inserts it when no row has the same key.
+     *
+     * @param table the target table.
+     * @param keyColumns the columns identifying a row; must also appear in {@code columns}.
+     * @param columns the columns to merge, in bind order.
+     * @return the MERGE statement.
+     */
+    public static String buildMergeSql(String table, List<String> keyColumns, List<String> columns) {
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(table).append(" t USING (SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("? ").append(columns.get(i));
+        }
+        sql.append(" FROM dual) s ON (");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            String key = keyColumns.get(i);
+            sql.append(i == 0 ? "" : " AND ").append("t.").append(key).append(" = s.").append(key);
+        }
+        sql.append(')');
+        StringBuilder updates = new StringBuilder();
+        for (String column : columns) {
+            if (!keyColumns.contains(column)) {
+                updates.append(updates.length() == 0 ? "" : ", ").append("t.").append(column).append(" = s.").append(column);
             }
         }
+        if (updates.length() > 0) {
+            sql.append(" WHEN MATCHED THEN UPDATE SET ").append(updates);
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("s.").append(columns.get(i));
+        }
+        return sql.append(')').toString();
+    }
+
+    /**
+     * Closes the connection to the Oracle database. Connections borrowed from a
+     * {@link ConnectionPool} are returned to the pool.
+     *
+     * @param connection the Connection object to close.
+     */
+    public static void closeConnection(Connection connection) {
+        ENGINE.closeConnection(connection);
     }
 
     /**
@@ -102,14 +408,7 @@ public class OracleDBUtilLib {
      * @param resultSet the ResultSet object to close.
      */
     public static void closeResultSet(ResultSet resultSet) {
-        if (resultSet != null) {
-            try {
-                resultSet.close();
-                logger.info("ResultSet closed.");
-            } catch (SQLException e) {
-                logger.error("Error closing ResultSet.", e);
-            }
-        }
+        ENGINE.closeResultSet(resultSet);
     }
 
     /**
@@ -118,14 +417,7 @@ public class OracleDBUtilLib {
      * @param statement the Statement object to close.
      */
     public static void closeStatement(Statement statement) {
-        if (statement != null) {
-            try {
-                statement.close();
-                logger.info("Statement closed.");
-            } catch (SQLException e) {
-                logger.error("Error closing Statement.", e);
-            }
-        }
+        ENGINE.closeStatement(statement);
     }
 
     /**
@@ -135,6 +427,9 @@ public class OracleDBUtilLib {
      * Each column-value mapping is represented as a Map where the key is the column name and the value
      * is the column value.
      *
+     * This shape allocates one Map per cell; prefer {@link #parseResultSetToTable(ResultSet)}
+     * for large results.
+     *
      * @param resultSet the ResultSet to be converted
      * @return a List of rows, where each row is a List of column-value Maps
      * @throws SQLException if there is an error accessing the ResultSet
@@ -142,14 +437,14 @@ public class OracleDBUtilLib {
 
     public static List<List<Map<String, Object>>> parseResultSet(ResultSet resultSet) throws SQLException {
         List<List<Map<String, Object>>> resultList = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        ColumnIndex columns = ColumnIndex.from(resultSet.getMetaData());
+        int columnCount = columns.size();
 
         while (resultSet.next()) {
-            List<Map<String, Object>> rowList = new ArrayList<>();
-            for (int i = 1; i <= columnCount; i++) {
+            List<Map<String, Object>> rowList = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
                 Map<String, Object> columnMap = new HashMap<>();
-                columnMap.put(metaData.getColumnName(i), resultSet.getObject(i));
+                columnMap.put(columns.getName(i), resultSet.getObject(i + 1));
                 rowList.add(columnMap);
             }
             resultList.add(rowList);
@@ -159,55 +454,175 @@ public class OracleDBUtilLib {
     }
 
     /**
-     * Maps a ResultSet to a list of POJOs.
+     * Converts a given ResultSet into a {@link TabularResult}.
      *
-     * @param resultSet the ResultSet object.
-     * @param pojoClass the class of the POJO.
-     * @param <T> the type of the POJO.
-     * @return a list of POJOs.
+     * Each row is stored as a single value array and the column names are shared by all rows,
+     * so cells can be read by row index and column name or position in constant time using a
+     * fraction of the memory of {@link #parseResultSet(ResultSet)}. Call
+     * {@link TabularResult#toLegacyList()} where the nested List of Maps shape is still needed.
+     *
+     * @param resultSet the ResultSet to be converted
+     * @return the tabular result
+     * @throws SQLException if there is an error accessing the ResultSet
+     */
+    public static TabularResult parseResultSetToTable(ResultSet resultSet) throws SQLException {
+        logger.info("Converting ResultSet to TabularResult.");
+        return TabularResult.from(resultSet);
+    }
+
+    /**
+     * Reads a ResultSet into a result that keeps rows on the heap up to a byte budget and
+     * spills the rest to a memory-mapped temporary file.
+     *
+     * Use it instead of {@link #parseResultSetToTable(ResultSet)} when the whole result is
+     * needed for random access but may be too large for the heap. Rows are read by index and column in the
+     * same way as a {@link TabularResult}.
+     *
+     * @param resultSet         the ResultSet to be read
+     * @param memoryBudgetBytes the estimated heap size rows may take before spilling
+     * @return the result; close it to delete the spill file
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public static SpillableResult resultSetToSpillable(ResultSet resultSet, long memoryBudgetBytes) throws SQLException {
+        return ENGINE.resultSetToSpillable(resultSet, memoryBudgetBytes);
+    }
+
+    /**
+     * Executes a query on the Oracle database and returns an iterator that fetches rows lazily.
+     *
+     * Unlike {@link #parseResultSet(ResultSet)}, rows are read from the driver only as the
+     * iterator advances; each row is a Map from column name to column value. The Statement and
+     * ResultSet are closed once the last row has been read or when the iterator is closed.
+     *
+     * @param connection the Connection object.
+     * @param query the SQL query to execute.
+     * @param fetchSize the number of rows fetched per round trip (the Oracle row prefetch); 0 uses the fetch size of the dialect profile.
+     * @return a closeable iterator over the rows of the result.
      * @throws SQLException if a database access error occurs.
      */
-    public static <T> List<T> mapResultSetToPOJO(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
-        logger.info("Mapping ResultSet to POJO: {}", pojoClass.getName());
-        List<T> resultList = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
+    public static ResultSetIterator iterateQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return ENGINE.iterateQuery(connection, query, fetchSize);
+    }
 
-        try {
-            while (resultSet.next()) {
-                T pojo = pojoClass.getDeclaredConstructor().newInstance();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object columnValue = resultSet.getObject(i);
-                    try {
-                        pojoClass.getMethod("set" + capitalize(columnName), columnValue.getClass())
-                                .invoke(pojo, columnValue);
-                    } catch (NoSuchMethodException e) {
-                        logger.warn("No setter for {} in {}", columnName, pojoClass.getName());
-                    }
-                }
-                resultList.add(pojo);
-            }
-        } catch (Exception e) {
-            logger.error("Failed to map ResultSet to POJO.", e);
-            throw new SQLException("Failed to map ResultSet to POJO", e);
-        }
+    /**
+     * Executes a query on the Oracle database and returns a Stream that fetches rows lazily.
+     *
+     * The Stream must be closed, for example with try-with-resources, unless it is always
+     * consumed to the end.
+     *
+     * @param connection the Connection object.
+     * @param query the SQL query to execute.
+     * @param fetchSize the number of rows fetched per round trip; 0 uses the fetch size of the dialect profile.
+     * @return a Stream of rows backed by an open ResultSet.
+     * @throws SQLException if a database access error occurs.
+     * @see #iterateQuery(Connection, String, int)
+     */
+    public static Stream<Map<String, Object>> streamQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return iterateQuery(connection, query, fetchSize).stream();
+    }
 
-        logger.info("ResultSet mapped to POJO: {}", pojoClass.getName());
-        return resultList;
+    /**
+     * Executes a query on the Oracle database and writes its rows to a stream as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched, so memory use stays flat however many
+     * rows the query returns.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param out        the stream to write to; flushed but not closed
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public static long exportQuery(Connection connection, String query, OutputStream out, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, out, format, options);
     }
 
     /**
-     * Capitalizes the first letter of a string.
+     * Executes a query on the Oracle database and writes its rows to a file as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched.
      *
-     * @param str the string to capitalize.
-     * @return the capitalized string.
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param file       the file to write; it is created or truncated
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the file cannot be written
      */
-    private static String capitalize(String str) {
-        if (str == null || str.isEmpty()) {
-            return str;
-        }
-        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    public static long exportQuery(Connection connection, String query, Path file, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, file, format, options);
+    }
+
+    /**
+     * Returns the saved snapshot of a query on the Oracle database, taking a new one if the file
+     * is missing or was saved under a different version key.
+     *
+     * Expensive baseline queries that are read on every run, such as in regression suites, are
+     * then only executed when the version key changes; later runs read the rows from the
+     * memory-mapped snapshot through {@link ResultSnapshot#resultSet()} or by row index.
+     *
+     * @param connection the connection object; only used when the snapshot has to be taken
+     * @param query      the SQL query to be executed
+     * @param file       the snapshot file
+     * @param versionKey the key the snapshot must be valid for, such as a schema or data version
+     * @return the loaded snapshot
+     * @throws SQLException if a database access error occurs or the snapshot cannot be written or read
+     */
+    public static ResultSnapshot snapshotQuery(Connection connection, String query, Path file, String versionKey)
+            throws SQLException {
+        return ENGINE.snapshotQuery(connection, query, file, versionKey);
+    }
+
+    /**
+     * Executes a query on the Oracle database and passes each row to a handler.
+     *
+     * Unlike {@link #executeQuery(Connection, String)}, nothing is left for the caller to
+     * close: the Statement and ResultSet are closed when the last row has been handled or when
+     * the query or the handler throws, so cursors cannot leak.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler) throws SQLException {
+        return ENGINE.query(connection, query, handler);
+    }
+
+    /**
+     * Executes a parameterized query on the Oracle database through the statement cache and
+     * passes each row to a handler, closing the ResultSet when done.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler, Object... params)
+            throws SQLException {
+        return ENGINE.query(connection, query, handler, params);
+    }
+
+    /**
+     * Maps a ResultSet to a list of POJOs.
+     *
+     * Columns are matched to setters or fields once per POJO class and result shape, and the
+     * resolved plan is cached; see {@link PojoMapper}.
+     *
+     * @param resultSet the ResultSet object.
+     * @param pojoClass the class of the POJO.
+     * @param <T> the type of the POJO.
+     * @return a list of POJOs.
+     * @throws SQLException if a database access error occurs.
+     */
+    public static <T> List<T> mapResultSetToPOJO(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
+        return ENGINE.mapResultSetToPOJO(resultSet, pojoClass);
     }
 
     /**
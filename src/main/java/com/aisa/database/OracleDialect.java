@@ -0,0 +1,58 @@
+package com.aisa.database;
+
+import oracle.jdbc.OracleConnection;
+
+import java.util.Properties;
+
+/**
+ * The Oracle dialect. Row prefetch, LOB prefetch, the implicit statement cache and the connect
+ * timeout are passed as connection properties.
+ */
+final class OracleDialect implements Dialect {
+
+    private final DialectProfile profile = new DialectProfile();
+
+    OracleDialect() {
+        profile.setRowPrefetch(OracleDBUtilLib.DEFAULT_ROW_PREFETCH);
+        profile.setLobPrefetchSize(OracleDBUtilLib.DEFAULT_LOB_PREFETCH_SIZE);
+        profile.setStatementCacheSize(OracleDBUtilLib.DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    @Override
+    public String getName() {
+        return "Oracle";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "oracle.jdbc.driver.OracleDriver";
+    }
+
+    @Override
+    public boolean acceptsUrl(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:oracle:");
+    }
+
+    @Override
+    public DialectProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public Properties prepareProperties(Properties properties) {
+        Properties tuned = Dialect.super.prepareProperties(properties);
+        putIfPositive(tuned, OracleConnection.CONNECTION_PROPERTY_DEFAULT_ROW_PREFETCH, profile.getRowPrefetch());
+        putIfPositive(tuned, OracleConnection.CONNECTION_PROPERTY_DEFAULT_LOB_PREFETCH_SIZE, profile.getLobPrefetchSize());
+        putIfPositive(tuned, OracleConnection.CONNECTION_PROPERTY_IMPLICIT_STATEMENT_CACHE_SIZE,
+                profile.getStatementCacheSize());
+        putIfPositive(tuned, OracleConnection.CONNECTION_PROPERTY_THIN_NET_CONNECT_TIMEOUT,
+                profile.getLoginTimeoutSeconds() * 1000);
+        return tuned;
+    }
+
+    private static void putIfPositive(Properties properties, String name, int value) {
+        if (value > 0) {
+            properties.putIfAbsent(name, String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Extracts the rows of one large query in parallel over several connections.
+ *
+ * The value range of a numeric or date partition column is read first and split into range
+ * predicates of the form {@code SELECT * FROM (query) p WHERE col >= ? AND col < ?}, plus one
+ * partition for rows where the column is NULL. The SQL is the same on all supported databases.
+ *
+ * There are {@code partitionsPerThread} times more partitions than threads, and each thread takes
+ * the next partition from a shared queue when it finishes one. Threads that draw sparse ranges
+ * therefore take over more of the work, and skewed data does not leave one connection doing the
+ * rest of the extraction alone.
+ *
+ * Rows from all partitions are merged into a bounded queue and handed to a sink or Stream on the
+ * caller's thread, in no particular order.
+ */
+public class ParallelExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelExtractor.class);
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[\\w.$#\"\\[\\]`]+");
+
+    private static final Object END_OF_PARTITIONS = new Object();
+
+    private static final AtomicInteger EXTRACTION_SEQUENCE = new AtomicInteger();
+
+    private final DataSource dataSource;
+    private final int parallelism;
+    private int partitionsPerThread = 4;
+    private int fetchSize = 1000;
+    private int queueCapacity = 10_000;
+    private boolean includeNulls = true;
+
+    /**
+     * Creates an extractor that reads with up to {@code parallelism} connections at once.
+     *
+     * @param dataSource  the DataSource to borrow connections from, typically a {@link ConnectionPool}
+     * @param parallelism the number of partitions read at the same time
+     */
+    public ParallelExtractor(DataSource dataSource, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.dataSource = dataSource;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets how many range partitions are created per thread. More partitions balance skewed data
+     * better at the cost of more queries.
+     *
+     * @param partitionsPerThread the number of partitions per thread; defaults to 4
+     */
+    public void setPartitionsPerThread(int partitionsPerThread) {
+        this.partitionsPerThread = Math.max(1, partitionsPerThread);
+    }
+
+    /**
+     * Sets the fetch size used for each partition query.
+     *
+     * @param fetchSize the number of rows fetched per round trip; defaults to 1000
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets how many rows may be buffered between the partition readers and the consumer before
+     * the readers wait.
+     *
+     * @param queueCapacity the buffer size in rows; defaults to 10000
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Sets whether rows with a NULL partition column are extracted by an extra partition.
+     *
+     * @param includeNulls false if the partition column is declared NOT NULL; defaults to true
+     */
+    public void setIncludeNulls(boolean includeNulls) {
+        this.includeNulls = includeNulls;
+    }
+
+    /**
+     * Extracts all rows of a table or query and passes each row to the sink on the calling thread.
+     *
+     * @param tableOrQuery    a table name or a SELECT query
+     * @param partitionColumn a numeric or date column of the result used to split the work
+     * @param sink            receives every row
+     * @return the number of rows extracted
+     * @throws SQLException if a database access error occurs in any partition
+     */
+    public long extract(String tableOrQuery, String partitionColumn, Consumer<Map<String, Object>> sink)
+            throws SQLException {
+        long count = 0;
+        try (Extraction extraction = start(tableOrQuery, partitionColumn)) {
+            while (extraction.hasNext()) {
+                sink.accept(extraction.next());
+                count++;
+            }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        return count;
+    }
+
+    /**
+     * Extracts all rows of a table or query as a Stream fed by the partition readers.
+     *
+     * The Stream must be closed, for example with try-with-resources, unless it is always
+     * consumed to the end; closing it early cancels the remaining partitions.
+     *
+     * @param tableOrQuery    a table name or a SELECT query
+     * @param partitionColumn a numeric or date column of the result used to split the work
+     * @return a Stream of the rows of all partitions
+     * @throws SQLException if the partition bounds cannot be read
+     */
+    public Stream<Map<String, Object>> stream(String tableOrQuery, String partitionColumn) throws SQLException {
+        Extraction extraction = start(tableOrQuery, partitionColumn);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(extraction, Spliterator.NONNULL), false)
+                .onClose(extraction::close);
+    }
+
+    private Extraction start(String tableOrQuery, String partitionColumn) throws SQLException {
+        String source = TABLE_NAME.matcher(tableOrQuery.trim()).matches()
+                ? tableOrQuery.trim() : "(" + tableOrQuery + ") p";
+        List<Range> ranges = new ArrayList<>();
+        Object[] bounds = readBounds(source, partitionColumn);
+        if (bounds[0] != null) {
+            List<Object> boundaries = split(bounds[0], bounds[1], parallelism * partitionsPerThread);
+            for (int i = 0; i < boundaries.size() - 1; i++) {
+                ranges.add(new Range(boundaries.get(i), boundaries.get(i + 1), i == boundaries.size() - 2));
+            }
+        }
+        if (includeNulls) {
+            ranges.add(Range.NULLS);
+        }
+        logger.info("Extracting {} in {} partitions on {} connections", partitionColumn, ranges.size(), parallelism);
+        String select = "SELECT * FROM " + source + " WHERE ";
+        return new Extraction(select, partitionColumn, ranges);
+    }
+
+    private Object[] readBounds(String source, String partitionColumn) throws SQLException {
+        String sql = "SELECT MIN(" + partitionColumn + "), MAX(" + partitionColumn + ") FROM " + source;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return new Object[]{resultSet.getObject(1), resultSet.getObject(2)};
+        }
+    }
+
+    /**
+     * Splits the closed range [min, max] into at most {@code count} ranges, returning their
+     * boundaries in ascending order. Integral and date values are split on whole units, so
+     * narrow ranges yield fewer boundaries.
+     */
+    static List<Object> split(Object min, Object max, int count) throws SQLException {
+        List<Object> boundaries = new ArrayList<>();
+        if (min instanceof Integer || min instanceof Long || min instanceof Short || min instanceof BigInteger
+                || (min instanceof BigDecimal && ((BigDecimal) min).scale() <= 0 && ((BigDecimal) max).scale() <= 0)) {
+            BigDecimal low = new BigDecimal(min.toString());
+            BigDecimal span = new BigDecimal(max.toString()).subtract(low);
+            for (int i = 0; i <= count; i++) {
+                BigDecimal boundary = low.add(span.multiply(BigDecimal.valueOf(i))
+                        .divide(BigDecimal.valueOf(count), 0, RoundingMode.FLOOR));
+                addDistinct(boundaries, convertIntegral(boundary, min));
+            }
+        } else if (min instanceof Number) {
+            BigDecimal low = new BigDecimal(min.toString());
+            BigDecimal span = new BigDecimal(max.toString()).subtract(low);
+            for (int i = 0; i < count; i++) {
+                BigDecimal boundary = low.add(span.multiply(BigDecimal.valueOf(i))
+                        .divide(BigDecimal.valueOf(count), Math.max(low.scale(), 6), RoundingMode.FLOOR));
+                addDistinct(boundaries, min instanceof BigDecimal ? boundary : (Object) boundary.doubleValue());
+            }
+            // The last boundary is the inclusive maximum itself; a rounded one would leave out
+            // the rows above it.
+            addDistinct(boundaries, min instanceof BigDecimal ? new BigDecimal(max.toString()) : (Object) ((Number) max).doubleValue());
+        } else if (min instanceof java.sql.Date || min instanceof LocalDate) {
+            long low = toLocalDate(min).toEpochDay();
+            long span = toLocalDate(max).toEpochDay() - low;
+            for (int i = 0; i <= count; i++) {
+                LocalDate boundary = LocalDate.ofEpochDay(low + span * i / count);
+                addDistinct(boundaries, min instanceof LocalDate ? boundary : (Object) java.sql.Date.valueOf(boundary));
+            }
+        } else if (min instanceof java.util.Date || min instanceof LocalDateTime) {
+            long low = toTimestamp(min).getTime();
+            long span = toTimestamp(max).getTime() - low;
+            for (int i = 0; i <= count; i++) {
+                addDistinct(boundaries, new Timestamp(low + (long) ((double) span * i / count)));
+            }
+            // The last boundary is the inclusive maximum, including any sub-millisecond part.
+            boundaries.set(boundaries.size() - 1, toTimestamp(max));
+        } else {
+            throw new SQLException("Unsupported partition column type: " + min.getClass().getName());
+        }
+        if (boundaries.size() == 1) {
+            boundaries.add(boundaries.get(0));
+        }
+        return boundaries;
+    }
+
+    private static void addDistinct(List<Object> boundaries, Object boundary) {
+        if (boundaries.isEmpty() || !Objects.equals(boundaries.get(boundaries.size() - 1), boundary)) {
+            boundaries.add(boundary);
+        }
+    }
+
+    private static Object convertIntegral(BigDecimal value, Object template) {
+        if (template instanceof Integer) {
+            return value.intValueExact();
+        } else if (template instanceof Long) {
+            return value.longValueExact();
+        } else if (template instanceof Short) {
+            return value.shortValueExact();
+        } else if (template instanceof BigInteger) {
+            return value.toBigIntegerExact();
+        }
+        return value;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof LocalDate ? (LocalDate) value : ((java.sql.Date) value).toLocalDate();
+    }
+
+    private static Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        } else if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value);
+        }
+        return new Timestamp(((java.util.Date) value).getTime());
+    }
+
+    /**
+     * One partition: a half-open value range, the closed last range, or the NULL partition.
+     */
+    private static final class Range {
+        private static final Range NULLS = new Range(null, null, false);
+
+        private final Object lower;
+        private final Object upper;
+        private final boolean upperInclusive;
+
+        private Range(Object lower, Object upper, boolean upperInclusive) {
+            this.lower = lower;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+        }
+
+        private String predicate(String column) {
+            if (this == NULLS) {
+                return column + " IS NULL";
+            }
+            return column + " >= ? AND " + column + (upperInclusive ? " <= ?" : " < ?");
+        }
+
+        @Override
+        public String toString() {
+            return this == NULLS ? "NULL" : "[" + lower + ", " + upper + (upperInclusive ? "]" : ")");
+        }
+    }
+
+    /**
+     * A failure in a partition reader, passed to the consumer through the row queue.
+     */
+    private static final class Failure {
+        private final SQLException exception;
+
+        private Failure(SQLException exception) {
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * A running extraction: the partition readers and the merged queue of their rows.
+     */
+    private final class Extraction implements Iterator<Map<String, Object>>, AutoCloseable {
+        private final String select;
+        private final String column;
+        private final ConcurrentLinkedQueue<Range> work;
+        private final BlockingQueue<Object> rows = new ArrayBlockingQueue<>(queueCapacity);
+        private final ExecutorService readers;
+        private final int readerCount;
+        private int finishedReaders;
+        private Object next;
+        private volatile boolean cancelled;
+
+        private Extraction(String select, String column, List<Range> ranges) {
+            this.select = select;
+            this.column = column;
+            this.work = new ConcurrentLinkedQueue<>(ranges);
+            this.readerCount = Math.min(parallelism, Math.max(1, ranges.size()));
+            int extractionId = EXTRACTION_SEQUENCE.incrementAndGet();
+            AtomicInteger threadSequence = new AtomicInteger();
+            this.readers = Executors.newFixedThreadPool(readerCount, runnable -> {
+                Thread thread = new Thread(runnable, "db-extract-" + extractionId + "-" + threadSequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < readerCount; i++) {
+                readers.execute(this::readPartitions);
+            }
+            readers.shutdown();
+        }
+
+        private void readPartitions() {
+            try {
+                Range range;
+                while (!cancelled && (range = work.poll()) != null) {
+                    long count = readPartition(range);
+                    logger.debug("Partition {} of {} returned {} rows", range, column, count);
+                }
+                rows.put(END_OF_PARTITIONS);
+            } catch (SQLException e) {
+                cancelled = true;
+                putQuietly(new Failure(e));
+            } catch (RuntimeException e) {
+                // Without a queued failure the consumer would wait for this reader forever
+                cancelled = true;
+                putQuietly(new Failure(new SQLException("Reading a partition of " + column + " failed.", e)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private long readPartition(Range range) throws SQLException, InterruptedException {
+            long count = 0;
+            long bytes = 0;
+            String sql = select + range.predicate(column);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(fetchSize);
+                if (range != Range.NULLS) {
+                    ParameterBinder.bind(statement, 1, range.lower);
+                    ParameterBinder.bind(statement, 2, range.upper);
+                }
+                long start = System.nanoTime();
+                ResultSet resultSet;
+                try {
+                    resultSet = statement.executeQuery();
+                } catch (SQLException e) {
+                    DatabaseMetrics.recordExecute(sql, start, true);
+                    throw e;
+                }
+                DatabaseMetrics.recordExecute(sql, start, false);
+                try {
+                    ColumnIndex columns = ColumnIndex.from(resultSet.getMetaData());
+                    while (!cancelled && resultSet.next()) {
+                        CompactRow row = CompactRow.read(columns, resultSet);
+                        bytes += row.estimateBytes();
+                        rows.put(row);
+                        count++;
+                    }
+                } finally {
+                    resultSet.close();
+                    DatabaseMetrics.recordFetch(sql, count, bytes, start);
+                }
+            }
+            return count;
+        }
+
+        private void putQuietly(Object item) {
+            try {
+                rows.put(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && finishedReaders < readerCount) {
+                Object item;
+                try {
+                    item = rows.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new UncheckedSQLException("Interrupted while waiting for rows.",
+                            new SQLException("Interrupted while waiting for rows.", e));
+                }
+                if (item == END_OF_PARTITIONS) {
+                    finishedReaders++;
+                } else if (item instanceof Failure) {
+                    close();
+                    SQLException e = ((Failure) item).exception;
+                    throw new UncheckedSQLException(e.getMessage(), e);
+                } else {
+                    next = item;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map<String, Object> row = (Map<String, Object>) next;
+            next = null;
+            return row;
+        }
+
+        @Override
+        public void close() {
+            if (finishedReaders < readerCount) {
+                cancelled = true;
+                readers.shutdownNow();
+                rows.clear();
+                finishedReaders = readerCount;
+            }
+        }
+    }
+}
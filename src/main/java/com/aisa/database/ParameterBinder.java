@@ -0,0 +1,58 @@
+package com.aisa.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Binds Java values to PreparedStatement parameters.
+ *
+ * java.time values, plain {@link java.util.Date}s and enums are converted to the JDBC 4.0 types
+ * every supported driver accepts, and nulls are bound as untyped SQL NULLs.
+ */
+final class ParameterBinder {
+
+    private ParameterBinder() {
+    }
+
+    /**
+     * Binds the given values to parameters 1..n of the statement.
+     */
+    static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+        if (params == null) {
+            return;
+        }
+        for (int i = 0; i < params.length; i++) {
+            bind(statement, i + 1, params[i]);
+        }
+    }
+
+    /**
+     * Binds a single value to the given one-based parameter position.
+     */
+    static void bind(PreparedStatement statement, int position, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(position, Types.NULL);
+        } else if (value instanceof LocalDateTime) {
+            statement.setTimestamp(position, Timestamp.valueOf((LocalDateTime) value));
+        } else if (value instanceof LocalDate) {
+            statement.setDate(position, java.sql.Date.valueOf((LocalDate) value));
+        } else if (value instanceof LocalTime) {
+            statement.setTime(position, java.sql.Time.valueOf((LocalTime) value));
+        } else if (value instanceof Instant) {
+            statement.setTimestamp(position, Timestamp.from((Instant) value));
+        } else if (value instanceof java.util.Date && !(value instanceof java.sql.Date)
+                && !(value instanceof java.sql.Time) && !(value instanceof Timestamp)) {
+            statement.setTimestamp(position, new Timestamp(((java.util.Date) value).getTime()));
+        } else if (value instanceof Enum) {
+            statement.setString(position, ((Enum<?>) value).name());
+        } else {
+            statement.setObject(position, value);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.aisa.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes Java rows into, and decodes them from, the PostgreSQL COPY text and binary formats.
+ *
+ * Rows are written and read one at a time against a stream, so neither direction holds more than
+ * one row in memory.
+ */
+final class PgCopyCodec {
+
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    private static final long PG_EPOCH_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+
+    private static final long PG_EPOCH_MICROS = PG_EPOCH_DAY * 86_400_000_000L;
+
+    private static final int NUMERIC_POSITIVE = 0x0000;
+    private static final int NUMERIC_NEGATIVE = 0x4000;
+    private static final int NUMERIC_NAN = 0xC000;
+
+    private PgCopyCodec() {
+    }
+
+    /**
+     * Writes rows to a COPY FROM STDIN stream.
+     */
+    static final class RowWriter {
+        private final DataOutputStream out;
+        private final CopyFormat format;
+        private final StringBuilder line = new StringBuilder();
+
+        RowWriter(OutputStream out, CopyFormat format) throws SQLException {
+            this.out = new DataOutputStream(out);
+            this.format = format;
+            if (format == CopyFormat.BINARY) {
+                try {
+                    this.out.write(BINARY_SIGNATURE);
+                    this.out.writeInt(0);
+                    this.out.writeInt(0);
+                } catch (IOException e) {
+                    throw new SQLException("Error writing COPY header.", e);
+                }
+            }
+        }
+
+        void writeRow(Object[] row) throws SQLException {
+            try {
+                if (format == CopyFormat.BINARY) {
+                    out.writeShort(row.length);
+                    for (Object value : row) {
+                        if (value == null) {
+                            out.writeInt(-1);
+                        } else {
+                            byte[] data = encodeBinary(value);
+                            out.writeInt(data.length);
+                            out.write(data);
+                        }
+                    }
+                } else {
+                    line.setLength(0);
+                    for (int i = 0; i < row.length; i++) {
+                        if (i > 0) {
+                            line.append('\t');
+                        }
+                        appendText(line, row[i]);
+                    }
+                    line.append('\n');
+                    out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new SQLException("Error writing COPY row.", e);
+            }
+        }
+
+        void finish() throws SQLException {
+            try {
+                if (format == CopyFormat.BINARY) {
+                    out.writeShort(-1);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new SQLException("Error writing COPY trailer.", e);
+            }
+        }
+    }
+
+    /**
+     * Reads rows from a COPY TO STDOUT stream.
+     */
+    static final class RowReader {
+        private final DataInputStream in;
+        private final CopyFormat format;
+        private final String[] typeNames;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private boolean headerRead;
+
+        /**
+         * @param typeNames the PostgreSQL type name of each column, used to decode binary values;
+         *                  columns without a known type are returned as raw bytes
+         */
+        RowReader(InputStream in, CopyFormat format, String[] typeNames) {
+            this.in = new DataInputStream(in);
+            this.format = format;
+            this.typeNames = typeNames;
+        }
+
+        /**
+         * Reads the next row, or returns null at the end of the data.
+         */
+        Object[] readRow() throws SQLException {
+            try {
+                return format == CopyFormat.BINARY ? readBinaryRow() : readTextRow();
+            } catch (IOException e) {
+                throw new SQLException("Error reading COPY data.", e);
+            }
+        }
+
+        private Object[] readTextRow() throws IOException {
+            line.reset();
+            int b;
+            while ((b = in.read()) >= 0 && b != '\n') {
+                line.write(b);
+            }
+            if (b < 0 && line.size() == 0) {
+                return null;
+            }
+            return parseTextLine(new String(line.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        private Object[] readBinaryRow() throws IOException, SQLException {
+            if (!headerRead) {
+                byte[] signature = new byte[BINARY_SIGNATURE.length];
+                in.readFully(signature);
+                if (!Arrays.equals(signature, BINARY_SIGNATURE)) {
+                    throw new SQLException("Invalid binary COPY signature.");
+                }
+                in.readInt();
+                int extensionLength = in.readInt();
+                in.readFully(new byte[extensionLength]);
+                headerRead = true;
+            }
+            short fieldCount;
+            try {
+                fieldCount = in.readShort();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (fieldCount < 0) {
+                return null;
+            }
+            Object[] row = new Object[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                int length = in.readInt();
+                if (length >= 0) {
+                    byte[] data = new byte[length];
+                    in.readFully(data);
+                    row[i] = decodeBinary(typeNames != null && i < typeNames.length ? typeNames[i] : null, data);
+                }
+            }
+            return row;
+        }
+    }
+
+    /**
+     * Appends a value in COPY text format, escaping backslashes and line and field separators.
+     */
+    static void appendText(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("\\N");
+            return;
+        }
+        if (value instanceof byte[]) {
+            // bytea hex format; the backslash itself is escaped for the COPY text layer
+            sb.append("\\\\x");
+            for (byte b : (byte[]) value) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return;
+        }
+        String text;
+        if (value instanceof Boolean) {
+            text = (Boolean) value ? "t" : "f";
+        } else if (value instanceof Enum) {
+            text = ((Enum<?>) value).name();
+        } else if (value instanceof BigDecimal) {
+            text = ((BigDecimal) value).toPlainString();
+        } else if (value instanceof java.util.Date && !(value instanceof java.sql.Date)
+                && !(value instanceof java.sql.Time) && !(value instanceof Timestamp)) {
+            text = new Timestamp(((java.util.Date) value).getTime()).toString();
+        } else {
+            text = value.toString();
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Splits a COPY text line into its field values, with {@code \N} read as null.
+     */
+    static String[] parseTextLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isNull = false;
+        int length = line.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || line.charAt(i) == '\t') {
+                fields.add(isNull ? null : field.toString());
+                field.setLength(0);
+                isNull = false;
+                continue;
+            }
+            char c = line.charAt(i);
+            if (c != '\\' || i + 1 == length) {
+                field.append(c);
+                continue;
+            }
+            char next = line.charAt(++i);
+            switch (next) {
+                case 'N':
+                    isNull = field.length() == 0;
+                    break;
+                case 'b':
+                    field.append('\b');
+                    break;
+                case 'f':
+                    field.append('\f');
+                    break;
+                case 'n':
+                    field.append('\n');
+                    break;
+                case 'r':
+                    field.append('\r');
+                    break;
+                case 't':
+                    field.append('\t');
+                    break;
+                case 'v':
+                    field.append('\u000B');
+                    break;
+                default:
+                    field.append(next);
+            }
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Encodes a non-null value in the binary COPY representation of its matching PostgreSQL type.
+     */
+    static byte[] encodeBinary(Object value) throws SQLException {
+        if (value instanceof String) {
+            return ((String) value).getBytes(StandardCharsets.UTF_8);
+        } else if (value instanceof Integer) {
+            return ByteBuffer.allocate(4).putInt((Integer) value).array();
+        } else if (value instanceof Long) {
+            return ByteBuffer.allocate(8).putLong((Long) value).array();
+        } else if (value instanceof Short) {
+            return ByteBuffer.allocate(2).putShort((Short) value).array();
+        } else if (value instanceof Boolean) {
+            return new byte[]{(byte) ((Boolean) value ? 1 : 0)};
+        } else if (value instanceof Double) {
+            return ByteBuffer.allocate(8).putDouble((Double) value).array();
+        } else if (value instanceof Float) {
+            return ByteBuffer.allocate(4).putFloat((Float) value).array();
+        } else if (value instanceof BigDecimal) {
+            return encodeNumeric((BigDecimal) value);
+        } else if (value instanceof byte[]) {
+            return (byte[]) value;
+        } else if (value instanceof UUID) {
+            UUID uuid = (UUID) value;
+            return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits()).array();
+        } else if (value instanceof LocalDate || value instanceof java.sql.Date) {
+            LocalDate date = value instanceof LocalDate ? (LocalDate) value : ((java.sql.Date) value).toLocalDate();
+            return ByteBuffer.allocate(4).putInt((int) (date.toEpochDay() - PG_EPOCH_DAY)).array();
+        } else if (value instanceof LocalTime || value instanceof java.sql.Time) {
+            LocalTime time = value instanceof LocalTime ? (LocalTime) value : ((java.sql.Time) value).toLocalTime();
+            return ByteBuffer.allocate(8).putLong(time.toNanoOfDay() / 1000).array();
+        } else if (value instanceof LocalDateTime || value instanceof java.util.Date) {
+            LocalDateTime dateTime = value instanceof LocalDateTime ? (LocalDateTime) value
+                    : value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime()
+                    : new Timestamp(((java.util.Date) value).getTime()).toLocalDateTime();
+            return ByteBuffer.allocate(8).putLong(toPgMicros(dateTime.toInstant(ZoneOffset.UTC))).array();
+        } else if (value instanceof Instant || value instanceof OffsetDateTime || value instanceof ZonedDateTime) {
+            Instant instant = value instanceof Instant ? (Instant) value
+                    : value instanceof OffsetDateTime ? ((OffsetDateTime) value).toInstant()
+                    : ((ZonedDateTime) value).toInstant();
+            return ByteBuffer.allocate(8).putLong(toPgMicros(instant)).array();
+        } else if (value instanceof Enum) {
+            return ((Enum<?>) value).name().getBytes(StandardCharsets.UTF_8);
+        }
+        throw new SQLException("Unsupported type for binary COPY: " + value.getClass().getName());
+    }
+
+    /**
+     * Decodes a binary COPY value of the given PostgreSQL type. Values of types not listed here
+     * are returned as raw bytes.
+     */
+    static Object decodeBinary(String typeName, byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        switch (typeName == null ? "" : typeName) {
+            case "bool":
+                return data[0] != 0;
+            case "int2":
+            case "smallserial":
+                return buffer.getShort();
+            case "int4":
+            case "serial":
+                return buffer.getInt();
+            case "int8":
+            case "bigserial":
+                return buffer.getLong();
+            case "float4":
+                return buffer.getFloat();
+            case "float8":
+                return buffer.getDouble();
+            case "numeric":
+                return decodeNumeric(buffer);
+            case "text":
+            case "varchar":
+            case "bpchar":
+            case "name":
+            case "json":
+            case "xml":
+                return new String(data, StandardCharsets.UTF_8);
+            case "jsonb":
+                // a version byte precedes the JSON text
+                return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+            case "uuid":
+                return new UUID(buffer.getLong(), buffer.getLong());
+            case "date":
+                return LocalDate.ofEpochDay(buffer.getInt() + PG_EPOCH_DAY);
+            case "time":
+                return LocalTime.ofNanoOfDay(buffer.getLong() * 1000);
+            case "timestamp":
+                return LocalDateTime.ofInstant(fromPgMicros(buffer.getLong()), ZoneOffset.UTC);
+            case "timestamptz":
+                return fromPgMicros(buffer.getLong()).atOffset(ZoneOffset.UTC);
+            default:
+                return data;
+        }
+    }
+
+    private static long toPgMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1000 - PG_EPOCH_MICROS;
+    }
+
+    private static Instant fromPgMicros(long pgMicros) {
+        long micros = pgMicros + PG_EPOCH_MICROS;
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000);
+    }
+
+    /**
+     * Encodes a BigDecimal as a PostgreSQL numeric: base-10000 digit groups with a weight (the
+     * exponent of the first group), a sign and the display scale.
+     */
+    private static byte[] encodeNumeric(BigDecimal value) {
+        int scale = Math.max(value.scale(), 0);
+        String digits = value.setScale(scale).unscaledValue().abs().toString();
+        while (digits.length() <= scale) {
+            digits = "0" + digits;
+        }
+        String integerPart = digits.substring(0, digits.length() - scale);
+        String fractionPart = digits.substring(digits.length() - scale);
+        StringBuilder padded = new StringBuilder();
+        for (int i = integerPart.length() % 4; i > 0 && i < 4; i++) {
+            padded.append('0');
+        }
+        padded.append(integerPart);
+        int integerGroups = padded.length() / 4;
+        padded.append(fractionPart);
+        while (padded.length() % 4 != 0) {
+            padded.append('0');
+        }
+        List<Short> groups = new ArrayList<>();
+        for (int i = 0; i < padded.length(); i += 4) {
+            groups.add(Short.parseShort(padded.substring(i, i + 4)));
+        }
+        int weight = integerGroups - 1;
+        while (!groups.isEmpty() && groups.get(0) == 0) {
+            groups.remove(0);
+            weight--;
+        }
+        while (!groups.isEmpty() && groups.get(groups.size() - 1) == 0) {
+            groups.remove(groups.size() - 1);
+        }
+        if (groups.isEmpty()) {
+            weight = 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 2 * groups.size());
+        buffer.putShort((short) groups.size());
+        buffer.putShort((short) weight);
+        buffer.putShort((short) (value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE));
+        buffer.putShort((short) scale);
+        for (Short group : groups) {
+            buffer.putShort(group);
+        }
+        return buffer.array();
+    }
+
+    private static Object decodeNumeric(ByteBuffer buffer) {
+        int groupCount = buffer.getShort();
+        int weight = buffer.getShort();
+        int sign = buffer.getShort() & 0xFFFF;
+        int scale = buffer.getShort();
+        if (sign == NUMERIC_NAN) {
+            return Double.NaN;
+        }
+        BigInteger unscaled = BigInteger.ZERO;
+        BigInteger base = BigInteger.valueOf(10000);
+        for (int i = 0; i < groupCount; i++) {
+            unscaled = unscaled.multiply(base).add(BigInteger.valueOf(buffer.getShort()));
+        }
+        BigDecimal value = new BigDecimal(unscaled, 4 * (groupCount - weight - 1)).setScale(scale, RoundingMode.UNNECESSARY);
+        return sign == NUMERIC_NEGATIVE ? value.negate() : value;
+    }
+}
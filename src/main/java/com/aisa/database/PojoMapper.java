@@ -0,0 +1,367 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps ResultSet rows to POJOs using mapping plans that are resolved once and then cached.
+ *
+ * For every (POJO class, result columns) pair the mapper resolves, once, which setter or field
+ * receives each column and which converter turns the JDBC value into the property type. The
+ * plan is then applied to every row through {@link MethodHandle}s, without any further
+ * reflective lookup.
+ *
+ * Column names are matched to property names case-insensitively and ignoring underscores, so
+ * {@code ID}, {@code id} and {@code Id} all map to {@code setId}, and {@code FIRST_NAME} maps to
+ * {@code setFirstName}. A public setter is preferred; otherwise a non-final instance field of
+ * the same name is written directly. A SQL NULL leaves primitive properties at their default.
+ *
+ * Classes annotated with {@link GenerateRowMapper} are mapped by their compile-time generated
+ * mapper instead, which needs no reflection at all; the reflective plan is only the fallback.
+ */
+public final class PojoMapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PojoMapper.class);
+
+    private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType GENERATED_FACTORY_TYPE = MethodType.methodType(Object.class, ColumnIndex.class);
+
+    private static final ConcurrentMap<PlanKey, RowMapper<?>> PLANS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, Optional<MethodHandle>> GENERATED_MAPPERS = new ConcurrentHashMap<>();
+
+    private PojoMapper() {
+    }
+
+    /**
+     * Maps all remaining rows of a ResultSet to POJOs.
+     *
+     * @param resultSet the ResultSet to map
+     * @param pojoClass the class of the POJO; it must have a no-argument constructor
+     * @param <T>       the type of the POJO
+     * @return a list of POJOs, one per row
+     * @throws SQLException if a database access error occurs or a value cannot be converted
+     */
+    public static <T> List<T> mapAll(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
+        RowMapper<T> mapper = forResultSet(resultSet, pojoClass);
+        List<T> resultList = new ArrayList<>();
+        while (resultSet.next()) {
+            resultList.add(mapper.mapRow(resultSet));
+        }
+        return resultList;
+    }
+
+    /**
+     * Gets the row mapper for the columns of the given ResultSet, resolving and caching the
+     * mapping plan on first use.
+     *
+     * @param resultSet the ResultSet whose columns are mapped
+     * @param pojoClass the class of the POJO; it must have a no-argument constructor
+     * @param <T>       the type of the POJO
+     * @return a row mapper that can be reused for every row of the ResultSet
+     * @throws SQLException if the metadata cannot be read or the class cannot be instantiated
+     */
+    public static <T> RowMapper<T> forResultSet(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
+        return forColumns(ColumnIndex.from(resultSet.getMetaData()), pojoClass);
+    }
+
+    /**
+     * Gets the row mapper for the given result columns, resolving and caching the mapping
+     * plan on first use. A generated mapper is used when the class has one.
+     *
+     * @param columns   the columns of the result to map
+     * @param pojoClass the class of the POJO; it must have a no-argument constructor
+     * @param <T>       the type of the POJO
+     * @return a row mapper
+     * @throws SQLException if the class cannot be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> forColumns(ColumnIndex columns, Class<T> pojoClass) throws SQLException {
+        PlanKey key = new PlanKey(pojoClass, columns);
+        RowMapper<?> mapper = PLANS.get(key);
+        if (mapper == null) {
+            mapper = createMapper(pojoClass, columns);
+            RowMapper<?> existing = PLANS.putIfAbsent(key, mapper);
+            if (existing != null) {
+                mapper = existing;
+            }
+        }
+        return (RowMapper<T>) mapper;
+    }
+
+    /**
+     * Finds the one-based position of the column matching a normalized property name. Used by
+     * generated row mappers to resolve their columns once per result shape.
+     *
+     * @param columns     the columns of the result
+     * @param propertyKey the property name, normalized with {@link #propertyKey(String)}
+     * @return the one-based column position, or 0 if no column matches
+     */
+    public static int columnPosition(ColumnIndex columns, String propertyKey) {
+        for (int i = columns.size() - 1; i >= 0; i--) {
+            if (propertyKey.equals(propertyKey(columns.getName(i)))) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Normalizes a column or property name for matching: lower case, without underscores.
+     *
+     * @param name the column or property name
+     * @return the normalized name
+     */
+    public static String propertyKey(String name) {
+        StringBuilder key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_') {
+                key.append(Character.toLowerCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    private static <T> RowMapper<?> createMapper(Class<T> pojoClass, ColumnIndex columns) throws SQLException {
+        Optional<MethodHandle> generated = GENERATED_MAPPERS.computeIfAbsent(pojoClass, PojoMapper::findGeneratedMapper);
+        if (generated.isPresent()) {
+            Object mapper;
+            try {
+                mapper = generated.get().invokeExact(columns);
+            } catch (Throwable e) {
+                throw new SQLException("Failed to create generated row mapper for " + pojoClass.getName(), e);
+            }
+            return (RowMapper<?>) mapper;
+        }
+        return buildPlan(pojoClass, columns);
+    }
+
+    /**
+     * Looks up the mapper generated for a class by {@link RowMapperProcessor}, if any.
+     */
+    private static Optional<MethodHandle> findGeneratedMapper(Class<?> pojoClass) {
+        String binaryName = pojoClass.getName();
+        int simpleStart = binaryName.lastIndexOf('.') + 1;
+        String mapperName = binaryName.substring(0, simpleStart)
+                + binaryName.substring(simpleStart).replace('$', '_') + RowMapperProcessor.MAPPER_SUFFIX;
+        try {
+            Class<?> mapperClass = Class.forName(mapperName, true, pojoClass.getClassLoader());
+            if (!RowMapper.class.isAssignableFrom(mapperClass)) {
+                return Optional.empty();
+            }
+            MethodHandle constructor = MethodHandles.publicLookup()
+                    .findConstructor(mapperClass, MethodType.methodType(void.class, ColumnIndex.class));
+            logger.debug("Using generated row mapper {} for {}", mapperName, binaryName);
+            return Optional.of(constructor.asType(GENERATED_FACTORY_TYPE));
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Ignoring unusable generated row mapper {}", mapperName, e);
+            return Optional.empty();
+        }
+    }
+
+    private static <T> MappingPlan<T> buildPlan(Class<T> pojoClass, ColumnIndex columns) throws SQLException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle factory;
+        try {
+            Constructor<T> constructor = pojoClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            factory = lookup.unreflectConstructor(constructor).asType(FACTORY_TYPE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new SQLException("Cannot instantiate " + pojoClass.getName()
+                    + ": a no-argument constructor is required", e);
+        }
+
+        Map<String, Method> setters = findSetters(pojoClass);
+        Map<String, Field> fields = findFields(pojoClass);
+        List<Integer> positions = new ArrayList<>();
+        List<MethodHandle> writers = new ArrayList<>();
+        List<ValueConverters.ValueConverter> converters = new ArrayList<>();
+        List<Boolean> primitives = new ArrayList<>();
+        List<String> unmapped = new ArrayList<>();
+
+        for (int i = 0; i < columns.size(); i++) {
+            String key = propertyKey(columns.getName(i));
+            Method setter = setters.get(key);
+            Field field = setter == null ? fields.get(key) : null;
+            try {
+                Class<?> propertyType;
+                MethodHandle writer;
+                if (setter != null) {
+                    propertyType = setter.getParameterTypes()[0];
+                    setter.setAccessible(true);
+                    writer = lookup.unreflect(setter);
+                } else if (field != null) {
+                    propertyType = field.getType();
+                    writer = lookup.unreflectSetter(field);
+                } else {
+                    unmapped.add(columns.getName(i));
+                    continue;
+                }
+                positions.add(i + 1);
+                writers.add(writer.asType(WRITER_TYPE));
+                converters.add(ValueConverters.forType(propertyType));
+                primitives.add(propertyType.isPrimitive());
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new SQLException("Cannot access property " + key + " of " + pojoClass.getName(), e);
+            }
+        }
+
+        if (!unmapped.isEmpty()) {
+            logger.warn("No setter or field for columns {} in {}", unmapped, pojoClass.getName());
+        }
+        logger.debug("Resolved mapping plan for {} over columns {}", pojoClass.getName(), columns);
+        return new MappingPlan<>(pojoClass, columns, factory, positions, writers, converters, primitives);
+    }
+
+    /**
+     * Finds public single-argument setters by normalized property name. When a setter is
+     * overloaded, a primitive or String parameter is preferred over other types.
+     */
+    private static Map<String, Method> findSetters(Class<?> pojoClass) {
+        Map<String, Method> setters = new HashMap<>();
+        for (Method method : pojoClass.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+                    || method.getName().length() <= 3 || !method.getName().startsWith("set")) {
+                continue;
+            }
+            String key = propertyKey(method.getName().substring(3));
+            Method current = setters.get(key);
+            if (current == null || setterRank(method) < setterRank(current)) {
+                setters.put(key, method);
+            }
+        }
+        return setters;
+    }
+
+    private static int setterRank(Method method) {
+        Class<?> type = method.getParameterTypes()[0];
+        if (type.isPrimitive() || type == String.class) {
+            return 0;
+        }
+        return type == Object.class ? 2 : 1;
+    }
+
+    /**
+     * Finds writable instance fields by normalized name, walking up the class hierarchy.
+     * Fields declared in subclasses win over fields of the same name in superclasses.
+     */
+    private static Map<String, Field> findFields(Class<?> pojoClass) {
+        Map<String, Field> fields = new HashMap<>();
+        for (Class<?> type = pojoClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                String key = propertyKey(field.getName());
+                if (!fields.containsKey(key)) {
+                    try {
+                        field.setAccessible(true);
+                        fields.put(key, field);
+                    } catch (RuntimeException e) {
+                        logger.debug("Field {} of {} is not accessible", field.getName(), type.getName());
+                    }
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * A resolved mapping from the columns of a result to the properties of a POJO class.
+     */
+    private static final class MappingPlan<T> implements RowMapper<T> {
+        private final Class<T> pojoClass;
+        private final ColumnIndex columns;
+        private final MethodHandle factory;
+        private final int[] positions;
+        private final MethodHandle[] writers;
+        private final ValueConverters.ValueConverter[] converters;
+        private final boolean[] primitives;
+
+        private MappingPlan(Class<T> pojoClass, ColumnIndex columns, MethodHandle factory, List<Integer> positions,
+                            List<MethodHandle> writers, List<ValueConverters.ValueConverter> converters,
+                            List<Boolean> primitives) {
+            this.pojoClass = pojoClass;
+            this.columns = columns;
+            this.factory = factory;
+            this.positions = new int[positions.size()];
+            this.primitives = new boolean[positions.size()];
+            for (int k = 0; k < this.positions.length; k++) {
+                this.positions[k] = positions.get(k);
+                this.primitives[k] = primitives.get(k);
+            }
+            this.writers = writers.toArray(new MethodHandle[0]);
+            this.converters = converters.toArray(new ValueConverters.ValueConverter[0]);
+        }
+
+        @Override
+        public T mapRow(ResultSet resultSet) throws SQLException {
+            Object pojo;
+            try {
+                pojo = factory.invokeExact();
+            } catch (Throwable e) {
+                throw new SQLException("Failed to instantiate " + pojoClass.getName(), e);
+            }
+            for (int k = 0; k < positions.length; k++) {
+                Object value = resultSet.getObject(positions[k]);
+                if (value == null) {
+                    if (primitives[k]) {
+                        continue;
+                    }
+                } else {
+                    value = converters[k].convert(value);
+                }
+                try {
+                    writers[k].invokeExact(pojo, value);
+                } catch (SQLException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new SQLException("Failed to set column " + columns.getName(positions[k] - 1)
+                            + " on " + pojoClass.getName(), e);
+                }
+            }
+            return pojoClass.cast(pojo);
+        }
+    }
+
+    private static final class PlanKey {
+        private final Class<?> pojoClass;
+        private final ColumnIndex columns;
+
+        private PlanKey(Class<?> pojoClass, ColumnIndex columns) {
+            this.pojoClass = pojoClass;
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey key = (PlanKey) other;
+            return pojoClass == key.pojoClass && columns.equals(key.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * pojoClass.hashCode() + columns.hashCode();
+        }
+    }
+}
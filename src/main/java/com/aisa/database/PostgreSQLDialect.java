@@ -0,0 +1,77 @@
+package com.aisa.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The PostgreSQL dialect. Settings are added to the URL as query parameters.
+ *
+ * The default fetch size only streams rows when auto-commit is off; with auto-commit on,
+ * pgJDBC reads the whole result as before.
+ */
+final class PostgreSQLDialect implements Dialect {
+
+    // A replica that has replayed everything it received is caught up, however long ago the
+    // last transaction was; only a replay backlog is measured against the replay timestamp.
+    private static final String REPLICATION_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private final DialectProfile profile = new DialectProfile();
+
+    PostgreSQLDialect() {
+        profile.setFetchSize(1000);
+        profile.setBatchRewrite(true);
+    }
+
+    @Override
+    public String getName() {
+        return "PostgreSQL";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "org.postgresql.Driver";
+    }
+
+    @Override
+    public boolean acceptsUrl(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:postgresql:");
+    }
+
+    @Override
+    public DialectProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public String prepareUrl(String jdbcUrl) {
+        String url = jdbcUrl;
+        if (profile.isBatchRewrite()) {
+            // Let pgJDBC send batched inserts as multi-row INSERTs unless the caller configured it
+            url = BatchExecutor.withUrlParameter(url, "reWriteBatchedInserts", "true");
+        }
+        if (profile.getStatementCacheSize() > 0) {
+            url = BatchExecutor.withUrlParameter(url, "preparedStatementCacheQueries",
+                    String.valueOf(profile.getStatementCacheSize()));
+        }
+        if (profile.getLoginTimeoutSeconds() > 0) {
+            url = BatchExecutor.withUrlParameter(url, "loginTimeout", String.valueOf(profile.getLoginTimeoutSeconds()));
+        }
+        return url;
+    }
+
+    @Override
+    public long replicationLagMillis(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(REPLICATION_LAG_QUERY)) {
+            if (!resultSet.next()) {
+                return -1;
+            }
+            double lagMillis = resultSet.getDouble(1);
+            return resultSet.wasNull() ? Long.MAX_VALUE : Math.round(lagMillis);
+        }
+    }
+}
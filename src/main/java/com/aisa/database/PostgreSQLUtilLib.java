@@ -1,7 +1,17 @@
 package com.aisa.database;
 
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyInputStream;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,12 +21,17 @@ import org.slf4j.LoggerFactory;
  * This class provides various methods to interact with a PostgreSQL database, including
  * establishing connections, executing queries and updates,
  * and converting ResultSets to more usable formats.
+ *
+ * The shared operations run on a {@link DialectEngine} for {@link Dialects#POSTGRESQL}; its
+ * {@link DialectProfile} holds the fetch size and batch rewrite defaults.
  */
 public class PostgreSQLUtilLib {
 
     private static final Logger logger = LoggerFactory.getLogger(PostgreSQLUtilLib.class);
 
-    private static final String JDBC_DRIVER = "org.postgresql.Driver";
+    private static final DialectEngine ENGINE = new DialectEngine(Dialects.POSTGRESQL);
+
+    private static final int COPY_BUFFER_SIZE = 65536;
 
     /**
      * Establishes a connection to the PostgreSQL database.
@@ -28,28 +43,92 @@ public class PostgreSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static Connection getConnection(String dbUrl, String user, String password) throws SQLException {
-        logger.info("Establishing connection to the database.");
-        try {
-            Class.forName(JDBC_DRIVER);
-        } catch (ClassNotFoundException e) {
-            logger.error("PostgreSQL JDBC driver not found.", e);
-            throw new SQLException("PostgreSQL JDBC driver not found.", e);
-        }
-        return DriverManager.getConnection(dbUrl, user, password);
+        return ENGINE.getConnection(dbUrl, user, password);
+    }
+
+    /**
+     * Creates a pool of connections to the PostgreSQL database.
+     *
+     * Connections borrowed from the pool are returned to it by {@link #closeConnection(Connection)}
+     * instead of being torn down.
+     *
+     * @param dbUrl    the database URL
+     * @param user     the database user
+     * @param password the user's password
+     * @param config   the pool sizing, eviction and validation settings
+     * @return the connection pool
+     * @throws SQLException if the JDBC driver cannot be loaded
+     */
+    public static ConnectionPool createConnectionPool(String dbUrl, String user, String password,
+                                                      ConnectionPoolConfig config) throws SQLException {
+        return ENGINE.createConnectionPool(dbUrl, user, password, config);
+    }
+
+    /**
+     * Creates a router over a PostgreSQL primary and its read replicas, usually pools created by
+     * {@link #createConnectionPool(String, String, String, ConnectionPoolConfig)}.
+     *
+     * Connections from the router run reads such as {@link #executeQuery(Connection, String)} on
+     * a replica, balanced by outstanding requests or latency, and run
+     * {@link #executeUpdate(Connection, String)}, locking reads and everything between
+     * {@code setAutoCommit(false)} and {@link #commitTransaction(Connection)} or
+     * {@link #rollbackTransaction(Connection)} on the primary. After a write, reads stay on the
+     * primary for the read-your-writes window, and replicas whose replication lag exceeds the
+     * configured maximum stop receiving reads until they catch up.
+     *
+     * @param primary  the data source of the primary database
+     * @param replicas the data sources of the read replicas
+     * @param config   the balancing, stickiness and lag settings
+     * @return the routing data source; closing it stops the lag checks but leaves the given data sources open
+     */
+    public static RoutingDataSource createRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                                            RoutingConfig config) {
+        return ENGINE.createRoutingDataSource(primary, replicas, config);
+    }
+
+    /**
+     * Warms up a PostgreSQL connection pool at startup so that latency right after a deploy matches
+     * steady state.
+     *
+     * The JDBC driver is registered once, the given number of connections are opened and
+     * validated in parallel, and each hot statement is prepared on every new connection so that
+     * the first parameterized executeQuery or executeUpdate with the same SQL reuses it.
+     *
+     * @param pool          a pool created by {@link #createConnectionPool(String, String, String, ConnectionPoolConfig)}
+     * @param connections   the number of connections the pool should hold afterwards
+     * @param hotStatements SQL with {@code ?} placeholders to prepare on each new connection
+     * @return the number of connections opened
+     * @throws SQLException if the driver cannot be loaded or no connection could be opened
+     */
+    public static int warmUp(ConnectionPool pool, int connections, String... hotStatements) throws SQLException {
+        return ENGINE.warmUp(pool, connections, Arrays.asList(hotStatements));
+    }
+
+    /**
+     * Borrows a connection from a pooled DataSource such as a {@link ConnectionPool}.
+     *
+     * @param dataSource the DataSource to borrow from
+     * @return the connection object
+     * @throws SQLException if a database access error occurs or no connection becomes available in time
+     */
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        logger.info("Borrowing connection from the connection pool.");
+        return dataSource.getConnection();
     }
 
     /**
      * Executes a query on the PostgreSQL database.
      *
+     * The Statement is closed when the returned ResultSet is closed, so close the ResultSet, or
+     * use {@link #query(Connection, String, RowHandler)} to have both closed automatically.
+     *
      * @param connection the connection object
      * @param query      the SQL query to be executed
      * @return the ResultSet object containing the results of the query
      * @throws SQLException if a database access error occurs
      */
     public static ResultSet executeQuery(Connection connection, String query) throws SQLException {
-        logger.info("Executing query: {}", query);
-        Statement stmt = connection.createStatement();
-        return stmt.executeQuery(query);
+        return ENGINE.executeQuery(connection, query);
     }
 
     /**
@@ -61,34 +140,623 @@ public class PostgreSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static int executeUpdate(Connection connection, String update) throws SQLException {
-        logger.info("Executing update: {}", update);
-        Statement stmt = connection.createStatement();
-        return stmt.executeUpdate(update);
+        return ENGINE.executeUpdate(connection, update);
+    }
+
+    /**
+     * Executes a parameterized query on the PostgreSQL database.
+     *
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSet executeQuery(Connection connection, String query, Object... params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a query with named parameters on the PostgreSQL database.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the ResultSet object containing the results of the query
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     * @see NamedParameterSql
+     */
+    public static ResultSet executeQuery(Connection connection, String query, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeQuery(connection, query, params);
+    }
+
+    /**
+     * Executes a parameterized query on the PostgreSQL database, or returns its cached rows when the
+     * same query was run with equal parameters recently. Updates made through this class
+     * invalidate cached results of the tables they write to; see {@link QueryResultCache}.
+     *
+     * @param connection the connection object, only used when the result is not cached
+     * @param cache      the cache to answer from and store the result in
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return a read-only List of read-only rows
+     * @throws SQLException if a database access error occurs
+     */
+    public static List<Map<String, Object>> executeCachedQuery(Connection connection, QueryResultCache cache,
+                                                              String query, Object... params) throws SQLException {
+        return ENGINE.executeCachedQuery(connection, cache, query, params);
+    }
+
+    /**
+     * Executes a parameterized update on the PostgreSQL database.
+     *
+     * The PreparedStatement is cached per connection, so repeated executions of the same SQL
+     * skip statement preparation; see {@link StatementCache}.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs
+     */
+    public static int executeUpdate(Connection connection, String update, Object... params) throws SQLException {
+        return ENGINE.executeUpdate(connection, update, params);
+    }
+
+    /**
+     * Executes an update with named parameters on the PostgreSQL database.
+     *
+     * @param connection the connection object
+     * @param update     the SQL update with {@code :name} placeholders
+     * @param params     the parameter values by name
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs or a named parameter has no value
+     * @see NamedParameterSql
+     */
+    public static int executeUpdate(Connection connection, String update, Map<String, ?> params) throws SQLException {
+        return ENGINE.executeUpdate(connection, update, params);
+    }
+
+    /**
+     * Executes a parameterized statement once per parameter row on the PostgreSQL database,
+     * sending the rows in batches of {@code batchSize}.
+     *
+     * Connections from this class have {@code reWriteBatchedInserts} enabled, so batched
+     * inserts are sent as multi-row INSERT statements.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Iterable<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
+    }
+
+    /**
+     * Executes a parameterized statement once per row of a stream on the PostgreSQL database,
+     * sending the rows in batches of {@code batchSize}. The stream is consumed lazily.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param rows       the parameter values of each row
+     * @param batchSize  the number of rows sent per round trip
+     * @return the update counts of each batch
+     * @throws SQLException if a database access error occurs
+     * @see BatchExecutor
+     */
+    public static List<int[]> executeBatch(Connection connection, String sql, Stream<Object[]> rows,
+                                           int batchSize) throws SQLException {
+        return ENGINE.executeBatch(connection, sql, rows, batchSize);
     }
 
     /**
      * Converts a ResultSet to a List of Maps.
      *
+     * Each row is a {@link CompactRow}: the column names are read once and shared by all rows,
+     * and the values of a row are held in a single array.
+     *
      * @param resultSet the ResultSet to be converted
      * @return a List of Maps, where each Map represents a row with column names as keys
      *         and column values as values
      * @throws SQLException if there is an error accessing the ResultSet
      */
     public static List<Map<String, Object>> resultSetToList(ResultSet resultSet) throws SQLException {
-        logger.info("Converting ResultSet to List of Maps.");
-        List<Map<String, Object>> list = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
-
-        while (resultSet.next()) {
-            Map<String, Object> row = new HashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                row.put(metaData.getColumnName(i), resultSet.getObject(i));
+        return ENGINE.resultSetToList(resultSet);
+    }
+
+    /**
+     * Reads a ResultSet into a result that keeps rows on the heap up to a byte budget and
+     * spills the rest to a memory-mapped temporary file.
+     *
+     * Use it instead of {@link #resultSetToList(ResultSet)} when the whole result is needed for
+     * random access but may be too large for the heap. Rows are read by index and column in the
+     * same way as a {@link TabularResult}.
+     *
+     * @param resultSet         the ResultSet to be read
+     * @param memoryBudgetBytes the estimated heap size rows may take before spilling
+     * @return the result; close it to delete the spill file
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public static SpillableResult resultSetToSpillable(ResultSet resultSet, long memoryBudgetBytes) throws SQLException {
+        return ENGINE.resultSetToSpillable(resultSet, memoryBudgetBytes);
+    }
+
+    /**
+     * Maps a ResultSet to a list of POJOs.
+     *
+     * Columns are matched to setters or fields once per POJO class and result shape, and the
+     * resolved plan is cached; see {@link PojoMapper}.
+     *
+     * @param resultSet the ResultSet to be mapped
+     * @param pojoClass the class of the POJO; it must have a no-argument constructor
+     * @param <T>       the type of the POJO
+     * @return a List of POJOs, one per row
+     * @throws SQLException if a database access error occurs or a value cannot be converted
+     */
+    public static <T> List<T> mapResultSetToPOJO(ResultSet resultSet, Class<T> pojoClass) throws SQLException {
+        return ENGINE.mapResultSetToPOJO(resultSet, pojoClass);
+    }
+
+    /**
+     * Executes a query on the PostgreSQL database and returns an iterator that fetches rows lazily.
+     *
+     * Unlike {@link #resultSetToList(ResultSet)}, rows are read from the driver only as the
+     * iterator advances. The Statement and ResultSet are closed once the last row has been read
+     * or when the iterator is closed.
+     *
+     * The PostgreSQL driver only honours the fetch size when auto-commit is disabled on the
+     * connection; otherwise it still reads the whole result before returning the first row.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the fetch size of the dialect profile
+     * @return a closeable iterator over the rows of the result
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSetIterator iterateQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return ENGINE.iterateQuery(connection, query, fetchSize);
+    }
+
+    /**
+     * Executes a query on the PostgreSQL database and returns a Stream that fetches rows lazily.
+     *
+     * The Stream must be closed, for example with try-with-resources, unless it is always
+     * consumed to the end.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows fetched per round trip; 0 uses the fetch size of the dialect profile
+     * @return a Stream of rows backed by an open ResultSet
+     * @throws SQLException if a database access error occurs
+     * @see #iterateQuery(Connection, String, int)
+     */
+    public static Stream<Map<String, Object>> streamQuery(Connection connection, String query, int fetchSize) throws SQLException {
+        return iterateQuery(connection, query, fetchSize).stream();
+    }
+
+    /**
+     * Executes a query on the PostgreSQL database and writes its rows to a stream as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched, so memory use stays flat however many
+     * rows the query returns.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param out        the stream to write to; flushed but not closed
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public static long exportQuery(Connection connection, String query, OutputStream out, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, out, format, options);
+    }
+
+    /**
+     * Executes a query on the PostgreSQL database and writes its rows to a file as CSV, a JSON array
+     * or newline-delimited JSON while they are fetched.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param file       the file to write; it is created or truncated
+     * @param format     the output format
+     * @param options    the output settings, such as gzip compression and CSV delimiter
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the file cannot be written
+     */
+    public static long exportQuery(Connection connection, String query, Path file, ExportFormat format,
+                                   ExportOptions options) throws SQLException {
+        return ENGINE.exportQuery(connection, query, file, format, options);
+    }
+
+    /**
+     * Returns the saved snapshot of a query on the PostgreSQL database, taking a new one if the file
+     * is missing or was saved under a different version key.
+     *
+     * Expensive baseline queries that are read on every run, such as in regression suites, are
+     * then only executed when the version key changes; later runs read the rows from the
+     * memory-mapped snapshot through {@link ResultSnapshot#resultSet()} or by row index.
+     *
+     * @param connection the connection object; only used when the snapshot has to be taken
+     * @param query      the SQL query to be executed
+     * @param file       the snapshot file
+     * @param versionKey the key the snapshot must be valid for, such as a schema or data version
+     * @return the loaded snapshot
+     * @throws SQLException if a database access error occurs or the snapshot cannot be written or read
+     */
+    public static ResultSnapshot snapshotQuery(Connection connection, String query, Path file, String versionKey)
+            throws SQLException {
+        return ENGINE.snapshotQuery(connection, query, file, versionKey);
+    }
+
+    /**
+     * Executes a query on the PostgreSQL database and passes each row to a handler.
+     *
+     * Unlike {@link #executeQuery(Connection, String)}, nothing is left for the caller to
+     * close: the Statement and ResultSet are closed when the last row has been handled or when
+     * the query or the handler throws, so cursors cannot leak.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler) throws SQLException {
+        return ENGINE.query(connection, query, handler);
+    }
+
+    /**
+     * Executes a parameterized query on the PostgreSQL database through the statement cache and
+     * passes each row to a handler, closing the ResultSet when done.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param handler    the handler called with the ResultSet positioned on each row
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows handled
+     * @throws SQLException if a database access error occurs or the handler fails
+     */
+    public static long query(Connection connection, String query, RowHandler handler, Object... params)
+            throws SQLException {
+        return ENGINE.query(connection, query, handler, params);
+    }
+
+    /**
+     * Loads data into the PostgreSQL database with COPY, streaming it from an InputStream.
+     *
+     * @param connection the connection object
+     * @param copySql    the COPY ... FROM STDIN statement, including any format options
+     * @param in         the data in the format named by the statement
+     * @return the number of rows loaded
+     * @throws SQLException if a database access error occurs or the stream cannot be read
+     */
+    public static long copyIn(Connection connection, String copySql, InputStream in) throws SQLException {
+        logger.info("Executing COPY: {}", copySql);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            long rows = copyManager(connection).copyIn(copySql, in, COPY_BUFFER_SIZE);
+            failed = false;
+            DatabaseMetrics.recordFetch(copySql, rows, 0, start);
+            return rows;
+        } catch (IOException e) {
+            throw new SQLException("Error reading COPY input.", e);
+        } finally {
+            DatabaseMetrics.recordExecute(copySql, start, failed);
+            QueryResultCache.invalidateForUpdate(connection, copySql);
+        }
+    }
+
+    /**
+     * Loads text data into the PostgreSQL database with COPY, streaming it from a Reader.
+     *
+     * @param connection the connection object
+     * @param copySql    the COPY ... FROM STDIN statement, including any format options
+     * @param in         the text data in the format named by the statement
+     * @return the number of rows loaded
+     * @throws SQLException if a database access error occurs or the reader fails
+     */
+    public static long copyIn(Connection connection, String copySql, Reader in) throws SQLException {
+        logger.info("Executing COPY: {}", copySql);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            long rows = copyManager(connection).copyIn(copySql, in, COPY_BUFFER_SIZE);
+            failed = false;
+            DatabaseMetrics.recordFetch(copySql, rows, 0, start);
+            return rows;
+        } catch (IOException e) {
+            throw new SQLException("Error reading COPY input.", e);
+        } finally {
+            DatabaseMetrics.recordExecute(copySql, start, failed);
+            QueryResultCache.invalidateForUpdate(connection, copySql);
+        }
+    }
+
+    /**
+     * Loads a client-side file into the PostgreSQL database with COPY.
+     *
+     * @param connection the connection object
+     * @param copySql    the COPY ... FROM STDIN statement, including any format options
+     * @param file       the file holding data in the format named by the statement
+     * @return the number of rows loaded
+     * @throws SQLException if a database access error occurs or the file cannot be read
+     */
+    public static long copyIn(Connection connection, String copySql, Path file) throws SQLException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return copyIn(connection, copySql, in);
+        } catch (IOException e) {
+            throw new SQLException("Error reading COPY input file " + file, e);
+        }
+    }
+
+    /**
+     * Loads rows of Java values into a table with COPY. Rows are encoded and sent as they are
+     * read from the iterable, so the data set does not need to fit in memory.
+     *
+     * @param connection the connection object
+     * @param table      the target table
+     * @param columns    the target columns in row order; null or empty for all columns
+     * @param rows       the values of each row
+     * @param format     the COPY format used on the wire
+     * @return the number of rows loaded
+     * @throws SQLException if a database access error occurs or a value cannot be encoded
+     * @see CopyFormat
+     */
+    public static long copyInRows(Connection connection, String table, List<String> columns,
+                                  Iterable<Object[]> rows, CopyFormat format) throws SQLException {
+        return copyInRows(connection, table, columns, rows.iterator(), format);
+    }
+
+    /**
+     * Loads a stream of rows of Java values into a table with COPY. The stream is consumed lazily.
+     *
+     * @param connection the connection object
+     * @param table      the target table
+     * @param columns    the target columns in row order; null or empty for all columns
+     * @param rows       the values of each row
+     * @param format     the COPY format used on the wire
+     * @return the number of rows loaded
+     * @throws SQLException if a database access error occurs or a value cannot be encoded
+     * @see CopyFormat
+     */
+    public static long copyInRows(Connection connection, String table, List<String> columns,
+                                  Stream<Object[]> rows, CopyFormat format) throws SQLException {
+        return copyInRows(connection, table, columns, rows.iterator(), format);
+    }
+
+    private static long copyInRows(Connection connection, String table, List<String> columns,
+                                   Iterator<Object[]> rows, CopyFormat format) throws SQLException {
+        StringBuilder copySql = new StringBuilder("COPY ").append(table);
+        if (columns != null && !columns.isEmpty()) {
+            copySql.append(" (").append(String.join(", ", columns)).append(')');
+        }
+        copySql.append(" FROM STDIN");
+        if (format == CopyFormat.BINARY) {
+            copySql.append(" (FORMAT binary)");
+        }
+        logger.info("Executing COPY: {}", copySql);
+        String sql = copySql.toString();
+        long start = System.nanoTime();
+        boolean failed = true;
+        PGCopyOutputStream out = null;
+        try {
+            out = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, COPY_BUFFER_SIZE);
+            PgCopyCodec.RowWriter writer = new PgCopyCodec.RowWriter(out, format);
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                if (columns != null && !columns.isEmpty() && row.length != columns.size()) {
+                    throw new SQLException("Expected " + columns.size() + " values per row but got " + row.length);
+                }
+                writer.writeRow(row);
+            }
+            writer.finish();
+            long loaded = out.endCopy();
+            failed = false;
+            DatabaseMetrics.recordFetch(sql, loaded, 0, start);
+            return loaded;
+        } catch (SQLException | RuntimeException e) {
+            if (out != null && out.isActive()) {
+                try {
+                    out.cancelCopy();
+                } catch (SQLException cancelError) {
+                    e.addSuppressed(cancelError);
+                }
+            }
+            throw e;
+        } finally {
+            DatabaseMetrics.recordExecute(sql, start, failed);
+            QueryResultCache.invalidateTableEverywhere(connection, table);
+        }
+    }
+
+    /**
+     * Extracts data from the PostgreSQL database with COPY, streaming it to an OutputStream.
+     *
+     * @param connection the connection object
+     * @param copySql    the COPY ... TO STDOUT statement for a table or query, including any format options
+     * @param out        the stream receiving the data
+     * @return the number of rows extracted
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public static long copyOut(Connection connection, String copySql, OutputStream out) throws SQLException {
+        logger.info("Executing COPY: {}", copySql);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            long rows = copyManager(connection).copyOut(copySql, out);
+            failed = false;
+            DatabaseMetrics.recordFetch(copySql, rows, 0, start);
+            return rows;
+        } catch (IOException e) {
+            throw new SQLException("Error writing COPY output.", e);
+        } finally {
+            DatabaseMetrics.recordExecute(copySql, start, failed);
+        }
+    }
+
+    /**
+     * Extracts text data from the PostgreSQL database with COPY, streaming it to a Writer.
+     *
+     * @param connection the connection object
+     * @param copySql    the COPY ... TO STDOUT statement for a table or query, including any format options
+     * @param out        the writer receiving the data
+     * @return the number of rows extracted
+     * @throws SQLException if a database access error occurs or the writer fails
+     */
+    public static long copyOut(Connection connection, String copySql, Writer out) throws SQLException {
+        logger.info("Executing COPY: {}", copySql);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            long rows = copyManager(connection).copyOut(copySql, out);
+            failed = false;
+            DatabaseMetrics.recordFetch(copySql, rows, 0, start);
+            return rows;
+        } catch (IOException e) {
+            throw new SQLException("Error writing COPY output.", e);
+        } finally {
+            DatabaseMetrics.recordExecute(copySql, start, failed);
+        }
+    }
+
+    /**
+     * Extracts data from the PostgreSQL database with COPY into a client-side file.
+     *
+     * @param connection the connection object
+     * @param copySql    the COPY ... TO STDOUT statement for a table or query, including any format options
+     * @param file       the file to write; it is created or truncated
+     * @return the number of rows extracted
+     * @throws SQLException if a database access error occurs or the file cannot be written
+     */
+    public static long copyOut(Connection connection, String copySql, Path file) throws SQLException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), COPY_BUFFER_SIZE)) {
+            return copyOut(connection, copySql, out);
+        } catch (IOException e) {
+            throw new SQLException("Error writing COPY output file " + file, e);
+        }
+    }
+
+    /**
+     * Extracts the result of a query with COPY as a lazy Stream of rows.
+     *
+     * With {@link CopyFormat#TEXT} every value is a String. With {@link CopyFormat#BINARY} values
+     * of common types are decoded to Java types, e.g. {@code int8} to Long and {@code timestamp} to
+     * LocalDateTime; other types are returned as raw bytes.
+     *
+     * The Stream must be closed, for example with try-with-resources, unless it is always
+     * consumed to the end; closing it early cancels the COPY.
+     *
+     * @param connection the connection object
+     * @param query      the SELECT query to extract
+     * @param format     the COPY format used on the wire
+     * @return a Stream of rows backed by an active COPY
+     * @throws SQLException if a database access error occurs
+     */
+    public static Stream<Object[]> copyOutRows(Connection connection, String query, CopyFormat format) throws SQLException {
+        String[] typeNames = null;
+        String copySql = "COPY (" + query + ") TO STDOUT";
+        if (format == CopyFormat.BINARY) {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                ResultSetMetaData metaData = statement.getMetaData();
+                typeNames = new String[metaData.getColumnCount()];
+                for (int i = 0; i < typeNames.length; i++) {
+                    typeNames[i] = metaData.getColumnTypeName(i + 1);
+                }
+            }
+            copySql += " (FORMAT binary)";
+        }
+        logger.info("Executing COPY: {}", copySql);
+        long start = System.nanoTime();
+        PGCopyInputStream in;
+        try {
+            in = new PGCopyInputStream(connection.unwrap(PGConnection.class), copySql);
+        } catch (SQLException | RuntimeException e) {
+            DatabaseMetrics.recordExecute(copySql, start, true);
+            throw e;
+        }
+        DatabaseMetrics.recordExecute(copySql, start, false);
+        CopyOutIterator iterator = new CopyOutIterator(copySql, in,
+                new PgCopyCodec.RowReader(new BufferedInputStream(in, COPY_BUFFER_SIZE), format, typeNames), start);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    /**
+     * Reads the rows of a COPY TO STDOUT and records how many were read when the data ends or
+     * the stream is closed.
+     */
+    private static final class CopyOutIterator implements Iterator<Object[]> {
+        private final String copySql;
+        private final PGCopyInputStream in;
+        private final PgCopyCodec.RowReader reader;
+        private final long start;
+        private Object[] next;
+        private long rows;
+        private boolean recorded;
+
+        private CopyOutIterator(String copySql, PGCopyInputStream in, PgCopyCodec.RowReader reader, long start) {
+            this.copySql = copySql;
+            this.in = in;
+            this.reader = reader;
+            this.start = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !recorded) {
+                try {
+                    next = reader.readRow();
+                } catch (SQLException e) {
+                    close();
+                    throw new UncheckedSQLException("Error reading COPY data.", e);
+                }
+                if (next == null) {
+                    recordRows();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = next;
+            next = null;
+            rows++;
+            return row;
+        }
+
+        private void recordRows() {
+            if (!recorded) {
+                recorded = true;
+                DatabaseMetrics.recordFetch(copySql, rows, 0, start);
             }
-            list.add(row);
         }
 
-        return list;
+        private void close() {
+            recordRows();
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.error("Error closing COPY stream.", e);
+            }
+        }
     }
 
     /**
@@ -98,9 +766,7 @@ public class PostgreSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static void commitTransaction(Connection connection) throws SQLException {
-        logger.info("Committing transaction.");
-        connection.commit();
-        connection.setAutoCommit(true);
+        ENGINE.commitTransaction(connection);
     }
 
     /**
@@ -110,25 +776,17 @@ public class PostgreSQLUtilLib {
      * @throws SQLException if a database access error occurs
      */
     public static void rollbackTransaction(Connection connection) throws SQLException {
-        logger.info("Rolling back transaction.");
-        connection.rollback();
-        connection.setAutoCommit(true);
+        ENGINE.rollbackTransaction(connection);
     }
 
     /**
-     * Closes the database connection.
+     * Closes the database connection. Connections borrowed from a {@link ConnectionPool}
+     * are returned to the pool.
      *
      * @param connection the connection object to be closed
      */
     public static void closeConnection(Connection connection) {
-        logger.info("Closing database connection.");
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database connection.", e);
-            }
-        }
+        ENGINE.closeConnection(connection);
     }
 
     /**
@@ -137,14 +795,7 @@ public class PostgreSQLUtilLib {
      * @param statement the statement object to be closed
      */
     public static void closeStatement(Statement statement) {
-        logger.info("Closing database statement.");
-        if (statement != null) {
-            try {
-                statement.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database statement.", e);
-            }
-        }
+        ENGINE.closeStatement(statement);
     }
 
     /**
@@ -153,13 +804,6 @@ public class PostgreSQLUtilLib {
      * @param resultSet the ResultSet object to be closed
      */
     public static void closeResultSet(ResultSet resultSet) {
-        logger.info("Closing database ResultSet.");
-        if (resultSet != null) {
-            try {
-                resultSet.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database ResultSet.", e);
-            }
-        }
+        ENGINE.closeResultSet(resultSet);
     }
 }
\ No newline at end of file
@@ -0,0 +1,583 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches fully read query results in memory, keyed by normalized SQL text plus parameter values.
+ *
+ * Entries expire after a fixed time to live, and the least recently used entries are evicted
+ * once the estimated memory footprint of all cached rows exceeds a byte budget. Every cache
+ * created is registered so that writes made through the library invalidate it: the
+ * {@code executeUpdate}, {@code executeBatch} and bulk load methods of all facades report the
+ * tables they write to, and every cached result that read from one of those tables is dropped.
+ *
+ * Table names are found with a lightweight scan of the SQL for {@code FROM}, {@code JOIN},
+ * {@code UPDATE}, {@code INTO} and similar clauses, compared case-insensitively and without
+ * schema, so invalidation may drop more entries than strictly necessary. Queries whose tables
+ * cannot be determined are not cached. Writes whose target cannot be determined with certainty,
+ * such as stored procedure calls or multi-table {@code UPDATE} and {@code DELETE} statements,
+ * clear the whole cache.
+ *
+ * A write made inside a transaction is only visible to other connections once it commits, so
+ * its tables are invalidated again when the facades' {@code commitTransaction} or
+ * {@code rollbackTransaction} ends the transaction. Until then, results read through the
+ * writing connection from those tables are not cached, since they include uncommitted rows.
+ * Changes made by other processes are only picked up when entries expire.
+ */
+public final class QueryResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryResultCache.class);
+
+    private static final Pattern READ_TABLES = Pattern.compile(
+            "\\b(?:FROM|JOIN)\\s+((?:[\\w$#.\"`\\[\\]]+)(?:\\s+(?:AS\\s+)?\\w+)?(?:\\s*,\\s*[\\w$#.\"`\\[\\]]+(?:\\s+(?:AS\\s+)?\\w+)?)*)",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern WRITE_TABLES = Pattern.compile(
+            "^\\s*(?:INSERT\\s+(?:IGNORE\\s+)?INTO|REPLACE\\s+INTO|UPDATE|DELETE\\s+FROM|DELETE|MERGE\\s+INTO|MERGE"
+                    + "|TRUNCATE\\s+TABLE|TRUNCATE|ALTER\\s+TABLE|DROP\\s+TABLE(?:\\s+IF\\s+EXISTS)?|COPY)\\s+([\\w$#.\"`\\[\\]]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    // Tokens that can follow the write keyword in place of the table name
+    private static final Set<String> WRITE_MODIFIERS = new HashSet<>(Arrays.asList(
+            "only", "top", "low_priority", "high_priority", "delayed", "ignore", "quick", "or", "if", "into", "from", "table"));
+
+    private static final Pattern MULTI_TABLE_UPDATE = Pattern.compile("(?:(?!\\bSET\\b).)*\\bJOIN\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final String ALL_TABLES = "*";
+
+    private static final Set<QueryResultCache> REGISTRY = Collections.newSetFromMap(new WeakHashMap<>());
+
+    // Tables written by transactions that have not ended yet, by physical connection
+    private static final Map<Connection, Set<String>> UNCOMMITTED_WRITES = new WeakHashMap<>();
+
+    private final long maxWeightBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weightBytes;
+    private long generation;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+    private long invalidationCount;
+
+    /**
+     * Creates a cache and registers it for invalidation by writes made through the library.
+     *
+     * @param maxWeightBytes the estimated memory budget of all cached results, in bytes
+     * @param timeToLive     how long a cached result stays valid
+     */
+    public QueryResultCache(long maxWeightBytes, Duration timeToLive) {
+        this(maxWeightBytes, timeToLive, System::nanoTime);
+    }
+
+    QueryResultCache(long maxWeightBytes, Duration timeToLive, LongSupplier clock) {
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlNanos = timeToLive.toNanos();
+        this.clock = clock;
+        synchronized (REGISTRY) {
+            REGISTRY.add(this);
+        }
+    }
+
+    /**
+     * Runs a parameterized query, or returns its cached result when the same normalized SQL was
+     * run with equal parameters within the time to live.
+     *
+     * @param connection the connection object, only used on a cache miss
+     * @param query      the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return a read-only List of read-only rows
+     * @throws SQLException if a database access error occurs
+     */
+    public List<Map<String, Object>> query(Connection connection, String query, Object... params) throws SQLException {
+        Key key = new Key(normalize(query), params == null ? new Object[0] : params.clone());
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.loadedAt < ttlNanos) {
+                hitCount++;
+                return entry.rows;
+            }
+            if (entry != null) {
+                remove(key);
+                expirationCount++;
+            }
+            missCount++;
+            loadGeneration = generation;
+        }
+        TabularResult result;
+        long start = System.nanoTime();
+        try (ResultSet resultSet = StatementCache.executeQuery(connection, query, params)) {
+            result = TabularResult.from(resultSet);
+        }
+        long weight = weigh(key, result);
+        DatabaseMetrics.recordFetch(query, result.getRowCount(), weight, start);
+        Entry entry = new Entry(readOnly(result), readTables(key.sql), clock.getAsLong(), weight);
+        if (!entry.tables.isEmpty() && entry.weight <= maxWeightBytes && !hasUncommittedWrites(connection, entry.tables)) {
+            synchronized (this) {
+                // A write that invalidated the cache while the query ran may not be visible in its result.
+                if (generation == loadGeneration) {
+                    put(key, entry);
+                }
+            }
+        }
+        return entry.rows;
+    }
+
+    /**
+     * Drops every cached result that read from the given table.
+     *
+     * @param table the table name, optionally schema-qualified or quoted
+     */
+    public synchronized void invalidateTable(String table) {
+        String name = tableName(table);
+        generation++;
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, Entry> mapEntry = it.next();
+            if (mapEntry.getValue().tables.contains(name)) {
+                it.remove();
+                weightBytes -= mapEntry.getValue().weight;
+                invalidationCount++;
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidationCount += entries.size();
+        entries.clear();
+        weightBytes = 0;
+    }
+
+    /**
+     * Invalidates the results that every registered cache holds for the tables written by the
+     * given SQL statement. Called by the facades after each write; call it directly for writes
+     * made through plain JDBC.
+     *
+     * @param updateSql the INSERT, UPDATE, DELETE, MERGE, DDL or other statement that was executed
+     */
+    public static void invalidateForUpdate(String updateSql) {
+        if (isRegistryEmpty()) {
+            return;
+        }
+        String table = writeTable(updateSql);
+        for (QueryResultCache cache : registeredCaches()) {
+            if (table == null) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidateTable(table);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the results that every registered cache holds for the given table. Called by
+     * bulk load methods that write to a known table without SQL.
+     *
+     * @param table the table name
+     */
+    public static void invalidateTableEverywhere(String table) {
+        if (isRegistryEmpty()) {
+            return;
+        }
+        for (QueryResultCache cache : registeredCaches()) {
+            cache.invalidateTable(table);
+        }
+    }
+
+    /**
+     * Invalidates the results that every registered cache holds for the tables written by the
+     * given SQL statement, and again when the connection's transaction ends if it is not in
+     * auto-commit mode.
+     *
+     * @param connection the connection the statement ran on
+     * @param updateSql  the INSERT, UPDATE, DELETE, MERGE, DDL or other statement that was executed
+     */
+    public static void invalidateForUpdate(Connection connection, String updateSql) {
+        if (isRegistryEmpty()) {
+            return;
+        }
+        String table = writeTable(updateSql);
+        rememberUncommittedWrite(connection, table == null ? ALL_TABLES : tableName(table));
+        invalidateForUpdate(updateSql);
+    }
+
+    /**
+     * Invalidates the results that every registered cache holds for the given table, and again
+     * when the connection's transaction ends if it is not in auto-commit mode.
+     *
+     * @param connection the connection the write ran on
+     * @param table      the table name
+     */
+    public static void invalidateTableEverywhere(Connection connection, String table) {
+        if (isRegistryEmpty()) {
+            return;
+        }
+        rememberUncommittedWrite(connection, tableName(table));
+        invalidateTableEverywhere(table);
+    }
+
+    /**
+     * Invalidates the tables written during the connection's transaction, which has just been
+     * committed or rolled back. Called by the facades' commitTransaction and rollbackTransaction;
+     * call it directly after ending a transaction through plain JDBC.
+     *
+     * @param connection the connection whose transaction ended
+     */
+    public static void transactionEnded(Connection connection) {
+        Set<String> tables;
+        synchronized (UNCOMMITTED_WRITES) {
+            tables = UNCOMMITTED_WRITES.remove(ConnectionPool.physicalConnection(connection));
+        }
+        if (tables == null || isRegistryEmpty()) {
+            return;
+        }
+        for (QueryResultCache cache : registeredCaches()) {
+            if (tables.contains(ALL_TABLES)) {
+                cache.invalidateAll();
+            } else {
+                for (String table : tables) {
+                    cache.invalidateTable(table);
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties this cache and stops it from being invalidated by writes.
+     */
+    public void close() {
+        synchronized (REGISTRY) {
+            REGISTRY.remove(this);
+        }
+        invalidateAll();
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of queries that had to run against the database.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the memory budget.
+     *
+     * @return the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of entries dropped because their time to live had passed.
+     *
+     * @return the expiration count
+     */
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Gets the number of entries dropped because a write touched one of their tables.
+     *
+     * @return the invalidation count
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Gets the fraction of queries answered from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 before the first query
+     */
+    public synchronized double getHitRatio() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Gets the number of cached results.
+     *
+     * @return the entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the estimated memory footprint of all cached results.
+     *
+     * @return the weight in bytes
+     */
+    public synchronized long getWeightBytes() {
+        return weightBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryResultCache{entries=" + entries.size() + ", weightBytes=" + weightBytes
+                + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+                + ", expirations=" + expirationCount + ", invalidations=" + invalidationCount + "}";
+    }
+
+    private void put(Key key, Entry entry) {
+        remove(key);
+        entries.put(key, entry);
+        weightBytes += entry.weight;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weightBytes > maxWeightBytes && eldest.hasNext()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            weightBytes -= evicted.getValue().weight;
+            evictionCount++;
+            logger.debug("Evicted cached result of {}", evicted.getKey().sql);
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weightBytes -= removed.weight;
+        }
+    }
+
+    private static void rememberUncommittedWrite(Connection connection, String table) {
+        try {
+            if (connection == null || connection.getAutoCommit()) {
+                return;
+            }
+        } catch (SQLException e) {
+            // Assume a transaction, which only costs an extra invalidation
+            logger.debug("Could not read the auto-commit mode of {}", connection, e);
+        }
+        synchronized (UNCOMMITTED_WRITES) {
+            UNCOMMITTED_WRITES.computeIfAbsent(ConnectionPool.physicalConnection(connection), key -> new HashSet<>()).add(table);
+        }
+    }
+
+    private static boolean hasUncommittedWrites(Connection connection, Set<String> tables) {
+        synchronized (UNCOMMITTED_WRITES) {
+            Set<String> written = UNCOMMITTED_WRITES.get(ConnectionPool.physicalConnection(connection));
+            if (written == null) {
+                return false;
+            }
+            if (written.contains(ALL_TABLES)) {
+                return true;
+            }
+            for (String table : tables) {
+                if (written.contains(table)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean isRegistryEmpty() {
+        synchronized (REGISTRY) {
+            return REGISTRY.isEmpty();
+        }
+    }
+
+    private static List<QueryResultCache> registeredCaches() {
+        synchronized (REGISTRY) {
+            return new ArrayList<>(REGISTRY);
+        }
+    }
+
+    /**
+     * Collapses runs of whitespace outside quoted text and drops a trailing semicolon, so
+     * formatting differences do not produce separate entries.
+     */
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                normalized.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                normalized.append(c);
+            }
+        }
+        int end = normalized.length();
+        while (end > 0 && (normalized.charAt(end - 1) == ';' || normalized.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        normalized.setLength(end);
+        return normalized.toString();
+    }
+
+    /**
+     * Finds the tables a query reads from, as lower-case names without schema or quotes.
+     */
+    static Set<String> readTables(String sql) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = READ_TABLES.matcher(sql);
+        while (matcher.find()) {
+            for (String item : matcher.group(1).split(",")) {
+                String table = item.trim().split("\\s+")[0];
+                if (!table.isEmpty()) {
+                    tables.add(tableName(table));
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Finds the table a write statement changes, or null if it cannot be determined, including
+     * when the statement may write to more than one table.
+     */
+    static String writeTable(String sql) {
+        Matcher matcher = WRITE_TABLES.matcher(sql);
+        if (!matcher.find()) {
+            return null;
+        }
+        String table = tableName(matcher.group(1));
+        if (WRITE_MODIFIERS.contains(table)) {
+            // UPDATE ONLY t, UPDATE TOP (10) t, ...
+            return null;
+        }
+        String rest = sql.substring(matcher.end());
+        if (rest.trim().startsWith(",")) {
+            // DELETE t1, t2 FROM ..., UPDATE t1, t2 SET ...
+            return null;
+        }
+        if (matcher.group().trim().toUpperCase(Locale.ROOT).startsWith("UPDATE") && MULTI_TABLE_UPDATE.matcher(rest).lookingAt()) {
+            // UPDATE t1 JOIN t2 ON ... SET ...
+            return null;
+        }
+        return table;
+    }
+
+    private static String tableName(String table) {
+        String name = table.substring(table.lastIndexOf('.') + 1);
+        return name.replaceAll("[\"`\\[\\]]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Map<String, Object>> readOnly(TabularResult result) {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                return Collections.unmodifiableMap(result.getRow(index));
+            }
+
+            @Override
+            public int size() {
+                return result.getRowCount();
+            }
+        };
+    }
+
+    /**
+     * Estimates the heap footprint of a cached result from its row count and cell values.
+     */
+    static long weigh(Key key, TabularResult result) {
+        long weight = 64 + 2L * key.sql.length() + 16L * key.params.length;
+        int columns = result.getColumnCount();
+        for (int row = 0; row < result.getRowCount(); row++) {
+            weight += 16 + 4L * columns;
+            for (int column = 0; column < columns; column++) {
+                weight += DatabaseMetrics.estimateBytes(result.get(row, column));
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * A cache key: normalized SQL plus parameter values compared element by element.
+     */
+    static final class Key {
+        private final String sql;
+        private final Object[] params;
+        private final int hash;
+
+        Key(String sql, Object[] params) {
+            this.sql = sql;
+            this.params = params;
+            this.hash = 31 * sql.hashCode() + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && sql.equals(key.sql) && Arrays.deepEquals(params, key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final List<Map<String, Object>> rows;
+        private final Set<String> tables;
+        private final long loadedAt;
+        private final long weight;
+
+        private Entry(List<Map<String, Object>> rows, Set<String> tables, long loadedAt, long weight) {
+            this.rows = rows;
+            this.tables = tables;
+            this.loadedAt = loadedAt;
+            this.weight = weight;
+        }
+    }
+}
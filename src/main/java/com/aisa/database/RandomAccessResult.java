@@ -0,0 +1,70 @@
+package com.aisa.database;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fully read query result whose cells can be read in any order by row index and column name
+ * or zero-based column position.
+ *
+ * {@link TabularResult} keeps every row on the heap; {@link SpillableResult} keeps rows on the
+ * heap up to a byte budget and the rest in a memory-mapped file. Code that only reads results
+ * can accept either through this interface.
+ */
+public interface RandomAccessResult {
+
+    /**
+     * Gets the column index of the result.
+     *
+     * @return the column index
+     */
+    ColumnIndex getColumns();
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the row count
+     */
+    int getRowCount();
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the column count
+     */
+    int getColumnCount();
+
+    /**
+     * Gets a cell by zero-based row index and zero-based column position.
+     *
+     * @param row    the zero-based row index
+     * @param column the zero-based column position
+     * @return the cell value
+     */
+    Object get(int row, int column);
+
+    /**
+     * Gets a cell by zero-based row index and column name.
+     *
+     * @param row        the zero-based row index
+     * @param columnName the column name
+     * @return the cell value
+     * @throws IllegalArgumentException if the result has no such column
+     */
+    Object get(int row, String columnName);
+
+    /**
+     * Gets a row as a Map from column name to value.
+     *
+     * @param row the zero-based row index
+     * @return the row
+     */
+    CompactRow getRow(int row);
+
+    /**
+     * Returns a List view of the rows as Maps, in the shape produced by resultSetToList.
+     *
+     * @return a read-only List of rows
+     */
+    List<Map<String, Object>> asMaps();
+}
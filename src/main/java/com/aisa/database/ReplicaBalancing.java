@@ -0,0 +1,19 @@
+package com.aisa.database;
+
+/**
+ * How {@link RoutingDataSource} picks the replica that serves a read.
+ */
+public enum ReplicaBalancing {
+
+    /**
+     * The replica with the fewest reads in flight, counted from execution until the result is
+     * closed. Ties are broken round-robin.
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * The replica with the lowest moving average of query execution time. Replicas that have
+     * not served a query yet are tried first.
+     */
+    LOWEST_LATENCY
+}
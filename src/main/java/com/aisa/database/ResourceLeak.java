@@ -0,0 +1,82 @@
+package com.aisa.database;
+
+/**
+ * A Statement or ResultSet reported by {@link LeakDetector} because it has been open longer
+ * than the leak threshold.
+ */
+public final class ResourceLeak {
+
+    private final String resourceType;
+    private final String sql;
+    private final String threadName;
+    private final long ageMillis;
+    private final StackTraceElement[] allocationStackTrace;
+
+    /**
+     * Creates a leak report.
+     *
+     * @param resourceType         the kind of resource, such as {@code Statement} or {@code ResultSet}
+     * @param sql                  the SQL the resource was created for
+     * @param threadName           the name of the thread that created the resource
+     * @param ageMillis            how long the resource has been open, in milliseconds
+     * @param allocationStackTrace the stack trace of the code that created the resource
+     */
+    public ResourceLeak(String resourceType, String sql, String threadName, long ageMillis,
+                        StackTraceElement[] allocationStackTrace) {
+        this.resourceType = resourceType;
+        this.sql = sql;
+        this.threadName = threadName;
+        this.ageMillis = ageMillis;
+        this.allocationStackTrace = allocationStackTrace;
+    }
+
+    /**
+     * Gets the kind of resource.
+     *
+     * @return {@code Statement} or {@code ResultSet}
+     */
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    /**
+     * Gets the SQL the resource was created for.
+     *
+     * @return the SQL text
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets the name of the thread that created the resource.
+     *
+     * @return the thread name
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Gets how long the resource had been open when the leak was found.
+     *
+     * @return the age in milliseconds
+     */
+    public long getAgeMillis() {
+        return ageMillis;
+    }
+
+    /**
+     * Gets the stack trace of the code that created the resource.
+     *
+     * @return the allocation stack trace
+     */
+    public StackTraceElement[] getAllocationStackTrace() {
+        return allocationStackTrace.clone();
+    }
+
+    @Override
+    public String toString() {
+        return resourceType + " open for " + ageMillis + " ms on thread " + threadName + ": " + sql;
+    }
+}
@@ -0,0 +1,383 @@
+package com.aisa.database;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the rows of a ResultSet straight to a stream, channel or file as CSV, a JSON array or
+ * newline-delimited JSON, without materializing the result.
+ *
+ * Each row is written as soon as it is read, so memory use stays flat regardless of the number
+ * of rows and only depends on the JDBC fetch size and the output buffer. JSON is written with
+ * Jackson's streaming {@link JsonGenerator}, which recycles its buffers between exports; column
+ * names are encoded once per export. Values are read with the typed getter matching the column
+ * type, so numbers stay numbers in JSON; dates and times are written in ISO-8601 form and binary
+ * values as Base64.
+ *
+ * The exporter reads the remaining rows but does not close the ResultSet. Streams and channels
+ * passed in are flushed, and gzip output is finished, but not closed.
+ */
+public final class ResultSetExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSetExporter.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final int BOOLEAN = 1;
+    private static final int INTEGER = 2;
+    private static final int LONG = 3;
+    private static final int DOUBLE = 4;
+    private static final int DECIMAL = 5;
+    private static final int DATE = 6;
+    private static final int TIME = 7;
+    private static final int TIMESTAMP = 8;
+    private static final int BINARY = 9;
+    private static final int TEXT = 10;
+
+    private ResultSetExporter() {
+    }
+
+    /**
+     * Writes the remaining rows of a ResultSet to a stream with default options.
+     *
+     * @param resultSet the rows to write
+     * @param out       the stream to write to; flushed but not closed
+     * @param format    the output format
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public static long export(ResultSet resultSet, OutputStream out, ExportFormat format) throws SQLException {
+        return export(resultSet, out, format, new ExportOptions());
+    }
+
+    /**
+     * Writes the remaining rows of a ResultSet to a stream.
+     *
+     * @param resultSet the rows to write
+     * @param out       the stream to write to; flushed but not closed
+     * @param format    the output format
+     * @param options   the output settings
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the stream cannot be written
+     */
+    public static long export(ResultSet resultSet, OutputStream out, ExportFormat format,
+                              ExportOptions options) throws SQLException {
+        long start = System.nanoTime();
+        long rows;
+        try {
+            OutputStream target = options.isGzip() ? new GZIPOutputStream(out, options.getBufferSize()) : out;
+            rows = format == ExportFormat.CSV ? writeCsv(resultSet, target, options) : writeJson(resultSet, target, format);
+            if (target instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) target).finish();
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new SQLException("Error writing " + format + " export.", e);
+        }
+        logger.info("Exported {} rows as {} in {} ms.", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * Writes the remaining rows of a ResultSet to a channel.
+     *
+     * @param resultSet the rows to write
+     * @param channel   the channel to write to; not closed
+     * @param format    the output format
+     * @param options   the output settings
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the channel cannot be written
+     */
+    public static long export(ResultSet resultSet, WritableByteChannel channel, ExportFormat format,
+                              ExportOptions options) throws SQLException {
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), options.getBufferSize());
+        return export(resultSet, out, format, options);
+    }
+
+    /**
+     * Writes the remaining rows of a ResultSet to a file.
+     *
+     * @param resultSet the rows to write
+     * @param file      the file to write; it is created or truncated
+     * @param format    the output format
+     * @param options   the output settings
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs or the file cannot be written
+     */
+    public static long export(ResultSet resultSet, Path file, ExportFormat format,
+                              ExportOptions options) throws SQLException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), options.getBufferSize())) {
+            return export(resultSet, out, format, options);
+        } catch (IOException e) {
+            throw new SQLException("Error writing export file " + file, e);
+        }
+    }
+
+    private static long writeJson(ResultSet resultSet, OutputStream out, ExportFormat format)
+            throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int[] kinds = columnKinds(metaData);
+        SerializedString[] names = new SerializedString[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            names[i] = new SerializedString(metaData.getColumnLabel(i + 1));
+        }
+        boolean array = format == ExportFormat.JSON_ARRAY;
+        long rows = 0;
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            if (array) {
+                json.writeStartArray();
+            }
+            while (resultSet.next()) {
+                json.writeStartObject();
+                for (int i = 0; i < kinds.length; i++) {
+                    json.writeFieldName(names[i]);
+                    writeJsonValue(json, resultSet, i + 1, kinds[i]);
+                }
+                json.writeEndObject();
+                if (!array) {
+                    json.writeRaw('\n');
+                }
+                rows++;
+            }
+            if (array) {
+                json.writeEndArray();
+            }
+        }
+        return rows;
+    }
+
+    private static void writeJsonValue(JsonGenerator json, ResultSet resultSet, int column, int kind)
+            throws SQLException, IOException {
+        switch (kind) {
+            case BOOLEAN: {
+                boolean value = resultSet.getBoolean(column);
+                if (resultSet.wasNull()) {
+                    json.writeNull();
+                } else {
+                    json.writeBoolean(value);
+                }
+                return;
+            }
+            case INTEGER: {
+                int value = resultSet.getInt(column);
+                if (resultSet.wasNull()) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(value);
+                }
+                return;
+            }
+            case LONG: {
+                long value = resultSet.getLong(column);
+                if (resultSet.wasNull()) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(value);
+                }
+                return;
+            }
+            case DOUBLE: {
+                double value = resultSet.getDouble(column);
+                if (resultSet.wasNull()) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(value);
+                }
+                return;
+            }
+            case DECIMAL: {
+                BigDecimal value = resultSet.getBigDecimal(column);
+                if (value == null) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(value);
+                }
+                return;
+            }
+            case BINARY: {
+                byte[] value = resultSet.getBytes(column);
+                if (value == null) {
+                    json.writeNull();
+                } else {
+                    json.writeBinary(value);
+                }
+                return;
+            }
+            default: {
+                String value = readText(resultSet, column, kind);
+                if (value == null) {
+                    json.writeNull();
+                } else {
+                    json.writeString(value);
+                }
+            }
+        }
+    }
+
+    private static long writeCsv(ResultSet resultSet, OutputStream out, ExportOptions options)
+            throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int[] kinds = columnKinds(metaData);
+        char delimiter = options.getDelimiter();
+        String lineSeparator = options.getLineSeparator();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), options.getBufferSize());
+        if (options.isHeader()) {
+            for (int i = 0; i < kinds.length; i++) {
+                if (i > 0) {
+                    writer.write(delimiter);
+                }
+                writeCsvField(writer, metaData.getColumnLabel(i + 1), delimiter);
+            }
+            writer.write(lineSeparator);
+        }
+        long rows = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < kinds.length; i++) {
+                if (i > 0) {
+                    writer.write(delimiter);
+                }
+                String value = readCsvValue(resultSet, i + 1, kinds[i]);
+                if (value == null) {
+                    writer.write(options.getNullValue());
+                } else {
+                    writeCsvField(writer, value, delimiter);
+                }
+            }
+            writer.write(lineSeparator);
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static String readCsvValue(ResultSet resultSet, int column, int kind) throws SQLException {
+        switch (kind) {
+            case DECIMAL: {
+                BigDecimal value = resultSet.getBigDecimal(column);
+                return value == null ? null : value.toPlainString();
+            }
+            case BINARY: {
+                byte[] value = resultSet.getBytes(column);
+                return value == null ? null : Base64.getEncoder().encodeToString(value);
+            }
+            default:
+                return readText(resultSet, column, kind);
+        }
+    }
+
+    /**
+     * Reads a column as text; numbers and booleans through getString, temporal values in
+     * ISO-8601 form.
+     */
+    private static String readText(ResultSet resultSet, int column, int kind) throws SQLException {
+        switch (kind) {
+            case DATE: {
+                Date value = resultSet.getDate(column);
+                return value == null ? null : value.toLocalDate().toString();
+            }
+            case TIME: {
+                Time value = resultSet.getTime(column);
+                return value == null ? null : value.toLocalTime().toString();
+            }
+            case TIMESTAMP: {
+                Timestamp value = resultSet.getTimestamp(column);
+                return value == null ? null : value.toLocalDateTime().toString();
+            }
+            default:
+                return resultSet.getString(column);
+        }
+    }
+
+    private static void writeCsvField(Writer writer, String value, char delimiter) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, from, i + 1 - from);
+                writer.write('"');
+                from = i + 1;
+            }
+        }
+        writer.write(value, from, value.length() - from);
+        writer.write('"');
+    }
+
+    private static int[] columnKinds(ResultSetMetaData metaData) throws SQLException {
+        int[] kinds = new int[metaData.getColumnCount()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = columnKind(metaData.getColumnType(i + 1));
+        }
+        return kinds;
+    }
+
+    private static int columnKind(int sqlType) {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return INTEGER;
+            case Types.BIGINT:
+                return LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DECIMAL;
+            case Types.DATE:
+                return DATE;
+            case Types.TIME:
+                return TIME;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BINARY;
+            default:
+                return TEXT;
+        }
+    }
+}
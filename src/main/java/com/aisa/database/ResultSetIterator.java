@@ -0,0 +1,160 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily walks a ResultSet one row at a time instead of materializing it into a List.
+ *
+ * Rows are pulled from the driver only when {@link #hasNext()} or {@link #next()} is called, so
+ * memory use depends on the JDBC fetch size rather than on the size of the result. The iterator
+ * owns the ResultSet and, when it opened the query itself, the Statement: both are closed as soon
+ * as the last row has been read, when {@link #close()} is called, or when the {@link #stream()}
+ * built from it is closed.
+ */
+public class ResultSetIterator implements Iterator<Map<String, Object>>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSetIterator.class);
+
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final ColumnIndex columns;
+    private final long openedAt = System.nanoTime();
+
+    private String sql;
+    private long leakId;
+    private long rowsRead;
+    private long bytesRead;
+    private boolean advanced;
+    private boolean hasRow;
+    private boolean closed;
+
+    /**
+     * Creates an iterator over an already executed ResultSet. The Statement, if given, is
+     * closed together with the ResultSet.
+     *
+     * @param statement the Statement that produced the ResultSet, or null
+     * @param resultSet the ResultSet to iterate
+     * @throws SQLException if the ResultSet metadata cannot be read
+     */
+    public ResultSetIterator(Statement statement, ResultSet resultSet) throws SQLException {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.columns = ColumnIndex.from(resultSet.getMetaData());
+    }
+
+    /**
+     * Executes a query with a forward-only, read-only Statement and returns an iterator over
+     * its rows.
+     *
+     * @param connection the connection object
+     * @param query      the SQL query to be executed
+     * @param fetchSize  the number of rows the driver fetches per round trip; 0 keeps the driver default
+     * @return an iterator owning the Statement and ResultSet
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSetIterator open(Connection connection, String query, int fetchSize) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+            long start = System.nanoTime();
+            ResultSet resultSet;
+            try {
+                resultSet = statement.executeQuery(query);
+            } catch (SQLException | RuntimeException e) {
+                DatabaseMetrics.recordExecute(query, start, true);
+                throw e;
+            }
+            DatabaseMetrics.recordExecute(query, start, false);
+            ResultSetIterator iterator = new ResultSetIterator(statement, resultSet);
+            iterator.sql = query;
+            iterator.leakId = LeakDetector.track(statement, "Statement", query);
+            return iterator;
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!advanced) {
+            advanced = true;
+            hasRow = false;
+            if (!closed) {
+                try {
+                    hasRow = resultSet.next();
+                } catch (SQLException e) {
+                    close();
+                    throw new UncheckedSQLException("Failed to fetch the next row.", e);
+                }
+                if (!hasRow) {
+                    close();
+                }
+            }
+        }
+        return hasRow;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            CompactRow row = CompactRow.read(columns, resultSet);
+            rowsRead++;
+            bytesRead += row.estimateBytes();
+            return row;
+        } catch (SQLException e) {
+            close();
+            throw new UncheckedSQLException("Failed to read the current row.", e);
+        }
+    }
+
+    /**
+     * Returns a sequential Stream over the remaining rows. Closing the stream closes this
+     * iterator; use it in a try-with-resources block unless the stream is always fully consumed.
+     *
+     * @return a Stream of rows
+     */
+    public Stream<Map<String, Object>> stream() {
+        Spliterator<Map<String, Object>> spliterator =
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Closes the ResultSet and the owning Statement. Calling this method more than once has
+     * no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        DatabaseMetrics.recordFetch(sql, rowsRead, bytesRead, openedAt);
+        long start = System.nanoTime();
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            logger.error("Error closing ResultSet.", e);
+        }
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.error("Error closing Statement.", e);
+            }
+        }
+        LeakDetector.untrack(leakId);
+        DatabaseMetrics.recordClose("resultSet", start);
+    }
+}
@@ -0,0 +1,462 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A query result saved to a compact binary file and loaded back through a memory mapping, for
+ * baselines that are read far more often than they change.
+ *
+ * The file starts with a header holding the column schema and a caller-chosen version key,
+ * followed by blocks of rows in the encoding used by {@link SpillableResult}, each block
+ * compressed with Deflate. The header and every block carry a CRC32 checksum that is verified
+ * when the snapshot is loaded, so a truncated or corrupted file is rejected instead of returning
+ * wrong rows. Snapshots are written to a temporary file and moved into place, so a reader never
+ * sees a partly written snapshot.
+ *
+ * {@link #load(Path, String)} returns null when the file does not exist or was saved under a
+ * different version key, which is how snapshots are invalidated: derive the key from whatever
+ * the baseline depends on, such as the schema version or the query text, and change it when the
+ * baseline must be taken again. {@link #resultSet()} serves the rows as a read-only, scrollable
+ * ResultSet, and the snapshot itself gives random access by row and column.
+ */
+public final class ResultSnapshot implements RandomAccessResult, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSnapshot.class);
+
+    private static final int MAGIC = 0x52534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BLOCK_BYTES = 256 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final String versionKey;
+    private final SnapshotMetaData metaData;
+    private final ColumnIndex columns;
+    private final int rowCount;
+    private final int[] blockFirstRows;
+    private final int[] blockRowCounts;
+    private final int[] blockOffsets;
+    private final int[] blockCompressedLengths;
+    private final int[] blockRawLengths;
+    private volatile MappedByteBuffer buffer;
+    private volatile Block lastBlock;
+
+    private ResultSnapshot(Path file, String versionKey, SnapshotMetaData metaData, int rowCount,
+                           List<int[]> blocks, MappedByteBuffer buffer) throws SQLException {
+        this.file = file;
+        this.versionKey = versionKey;
+        this.metaData = metaData;
+        this.columns = ColumnIndex.from(metaData);
+        this.rowCount = rowCount;
+        this.blockFirstRows = new int[blocks.size()];
+        this.blockRowCounts = new int[blocks.size()];
+        this.blockOffsets = new int[blocks.size()];
+        this.blockCompressedLengths = new int[blocks.size()];
+        this.blockRawLengths = new int[blocks.size()];
+        int firstRow = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            int[] block = blocks.get(i);
+            blockFirstRows[i] = firstRow;
+            blockRowCounts[i] = block[0];
+            blockRawLengths[i] = block[1];
+            blockCompressedLengths[i] = block[2];
+            blockOffsets[i] = block[3];
+            firstRow += block[0];
+        }
+        this.buffer = buffer;
+    }
+
+    /**
+     * Saves the remaining rows of a ResultSet to a snapshot file, replacing any previous
+     * snapshot at that path. The ResultSet is not closed.
+     *
+     * @param resultSet  the rows to save
+     * @param file       the snapshot file
+     * @param versionKey the key the snapshot is valid for
+     * @return the number of rows saved
+     * @throws SQLException if a database access error occurs or the file cannot be written
+     */
+    public static long write(ResultSet resultSet, Path file, String versionKey) throws SQLException {
+        long start = System.nanoTime();
+        Path temp = null;
+        long rows = 0;
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            temp = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+            SnapshotMetaData metaData = SnapshotMetaData.copyOf(resultSet.getMetaData());
+            int columnCount = metaData.getColumnCount();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp), WRITE_BUFFER_SIZE))) {
+                writeHeader(out, versionKey, metaData);
+                ByteArrayOutputStream raw = new ByteArrayOutputStream(BLOCK_BYTES + BLOCK_BYTES / 4);
+                DataOutputStream rowOut = new DataOutputStream(raw);
+                byte[] chunk = new byte[WRITE_BUFFER_SIZE];
+                int blockRows = 0;
+                while (resultSet.next()) {
+                    for (int i = 0; i < columnCount; i++) {
+                        RowCodec.write(rowOut, resultSet.getObject(i + 1));
+                    }
+                    blockRows++;
+                    rows++;
+                    if (raw.size() >= BLOCK_BYTES) {
+                        writeBlock(out, raw, blockRows, deflater, chunk);
+                        blockRows = 0;
+                    }
+                }
+                if (blockRows > 0) {
+                    writeBlock(out, raw, blockRows, deflater, chunk);
+                }
+                out.writeInt(0);
+                out.writeLong(rows);
+            } finally {
+                deflater.end();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } catch (IOException e) {
+            throw new SQLException("Error writing result snapshot " + file, e);
+        } finally {
+            deleteQuietly(temp);
+        }
+        logger.info("Saved {} rows to snapshot {} in {} ms.", rows, file, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * Loads a snapshot file if it exists and was saved under the given version key.
+     *
+     * @param file       the snapshot file
+     * @param versionKey the key the snapshot must have been saved under
+     * @return the snapshot, or null if the file does not exist or has a different version key
+     * @throws SQLException if the file cannot be read, is not a snapshot or fails its checksums
+     */
+    public static ResultSnapshot load(Path file, String versionKey) throws SQLException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new SQLException("Snapshot " + file + " is larger than 2 GiB.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new SQLException("Error reading result snapshot " + file, e);
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new SQLException("Not a result snapshot: " + file);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new SQLException("Unsupported snapshot format " + formatVersion + " in " + file);
+            }
+            byte[] header = new byte[buffer.getInt()];
+            int headerChecksum = buffer.getInt();
+            buffer.get(header);
+            if (checksum(header) != headerChecksum) {
+                throw new SQLException("Header checksum mismatch in snapshot " + file);
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+            String savedKey = in.readUTF();
+            if (!savedKey.equals(versionKey)) {
+                logger.info("Snapshot {} has version key {}, expected {}; ignoring it.", file, savedKey, versionKey);
+                return null;
+            }
+            SnapshotMetaData metaData = SnapshotMetaData.read(in);
+            List<int[]> blocks = new ArrayList<>();
+            long rows = 0;
+            CRC32 crc = new CRC32();
+            int blockRows;
+            while ((blockRows = buffer.getInt()) != 0) {
+                int rawLength = buffer.getInt();
+                int compressedLength = buffer.getInt();
+                int blockChecksum = buffer.getInt();
+                int offset = buffer.position();
+                ByteBuffer compressed = buffer.duplicate();
+                compressed.limit(offset + compressedLength);
+                crc.reset();
+                crc.update(compressed);
+                if ((int) crc.getValue() != blockChecksum) {
+                    throw new SQLException("Checksum mismatch in block " + blocks.size() + " of snapshot " + file);
+                }
+                buffer.position(offset + compressedLength);
+                blocks.add(new int[]{blockRows, rawLength, compressedLength, offset});
+                rows += blockRows;
+            }
+            if (buffer.getLong() != rows) {
+                throw new SQLException("Row count mismatch in snapshot " + file);
+            }
+            return new ResultSnapshot(file, versionKey, metaData, (int) rows, blocks, buffer);
+        } catch (BufferUnderflowException | IllegalArgumentException | IOException e) {
+            throw new SQLException("Truncated or corrupt result snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Opens a cursor over the rows of the snapshot. Each call returns an independent cursor
+     * positioned before the first row.
+     *
+     * @return a read-only, scroll-insensitive ResultSet
+     */
+    public ResultSet resultSet() {
+        return new SnapshotResultSet(this);
+    }
+
+    /**
+     * Gets the file the snapshot was loaded from.
+     *
+     * @return the snapshot file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the version key the snapshot was saved under.
+     *
+     * @return the version key
+     */
+    public String getVersionKey() {
+        return versionKey;
+    }
+
+    /**
+     * Gets the column schema saved with the snapshot.
+     *
+     * @return the metadata of the saved columns
+     */
+    public ResultSetMetaData getMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public ColumnIndex getColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public Object get(int row, int column) {
+        return values(row)[column];
+    }
+
+    @Override
+    public Object get(int row, String columnName) {
+        int position = columns.indexOf(columnName);
+        if (position < 0) {
+            throw new IllegalArgumentException("No column named " + columnName + " in " + columns);
+        }
+        return get(row, position);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The row is a copy, so changes made to it do not affect the snapshot.
+     */
+    @Override
+    public CompactRow getRow(int row) {
+        return new CompactRow(columns, values(row).clone());
+    }
+
+    @Override
+    public List<Map<String, Object>> asMaps() {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    /**
+     * Releases the mapping. Rows that are not already decoded cannot be read afterwards.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+        lastBlock = null;
+    }
+
+    /**
+     * Gets the values of a row from a shared cache of the last decoded block. The array must
+     * not be modified.
+     */
+    private Object[] values(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        int index = blockIndex(row);
+        Block block = lastBlock;
+        if (block == null || block.index != index) {
+            block = decode(index);
+            lastBlock = block;
+        }
+        return block.rows[row - blockFirstRows[index]];
+    }
+
+    int blockIndex(int row) {
+        int index = Arrays.binarySearch(blockFirstRows, row);
+        return index < 0 ? -index - 2 : index;
+    }
+
+    /**
+     * Inflates and decodes one block of rows.
+     */
+    Block decode(int index) {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null) {
+            throw new IllegalStateException("The snapshot has been closed.");
+        }
+        byte[] compressed = new byte[blockCompressedLengths[index]];
+        ByteBuffer source = mapped.duplicate();
+        source.position(blockOffsets[index]);
+        source.get(compressed);
+        byte[] raw = new byte[blockRawLengths[index]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                length += inflater.inflate(raw, length, raw.length - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Cannot inflate block " + index + " of snapshot " + file, e);
+        } finally {
+            inflater.end();
+        }
+        ByteBuffer rowBuffer = ByteBuffer.wrap(raw);
+        Object[][] rows = new Object[blockRowCounts[index]][];
+        for (int row = 0; row < rows.length; row++) {
+            Object[] values = new Object[columns.size()];
+            for (int column = 0; column < values.length; column++) {
+                values[column] = RowCodec.read(rowBuffer);
+            }
+            rows[row] = values;
+        }
+        return new Block(index, blockFirstRows[index], rows);
+    }
+
+    SnapshotMetaData metaData() {
+        return metaData;
+    }
+
+    private static void writeHeader(DataOutputStream out, String versionKey, SnapshotMetaData metaData)
+            throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeUTF(versionKey);
+        metaData.write(headerOut);
+        byte[] bytes = header.toByteArray();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(bytes.length);
+        out.writeInt(checksum(bytes));
+        out.write(bytes);
+    }
+
+    /**
+     * Compresses the buffered rows into one block and resets the buffer.
+     */
+    private static void writeBlock(DataOutputStream out, ByteArrayOutputStream raw, int rows,
+                                   Deflater deflater, byte[] chunk) throws IOException {
+        byte[] bytes = raw.toByteArray();
+        raw.reset();
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 64);
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            compressed.write(chunk, 0, length);
+        }
+        byte[] compressedBytes = compressed.toByteArray();
+        out.writeInt(rows);
+        out.writeInt(bytes.length);
+        out.writeInt(compressedBytes.length);
+        out.writeInt(checksum(compressedBytes));
+        out.write(compressedBytes);
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp != null) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                logger.error("Error deleting temporary snapshot file {}", temp, e);
+            }
+        }
+    }
+
+    /**
+     * The decoded rows of one block.
+     */
+    static final class Block {
+        final int index;
+        final int firstRow;
+        final Object[][] rows;
+
+        private Block(int index, int firstRow, Object[][] rows) {
+            this.index = index;
+            this.firstRow = firstRow;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.aisa.database;
+
+/**
+ * Settings for a {@link RoutingDataSource}.
+ *
+ * All durations are expressed in milliseconds. The defaults send reads to the least busy replica,
+ * keep a thread's reads on the primary for one second after it writes and take replicas more
+ * than ten seconds behind out of rotation.
+ */
+public class RoutingConfig {
+
+    private ReplicaBalancing balancing = ReplicaBalancing.LEAST_OUTSTANDING;
+    private long readYourWritesMillis = 1_000L;
+    private long maxReplicationLagMillis = 10_000L;
+    private long lagCheckIntervalMillis = 5_000L;
+    private long replicaRetryMillis = 30_000L;
+
+    /**
+     * Gets how the replica serving a read is picked.
+     *
+     * @return the balancing strategy
+     */
+    public ReplicaBalancing getBalancing() {
+        return balancing;
+    }
+
+    /**
+     * Sets how the replica serving a read is picked.
+     *
+     * @param balancing the balancing strategy
+     */
+    public void setBalancing(ReplicaBalancing balancing) {
+        this.balancing = balancing;
+    }
+
+    /**
+     * Gets how long reads stay on the primary after a write, so a thread reads back what it
+     * has just written even if the replicas have not caught up yet.
+     *
+     * @return the stickiness window in milliseconds; 0 disables it
+     */
+    public long getReadYourWritesMillis() {
+        return readYourWritesMillis;
+    }
+
+    /**
+     * Sets how long reads stay on the primary after a write.
+     *
+     * @param readYourWritesMillis the stickiness window in milliseconds; 0 disables it
+     */
+    public void setReadYourWritesMillis(long readYourWritesMillis) {
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+
+    /**
+     * Gets how far a replica may fall behind the primary before it stops receiving reads.
+     *
+     * @return the maximum replication lag in milliseconds; 0 disables lag checks
+     */
+    public long getMaxReplicationLagMillis() {
+        return maxReplicationLagMillis;
+    }
+
+    /**
+     * Sets how far a replica may fall behind the primary before it stops receiving reads.
+     *
+     * @param maxReplicationLagMillis the maximum replication lag in milliseconds; 0 disables lag checks
+     */
+    public void setMaxReplicationLagMillis(long maxReplicationLagMillis) {
+        this.maxReplicationLagMillis = maxReplicationLagMillis;
+    }
+
+    /**
+     * Gets how often the replication lag of every replica is measured.
+     *
+     * @return the check interval in milliseconds
+     */
+    public long getLagCheckIntervalMillis() {
+        return lagCheckIntervalMillis;
+    }
+
+    /**
+     * Sets how often the replication lag of every replica is measured.
+     *
+     * @param lagCheckIntervalMillis the check interval in milliseconds
+     */
+    public void setLagCheckIntervalMillis(long lagCheckIntervalMillis) {
+        this.lagCheckIntervalMillis = lagCheckIntervalMillis;
+    }
+
+    /**
+     * Gets how long a replica that refused a connection is left out before reads try it again.
+     * A successful lag check brings it back sooner.
+     *
+     * @return the retry delay in milliseconds
+     */
+    public long getReplicaRetryMillis() {
+        return replicaRetryMillis;
+    }
+
+    /**
+     * Sets how long a replica that refused a connection is left out before reads try it again.
+     *
+     * @param replicaRetryMillis the retry delay in milliseconds
+     */
+    public void setReplicaRetryMillis(long replicaRetryMillis) {
+        this.replicaRetryMillis = replicaRetryMillis;
+    }
+}
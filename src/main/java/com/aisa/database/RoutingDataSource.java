@@ -0,0 +1,741 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link DataSource} that splits reads and writes between a primary database and its read
+ * replicas, typically {@link ConnectionPool}s created by the same facade.
+ *
+ * Connections handed out are proxies that pick a database per statement. Queries recognized as
+ * reads ({@code SELECT}, {@code WITH}, {@code VALUES}, {@code SHOW} or {@code TABLE} without a
+ * locking or writing clause) run on a replica chosen by the configured {@link ReplicaBalancing};
+ * everything else runs on the primary. The same proxy works with every facade method, for example
+ * {@code PostgreSQLUtilLib.executeQuery(routing.getConnection(), sql)} reads from a replica while
+ * {@code PostgreSQLUtilLib.executeUpdate(...)} writes to the primary.
+ *
+ * Reads go to the primary instead when:
+ * <ul>
+ *     <li>the connection is inside a transaction, from {@code setAutoCommit(false)} until the
+ *     transaction is committed or rolled back and auto-commit is switched back on;</li>
+ *     <li>the connection or the calling thread wrote within the read-your-writes window;</li>
+ *     <li>no replica is available.</li>
+ * </ul>
+ * Stored procedure calls and connection-level calls, such as {@code getMetaData} or
+ * {@code setTransactionIsolation}, go to the primary, and stored procedure calls count as writes.
+ *
+ * A background thread measures the replication lag of every replica through
+ * {@link Dialect#replicationLagMillis(Connection)} and takes replicas that fall too far behind,
+ * or cannot be reached, out of rotation until they catch up. A replica that refuses a connection
+ * while serving a read is also left out for a while.
+ *
+ * The primary and replica data sources stay owned by the caller; closing the router only stops
+ * its lag checks.
+ */
+public class RoutingDataSource implements DataSource, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    private static final AtomicInteger ROUTER_SEQUENCE = new AtomicInteger();
+
+    private static final Pattern LEADING_NOISE = Pattern.compile("(\\s+|--[^\\n]*\\n?|/\\*.*?\\*/|\\()*", Pattern.DOTALL);
+
+    private static final Pattern READ_KEYWORD = Pattern.compile("(SELECT|WITH|VALUES|SHOW|TABLE)\\b", Pattern.CASE_INSENSITIVE);
+
+    // Locking reads (FOR UPDATE, FOR SHARE, LOCK IN SHARE MODE), SELECT INTO, writable CTEs and
+    // sequence calls all have to run on the primary.
+    private static final Pattern WRITE_CLAUSE = Pattern.compile("\\b(INTO|INSERT|UPDATE|DELETE|MERGE|SHARE|NEXTVAL|SETVAL)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Dialect dialect;
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final RoutingConfig config;
+    private final String routerName;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<Long> lastWriteOnThread = new ThreadLocal<>();
+    private final ScheduledExecutorService lagChecker;
+
+    private volatile PrintWriter logWriter;
+    private volatile int loginTimeout;
+
+    /**
+     * Creates a router over a primary and its replicas.
+     *
+     * @param dialect  the dialect of the databases, used to measure replication lag
+     * @param primary  the data source of the primary database
+     * @param replicas the data sources of the read replicas; may be empty
+     * @param config   the routing settings
+     */
+    public RoutingDataSource(Dialect dialect, DataSource primary, List<? extends DataSource> replicas,
+                             RoutingConfig config) {
+        this.dialect = dialect;
+        this.primary = primary;
+        this.config = config;
+        this.routerName = "aisa-db-router-" + ROUTER_SEQUENCE.incrementAndGet();
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(this.replicas.size(), replica));
+        }
+        if (config.getMaxReplicationLagMillis() > 0 && !this.replicas.isEmpty()) {
+            this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, routerName + "-lag-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.lagChecker.scheduleWithFixedDelay(this::checkReplicationLag, 0L,
+                    config.getLagCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.lagChecker = null;
+        }
+        logger.info("Created {} database router {} with {} replicas.", dialect.getName(), routerName, this.replicas.size());
+    }
+
+    /**
+     * Gets a routing connection. Nothing is opened until the first statement runs; the primary
+     * and at most one replica connection are then borrowed and held until the routing
+     * connection is closed.
+     *
+     * @return a routing connection
+     */
+    @Override
+    public Connection getConnection() {
+        RoutingConnection handler = new RoutingConnection();
+        handler.proxy = (Connection) Proxy.newProxyInstance(RoutingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+        return handler.proxy;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("RoutingDataSource uses the credentials of its data sources.");
+    }
+
+    /**
+     * Gets the data source of the primary database, for work that must bypass routing.
+     *
+     * @return the primary data source
+     */
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Gets the number of replicas, available or not.
+     *
+     * @return the number of replicas
+     */
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Tells whether a replica currently receives reads.
+     *
+     * @param replica the index of the replica, in the order passed to the constructor
+     * @return true if the replica is in rotation
+     */
+    public boolean isReplicaAvailable(int replica) {
+        return replicas.get(replica).isAvailable(System.nanoTime());
+    }
+
+    /**
+     * Gets the replication lag of a replica at its last check.
+     *
+     * @param replica the index of the replica, in the order passed to the constructor
+     * @return the lag in milliseconds, or -1 if it has not been measured
+     */
+    public long getReplicationLagMillis(int replica) {
+        return replicas.get(replica).lagMillis;
+    }
+
+    /**
+     * Gets the number of reads currently in flight on a replica. A read counts from the moment it
+     * is executed until its ResultSet or statement is closed, the statement runs again, or the
+     * routing connection is closed; connections that merely hold a replica connection do not count.
+     *
+     * @param replica the index of the replica, in the order passed to the constructor
+     * @return the number of outstanding requests
+     */
+    public int getOutstandingRequests(int replica) {
+        return replicas.get(replica).outstanding.get();
+    }
+
+    /**
+     * Measures the replication lag of every replica now, taking replicas that are too far behind
+     * or unreachable out of rotation and bringing back the ones that caught up. Runs on the
+     * router's background thread every {@link RoutingConfig#getLagCheckIntervalMillis()}.
+     */
+    public void checkReplicationLag() {
+        long maxLagMillis = config.getMaxReplicationLagMillis();
+        for (Replica replica : replicas) {
+            boolean lagging;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                long lagMillis = dialect.replicationLagMillis(connection);
+                replica.lagMillis = lagMillis;
+                lagging = maxLagMillis > 0 && lagMillis > maxLagMillis;
+                if (lagging && !replica.lagging) {
+                    logger.warn("Replica {} of router {} is {} ms behind the primary; sending its reads elsewhere.",
+                            replica.index, routerName, lagMillis);
+                }
+            } catch (SQLException | RuntimeException e) {
+                lagging = true;
+                if (!replica.lagging) {
+                    logger.warn("Cannot check replica {} of router {}; sending its reads elsewhere.", replica.index, routerName, e);
+                }
+            }
+            if (!lagging && replica.lagging) {
+                logger.info("Replica {} of router {} caught up; sending reads to it again.", replica.index, routerName);
+            }
+            replica.lagging = lagging;
+            if (!lagging) {
+                replica.retryAt = 0L;
+            }
+        }
+    }
+
+    /**
+     * Stops the lag checks. The primary and replica data sources are left open.
+     */
+    @Override
+    public void close() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        logger.info("Database router {} closed.", routerName);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("RoutingDataSource logs through SLF4J.");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("RoutingDataSource is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Tells whether a statement only reads and may run on a replica. Anything not recognized as
+     * a plain read is treated as a write.
+     */
+    static boolean isRead(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        Matcher noise = LEADING_NOISE.matcher(sql);
+        String statement = noise.lookingAt() ? sql.substring(noise.end()) : sql;
+        return READ_KEYWORD.matcher(statement).lookingAt() && !WRITE_CLAUSE.matcher(statement).find();
+    }
+
+    private Replica chooseReplica(long now) {
+        int count = replicas.size();
+        int start = nextReplica.getAndIncrement();
+        Replica best = null;
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, count));
+            if (replica.isAvailable(now) && (best == null || load(replica) < load(best))) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+
+    private long load(Replica replica) {
+        if (config.getBalancing() == ReplicaBalancing.LOWEST_LATENCY) {
+            return replica.latencyNanos;
+        }
+        return replica.outstanding.get();
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One read replica and what the router knows about it.
+     */
+    private final class Replica {
+        private final int index;
+        private final DataSource dataSource;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile long latencyNanos;
+        private volatile long lagMillis = -1L;
+        private volatile boolean lagging;
+        private volatile long retryAt;
+
+        private Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable(long now) {
+            return !lagging && (retryAt == 0L || now - retryAt >= 0);
+        }
+
+        private void suspend() {
+            retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getReplicaRetryMillis());
+        }
+
+        private synchronized void recordLatency(long nanos) {
+            // Moving average weighting the newest sample by 1/5
+            latencyNanos = latencyNanos == 0L ? nanos : latencyNanos + (nanos - latencyNanos) / 5;
+        }
+    }
+
+    /**
+     * The database a statement runs on: the primary, or the replica a connection belongs to.
+     */
+    private static final class Target {
+        private final Connection connection;
+        private final Replica replica;
+
+        private Target(Connection connection, Replica replica) {
+            this.connection = connection;
+            this.replica = replica;
+        }
+    }
+
+    /**
+     * Handles calls made on a routing connection. Like any JDBC connection it is meant to be used
+     * by one thread at a time.
+     */
+    private final class RoutingConnection implements InvocationHandler {
+        private Connection proxy;
+        private Connection primaryConnection;
+        private Connection replicaConnection;
+        private Replica replica;
+        private boolean autoCommit = true;
+        private long lastWrite;
+        private boolean written;
+        private boolean closed;
+        private final Set<Request> openRequests = new HashSet<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return routerName + " connection";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection of router " + routerName + " is closed.");
+            }
+            switch (method.getName()) {
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    return call(primary(), method, args);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) call(primary(), method, args);
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    boolean enabled = (Boolean) args[0];
+                    if (!enabled || primaryConnection != null) {
+                        primary().setAutoCommit(enabled);
+                    }
+                    autoCommit = enabled;
+                    return null;
+                case "commit":
+                    if (primaryConnection != null) {
+                        primaryConnection.commit();
+                        if (written) {
+                            // The writes only become visible now, so the window starts again
+                            markWrite();
+                        }
+                    }
+                    return null;
+                case "rollback":
+                    if (primaryConnection != null) {
+                        call(primaryConnection, method, args);
+                    }
+                    return null;
+                case "createStatement":
+                    return routedStatement(method, args, null);
+                case "prepareStatement":
+                    return routedStatement(method, args, (String) args[0]);
+                case "prepareCall":
+                    markWrite();
+                    return call(primary(), method, args);
+                default:
+                    return call(primary(), method, args);
+            }
+        }
+
+        private Object routedStatement(Method factory, Object[] factoryArgs, String sql) {
+            return Proxy.newProxyInstance(RoutingDataSource.class.getClassLoader(),
+                    new Class<?>[]{factory.getReturnType()}, new RoutedStatement(this, factory, factoryArgs, sql));
+        }
+
+        private Connection primary() throws SQLException {
+            if (primaryConnection == null) {
+                Connection connection = primary.getConnection();
+                if (!autoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                primaryConnection = connection;
+            }
+            return primaryConnection;
+        }
+
+        private Target writeTarget() throws SQLException {
+            return new Target(primary(), null);
+        }
+
+        private Target readTarget() throws SQLException {
+            if (!autoCommit || readsOwnWrites()) {
+                return writeTarget();
+            }
+            if (replicaConnection != null) {
+                if (replica.isAvailable(System.nanoTime())) {
+                    return new Target(replicaConnection, replica);
+                }
+                logger.debug("Replica {} of router {} was ejected; choosing another for the next read.",
+                        replica.index, routerName);
+                try {
+                    releaseReplica();
+                } catch (SQLException e) {
+                    logger.warn("Error returning a connection to ejected replica {} of router {}.",
+                            replica.index, routerName, e);
+                }
+            }
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica chosen = chooseReplica(System.nanoTime());
+                if (chosen == null) {
+                    break;
+                }
+                try {
+                    replicaConnection = chosen.dataSource.getConnection();
+                } catch (SQLException e) {
+                    logger.warn("Replica {} of router {} refused a connection; retrying it in {} ms.",
+                            chosen.index, routerName, config.getReplicaRetryMillis(), e);
+                    chosen.suspend();
+                    continue;
+                }
+                replica = chosen;
+                return new Target(replicaConnection, replica);
+            }
+            return writeTarget();
+        }
+
+        private boolean readsOwnWrites() {
+            long window = TimeUnit.MILLISECONDS.toNanos(config.getReadYourWritesMillis());
+            if (window <= 0L) {
+                return false;
+            }
+            long now = System.nanoTime();
+            Long threadWrite = lastWriteOnThread.get();
+            return (written && now - lastWrite < window) || (threadWrite != null && now - threadWrite < window);
+        }
+
+        private void markWrite() {
+            long now = System.nanoTime();
+            lastWrite = now;
+            written = true;
+            if (config.getReadYourWritesMillis() > 0) {
+                lastWriteOnThread.set(now);
+            }
+        }
+
+        /**
+         * Returns the replica connection. Statements bound to it create a new statement on their
+         * next execution, since they compare the connection they are routed to with their own.
+         */
+        private void releaseReplica() throws SQLException {
+            Connection connection = replicaConnection;
+            replicaConnection = null;
+            for (Request request : new ArrayList<>(openRequests)) {
+                request.end();
+            }
+            connection.close();
+        }
+
+        private void release() throws SQLException {
+            SQLException failure = null;
+            if (replicaConnection != null) {
+                try {
+                    releaseReplica();
+                } catch (SQLException e) {
+                    failure = e;
+                }
+            }
+            if (primaryConnection != null) {
+                try {
+                    primaryConnection.close();
+                } catch (SQLException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+                primaryConnection = null;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Handles calls made on a statement of a routing connection. The real statement is created
+     * on the database the next execution is routed to; settings and parameters made so far are
+     * replayed on it, so a cached prepared statement can serve a read from a replica and, after a
+     * write, the next read from the primary.
+     */
+    private final class RoutedStatement implements InvocationHandler {
+        private final RoutingConnection owner;
+        private final Method factory;
+        private final Object[] factoryArgs;
+        private final String sql;
+        // Statement settings by method name and parameters by index or name, in the order set
+        private final Map<Object, Object[]> settings = new LinkedHashMap<>();
+        private final Map<Object, Method> settingMethods = new LinkedHashMap<>();
+        private Statement target;
+        private Target bound;
+        private Request request;
+        private boolean closed;
+
+        private RoutedStatement(RoutingConnection owner, Method factory, Object[] factoryArgs, String sql) {
+            this.owner = owner;
+            this.factory = factory;
+            this.factoryArgs = factoryArgs;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    closed = true;
+                    endRequest();
+                    if (target != null) {
+                        target.close();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || (target != null && target.isClosed());
+                case "getConnection":
+                    return owner.proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return routerName + " statement" + (sql == null ? "" : " for " + sql);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement of router " + routerName + " is closed.");
+            }
+            if (name.equals("executeQuery") || name.equals("execute") || name.equals("executeUpdate")
+                    || name.equals("executeLargeUpdate") || name.equals("executeBatch")) {
+                String statementSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                boolean read = (name.equals("executeQuery") || name.equals("execute")) && isRead(statementSql);
+                bind(read ? owner.readTarget() : owner.writeTarget());
+                // Running the statement again closes its previous result
+                endRequest();
+                if (bound.replica != null) {
+                    request = new Request(owner, bound.replica);
+                }
+                long start = System.nanoTime();
+                Object result;
+                try {
+                    result = call(target, method, args);
+                } catch (Throwable e) {
+                    endRequest();
+                    throw e;
+                }
+                if (bound.replica != null) {
+                    bound.replica.recordLatency(System.nanoTime() - start);
+                    if (result instanceof ResultSet) {
+                        return request.track((ResultSet) result);
+                    } else if (!Boolean.TRUE.equals(result) || !name.equals("execute")) {
+                        endRequest();
+                    }
+                } else if (!read) {
+                    owner.markWrite();
+                }
+                return result;
+            }
+            if (name.equals("getResultSet") && request != null) {
+                ResultSet resultSet = (ResultSet) call(target, method, args);
+                return resultSet == null ? null : request.track(resultSet);
+            }
+            if (name.equals("addBatch")) {
+                bind(owner.writeTarget());
+                return call(target, method, args);
+            }
+            if (name.startsWith("set") || name.equals("closeOnCompletion")) {
+                Object key = method.getDeclaringClass() == Statement.class ? name : args[0];
+                settings.remove(key);
+                settings.put(key, args);
+                settingMethods.put(key, method);
+                return target == null ? null : call(target, method, args);
+            }
+            if (name.equals("clearParameters")) {
+                for (Iterator<Object> it = settings.keySet().iterator(); it.hasNext(); ) {
+                    Object key = it.next();
+                    if (settingMethods.get(key).getDeclaringClass() != Statement.class) {
+                        it.remove();
+                        settingMethods.remove(key);
+                    }
+                }
+                return target == null ? null : call(target, method, args);
+            }
+            if (target == null) {
+                bind(isRead(sql) ? owner.readTarget() : owner.writeTarget());
+            }
+            return call(target, method, args);
+        }
+
+        private void endRequest() {
+            if (request != null) {
+                request.end();
+                request = null;
+            }
+        }
+
+        private void bind(Target next) throws Throwable {
+            if (target != null && bound.connection == next.connection) {
+                return;
+            }
+            if (target != null) {
+                target.close();
+                target = null;
+            }
+            Statement created = (Statement) call(next.connection, factory, factoryArgs);
+            try {
+                for (Map.Entry<Object, Object[]> setting : settings.entrySet()) {
+                    call(created, settingMethods.get(setting.getKey()), setting.getValue());
+                }
+            } catch (Throwable e) {
+                created.close();
+                throw e;
+            }
+            target = created;
+            bound = next;
+        }
+    }
+
+    /**
+     * A read in flight on a replica, counted in the replica's outstanding requests until it ends.
+     */
+    private static final class Request {
+        private final RoutingConnection owner;
+        private final Replica replica;
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        private Request(RoutingConnection owner, Replica replica) {
+            this.owner = owner;
+            this.replica = replica;
+            replica.outstanding.incrementAndGet();
+            owner.openRequests.add(this);
+        }
+
+        private void end() {
+            if (ended.compareAndSet(false, true)) {
+                replica.outstanding.decrementAndGet();
+                owner.openRequests.remove(this);
+            }
+        }
+
+        /**
+         * Wraps the result of the read so closing it ends the request.
+         */
+        private ResultSet track(ResultSet resultSet) {
+            return (ResultSet) Proxy.newProxyInstance(RoutingDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                try {
+                                    resultSet.close();
+                                } finally {
+                                    end();
+                                }
+                                return null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return call(resultSet, method, args);
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.aisa.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+/**
+ * The compact binary encoding of column values used for rows written outside the heap.
+ *
+ * Each value is a one-byte tag followed by a fixed-width or length-prefixed payload, so common
+ * JDBC types cost a few bytes instead of an object with headers and references. Clob and Blob
+ * values are read into a String or byte array when written, because the locators become invalid
+ * once the ResultSet is closed. Other Serializable values fall back to Java serialization.
+ */
+final class RowCodec {
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte FLOAT = 5;
+    static final byte SHORT = 6;
+    static final byte BYTE = 7;
+    static final byte BOOLEAN = 8;
+    static final byte DECIMAL = 9;
+    static final byte BIG_INTEGER = 10;
+    static final byte DATE = 11;
+    static final byte TIME = 12;
+    static final byte TIMESTAMP = 13;
+    static final byte BYTES = 14;
+    static final byte SERIALIZED = 15;
+
+    private RowCodec() {
+    }
+
+    /**
+     * Writes one value with its tag.
+     */
+    static void write(DataOutputStream out, Object value) throws IOException, SQLException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(DECIMAL);
+            out.writeInt(decimal.scale());
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            out.writeByte(TIMESTAMP);
+            out.writeLong(timestamp.getTime());
+            out.writeInt(timestamp.getNanos());
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TIME);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            write(out, clob.getSubString(1, (int) clob.length()));
+        } else if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            write(out, blob.getBytes(1, (int) blob.length()));
+        } else if (value instanceof Serializable) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            out.writeByte(SERIALIZED);
+            writeBytes(out, bytes.toByteArray());
+        } else {
+            throw new SQLException("Cannot encode a value of type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads one value written by {@link #write(DataOutputStream, Object)}, starting at the
+     * buffer's position and advancing it past the value.
+     */
+    static Object read(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return new String(readBytes(buffer), StandardCharsets.UTF_8);
+            case INTEGER:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                return buffer.getDouble();
+            case FLOAT:
+                return buffer.getFloat();
+            case SHORT:
+                return buffer.getShort();
+            case BYTE:
+                return buffer.get();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case DECIMAL: {
+                int scale = buffer.getInt();
+                return new BigDecimal(new BigInteger(readBytes(buffer)), scale);
+            }
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(buffer));
+            case TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            }
+            case DATE:
+                return new Date(buffer.getLong());
+            case TIME:
+                return new Time(buffer.getLong());
+            case BYTES:
+                return readBytes(buffer);
+            case SERIALIZED:
+                try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(readBytes(buffer)))) {
+                    return objects.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    throw new IllegalStateException("Cannot decode serialized value.", e);
+                }
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag + " at offset " + (buffer.position() - 1));
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
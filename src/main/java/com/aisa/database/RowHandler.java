@@ -0,0 +1,24 @@
+package com.aisa.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Receives the rows of a query run through a facade's {@code query} method, one call per row.
+ *
+ * The handler is given the ResultSet positioned on the current row and reads the columns it
+ * needs from it, so no row object is allocated. It must not move the cursor or close the
+ * ResultSet; the Statement and ResultSet are closed once the last row has been handled or the
+ * handler throws.
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles the current row.
+     *
+     * @param row the ResultSet positioned on the row
+     * @throws SQLException if a column cannot be read or the handler fails
+     */
+    void handle(ResultSet row) throws SQLException;
+}
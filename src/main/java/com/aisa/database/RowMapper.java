@@ -0,0 +1,23 @@
+package com.aisa.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object.
+ *
+ * @param <T> the type of the mapped object
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the row the ResultSet is currently positioned on. Implementations must not move
+     * the cursor.
+     *
+     * @param resultSet the ResultSet positioned on the row to map
+     * @return the mapped object
+     * @throws SQLException if a column value cannot be read or converted
+     */
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,241 @@
+package com.aisa.database;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Annotation processor that generates a reflection-free {@link RowMapper} for every class
+ * annotated with {@link GenerateRowMapper}.
+ *
+ * The processor is registered through {@code META-INF/services}, so it runs automatically for
+ * any project that has this library on its compile classpath.
+ */
+@SupportedAnnotationTypes("com.aisa.database.GenerateRowMapper")
+public class RowMapperProcessor extends AbstractProcessor {
+
+    /**
+     * Suffix appended to the flattened POJO class name to form the generated mapper name.
+     */
+    static final String MAPPER_SUFFIX = "_RowMapper";
+
+    private static final Map<String, String> BOXED_GETTERS = new HashMap<>();
+
+    static {
+        BOXED_GETTERS.put("java.lang.Integer", "Int");
+        BOXED_GETTERS.put("java.lang.Long", "Long");
+        BOXED_GETTERS.put("java.lang.Double", "Double");
+        BOXED_GETTERS.put("java.lang.Float", "Float");
+        BOXED_GETTERS.put("java.lang.Short", "Short");
+        BOXED_GETTERS.put("java.lang.Byte", "Byte");
+        BOXED_GETTERS.put("java.lang.Boolean", "Boolean");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateRowMapper.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateRowMapper can only be applied to classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (validate(type)) {
+                try {
+                    generate(type);
+                } catch (IOException e) {
+                    error(type, "Failed to write row mapper: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean validate(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            error(type, "@GenerateRowMapper classes must be concrete and not private");
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            error(type, "@GenerateRowMapper nested classes must be static");
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error(type, "@GenerateRowMapper classes need a non-private no-argument constructor");
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String mapperName = flatName(type) + MAPPER_SUFFIX;
+        String pojoName = type.getQualifiedName().toString();
+        List<ExecutableElement> setters = findSetters(type);
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? mapperName : packageName + "." + mapperName, type);
+        try (Writer writer = file.openWriter(); PrintWriter out = new PrintWriter(writer)) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Row mapper for {@link " + pojoName + "}, generated by "
+                    + RowMapperProcessor.class.getName() + ". Do not edit.");
+            out.println(" */");
+            out.println("public final class " + mapperName
+                    + " implements com.aisa.database.RowMapper<" + pojoName + "> {");
+            out.println();
+            for (int k = 0; k < setters.size(); k++) {
+                out.println("    private final int column" + k + ";");
+            }
+            out.println();
+            out.println("    public " + mapperName + "(com.aisa.database.ColumnIndex columns) {");
+            for (int k = 0; k < setters.size(); k++) {
+                out.println("        this.column" + k + " = com.aisa.database.PojoMapper.columnPosition(columns, \""
+                        + propertyKey(setters.get(k)) + "\");");
+            }
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + pojoName + " mapRow(java.sql.ResultSet resultSet) throws java.sql.SQLException {");
+            out.println("        " + pojoName + " pojo = new " + pojoName + "();");
+            for (int k = 0; k < setters.size(); k++) {
+                writeAssignment(out, setters.get(k), "column" + k);
+            }
+            out.println("        return pojo;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private void writeAssignment(PrintWriter out, ExecutableElement setter, String column) {
+        TypeMirror type = setter.getParameters().get(0).asType();
+        String set = "pojo." + setter.getSimpleName() + "(";
+        out.println("        if (" + column + " != 0) {");
+        if (type.getKind().isPrimitive()) {
+            if (type.getKind() == TypeKind.CHAR) {
+                out.println("            String value = resultSet.getString(" + column + ");");
+                out.println("            if (value != null && !value.isEmpty()) {");
+                out.println("                " + set + "value.charAt(0));");
+                out.println("            }");
+            } else {
+                String getter = capitalize(type.getKind().name().toLowerCase(Locale.ROOT));
+                out.println("            " + type + " value = resultSet.get" + getter + "(" + column + ");");
+                out.println("            if (!resultSet.wasNull()) {");
+                out.println("                " + set + "value);");
+                out.println("            }");
+            }
+        } else if (type.getKind() == TypeKind.ARRAY && "byte[]".equals(type.toString())) {
+            out.println("            " + set + "resultSet.getBytes(" + column + "));");
+        } else {
+            String typeName = erasure(type);
+            Element typeElement = processingEnv.getTypeUtils().asElement(type);
+            if (BOXED_GETTERS.containsKey(typeName)) {
+                String getter = BOXED_GETTERS.get(typeName);
+                out.println("            " + getter.toLowerCase(Locale.ROOT) + " value = resultSet.get" + getter + "(" + column + ");");
+                out.println("            " + set + "resultSet.wasNull() ? null : " + typeName + ".valueOf(value));");
+            } else if ("java.lang.String".equals(typeName)) {
+                out.println("            " + set + "resultSet.getString(" + column + "));");
+            } else if ("java.math.BigDecimal".equals(typeName)) {
+                out.println("            " + set + "resultSet.getBigDecimal(" + column + "));");
+            } else if ("java.sql.Date".equals(typeName)) {
+                out.println("            " + set + "resultSet.getDate(" + column + "));");
+            } else if ("java.sql.Time".equals(typeName)) {
+                out.println("            " + set + "resultSet.getTime(" + column + "));");
+            } else if ("java.sql.Timestamp".equals(typeName) || "java.util.Date".equals(typeName)) {
+                out.println("            " + set + "resultSet.getTimestamp(" + column + "));");
+            } else if ("java.time.LocalDate".equals(typeName)) {
+                out.println("            java.sql.Date value = resultSet.getDate(" + column + ");");
+                out.println("            " + set + "value == null ? null : value.toLocalDate());");
+            } else if ("java.time.LocalDateTime".equals(typeName)) {
+                out.println("            java.sql.Timestamp value = resultSet.getTimestamp(" + column + ");");
+                out.println("            " + set + "value == null ? null : value.toLocalDateTime());");
+            } else if ("java.time.LocalTime".equals(typeName)) {
+                out.println("            java.sql.Time value = resultSet.getTime(" + column + ");");
+                out.println("            " + set + "value == null ? null : value.toLocalTime());");
+            } else if (typeElement != null && typeElement.getKind() == ElementKind.ENUM) {
+                out.println("            String value = resultSet.getString(" + column + ");");
+                out.println("            " + set + "value == null ? null : " + typeName + ".valueOf(value.trim()));");
+            } else {
+                out.println("            " + set + "resultSet.getObject(" + column + ", " + typeName + ".class));");
+            }
+        }
+        out.println("        }");
+    }
+
+    /**
+     * Finds the public single-argument setters of the class and its superclasses, one per
+     * property, preferring primitive and String parameters like {@link PojoMapper} does.
+     */
+    private List<ExecutableElement> findSetters(TypeElement type) {
+        Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            String name = method.getSimpleName().toString();
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                    || method.getParameters().size() != 1 || name.length() <= 3 || !name.startsWith("set")) {
+                continue;
+            }
+            String key = propertyKey(method);
+            ExecutableElement current = setters.get(key);
+            if (current == null || setterRank(method) < setterRank(current)) {
+                setters.put(key, method);
+            }
+        }
+        return new ArrayList<>(setters.values());
+    }
+
+    private static int setterRank(ExecutableElement method) {
+        TypeMirror type = method.getParameters().get(0).asType();
+        if (type.getKind().isPrimitive() || "java.lang.String".equals(type.toString())) {
+            return 0;
+        }
+        return "java.lang.Object".equals(type.toString()) ? 2 : 1;
+    }
+
+    private static String propertyKey(ExecutableElement setter) {
+        return PojoMapper.propertyKey(setter.getSimpleName().toString().substring(3));
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static String flatName(TypeElement type) {
+        Deque<String> names = new ArrayDeque<>();
+        Element current = type;
+        while (current instanceof TypeElement) {
+            names.addFirst(current.getSimpleName().toString());
+            current = current.getEnclosingElement();
+        }
+        return String.join("_", names);
+    }
+
+    private static String capitalize(String str) {
+        return str.substring(0, 1).toUpperCase(Locale.ROOT) + str.substring(1);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
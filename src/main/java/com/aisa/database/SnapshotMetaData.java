@@ -0,0 +1,204 @@
+package com.aisa.database;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The column schema stored in the header of a {@link ResultSnapshot}, served back as
+ * ResultSetMetaData.
+ */
+final class SnapshotMetaData implements ResultSetMetaData {
+
+    private final String[] labels;
+    private final String[] names;
+    private final int[] types;
+    private final String[] typeNames;
+    private final String[] classNames;
+    private final int[] precisions;
+    private final int[] scales;
+    private final int[] nullables;
+
+    private SnapshotMetaData(int columnCount) {
+        labels = new String[columnCount];
+        names = new String[columnCount];
+        types = new int[columnCount];
+        typeNames = new String[columnCount];
+        classNames = new String[columnCount];
+        precisions = new int[columnCount];
+        scales = new int[columnCount];
+        nullables = new int[columnCount];
+    }
+
+    /**
+     * Copies the schema of a live ResultSet.
+     */
+    static SnapshotMetaData copyOf(ResultSetMetaData metaData) throws SQLException {
+        SnapshotMetaData copy = new SnapshotMetaData(metaData.getColumnCount());
+        for (int i = 0; i < copy.labels.length; i++) {
+            int column = i + 1;
+            copy.labels[i] = orEmpty(metaData.getColumnLabel(column));
+            copy.names[i] = orEmpty(metaData.getColumnName(column));
+            copy.types[i] = metaData.getColumnType(column);
+            copy.typeNames[i] = orEmpty(metaData.getColumnTypeName(column));
+            copy.classNames[i] = orEmpty(metaData.getColumnClassName(column));
+            copy.precisions[i] = metaData.getPrecision(column);
+            copy.scales[i] = metaData.getScale(column);
+            copy.nullables[i] = metaData.isNullable(column);
+        }
+        return copy;
+    }
+
+    static SnapshotMetaData read(DataInputStream in) throws IOException {
+        SnapshotMetaData metaData = new SnapshotMetaData(in.readInt());
+        for (int i = 0; i < metaData.labels.length; i++) {
+            metaData.labels[i] = in.readUTF();
+            metaData.names[i] = in.readUTF();
+            metaData.types[i] = in.readInt();
+            metaData.typeNames[i] = in.readUTF();
+            metaData.classNames[i] = in.readUTF();
+            metaData.precisions[i] = in.readInt();
+            metaData.scales[i] = in.readInt();
+            metaData.nullables[i] = in.readInt();
+        }
+        return metaData;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            out.writeUTF(labels[i]);
+            out.writeUTF(names[i]);
+            out.writeInt(types[i]);
+            out.writeUTF(typeNames[i]);
+            out.writeUTF(classNames[i]);
+            out.writeInt(precisions[i]);
+            out.writeInt(scales[i]);
+            out.writeInt(nullables[i]);
+        }
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return labels.length;
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isSearchable(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isCurrency(int column) {
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) {
+        return nullables[column - 1];
+    }
+
+    @Override
+    public boolean isSigned(int column) {
+        return false;
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) {
+        return precisions[column - 1];
+    }
+
+    @Override
+    public String getColumnLabel(int column) {
+        return labels[column - 1];
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return names[column - 1];
+    }
+
+    @Override
+    public String getSchemaName(int column) {
+        return "";
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return precisions[column - 1];
+    }
+
+    @Override
+    public int getScale(int column) {
+        return scales[column - 1];
+    }
+
+    @Override
+    public String getTableName(int column) {
+        return "";
+    }
+
+    @Override
+    public String getCatalogName(int column) {
+        return "";
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return types[column - 1];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) {
+        return typeNames[column - 1];
+    }
+
+    @Override
+    public boolean isReadOnly(int column) {
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) {
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) {
+        return classNames[column - 1];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException(getClass().getSimpleName() + " does not wrap " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,409 @@
+package com.aisa.database;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * A read-only, scroll-insensitive cursor over the rows of a {@link ResultSnapshot}.
+ *
+ * The cursor keeps the block of rows it is positioned in, so reading forward decodes each block
+ * once and cursors over the same snapshot do not evict each other's rows. Getters convert between
+ * the saved value types the way drivers commonly do.
+ */
+final class SnapshotResultSet extends AbstractResultSet {
+
+    private final ResultSnapshot snapshot;
+    private final int rowCount;
+
+    private int row = -1;
+    private Object[] values;
+    private ResultSnapshot.Block block;
+    private boolean closed;
+    private boolean lastWasNull;
+    private int fetchSize;
+
+    SnapshotResultSet(ResultSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.rowCount = snapshot.getRowCount();
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        return moveTo(row + 1);
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        return moveTo(row - 1);
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        return moveTo(0);
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        return moveTo(rowCount - 1);
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        moveTo(-1);
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        moveTo(rowCount);
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        return moveTo(row >= 0 ? row - 1 : rowCount + row);
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        return moveTo(row + rows);
+    }
+
+    @Override
+    public int getRow() {
+        return row >= 0 && row < rowCount ? row + 1 : 0;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return row < 0 && rowCount > 0;
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        return row >= rowCount && rowCount > 0;
+    }
+
+    @Override
+    public boolean isFirst() {
+        return row == 0 && rowCount > 0;
+    }
+
+    @Override
+    public boolean isLast() {
+        return row == rowCount - 1 && rowCount > 0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        values = null;
+        block = null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return lastWasNull;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() {
+        return snapshot.metaData();
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        ResultSetMetaData metaData = snapshot.metaData();
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            if (metaData.getColumnLabel(column).equalsIgnoreCase(columnLabel)) {
+                return column;
+            }
+        }
+        throw new SQLException("Unknown column: " + columnLabel);
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        if (values == null) {
+            throw new SQLException(closed ? "ResultSet is closed." : "ResultSet is not positioned on a row.");
+        }
+        if (columnIndex < 1 || columnIndex > values.length) {
+            throw new SQLException("Column index out of range: " + columnIndex);
+        }
+        Object value = values[columnIndex - 1];
+        lastWasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        Object converted;
+        if (type == String.class) {
+            converted = getString(columnIndex);
+        } else if (type == Integer.class) {
+            converted = getInt(columnIndex);
+        } else if (type == Long.class) {
+            converted = getLong(columnIndex);
+        } else if (type == Double.class) {
+            converted = getDouble(columnIndex);
+        } else if (type == BigDecimal.class) {
+            converted = getBigDecimal(columnIndex);
+        } else if (type == Boolean.class) {
+            converted = getBoolean(columnIndex);
+        } else if (type == Timestamp.class) {
+            converted = getTimestamp(columnIndex);
+        } else if (type == Date.class) {
+            converted = getDate(columnIndex);
+        } else {
+            throw new SQLException("Cannot convert " + value.getClass().getName() + " to " + type.getName());
+        }
+        return type.cast(converted);
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, StandardCharsets.UTF_8);
+        }
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof Boolean) {
+            return value != null && (Boolean) value;
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            return text.equalsIgnoreCase("true") || text.equals("1") || text.equalsIgnoreCase("Y");
+        }
+        return number(value, columnIndex).doubleValue() != 0;
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex), columnIndex).byteValue();
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex), columnIndex).shortValue();
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex), columnIndex).intValue();
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex), columnIndex).longValue();
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex), columnIndex).floatValue();
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex), columnIndex).doubleValue();
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(number(value, columnIndex).toString());
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof Date) {
+            return (Date) value;
+        }
+        return new Date(epochMillis(value, columnIndex));
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate(findColumn(columnLabel));
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof Time) {
+            return (Time) value;
+        }
+        return new Time(epochMillis(value, columnIndex));
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        return new Timestamp(epochMillis(value, columnIndex));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    @Override
+    public Statement getStatement() {
+        return null;
+    }
+
+    @Override
+    public int getType() {
+        return ResultSet.TYPE_SCROLL_INSENSITIVE;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return ResultSet.CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getHoldability() {
+        return ResultSet.HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public int getFetchDirection() {
+        return ResultSet.FETCH_FORWARD;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) {
+    }
+
+    @Override
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public void setFetchSize(int rows) {
+        fetchSize = rows;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    private boolean moveTo(int target) throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed.");
+        }
+        row = Math.max(-1, Math.min(rowCount, target));
+        if (row < 0 || row >= rowCount) {
+            values = null;
+            return false;
+        }
+        if (block == null || row < block.firstRow || row >= block.firstRow + block.rows.length) {
+            try {
+                block = snapshot.decode(snapshot.blockIndex(row));
+            } catch (IllegalStateException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+        values = block.rows[row - block.firstRow];
+        return true;
+    }
+
+    private static Number number(Object value, int columnIndex) throws SQLException {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Column " + columnIndex + " is not numeric: " + value, e);
+        }
+    }
+
+    private static long epochMillis(Object value, int columnIndex) throws SQLException {
+        if (value instanceof java.util.Date) {
+            return ((java.util.Date) value).getTime();
+        }
+        throw new SQLException("Column " + columnIndex + " is not a date or time: " + value);
+    }
+}
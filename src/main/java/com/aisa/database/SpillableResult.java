@@ -0,0 +1,412 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fully read query result that keeps rows on the heap up to a byte budget and writes the rest
+ * to a memory-mapped temporary file.
+ *
+ * Rows are read into value arrays, as in {@link TabularResult}, until their estimated heap size
+ * reaches the budget. Every later row is encoded in a compact binary format and appended to a
+ * temporary file, which is mapped read-only once the ResultSet is exhausted. Cells of spilled
+ * rows are decoded from the mapping on access, so they live in the page cache rather than on the
+ * heap, and a result many times larger than the heap can be sorted, re-read or asserted on
+ * without full collections or an OutOfMemoryError. The heap cost of a spilled row is one offset.
+ *
+ * Close the result to release the spill file. On file systems that allow it the file is unlinked
+ * as soon as it is opened, so it never outlives the process; elsewhere it is deleted on close or,
+ * through {@link java.io.File#deleteOnExit()}, when the JVM exits normally. Rows returned for
+ * spilled indexes are decoded copies, so changes made to them are not kept. Reads are safe from
+ * several threads.
+ */
+public final class SpillableResult implements RandomAccessResult, Closeable {
+
+    /**
+     * The heap budget used when none is given: 64 MiB.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillableResult.class);
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ColumnIndex columns;
+    private final List<Object[]> memoryRows;
+    private final long memoryBytes;
+    private final int spilledRowCount;
+    private final long[] offsets;
+    private final long spillBytes;
+    private final int[] segmentFirstRows;
+    private final long[] segmentOffsets;
+    private volatile MappedByteBuffer[] segments;
+    private final FileChannel channel;
+
+    private SpillableResult(ColumnIndex columns, List<Object[]> memoryRows, long memoryBytes, Spill spill) {
+        this.columns = columns;
+        this.memoryRows = memoryRows;
+        this.memoryBytes = memoryBytes;
+        if (spill == null) {
+            this.spilledRowCount = 0;
+            this.offsets = new long[0];
+            this.spillBytes = 0;
+            this.segmentFirstRows = new int[0];
+            this.segmentOffsets = new long[0];
+            this.segments = new MappedByteBuffer[0];
+            this.channel = null;
+        } else {
+            this.spilledRowCount = spill.rowCount;
+            this.offsets = spill.offsets;
+            this.spillBytes = spill.size;
+            this.segmentFirstRows = spill.segmentFirstRows;
+            this.segmentOffsets = spill.segmentOffsets;
+            this.segments = spill.segments;
+            this.channel = spill.channel;
+        }
+    }
+
+    /**
+     * Reads all remaining rows of a ResultSet, keeping up to {@link #DEFAULT_MEMORY_BUDGET_BYTES}
+     * on the heap.
+     *
+     * @param resultSet the ResultSet to read
+     * @return the result
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public static SpillableResult from(ResultSet resultSet) throws SQLException {
+        return from(resultSet, DEFAULT_MEMORY_BUDGET_BYTES);
+    }
+
+    /**
+     * Reads all remaining rows of a ResultSet, spilling to a file in the default temporary
+     * directory once the rows on the heap reach the budget.
+     *
+     * @param resultSet         the ResultSet to read
+     * @param memoryBudgetBytes the estimated heap size rows may take before spilling; 0 spills every row
+     * @return the result
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public static SpillableResult from(ResultSet resultSet, long memoryBudgetBytes) throws SQLException {
+        return from(resultSet, memoryBudgetBytes, null);
+    }
+
+    /**
+     * Reads all remaining rows of a ResultSet, spilling to a file in the given directory once the
+     * rows on the heap reach the budget.
+     *
+     * @param resultSet         the ResultSet to read
+     * @param memoryBudgetBytes the estimated heap size rows may take before spilling; 0 spills every row
+     * @param spillDirectory    the directory for the spill file; null for the default temporary directory
+     * @return the result
+     * @throws SQLException if there is an error accessing the ResultSet or writing the spill file
+     */
+    public static SpillableResult from(ResultSet resultSet, long memoryBudgetBytes, Path spillDirectory)
+            throws SQLException {
+        return from(resultSet, memoryBudgetBytes, spillDirectory, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the rows, mapping the spill file in segments of at most the given size.
+     */
+    static SpillableResult from(ResultSet resultSet, long memoryBudgetBytes, Path spillDirectory,
+                                int maxSegmentBytes) throws SQLException {
+        ColumnIndex columns = ColumnIndex.from(resultSet.getMetaData());
+        int columnCount = columns.size();
+        List<Object[]> memoryRows = new ArrayList<>();
+        long memoryBytes = 0;
+        Spill spill = null;
+        try {
+            while (resultSet.next()) {
+                Object[] values = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = resultSet.getObject(i + 1);
+                }
+                if (spill == null) {
+                    long rowBytes = 16 + 4L * columnCount;
+                    for (Object value : values) {
+                        rowBytes += DatabaseMetrics.estimateBytes(value);
+                    }
+                    if (memoryBytes + rowBytes <= memoryBudgetBytes) {
+                        memoryRows.add(values);
+                        memoryBytes += rowBytes;
+                        continue;
+                    }
+                    spill = Spill.create(spillDirectory);
+                    logger.info("Result exceeded its {} byte memory budget after {} rows; spilling to {}",
+                            memoryBudgetBytes, memoryRows.size(), spill.file);
+                }
+                spill.append(values);
+            }
+            if (spill != null) {
+                spill.map(maxSegmentBytes);
+                logger.info("Spilled {} rows in {} bytes.", spill.rowCount, spill.size);
+            }
+        } catch (IOException e) {
+            closeQuietly(spill);
+            throw new SQLException("Error writing result spill file.", e);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(spill);
+            throw e;
+        }
+        return new SpillableResult(columns, memoryRows, memoryBytes, spill);
+    }
+
+    @Override
+    public ColumnIndex getColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getRowCount() {
+        return memoryRows.size() + spilledRowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public Object get(int row, int column) {
+        if (row < memoryRows.size()) {
+            return memoryRows.get(row)[column];
+        }
+        if (column < 0 || column >= columns.size()) {
+            throw new IndexOutOfBoundsException("Column " + column + " of " + columns.size());
+        }
+        ByteBuffer buffer = positionAt(row);
+        for (int i = 0; i < column; i++) {
+            RowCodec.read(buffer);
+        }
+        return RowCodec.read(buffer);
+    }
+
+    @Override
+    public Object get(int row, String columnName) {
+        int position = columns.indexOf(columnName);
+        if (position < 0) {
+            throw new IllegalArgumentException("No column named " + columnName + " in " + columns);
+        }
+        return get(row, position);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Rows kept on the heap share their values with this result; rows read from the spill file
+     * are decoded copies.
+     */
+    @Override
+    public CompactRow getRow(int row) {
+        return new CompactRow(columns, values(row));
+    }
+
+    @Override
+    public List<Map<String, Object>> asMaps() {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return getRowCount();
+            }
+        };
+    }
+
+    /**
+     * Gets whether any rows were written to the spill file.
+     *
+     * @return true if the result exceeded its memory budget
+     */
+    public boolean isSpilled() {
+        return channel != null;
+    }
+
+    /**
+     * Gets the number of rows kept on the heap.
+     *
+     * @return the in-memory row count
+     */
+    public int getMemoryRowCount() {
+        return memoryRows.size();
+    }
+
+    /**
+     * Gets the estimated heap size of the rows kept on the heap.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Gets the size of the spill file.
+     *
+     * @return the spill file size in bytes; 0 if nothing was spilled
+     */
+    public long getSpillBytes() {
+        return spillBytes;
+    }
+
+    /**
+     * Releases the mapping and deletes the spill file. Spilled rows cannot be read afterwards.
+     */
+    @Override
+    public void close() {
+        segments = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.error("Error deleting result spill file.", e);
+            }
+        }
+    }
+
+    private Object[] values(int row) {
+        if (row < memoryRows.size()) {
+            return memoryRows.get(row);
+        }
+        ByteBuffer buffer = positionAt(row);
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = RowCodec.read(buffer);
+        }
+        return values;
+    }
+
+    /**
+     * Returns a private view of the mapping positioned at the start of a spilled row.
+     */
+    private ByteBuffer positionAt(int row) {
+        int spilled = row - memoryRows.size();
+        if (row < 0 || spilled >= spilledRowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + getRowCount());
+        }
+        MappedByteBuffer[] mapped = segments;
+        if (mapped == null) {
+            throw new IllegalStateException("The result has been closed.");
+        }
+        int segment = Arrays.binarySearch(segmentFirstRows, spilled);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+        ByteBuffer buffer = mapped[segment].duplicate();
+        buffer.position((int) (offsets[spilled] - segmentOffsets[segment]));
+        return buffer;
+    }
+
+    private static void closeQuietly(Spill spill) {
+        if (spill != null) {
+            try {
+                spill.channel.close();
+            } catch (IOException e) {
+                logger.error("Error deleting result spill file.", e);
+            }
+        }
+    }
+
+    /**
+     * The spill file while it is written, and its mapping once it is complete.
+     */
+    private static final class Spill {
+        private final Path file;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final ByteArrayOutputStream rowBytes = new ByteArrayOutputStream(256);
+        private final DataOutputStream rowOut = new DataOutputStream(rowBytes);
+        private long[] offsets = new long[1024];
+        private int rowCount;
+        private long size;
+        private int[] segmentFirstRows;
+        private long[] segmentOffsets;
+        private MappedByteBuffer[] segments;
+
+        private Spill(Path file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+        }
+
+        private static Spill create(Path directory) throws IOException {
+            Path file = directory == null
+                    ? Files.createTempFile("result-spill-", ".rows")
+                    : Files.createTempFile(directory, "result-spill-", ".rows");
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            if (Files.exists(file)) {
+                // Not unlinked on open, so make sure a result that is never closed does not leak it
+                file.toFile().deleteOnExit();
+            }
+            return new Spill(file, channel);
+        }
+
+        private void append(Object[] values) throws IOException, SQLException {
+            rowBytes.reset();
+            for (Object value : values) {
+                RowCodec.write(rowOut, value);
+            }
+            if (rowCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, rowCount * 2);
+            }
+            offsets[rowCount++] = size;
+            rowBytes.writeTo(out);
+            size += rowBytes.size();
+        }
+
+        /**
+         * Flushes the file and maps it in segments that each start on a row boundary, since a
+         * single mapping cannot exceed 2 GiB.
+         */
+        private void map(int maxSegmentBytes) throws IOException {
+            out.flush();
+            offsets = Arrays.copyOf(offsets, rowCount);
+            List<Integer> firstRows = new ArrayList<>();
+            List<Long> starts = new ArrayList<>();
+            for (int row = 0; row < rowCount; row++) {
+                long rowEnd = row + 1 < rowCount ? offsets[row + 1] : size;
+                if (starts.isEmpty() || rowEnd - starts.get(starts.size() - 1) > maxSegmentBytes) {
+                    if (rowEnd - offsets[row] > maxSegmentBytes) {
+                        throw new IOException("Row " + row + " is larger than " + maxSegmentBytes + " bytes.");
+                    }
+                    firstRows.add(row);
+                    starts.add(offsets[row]);
+                }
+            }
+            segmentFirstRows = new int[firstRows.size()];
+            segmentOffsets = new long[starts.size()];
+            segments = new MappedByteBuffer[starts.size()];
+            for (int i = 0; i < segments.length; i++) {
+                segmentFirstRows[i] = firstRows.get(i);
+                segmentOffsets[i] = starts.get(i);
+                long end = i + 1 < segments.length ? starts.get(i + 1) : size;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentOffsets[i], end - segmentOffsets[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.aisa.database;
+
+import java.sql.SQLException;
+
+/**
+ * A function that may throw {@link SQLException}, such as work done with a borrowed connection.
+ *
+ * @param <T> the type of the input
+ * @param <R> the type of the result
+ */
+@FunctionalInterface
+public interface SqlFunction<T, R> {
+
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param t the function argument
+     * @return the function result
+     * @throws SQLException if a database access error occurs
+     */
+    R apply(T t) throws SQLException;
+}
@@ -0,0 +1,265 @@
+package com.aisa.database;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams rows into a SQL Server table with {@link SQLServerBulkCopy}, the driver's
+ * implementation of the TDS bulk load protocol.
+ */
+final class SqlServerBulkLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlServerBulkLoader.class);
+
+    private SqlServerBulkLoader() {
+    }
+
+    /**
+     * Copies rows from an iterator. Column types are read from the destination table, so values
+     * are converted by the driver exactly as they would be for a matching INSERT.
+     */
+    static BulkCopyResult copy(Connection connection, String table, List<String> columns,
+                               Iterator<Object[]> rows, BulkCopyOptions options) throws SQLException {
+        IteratorBulkData data = IteratorBulkData.describe(connection, table, columns, options, rows);
+        try (SQLServerBulkCopy bulkCopy = open(connection)) {
+            return copy(bulkCopy, table, data, options);
+        }
+    }
+
+    /**
+     * Copies all rows of a ResultSet, typically one opened on another connection.
+     */
+    static BulkCopyResult copy(Connection connection, String table, ResultSet source,
+                               BulkCopyOptions options) throws SQLException {
+        try (SQLServerBulkCopy bulkCopy = open(connection)) {
+            return copy(bulkCopy, table, source, options);
+        }
+    }
+
+    static BulkCopyResult copy(SQLServerBulkCopy bulkCopy, String table, IteratorBulkData data,
+                               BulkCopyOptions options) throws SQLException {
+        configure(bulkCopy, table, options);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            bulkCopy.writeToServer(data);
+            failed = false;
+        } finally {
+            record(table, data.getRowCount(), start, failed);
+        }
+        return finish(table, data.getRowCount(), System.nanoTime() - start);
+    }
+
+    static BulkCopyResult copy(SQLServerBulkCopy bulkCopy, String table, ResultSet source,
+                               BulkCopyOptions options) throws SQLException {
+        configure(bulkCopy, table, options);
+        AtomicLong rowCount = new AtomicLong();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            bulkCopy.writeToServer(countingResultSet(source, rowCount));
+            failed = false;
+        } finally {
+            record(table, rowCount.get(), start, failed);
+        }
+        return finish(table, rowCount.get(), System.nanoTime() - start);
+    }
+
+    private static SQLServerBulkCopy open(Connection connection) throws SQLException {
+        return new SQLServerBulkCopy(connection.unwrap(SQLServerConnection.class));
+    }
+
+    private static void configure(SQLServerBulkCopy bulkCopy, String table, BulkCopyOptions options)
+            throws SQLException {
+        SQLServerBulkCopyOptions copyOptions = new SQLServerBulkCopyOptions();
+        copyOptions.setBatchSize(options.getBatchSize());
+        copyOptions.setTableLock(options.isTableLock());
+        copyOptions.setBulkCopyTimeout(options.getTimeoutSeconds());
+        bulkCopy.setBulkCopyOptions(copyOptions);
+        bulkCopy.setDestinationTableName(table);
+        for (Map.Entry<String, String> mapping : options.getColumnMappings().entrySet()) {
+            bulkCopy.addColumnMapping(mapping.getKey(), mapping.getValue());
+        }
+    }
+
+    /**
+     * Records the copy under {@code INSERT BULK <table>}, the statement the driver sends to start
+     * the bulk load, with the rows sent counted as rows of that statement.
+     */
+    private static void record(String table, long rowCount, long start, boolean failed) {
+        String sql = "INSERT BULK " + table;
+        DatabaseMetrics.recordExecute(sql, start, failed);
+        DatabaseMetrics.recordFetch(sql, rowCount, 0, start);
+    }
+
+    private static BulkCopyResult finish(String table, long rowCount, long elapsedNanos) {
+        BulkCopyResult result = new BulkCopyResult(rowCount, elapsedNanos);
+        logger.info("Bulk copied into {}: {}", table, result);
+        return result;
+    }
+
+    /**
+     * Wraps a ResultSet so every row the driver reads is counted.
+     */
+    static ResultSet countingResultSet(ResultSet source, AtomicLong rowCount) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(source, args);
+                        if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                            rowCount.incrementAndGet();
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Presents an iterator of rows to the driver as bulk data with the destination's column types.
+     */
+    static final class IteratorBulkData implements ISQLServerBulkData {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] names;
+        private final int[] types;
+        private final int[] precisions;
+        private final int[] scales;
+        private final transient Iterator<Object[]> rows;
+        private transient Object[] current;
+        private long rowCount;
+
+        IteratorBulkData(String[] names, int[] types, int[] precisions, int[] scales, Iterator<Object[]> rows) {
+            this.names = names;
+            this.types = types;
+            this.precisions = precisions;
+            this.scales = scales;
+            this.rows = rows;
+        }
+
+        /**
+         * Reads the types of the destination columns that the given source columns map to.
+         */
+        static IteratorBulkData describe(Connection connection, String table, List<String> columns,
+                                         BulkCopyOptions options, Iterator<Object[]> rows) throws SQLException {
+            Map<String, String> mappings = options.getColumnMappings();
+            StringBuilder sql = new StringBuilder("SELECT ");
+            for (int i = 0; i < columns.size(); i++) {
+                String source = columns.get(i);
+                sql.append(i == 0 ? "" : ", ").append(mappings.getOrDefault(source, source));
+            }
+            sql.append(" FROM ").append(table).append(" WHERE 1 = 0");
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(sql.toString())) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int count = columns.size();
+                int[] types = new int[count];
+                int[] precisions = new int[count];
+                int[] scales = new int[count];
+                for (int i = 0; i < count; i++) {
+                    types[i] = metaData.getColumnType(i + 1);
+                    precisions[i] = metaData.getPrecision(i + 1);
+                    scales[i] = metaData.getScale(i + 1);
+                }
+                return new IteratorBulkData(columns.toArray(new String[0]), types, precisions, scales, rows);
+            }
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            Set<Integer> ordinals = new LinkedHashSet<>();
+            for (int i = 1; i <= names.length; i++) {
+                ordinals.add(i);
+            }
+            return ordinals;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return names[column - 1];
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return types[column - 1];
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return precisions[column - 1];
+        }
+
+        @Override
+        public int getScale(int column) {
+            return scales[column - 1];
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            if (!rows.hasNext()) {
+                current = null;
+                return false;
+            }
+            Object[] row = rows.next();
+            if (row.length != names.length) {
+                throw new SQLException("Expected " + names.length + " values per row but got " + row.length);
+            }
+            current = row;
+            rowCount++;
+            return true;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            Object[] data = new Object[current.length];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = toDriverValue(current[i]);
+            }
+            return data;
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+
+        private static Object toDriverValue(Object value) {
+            if (value instanceof LocalDateTime) {
+                return Timestamp.valueOf((LocalDateTime) value);
+            } else if (value instanceof LocalDate) {
+                return java.sql.Date.valueOf((LocalDate) value);
+            } else if (value instanceof LocalTime) {
+                return Time.valueOf((LocalTime) value);
+            } else if (value instanceof Instant) {
+                return Timestamp.from((Instant) value);
+            } else if (value instanceof Enum) {
+                return ((Enum<?>) value).name();
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.aisa.database;
+
+/**
+ * The SQL Server dialect. Settings are appended to the URL as {@code ;name=value} pairs. URLs
+ * are encrypted by default, as Azure SQL Database requires.
+ */
+final class SqlServerDialect implements Dialect {
+
+    private final DialectProfile profile = new DialectProfile();
+
+    SqlServerDialect() {
+        profile.setLoginTimeoutSeconds(30);
+        profile.setStatementCacheSize(50);
+    }
+
+    @Override
+    public String getName() {
+        return "MSSQL";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "com.microsoft.sqlserver.jdbc.SQLServerDriver";
+    }
+
+    @Override
+    public boolean acceptsUrl(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:sqlserver:");
+    }
+
+    @Override
+    public DialectProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public String prepareUrl(String jdbcUrl) {
+        StringBuilder url = new StringBuilder(jdbcUrl);
+        appendIfAbsent(url, "encrypt", "true");
+        appendIfAbsent(url, "trustServerCertificate", "false");
+        if (profile.getLoginTimeoutSeconds() > 0) {
+            appendIfAbsent(url, "loginTimeout", String.valueOf(profile.getLoginTimeoutSeconds()));
+        }
+        if (profile.getStatementCacheSize() > 0) {
+            appendIfAbsent(url, "disableStatementPooling", "false");
+            appendIfAbsent(url, "statementPoolingCacheSize", String.valueOf(profile.getStatementCacheSize()));
+        }
+        return url.toString();
+    }
+
+    private static void appendIfAbsent(StringBuilder url, String name, String value) {
+        if (url.indexOf(name + "=") < 0) {
+            url.append(';').append(name).append('=').append(value);
+        }
+    }
+}
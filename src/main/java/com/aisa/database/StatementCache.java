@@ -0,0 +1,308 @@
+package com.aisa.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes parameterized SQL through PreparedStatements kept in a per-connection LRU cache.
+ *
+ * A statement prepared once on a connection is reused for every later execution of the same
+ * SQL text on that connection, so the driver skips client-side parsing and the server can reuse
+ * the execution plan. Connections leased from a {@link ConnectionPool} share the cache of the
+ * underlying physical connection, so statements survive being returned to and borrowed from
+ * the pool.
+ *
+ * A cached statement whose last ResultSet is still open is never re-executed, because that would
+ * close the caller's ResultSet; a one-off statement that closes with its ResultSet is used instead.
+ *
+ * The cache of a connection that is not pooled is dropped when the connection is closed through
+ * the library, for example with a closeConnection helper or by {@link AsyncDatabase}. A connection
+ * closed directly by the caller keeps its cache until the next connection is released or first
+ * cached, so such callers should call {@link #release(Connection)} before closing it.
+ */
+public final class StatementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private static final int DEFAULT_MAX_STATEMENTS_PER_CONNECTION = 64;
+
+    private static final Map<Connection, ConnectionStatements> CACHES = new ConcurrentHashMap<>();
+
+    private static volatile int maxStatementsPerConnection = DEFAULT_MAX_STATEMENTS_PER_CONNECTION;
+
+    private StatementCache() {
+    }
+
+    /**
+     * Sets how many PreparedStatements are cached per connection. Zero disables caching.
+     * Only affects connections that have not cached any statement yet.
+     *
+     * @param maxStatements the maximum number of cached statements per connection
+     */
+    public static void setMaxStatementsPerConnection(int maxStatements) {
+        maxStatementsPerConnection = maxStatements;
+    }
+
+    /**
+     * Gets how many PreparedStatements are cached per connection.
+     *
+     * @return the maximum number of cached statements per connection
+     */
+    public static int getMaxStatementsPerConnection() {
+        return maxStatementsPerConnection;
+    }
+
+    /**
+     * Executes a parameterized query.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL query with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the ResultSet; closing it releases the statement for reuse
+     * @throws SQLException if a database access error occurs
+     */
+    public static ResultSet executeQuery(Connection connection, String sql, Object... params) throws SQLException {
+        Lease lease = acquire(connection, sql);
+        long start = System.nanoTime();
+        try {
+            ParameterBinder.bind(lease.statement, params);
+            ResultSet resultSet = lease.statement.executeQuery();
+            lease.queryStarted(resultSet);
+            DatabaseMetrics.recordExecute(sql, start, false);
+            return LeakDetector.track(resultSet, resultSet, "ResultSet", sql);
+        } catch (SQLException | RuntimeException e) {
+            lease.failed();
+            DatabaseMetrics.recordExecute(sql, start, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a parameterized insert, update, delete or DDL statement.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL statement with {@code ?} placeholders
+     * @param params     the parameter values, in placeholder order
+     * @return the number of rows affected
+     * @throws SQLException if a database access error occurs
+     */
+    public static int executeUpdate(Connection connection, String sql, Object... params) throws SQLException {
+        Lease lease = acquire(connection, sql);
+        long start = System.nanoTime();
+        try {
+            ParameterBinder.bind(lease.statement, params);
+            int count = lease.statement.executeUpdate();
+            lease.updateDone();
+            DatabaseMetrics.recordExecute(sql, start, false);
+            return count;
+        } catch (SQLException | RuntimeException e) {
+            lease.failed();
+            DatabaseMetrics.recordExecute(sql, start, true);
+            throw e;
+        } finally {
+            QueryResultCache.invalidateForUpdate(connection, sql);
+        }
+    }
+
+    /**
+     * Prepares the given SQL on the connection and keeps the statement in its cache, so the
+     * first real execution does not pay for preparation.
+     *
+     * @param connection the connection object
+     * @param sql        the SQL with {@code ?} placeholders
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public static void preload(Connection connection, String sql) throws SQLException {
+        acquire(connection, sql).updateDone();
+    }
+
+    /**
+     * Closes and forgets the cached statements of a connection that is about to be closed, along
+     * with those of any connection that was closed without being released. Connections leased
+     * from a {@link ConnectionPool} keep their statements, since closing them only returns them
+     * to the pool.
+     *
+     * @param connection the connection being closed
+     */
+    public static void release(Connection connection) {
+        if (connection == null || ConnectionPool.isLease(connection)) {
+            return;
+        }
+        evict(connection);
+        purgeClosedConnections();
+    }
+
+    /**
+     * Closes and forgets the cached statements of a physical connection.
+     */
+    static void evict(Connection physicalConnection) {
+        ConnectionStatements statements = CACHES.remove(physicalConnection);
+        if (statements != null) {
+            statements.closeAll();
+        }
+    }
+
+    private static Lease acquire(Connection connection, String sql) throws SQLException {
+        int maxStatements = maxStatementsPerConnection;
+        if (maxStatements <= 0) {
+            return new Lease(connection.prepareStatement(sql), null);
+        }
+        Connection physical = ConnectionPool.physicalConnection(connection);
+        ConnectionStatements statements = CACHES.get(physical);
+        if (statements == null) {
+            purgeClosedConnections();
+            statements = CACHES.computeIfAbsent(physical, key -> new ConnectionStatements(maxStatements));
+        }
+        return statements.acquire(connection, sql);
+    }
+
+    /**
+     * Drops the caches of connections that were closed without going through
+     * {@link #release(Connection)}.
+     */
+    private static void purgeClosedConnections() {
+        for (Iterator<Map.Entry<Connection, ConnectionStatements>> it = CACHES.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Connection, ConnectionStatements> entry = it.next();
+            boolean closed;
+            try {
+                closed = entry.getKey().isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                it.remove();
+                entry.getValue().closeAll();
+            }
+        }
+    }
+
+    /**
+     * The cached statements of one physical connection.
+     */
+    private static final class ConnectionStatements {
+        private final LruCache<String, CachedStatement> statements;
+
+        private ConnectionStatements(int maxStatements) {
+            this.statements = new LruCache<>(maxStatements, (sql, cached) -> cached.discard());
+        }
+
+        private synchronized Lease acquire(Connection connection, String sql) throws SQLException {
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && cached.statement.isClosed()) {
+                statements.remove(sql);
+                cached = null;
+            }
+            if (cached != null && cached.isInUse()) {
+                return new Lease(connection.prepareStatement(sql), null);
+            }
+            if (cached == null) {
+                cached = new CachedStatement(connection.prepareStatement(sql));
+                statements.put(sql, cached);
+            }
+            cached.inUse = true;
+            return new Lease(cached.statement, cached);
+        }
+
+        private synchronized void closeAll() {
+            List<CachedStatement> all = new ArrayList<>(statements.values());
+            statements.clear();
+            for (CachedStatement cached : all) {
+                cached.discard();
+            }
+        }
+    }
+
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private volatile boolean inUse;
+        private volatile ResultSet openResultSet;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private boolean isInUse() {
+            if (inUse) {
+                return true;
+            }
+            ResultSet resultSet = openResultSet;
+            if (resultSet == null) {
+                return false;
+            }
+            try {
+                if (resultSet.isClosed()) {
+                    openResultSet = null;
+                    return false;
+                }
+                return true;
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+
+        private void discard() {
+            try {
+                if (openResultSet != null && !openResultSet.isClosed()) {
+                    statement.closeOnCompletion();
+                } else {
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                logger.error("Error closing cached statement.", e);
+            }
+        }
+    }
+
+    /**
+     * A statement handed out for one execution, either from the cache or a one-off statement
+     * that is closed once the execution no longer needs it.
+     */
+    private static final class Lease {
+        private final PreparedStatement statement;
+        private final CachedStatement cached;
+
+        private Lease(PreparedStatement statement, CachedStatement cached) {
+            this.statement = statement;
+            this.cached = cached;
+        }
+
+        private void queryStarted(ResultSet resultSet) throws SQLException {
+            if (cached == null) {
+                statement.closeOnCompletion();
+            } else {
+                cached.openResultSet = resultSet;
+                cached.inUse = false;
+            }
+        }
+
+        private void updateDone() throws SQLException {
+            if (cached == null) {
+                statement.close();
+            } else {
+                cached.inUse = false;
+            }
+        }
+
+        private void failed() {
+            if (cached == null) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    logger.error("Error closing statement.", e);
+                }
+            } else {
+                cached.inUse = false;
+            }
+        }
+    }
+}
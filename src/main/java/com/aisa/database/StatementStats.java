@@ -0,0 +1,149 @@
+package com.aisa.database;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot of the metrics recorded for one statement fingerprint by {@link DatabaseMetrics}.
+ */
+public final class StatementStats {
+
+    private final String fingerprint;
+    private final long executionCount;
+    private final long errorCount;
+    private final long rowsFetched;
+    private final long bytesEstimated;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param fingerprint    the statement text with literals replaced by {@code ?}
+     * @param executionCount the number of executions
+     * @param errorCount     the number of failed executions
+     * @param rowsFetched    the number of rows read from results of the statement
+     * @param bytesEstimated the estimated heap size of the values read
+     * @param meanMicros     the mean execution time in microseconds
+     * @param p50Micros      the median execution time in microseconds
+     * @param p99Micros      the 99th percentile execution time in microseconds
+     * @param p999Micros     the 99.9th percentile execution time in microseconds
+     * @param maxMicros      the longest execution time in microseconds
+     */
+    @ConstructorProperties({"fingerprint", "executionCount", "errorCount", "rowsFetched", "bytesEstimated",
+            "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public StatementStats(String fingerprint, long executionCount, long errorCount, long rowsFetched,
+                          long bytesEstimated, long meanMicros, long p50Micros, long p99Micros,
+                          long p999Micros, long maxMicros) {
+        this.fingerprint = fingerprint;
+        this.executionCount = executionCount;
+        this.errorCount = errorCount;
+        this.rowsFetched = rowsFetched;
+        this.bytesEstimated = bytesEstimated;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * Gets the statement text with literals replaced by {@code ?}.
+     *
+     * @return the fingerprint
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets the number of executions.
+     *
+     * @return the execution count
+     */
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    /**
+     * Gets the number of failed executions.
+     *
+     * @return the error count
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Gets the number of rows read from results of the statement.
+     *
+     * @return the rows fetched
+     */
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    /**
+     * Gets the estimated heap size of the values read from results of the statement.
+     *
+     * @return the estimated bytes
+     */
+    public long getBytesEstimated() {
+        return bytesEstimated;
+    }
+
+    /**
+     * Gets the mean execution time.
+     *
+     * @return the mean in microseconds
+     */
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * Gets the median execution time.
+     *
+     * @return the 50th percentile in microseconds
+     */
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * Gets the 99th percentile execution time.
+     *
+     * @return the 99th percentile in microseconds
+     */
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * Gets the 99.9th percentile execution time.
+     *
+     * @return the 99.9th percentile in microseconds
+     */
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    /**
+     * Gets the longest execution time.
+     *
+     * @return the maximum in microseconds
+     */
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementStats{fingerprint='" + fingerprint + "', executions=" + executionCount
+                + ", errors=" + errorCount + ", rows=" + rowsFetched + ", bytes=" + bytesEstimated
+                + ", p50=" + p50Micros + "us, p99=" + p99Micros + "us, p999=" + p999Micros
+                + "us, max=" + maxMicros + "us}";
+    }
+}
@@ -0,0 +1,170 @@
+package com.aisa.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * A fully read query result stored as one value array per row plus a single shared
+ * {@link ColumnIndex}.
+ *
+ * Cells are addressed in constant time by row index and by column name or zero-based column
+ * position. Compared with the {@code List<List<Map<String, Object>>>} shape returned by
+ * {@link OracleDBUtilLib#parseResultSet(ResultSet)}, which allocates a HashMap for every cell,
+ * a row here costs a single array. {@link #toLegacyList()} converts back to that shape for
+ * callers that still need it. {@link SpillableResult} offers the same access for results too
+ * large to keep on the heap.
+ */
+public final class TabularResult implements RandomAccessResult {
+
+    private final ColumnIndex columns;
+    private final List<Object[]> rows;
+
+    /**
+     * Creates a result over the given rows. The arrays are used as is, not copied.
+     *
+     * @param columns the column index
+     * @param rows    the row values, each array in column order
+     */
+    public TabularResult(ColumnIndex columns, List<Object[]> rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * Reads all remaining rows of a ResultSet.
+     *
+     * @param resultSet the ResultSet to read
+     * @return the tabular result
+     * @throws SQLException if there is an error accessing the ResultSet
+     */
+    public static TabularResult from(ResultSet resultSet) throws SQLException {
+        ColumnIndex columns = ColumnIndex.from(resultSet.getMetaData());
+        int columnCount = columns.size();
+        List<Object[]> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            Object[] values = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                values[i] = resultSet.getObject(i + 1);
+            }
+            rows.add(values);
+        }
+        return new TabularResult(columns, rows);
+    }
+
+    /**
+     * Gets the column index of the result.
+     *
+     * @return the column index
+     */
+    @Override
+    public ColumnIndex getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the row count
+     */
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the column count
+     */
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Gets a cell by zero-based row index and zero-based column position.
+     *
+     * @param row    the zero-based row index
+     * @param column the zero-based column position
+     * @return the cell value
+     */
+    @Override
+    public Object get(int row, int column) {
+        return rows.get(row)[column];
+    }
+
+    /**
+     * Gets a cell by zero-based row index and column name.
+     *
+     * @param row        the zero-based row index
+     * @param columnName the column name
+     * @return the cell value
+     * @throws IllegalArgumentException if the result has no such column
+     */
+    @Override
+    public Object get(int row, String columnName) {
+        return rows.get(row)[columnPosition(columnName)];
+    }
+
+    /**
+     * Gets a row as a Map from column name to value. The returned row shares its values with
+     * this result, so changes made through it are visible here.
+     *
+     * @param row the zero-based row index
+     * @return the row
+     */
+    @Override
+    public CompactRow getRow(int row) {
+        return new CompactRow(columns, rows.get(row));
+    }
+
+    /**
+     * Returns a List view of the rows as Maps, in the shape produced by resultSetToList.
+     *
+     * @return a read-only List of rows
+     */
+    @Override
+    public List<Map<String, Object>> asMaps() {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+        };
+    }
+
+    /**
+     * Converts the result to the nested shape returned by {@link OracleDBUtilLib#parseResultSet(ResultSet)}:
+     * a List of rows, each row a List holding one single-entry Map per column.
+     *
+     * @return a newly allocated List in the legacy shape
+     */
+    public List<List<Map<String, Object>>> toLegacyList() {
+        List<List<Map<String, Object>>> resultList = new ArrayList<>(rows.size());
+        int columnCount = columns.size();
+        for (Object[] values : rows) {
+            List<Map<String, Object>> rowList = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                Map<String, Object> columnMap = new HashMap<>();
+                columnMap.put(columns.getName(i), values[i]);
+                rowList.add(columnMap);
+            }
+            resultList.add(rowList);
+        }
+        return resultList;
+    }
+
+    private int columnPosition(String columnName) {
+        int position = columns.indexOf(columnName);
+        if (position < 0) {
+            throw new IllegalArgumentException("No column named " + columnName + " in " + columns);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,30 @@
+package com.aisa.database;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a {@link SQLException} raised inside an API that cannot throw checked exceptions,
+ * such as {@link java.util.Iterator} or {@link java.util.stream.Stream}.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    /**
+     * Creates a new exception wrapping the given SQLException.
+     *
+     * @param message the detail message
+     * @param cause   the SQLException being wrapped
+     */
+    public UncheckedSQLException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Gets the wrapped SQLException.
+     *
+     * @return the SQLException that caused this exception
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
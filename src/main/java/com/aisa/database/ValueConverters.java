@@ -0,0 +1,243 @@
+package com.aisa.database;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converters from the values returned by {@link java.sql.ResultSet#getObject(int)} to the type
+ * of a POJO property.
+ *
+ * A converter is chosen once per mapped column from the property type. Values that already have
+ * the right type are passed through untouched; the others are converted with the rules a JDBC
+ * driver would apply between compatible types.
+ */
+final class ValueConverters {
+
+    /**
+     * Converts a non-null column value.
+     */
+    @FunctionalInterface
+    interface ValueConverter {
+        Object convert(Object value) throws SQLException;
+    }
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<>();
+
+    static {
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(double.class, Double.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(char.class, Character.class);
+    }
+
+    private ValueConverters() {
+    }
+
+    /**
+     * Gets the wrapper type of a primitive type, or the type itself for reference types.
+     */
+    static Class<?> boxed(Class<?> type) {
+        Class<?> wrapper = WRAPPERS.get(type);
+        return wrapper == null ? type : wrapper;
+    }
+
+    /**
+     * Chooses the converter for a property of the given type.
+     */
+    static ValueConverter forType(Class<?> propertyType) {
+        Class<?> target = boxed(propertyType);
+        ValueConverter converter = convertingTo(target);
+        return value -> target.isInstance(value) ? value : converter.convert(value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueConverter convertingTo(Class<?> target) {
+        if (target == Integer.class) {
+            return value -> toNumber(value, target).intValue();
+        }
+        if (target == Long.class) {
+            return value -> toNumber(value, target).longValue();
+        }
+        if (target == Double.class) {
+            return value -> toNumber(value, target).doubleValue();
+        }
+        if (target == Float.class) {
+            return value -> toNumber(value, target).floatValue();
+        }
+        if (target == Short.class) {
+            return value -> toNumber(value, target).shortValue();
+        }
+        if (target == Byte.class) {
+            return value -> toNumber(value, target).byteValue();
+        }
+        if (target == BigDecimal.class) {
+            return value -> value instanceof BigInteger ? new BigDecimal((BigInteger) value)
+                    : new BigDecimal(toNumber(value, target).toString());
+        }
+        if (target == BigInteger.class) {
+            return value -> value instanceof BigDecimal ? ((BigDecimal) value).toBigInteger()
+                    : new BigDecimal(toNumber(value, target).toString()).toBigInteger();
+        }
+        if (target == Boolean.class) {
+            return ValueConverters::toBoolean;
+        }
+        if (target == Character.class) {
+            return value -> {
+                String text = toText(value);
+                if (text.length() != 1) {
+                    throw mismatch(value, target);
+                }
+                return text.charAt(0);
+            };
+        }
+        if (target == String.class) {
+            return ValueConverters::toText;
+        }
+        if (target == byte[].class) {
+            return value -> {
+                if (value instanceof Blob) {
+                    Blob blob = (Blob) value;
+                    return blob.getBytes(1, (int) blob.length());
+                }
+                throw mismatch(value, target);
+            };
+        }
+        if (target == LocalDate.class) {
+            return value -> {
+                if (value instanceof java.sql.Date) {
+                    return ((java.sql.Date) value).toLocalDate();
+                }
+                return toLocalDateTime(value, target).toLocalDate();
+            };
+        }
+        if (target == LocalDateTime.class) {
+            return value -> toLocalDateTime(value, target);
+        }
+        if (target == LocalTime.class) {
+            return value -> {
+                if (value instanceof Time) {
+                    return ((Time) value).toLocalTime();
+                }
+                return toLocalDateTime(value, target).toLocalTime();
+            };
+        }
+        if (target == Instant.class) {
+            return value -> {
+                if (value instanceof java.util.Date && !(value instanceof java.sql.Date) && !(value instanceof Time)) {
+                    return ((java.util.Date) value).toInstant();
+                }
+                throw mismatch(value, target);
+            };
+        }
+        if (target == Timestamp.class) {
+            return value -> {
+                if (value instanceof java.util.Date) {
+                    return new Timestamp(((java.util.Date) value).getTime());
+                }
+                if (value instanceof LocalDateTime) {
+                    return Timestamp.valueOf((LocalDateTime) value);
+                }
+                throw mismatch(value, target);
+            };
+        }
+        if (target == java.sql.Date.class) {
+            return value -> {
+                if (value instanceof java.util.Date) {
+                    return new java.sql.Date(((java.util.Date) value).getTime());
+                }
+                if (value instanceof LocalDate) {
+                    return java.sql.Date.valueOf((LocalDate) value);
+                }
+                throw mismatch(value, target);
+            };
+        }
+        if (target.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) target;
+            return value -> Enum.valueOf(enumType, toText(value).trim());
+        }
+        return value -> {
+            throw mismatch(value, target);
+        };
+    }
+
+    private static Number toNumber(Object value, Class<?> target) throws SQLException {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof String) {
+            try {
+                return new BigDecimal(((String) value).trim());
+            } catch (NumberFormatException e) {
+                throw mismatch(value, target);
+            }
+        }
+        throw mismatch(value, target);
+    }
+
+    private static Boolean toBoolean(Object value) throws SQLException {
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        if (value instanceof String) {
+            switch (((String) value).trim().toUpperCase(Locale.ROOT)) {
+                case "TRUE":
+                case "Y":
+                case "YES":
+                case "1":
+                    return Boolean.TRUE;
+                case "FALSE":
+                case "N":
+                case "NO":
+                case "0":
+                    return Boolean.FALSE;
+                default:
+                    break;
+            }
+        }
+        throw mismatch(value, Boolean.class);
+    }
+
+    private static String toText(Object value) throws SQLException {
+        if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            return clob.getSubString(1, (int) clob.length());
+        }
+        return value.toString();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value, Class<?> target) throws SQLException {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().atStartOfDay();
+        }
+        if (value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        throw mismatch(value, target);
+    }
+
+    private static SQLException mismatch(Object value, Class<?> target) {
+        return new SQLException("Cannot convert " + value.getClass().getName() + " value to " + target.getName());
+    }
+}
@@ -0,0 +1,72 @@
+package com.aisa.database;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors used by {@link AsyncDatabase}.
+ *
+ * This is the Java 21 implementation, packaged under META-INF/versions/21 of the multi-release
+ * JAR. Its default executor starts a virtual thread per call, so blocked JDBC calls do not tie up
+ * platform threads; {@link AsyncDatabase} still caps how many calls run at once.
+ */
+public final class AsyncExecutors {
+
+    /**
+     * The number of tasks a bounded executor queues before rejecting new ones.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private static final AtomicInteger EXECUTOR_SEQUENCE = new AtomicInteger();
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * Creates the default executor for running blocking database calls.
+     *
+     * @param maxConcurrency the number of calls expected to run at the same time; unused, since
+     *                       virtual threads are not pooled
+     * @return an executor that starts a new virtual thread for each call
+     */
+    public static ExecutorService defaultExecutor(int maxConcurrency) {
+        int executorId = EXECUTOR_SEQUENCE.incrementAndGet();
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-async-" + executorId + "-", 1).factory());
+    }
+
+    /**
+     * Creates a pool of daemon platform threads with a bounded task queue. Idle threads time out
+     * after a minute. Tasks submitted while the queue is full are rejected.
+     *
+     * @param threads       the number of threads
+     * @param queueCapacity the number of tasks that may wait for a thread
+     * @return the executor
+     */
+    public static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+        int executorId = EXECUTOR_SEQUENCE.incrementAndGet();
+        AtomicInteger threadSequence = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "db-async-" + executorId + "-" + threadSequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Tells whether the default executor runs calls on virtual threads.
+     *
+     * @return true on this Java 21 implementation
+     */
+    public static boolean usesVirtualThreads() {
+        return true;
+    }
+}
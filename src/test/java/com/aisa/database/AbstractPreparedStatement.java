@@ -0,0 +1,524 @@
+package com.aisa.database;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+
+/**
+ * A PreparedStatement whose methods all throw {@link SQLFeatureNotSupportedException}, so
+ * {@link FakePreparedStatement} only overrides what it supports.
+ */
+abstract class AbstractPreparedStatement implements PreparedStatement {
+
+    /**
+     * Creates the exception thrown by every method a subclass does not override.
+     *
+     * @param method the name of the unsupported method
+     * @return the exception to throw
+     */
+    protected SQLFeatureNotSupportedException unsupported(String method) {
+        return new SQLFeatureNotSupportedException(getClass().getSimpleName() + " does not support " + method);
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        throw unsupported("executeQuery");
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        throw unsupported("setNull");
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        throw unsupported("setBoolean");
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        throw unsupported("setByte");
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        throw unsupported("setShort");
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        throw unsupported("setInt");
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        throw unsupported("setLong");
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        throw unsupported("setFloat");
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        throw unsupported("setDouble");
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        throw unsupported("setBigDecimal");
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        throw unsupported("setString");
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        throw unsupported("setBytes");
+    }
+
+    @Override
+    public void setDate(int parameterIndex, java.sql.Date x) throws SQLException {
+        throw unsupported("setDate");
+    }
+
+    @Override
+    public void setTime(int parameterIndex, java.sql.Time x) throws SQLException {
+        throw unsupported("setTime");
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, java.sql.Timestamp x) throws SQLException {
+        throw unsupported("setTimestamp");
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+        throw unsupported("setAsciiStream");
+    }
+
+    @Deprecated
+    @Override
+    public void setUnicodeStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+        throw unsupported("setUnicodeStream");
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+        throw unsupported("setBinaryStream");
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        throw unsupported("clearParameters");
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        throw unsupported("setObject");
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        throw unsupported("setObject");
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        throw unsupported("addBatch");
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, java.io.Reader reader, int length) throws SQLException {
+        throw unsupported("setCharacterStream");
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        throw unsupported("setRef");
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        throw unsupported("setBlob");
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        throw unsupported("setClob");
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        throw unsupported("setArray");
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        throw unsupported("getMetaData");
+    }
+
+    @Override
+    public void setDate(int parameterIndex, java.sql.Date x, Calendar cal) throws SQLException {
+        throw unsupported("setDate");
+    }
+
+    @Override
+    public void setTime(int parameterIndex, java.sql.Time x, Calendar cal) throws SQLException {
+        throw unsupported("setTime");
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, java.sql.Timestamp x, Calendar cal) throws SQLException {
+        throw unsupported("setTimestamp");
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        throw unsupported("setNull");
+    }
+
+    @Override
+    public void setURL(int parameterIndex, java.net.URL x) throws SQLException {
+        throw unsupported("setURL");
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        throw unsupported("getParameterMetaData");
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        throw unsupported("setRowId");
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        throw unsupported("setNString");
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        throw unsupported("setNCharacterStream");
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        throw unsupported("setNClob");
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        throw unsupported("setClob");
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        throw unsupported("setBlob");
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        throw unsupported("setNClob");
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        throw unsupported("setSQLXML");
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        throw unsupported("setObject");
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, java.io.InputStream x, long length) throws SQLException {
+        throw unsupported("setAsciiStream");
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, java.io.InputStream x, long length) throws SQLException {
+        throw unsupported("setBinaryStream");
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, java.io.Reader reader, long length) throws SQLException {
+        throw unsupported("setCharacterStream");
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, java.io.InputStream x) throws SQLException {
+        throw unsupported("setAsciiStream");
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, java.io.InputStream x) throws SQLException {
+        throw unsupported("setBinaryStream");
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, java.io.Reader reader) throws SQLException {
+        throw unsupported("setCharacterStream");
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        throw unsupported("setNCharacterStream");
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        throw unsupported("setClob");
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        throw unsupported("setBlob");
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        throw unsupported("setNClob");
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        throw unsupported("executeQuery");
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public void close() throws SQLException {
+        throw unsupported("close");
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        throw unsupported("getMaxFieldSize");
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        throw unsupported("setMaxFieldSize");
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        throw unsupported("getMaxRows");
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        throw unsupported("setMaxRows");
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        throw unsupported("setEscapeProcessing");
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        throw unsupported("getQueryTimeout");
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        throw unsupported("setQueryTimeout");
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        throw unsupported("cancel");
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        throw unsupported("getWarnings");
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        throw unsupported("clearWarnings");
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        throw unsupported("setCursorName");
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        throw unsupported("getResultSet");
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        throw unsupported("getUpdateCount");
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        throw unsupported("getMoreResults");
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        throw unsupported("setFetchDirection");
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        throw unsupported("getFetchDirection");
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        throw unsupported("setFetchSize");
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        throw unsupported("getFetchSize");
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        throw unsupported("getResultSetConcurrency");
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        throw unsupported("getResultSetType");
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        throw unsupported("addBatch");
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        throw unsupported("clearBatch");
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        throw unsupported("executeBatch");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        throw unsupported("getConnection");
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        throw unsupported("getMoreResults");
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        throw unsupported("getGeneratedKeys");
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        throw unsupported("getResultSetHoldability");
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        throw unsupported("isClosed");
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        throw unsupported("setPoolable");
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        throw unsupported("isPoolable");
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        throw unsupported("closeOnCompletion");
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        throw unsupported("isCloseOnCompletion");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException(getClass().getSimpleName() + " does not wrap " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+}
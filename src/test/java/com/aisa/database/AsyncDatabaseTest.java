@@ -0,0 +1,133 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AsyncDatabaseTest {
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @Mock
+    private ResultSetMetaData mockResultSetMetaData;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(3);
+        when(mockResultSet.getMetaData()).thenReturn(mockResultSetMetaData);
+        when(mockResultSetMetaData.getColumnCount()).thenReturn(1);
+        when(mockResultSetMetaData.getColumnName(1)).thenReturn("NAME");
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getObject(1)).thenReturn("Ada");
+    }
+
+    @Test
+    public void testQueryAsyncReadsRowsAndReturnsConnection() throws Exception {
+        try (AsyncDatabase database = new AsyncDatabase(mockDataSource, 2)) {
+            List<Map<String, Object>> rows = database.queryAsync("SELECT name FROM users WHERE id = ?", 1)
+                    .get(5, TimeUnit.SECONDS);
+
+            assertEquals("Ada", rows.get(0).get("NAME"));
+            verify(mockPreparedStatement).setObject(1, 1);
+            verify(mockResultSet).close();
+            verify(mockConnection).close();
+        }
+        StatementCache.release(mockConnection);
+    }
+
+    @Test
+    public void testUpdateAsync() throws Exception {
+        try (AsyncDatabase database = new AsyncDatabase(mockDataSource, 1)) {
+            assertEquals(3, database.updateAsync("DELETE FROM users WHERE id = ?", 1).get(5, TimeUnit.SECONDS));
+        }
+        StatementCache.release(mockConnection);
+    }
+
+    @Test
+    public void testFailureCompletesWithSQLException() throws SQLException {
+        when(mockDataSource.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        try (AsyncDatabase database = new AsyncDatabase(mockDataSource, 1)) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> database.updateAsync("DELETE FROM users").get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof SQLException);
+            assertEquals("pool exhausted", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testConcurrencyIsCappedByPermits() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            AsyncDatabase database = new AsyncDatabase(mockDataSource, 2, executor);
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(database.withConnectionAsync(connection -> {
+                    int now = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(now, Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return now;
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, maxRunning.get());
+            verify(mockConnection, times(16)).close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedCallFailsFuture() {
+        AsyncDatabase database = new AsyncDatabase(mockDataSource, 1, runnable -> {
+            throw new java.util.concurrent.RejectedExecutionException("queue full");
+        });
+
+        CompletableFuture<Integer> future = database.updateAsync("DELETE FROM users");
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,89 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class BatchExecutorTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[]{1, 1}, new int[]{1});
+    }
+
+    @Test
+    public void testRowsAreFlushedInChunksAndCommitted() throws SQLException {
+        when(mockConnection.getAutoCommit()).thenReturn(true);
+
+        List<int[]> counts = PostgreSQLUtilLib.executeBatch(mockConnection, "INSERT INTO t VALUES (?, ?)",
+                Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}), 2);
+
+        assertEquals(2, counts.size());
+        assertArrayEquals(new int[]{1, 1}, counts.get(0));
+        assertArrayEquals(new int[]{1}, counts.get(1));
+        verify(mockPreparedStatement, times(3)).addBatch();
+        verify(mockPreparedStatement).setObject(2, "c");
+        InOrder inOrder = inOrder(mockConnection);
+        inOrder.verify(mockConnection).setAutoCommit(false);
+        inOrder.verify(mockConnection, times(2)).commit();
+        inOrder.verify(mockConnection).setAutoCommit(true);
+        verify(mockPreparedStatement).close();
+    }
+
+    @Test
+    public void testCallerTransactionIsLeftOpen() throws SQLException {
+        when(mockConnection.getAutoCommit()).thenReturn(false);
+
+        MySQLUtilLib.executeBatch(mockConnection, "INSERT INTO t VALUES (?)",
+                IntStream.range(0, 3).mapToObj(i -> new Object[]{i}), 2);
+
+        verify(mockPreparedStatement, times(2)).executeBatch();
+        verify(mockConnection, never()).commit();
+        verify(mockConnection, never()).setAutoCommit(anyBoolean());
+    }
+
+    @Test
+    public void testFailedChunkIsRolledBack() throws SQLException {
+        when(mockConnection.getAutoCommit()).thenReturn(true);
+        when(mockPreparedStatement.executeBatch()).thenThrow(new BatchUpdateException());
+
+        assertThrows(BatchUpdateException.class, () -> DB2UtilLib.executeBatch(mockConnection,
+                "INSERT INTO t VALUES (?)", Arrays.<Object[]>asList(new Object[]{1}), 10));
+
+        verify(mockConnection).rollback();
+        verify(mockConnection).setAutoCommit(true);
+    }
+
+    @Test
+    public void testUrlParameterIsAppendedOnlyWhenAbsent() {
+        assertEquals("jdbc:mysql://host/db?rewriteBatchedStatements=true",
+                BatchExecutor.withUrlParameter("jdbc:mysql://host/db", "rewriteBatchedStatements", "true"));
+        assertEquals("jdbc:postgresql://host/db?ssl=true&reWriteBatchedInserts=true",
+                BatchExecutor.withUrlParameter("jdbc:postgresql://host/db?ssl=true", "reWriteBatchedInserts", "true"));
+        assertEquals("jdbc:mysql://host/db?rewriteBatchedStatements=false",
+                BatchExecutor.withUrlParameter("jdbc:mysql://host/db?rewriteBatchedStatements=false",
+                        "rewriteBatchedStatements", "true"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactRowTest {
+
+    private final ColumnIndex columns = new ColumnIndex("ID", "NAME", "CREATED");
+
+    private CompactRow row(Object... values) {
+        return new CompactRow(columns, values);
+    }
+
+    @Test
+    public void testBehavesLikeHashMap() {
+        CompactRow row = row(1, "Test Name", null);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("ID", 1);
+        expected.put("NAME", "Test Name");
+        expected.put("CREATED", null);
+
+        assertEquals(expected, row);
+        assertEquals(row, expected);
+        assertEquals(expected.hashCode(), row.hashCode());
+        assertEquals(3, row.size());
+        assertTrue(row.containsKey("CREATED"));
+        assertNull(row.get("CREATED"));
+        assertFalse(row.containsKey("MISSING"));
+        assertEquals(Arrays.asList("ID", "NAME", "CREATED"), new ArrayList<>(row.keySet()));
+    }
+
+    @Test
+    public void testRowsShareColumnIndex() {
+        CompactRow first = row(1, "a", null);
+        CompactRow second = row(2, "b", null);
+
+        assertSame(first.getColumns(), second.getColumns());
+        assertEquals("b", second.getValue(1));
+    }
+
+    @Test
+    public void testPutAndRemove() {
+        CompactRow row = row(1, "Test Name", null);
+
+        assertEquals("Test Name", row.put("NAME", "Other"));
+        assertEquals("Other", row.get("NAME"));
+
+        assertNull(row.put("EXTRA", "value"));
+        assertEquals("value", row.get("EXTRA"));
+        assertEquals(4, row.size());
+
+        assertEquals(1, row.remove("ID"));
+        assertFalse(row.containsKey("ID"));
+        assertEquals(3, row.size());
+        assertEquals(new HashSet<>(Arrays.asList("NAME", "CREATED", "EXTRA")), row.keySet());
+
+        assertNull(row.put("ID", 5));
+        assertEquals(4, row.size());
+
+        row.clear();
+        assertTrue(row.isEmpty());
+    }
+
+    @Test
+    public void testEntrySetValueWritesThrough() {
+        CompactRow row = row(1, "Test Name", null);
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equals("NAME")) {
+                entry.setValue("Updated");
+            }
+        }
+        assertEquals("Updated", row.get("NAME"));
+
+        row.entrySet().removeIf(entry -> entry.getValue() == null);
+        assertEquals(2, row.size());
+    }
+
+    @Test
+    public void testDuplicateColumnNamesResolveToLastOccurrence() {
+        ColumnIndex joined = new ColumnIndex("ID", "NAME", "ID");
+        CompactRow row = new CompactRow(joined, new Object[]{1, "Test Name", 2});
+
+        assertEquals(2, row.get("ID"));
+        assertEquals(2, row.size());
+        assertEquals(1, row.getValue(0));
+    }
+}
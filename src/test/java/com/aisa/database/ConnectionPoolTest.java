@@ -0,0 +1,172 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.*;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:mysql://localhost:3306/tests-data-cloud";
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Connection secondConnection;
+
+    private MockedStatic<DriverManager> mockedDriverManager;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        mockedDriverManager = mockStatic(DriverManager.class);
+        mockedDriverManager.when(() -> DriverManager.getConnection(anyString(), any(Properties.class)))
+                .thenReturn(mockConnection, secondConnection);
+        when(mockConnection.isValid(anyInt())).thenReturn(true);
+        when(mockConnection.getAutoCommit()).thenReturn(true);
+        when(secondConnection.isValid(anyInt())).thenReturn(true);
+        when(secondConnection.getAutoCommit()).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockedDriverManager.close();
+    }
+
+    private static ConnectionPoolConfig config(int maxPoolSize) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMaxPoolSize(maxPoolSize);
+        config.setBorrowTimeoutMillis(100);
+        config.setEvictionIntervalMillis(60_000);
+        return config;
+    }
+
+    @Test
+    public void testClosedConnectionIsReturnedAndReused() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "password", config(2))) {
+            Connection first = MySQLUtilLib.getConnection(pool);
+            first.createStatement();
+            MySQLUtilLib.closeConnection(first);
+
+            assertTrue(first.isClosed());
+            verify(mockConnection, never()).close();
+            assertEquals(1, pool.getIdleConnections());
+
+            Connection second = pool.getConnection();
+            second.createStatement();
+            verify(mockConnection, times(2)).createStatement();
+            assertEquals(1, pool.getTotalConnections());
+            second.close();
+        }
+        verify(mockConnection, times(1)).close();
+    }
+
+    @Test
+    public void testReturnedConnectionCannotBeUsed() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "password", config(1))) {
+            Connection connection = pool.getConnection();
+            connection.close();
+            assertThrows(SQLException.class, connection::createStatement);
+        }
+    }
+
+    @Test
+    public void testUnwrapToConnectionReturnsTheLease() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "password", config(1))) {
+            Connection connection = pool.getConnection();
+            assertSame(connection, connection.unwrap(Connection.class));
+            assertTrue(connection.isWrapperFor(Connection.class));
+
+            connection.unwrap(Connection.class).close();
+            assertTrue(connection.isClosed());
+            verify(mockConnection, never()).close();
+            assertEquals(1, pool.getIdleConnections());
+        }
+    }
+
+    @Test
+    public void testMinIdleIsKeptWhileConnectionsAreBorrowed() throws Exception {
+        FakeDatabase database = FakeDatabase.create("pool-min-idle");
+        ConnectionPoolConfig config = config(3);
+        config.setMinIdle(1);
+        config.setEvictionIntervalMillis(10);
+        try (ConnectionPool pool = new ConnectionPool(database.getUrl(), "user", "password", config)) {
+            Connection borrowed = pool.getConnection();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pool.getIdleConnections() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, pool.getIdleConnections());
+            assertEquals(2, pool.getTotalConnections());
+            borrowed.close();
+        } finally {
+            database.drop();
+        }
+    }
+
+    @Test
+    public void testInvalidConnectionIsDiscardedOnBorrow() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "password", config(2))) {
+            pool.getConnection().close();
+            when(mockConnection.isValid(anyInt())).thenReturn(false);
+
+            Connection connection = pool.getConnection();
+            connection.createStatement();
+
+            verify(mockConnection, times(1)).close();
+            verify(secondConnection, times(1)).createStatement();
+            assertEquals(1, pool.getTotalConnections());
+        }
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenPoolIsExhausted() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "password", config(1))) {
+            Connection connection = pool.getConnection();
+            assertThrows(SQLTimeoutException.class, pool::getConnection);
+            assertEquals(1, pool.getActiveConnections());
+            connection.close();
+            assertEquals(0, pool.getActiveConnections());
+        }
+    }
+
+    @Test
+    public void testOpenTransactionIsRolledBackOnReturn() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "password", config(1))) {
+            Connection connection = pool.getConnection();
+            when(mockConnection.getAutoCommit()).thenReturn(false);
+            connection.close();
+
+            verify(mockConnection, times(1)).rollback();
+            verify(mockConnection, times(1)).setAutoCommit(true);
+        }
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws Exception {
+        ConnectionPoolConfig config = config(2);
+        config.setIdleTimeoutMillis(1);
+        config.setEvictionIntervalMillis(10);
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "password", config)) {
+            pool.getConnection().close();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pool.getTotalConnections() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, pool.getTotalConnections());
+            verify(mockConnection, times(1)).close();
+        }
+    }
+}
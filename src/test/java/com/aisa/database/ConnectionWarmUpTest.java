@@ -0,0 +1,111 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionWarmUpTest {
+
+    private FakeDatabase database;
+
+    @BeforeEach
+    public void setUp() {
+        database = FakeDatabase.create("warm-up-test");
+        database.addTable("orders", FakeTable.of(10, "id BIGINT", "customer_name VARCHAR"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.drop();
+    }
+
+    private static ConnectionPoolConfig config(int maxPoolSize) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMaxPoolSize(maxPoolSize);
+        config.setEvictionIntervalMillis(60_000);
+        return config;
+    }
+
+    @Test
+    public void testConnectionsOpenInParallelAndAreReused() throws SQLException {
+        database.setLatencyMicros(50_000);
+        try (ConnectionPool pool = PostgreSQLUtilLib.createConnectionPool(database.getUrl(), "user", "password", config(8))) {
+            long start = System.nanoTime();
+            int opened = PostgreSQLUtilLib.warmUp(pool, 6);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(6, opened);
+            assertEquals(6, pool.getIdleConnections());
+            assertEquals(6, database.getPeakConnections());
+            assertTrue(elapsedMillis < 6 * 2 * 50, "warm-up took " + elapsedMillis + " ms");
+
+            database.resetStatistics();
+            pool.getConnection().close();
+            assertEquals(0, database.getConnectionsOpened());
+        }
+    }
+
+    @Test
+    public void testHotStatementsArePreparedOnEveryConnection() throws SQLException {
+        String sql = "SELECT * FROM orders WHERE id = ?";
+        try (ConnectionPool pool = MSSQLUtilLib.createConnectionPool(database.getUrl(), "user", "password", config(4))) {
+            MSSQLUtilLib.warmUp(pool, 3, sql, "UPDATE orders SET customer_name = ? WHERE id = ?");
+            assertEquals(6, database.getPrepareCount());
+
+            database.resetStatistics();
+            try (Connection connection = pool.getConnection()) {
+                ResultSet resultSet = MSSQLUtilLib.executeQuery(connection, sql, 1);
+                resultSet.close();
+            }
+            assertEquals(0, database.getPrepareCount());
+            assertEquals(1, database.getQueryCount());
+        }
+    }
+
+    @Test
+    public void testWarmUpIsCappedAndFailsOnlyWhenNothingOpens() throws SQLException {
+        try (ConnectionPool pool = DB2UtilLib.createConnectionPool(database.getUrl(), "user", "password", config(2))) {
+            assertEquals(2, DB2UtilLib.warmUp(pool, 5));
+            assertEquals(0, pool.warmUp(2, Collections.<String>emptyList()));
+        }
+
+        database.setMaxConnections(1);
+        try (ConnectionPool pool = MySQLUtilLib.createConnectionPool(database.getUrl(), "user", "password", config(3))) {
+            assertEquals(1, MySQLUtilLib.warmUp(pool, 3));
+            assertEquals(1, pool.getTotalConnections());
+        }
+
+        try (ConnectionPool pool = new ConnectionPool("jdbc:unknown:warm-up", "user", "password", config(2))) {
+            assertThrows(SQLException.class, () -> pool.warmUp(2, Collections.<String>emptyList()));
+            assertEquals(0, pool.getTotalConnections());
+        }
+    }
+
+    @Test
+    public void testConnectionsWarmedAfterCloseAreDiscarded() throws Exception {
+        database.setLatencyMicros(100_000);
+        ConnectionPool pool = PostgreSQLUtilLib.createConnectionPool(database.getUrl(), "user", "password", config(3));
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pool.close();
+        });
+        closer.start();
+        assertThrows(SQLException.class, () -> PostgreSQLUtilLib.warmUp(pool, 3));
+        closer.join();
+
+        assertEquals(0, pool.getIdleConnections());
+        assertEquals(0, pool.getTotalConnections());
+        assertEquals(0, database.getOpenConnections());
+    }
+}
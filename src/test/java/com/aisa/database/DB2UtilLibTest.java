@@ -60,6 +60,7 @@ public class DB2UtilLibTest {
 
         int rowsAffected = DB2UtilLib.executeUpdate(mockConnection, update);
         assertEquals(1, rowsAffected);
+        verify(mockStatement).close();
     }
 
     @Test
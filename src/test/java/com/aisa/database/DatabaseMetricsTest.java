@@ -0,0 +1,206 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DatabaseMetricsTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Statement mockStatement;
+
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @Mock
+    private ResultSetMetaData mockMetaData;
+
+    private final List<String> events = new ArrayList<>();
+
+    private final MetricsListener listener = new MetricsListener() {
+        @Override
+        public void onExecute(String fingerprint, long elapsedNanos, boolean failed) {
+            events.add("execute " + fingerprint + (failed ? " failed" : ""));
+        }
+
+        @Override
+        public void onFetch(String fingerprint, long rows, long estimatedBytes, long elapsedNanos) {
+            events.add("fetch " + fingerprint + " " + rows);
+        }
+
+        @Override
+        public void onClose(String resourceType, long elapsedNanos) {
+            events.add("close " + resourceType);
+        }
+    };
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        DatabaseMetrics.reset();
+        DatabaseMetrics.addListener(listener);
+        when(mockConnection.createStatement()).thenReturn(mockStatement);
+        when(mockConnection.createStatement(anyInt(), anyInt())).thenReturn(mockStatement);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockStatement.executeQuery(anyString())).thenReturn(mockResultSet);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getColumnCount()).thenReturn(1);
+        when(mockMetaData.getColumnName(1)).thenReturn("name");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        DatabaseMetrics.removeListener(listener);
+        DatabaseMetrics.setEnabled(true);
+        DatabaseMetrics.unregisterMBean();
+        StatementCache.release(mockConnection);
+    }
+
+    @Test
+    public void testHistogramPercentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_500.0, histogram.getMeanNanos(), 0.001);
+        assertWithin(500_000, histogram.getValueAtPercentile(50));
+        assertWithin(990_000, histogram.getValueAtPercentile(99));
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void testBucketBoundsCoverEveryValue() {
+        long[] values = {0, 15, 16, 17, 31, 32, 1_000_003, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void testFingerprintReplacesLiterals() {
+        assertEquals("SELECT * FROM users WHERE id = ? AND name = ? AND role IN (?)",
+                DatabaseMetrics.fingerprint("SELECT *  FROM users\n WHERE id = 42 AND name = 'O''Brien' AND role IN (1, 2, 3)"));
+        assertEquals("SELECT col1 FROM t2 WHERE x = ?", DatabaseMetrics.fingerprint("SELECT col1 FROM t2 WHERE x = -1.5e3"));
+    }
+
+    @Test
+    public void testExecutionsAreGroupedByFingerprint() throws SQLException {
+        MySQLUtilLib.executeQuery(mockConnection, "SELECT name FROM metrics_users WHERE id = 1");
+        MySQLUtilLib.executeQuery(mockConnection, "SELECT name FROM metrics_users WHERE id = 2");
+        when(mockStatement.executeUpdate(anyString())).thenThrow(new SQLException("boom"));
+        assertThrows(SQLException.class,
+                () -> MySQLUtilLib.executeUpdate(mockConnection, "DELETE FROM metrics_users WHERE id = 3"));
+        verify(mockStatement).close();
+
+        StatementStats select = DatabaseMetrics.getStatementStats("SELECT name FROM metrics_users WHERE id = ?");
+        assertEquals(2, select.getExecutionCount());
+        assertEquals(0, select.getErrorCount());
+        assertTrue(select.getP999Micros() >= select.getP50Micros());
+        StatementStats delete = DatabaseMetrics.getStatementStats("DELETE FROM metrics_users WHERE id = 3");
+        assertEquals(1, delete.getErrorCount());
+        assertTrue(events.contains("execute DELETE FROM metrics_users WHERE id = ? failed"));
+    }
+
+    @Test
+    public void testKnownFingerprintIsUsedBeyondTheTextLimit() {
+        long start = System.nanoTime();
+        for (int i = 0; i <= DatabaseMetrics.MAX_SQL_TEXTS + 10; i++) {
+            DatabaseMetrics.recordExecute("SELECT name FROM metrics_literals WHERE id = " + i, start, false);
+        }
+
+        StatementStats stats = DatabaseMetrics.getStatementStats("SELECT name FROM metrics_literals WHERE id = ?");
+        assertEquals(DatabaseMetrics.MAX_SQL_TEXTS + 11, stats.getExecutionCount());
+        assertNull(DatabaseMetrics.getStatementStats(DatabaseMetrics.OTHER));
+    }
+
+    @Test
+    public void testCachedStatementAndIteratorRecordRowsAndBytes() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getObject(1)).thenReturn("Ada", "Grace");
+
+        PostgreSQLUtilLib.executeQuery(mockConnection, "SELECT name FROM metrics_people WHERE id > ?", 0);
+        try (ResultSetIterator rows = PostgreSQLUtilLib.iterateQuery(mockConnection, "SELECT name FROM metrics_people", 10)) {
+            rows.forEachRemaining(row -> { });
+        }
+
+        assertEquals(1, DatabaseMetrics.getStatementStats("SELECT name FROM metrics_people WHERE id > ?").getExecutionCount());
+        StatementStats iterated = DatabaseMetrics.getStatementStats("SELECT name FROM metrics_people");
+        assertEquals(1, iterated.getExecutionCount());
+        assertEquals(2, iterated.getRowsFetched());
+        assertEquals((40 + 2 * 3) + (40 + 2 * 5), iterated.getBytesEstimated());
+        assertTrue(events.contains("fetch SELECT name FROM metrics_people 2"));
+        assertTrue(events.contains("close resultSet"));
+    }
+
+    @Test
+    public void testResultSetToListIsUnattributed() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getObject(1)).thenReturn("Ada");
+
+        List<Map<String, Object>> rows = DB2UtilLib.resultSetToList(mockResultSet);
+
+        assertEquals(1, rows.size());
+        assertEquals(1, DatabaseMetrics.getStatementStats(DatabaseMetrics.UNATTRIBUTED).getRowsFetched());
+    }
+
+    @Test
+    public void testDisabledMetricsRecordNothing() throws SQLException {
+        DatabaseMetrics.setEnabled(false);
+
+        MSSQLUtilLib.executeQuery(mockConnection, "SELECT name FROM metrics_disabled");
+
+        assertNull(DatabaseMetrics.getStatementStats("SELECT name FROM metrics_disabled"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testMBeanExposesTotals() throws Exception {
+        DatabaseMetrics.registerMBean();
+        DatabaseMetrics.registerMBean();
+        OracleDBUtilLib.executeQuery(mockConnection, "SELECT name FROM metrics_mbean");
+        OracleDBUtilLib.closeStatement(mockStatement);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(DatabaseMetrics.OBJECT_NAME);
+        assertEquals(1L, server.getAttribute(name, "ExecutionCount"));
+        assertEquals(1L, server.getAttribute(name, "CloseCount"));
+        CompositeData[] stats = (CompositeData[]) server.getAttribute(name, "StatementStats");
+        assertEquals("SELECT name FROM metrics_mbean", stats[0].get("fingerprint"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 8,
+                "expected about " + expected + " but was " + actual);
+    }
+}
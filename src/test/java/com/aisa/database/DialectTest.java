@@ -0,0 +1,123 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DialectTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Statement mockStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.createStatement()).thenReturn(mockStatement);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Dialects.SQL_SERVER.getProfile().setLoginTimeoutSeconds(30);
+        Dialects.POSTGRESQL.getProfile().setFetchSize(1000);
+        Dialects.DB2.getProfile().setReadOnlyHints(true);
+    }
+
+    @Test
+    public void testDialectLookupByUrl() throws SQLException {
+        assertSame(Dialects.ORACLE, Dialects.forUrl("jdbc:oracle:thin:@//host:1521/XE"));
+        assertSame(Dialects.SQL_SERVER, Dialects.forUrl("jdbc:sqlserver://host:1433;databaseName=db"));
+        assertSame(Dialects.POSTGRESQL, Dialects.forUrl("jdbc:postgresql://host/db"));
+        assertSame(Dialects.MYSQL, Dialects.forUrl("jdbc:mysql://host/db"));
+        assertSame(Dialects.DB2, Dialects.forUrl("jdbc:db2://host:50000/SAMPLE"));
+        assertThrows(SQLException.class, () -> Dialects.forUrl("jdbc:h2:mem:test"));
+    }
+
+    @Test
+    public void testSqlServerLoginTimeoutIsAppendedOnlyIfAbsent() {
+        assertEquals("jdbc:sqlserver://host;encrypt=true;trustServerCertificate=false;loginTimeout=30"
+                        + ";disableStatementPooling=false;statementPoolingCacheSize=50",
+                Dialects.SQL_SERVER.prepareUrl("jdbc:sqlserver://host"));
+        assertEquals("jdbc:sqlserver://host;loginTimeout=5;encrypt=true;trustServerCertificate=false"
+                        + ";disableStatementPooling=false;statementPoolingCacheSize=50",
+                Dialects.SQL_SERVER.prepareUrl("jdbc:sqlserver://host;loginTimeout=5"));
+
+        Dialects.SQL_SERVER.getProfile().setLoginTimeoutSeconds(0);
+
+        assertFalse(Dialects.SQL_SERVER.prepareUrl("jdbc:sqlserver://host").contains("loginTimeout"));
+    }
+
+    @Test
+    public void testUrlFlagsForPostgreSQLAndMySQL() {
+        assertEquals("jdbc:postgresql://host/db?reWriteBatchedInserts=true",
+                Dialects.POSTGRESQL.prepareUrl("jdbc:postgresql://host/db"));
+        assertEquals("jdbc:mysql://host/db?useSSL=true&rewriteBatchedStatements=true&cachePrepStmts=true"
+                        + "&prepStmtCacheSize=250",
+                Dialects.MYSQL.prepareUrl("jdbc:mysql://host/db?useSSL=true"));
+    }
+
+    @Test
+    public void testOraclePropertiesKeepCallerSettings() {
+        Properties properties = new Properties();
+        properties.setProperty("defaultRowPrefetch", "20");
+
+        Properties tuned = Dialects.ORACLE.prepareProperties(properties);
+
+        assertEquals("20", tuned.getProperty("defaultRowPrefetch"));
+        assertEquals("32768", tuned.getProperty("oracle.jdbc.defaultLobPrefetchSize"));
+        assertEquals("50", tuned.getProperty("oracle.jdbc.implicitStatementCacheSize"));
+        assertNull(properties.getProperty("oracle.jdbc.implicitStatementCacheSize"));
+    }
+
+    @Test
+    public void testEngineAppliesProfileFetchSizeAndHints() throws SQLException {
+        when(mockStatement.executeQuery(anyString())).thenReturn(mockResultSet);
+
+        new DialectEngine(Dialects.POSTGRESQL).executeQuery(mockConnection, "SELECT * FROM t");
+        new DialectEngine(Dialects.DB2).executeQuery(mockConnection, "SELECT * FROM t");
+        Dialects.DB2.getProfile().setReadOnlyHints(false);
+        new DialectEngine(Dialects.DB2).executeQuery(mockConnection, "SELECT * FROM u");
+
+        verify(mockStatement, times(1)).setFetchSize(1000);
+        verify(mockStatement).executeQuery("SELECT * FROM t FOR FETCH ONLY");
+        verify(mockStatement).executeQuery("SELECT * FROM u");
+    }
+
+    @Test
+    public void testReadOnlyHint() {
+        assertEquals("SELECT * FROM t FOR FETCH ONLY", DB2Dialect.withReadOnlyHint("SELECT * FROM t"));
+        assertEquals("select * from t FOR FETCH ONLY OPTIMIZE FOR 10 ROWS WITH UR",
+                DB2Dialect.withReadOnlyHint("select * from t OPTIMIZE FOR 10 ROWS WITH UR;"));
+        assertEquals("WITH x AS (SELECT 1 FROM sysibm.sysdummy1) SELECT * FROM x FOR FETCH ONLY",
+                DB2Dialect.withReadOnlyHint("WITH x AS (SELECT 1 FROM sysibm.sysdummy1) SELECT * FROM x"));
+        assertEquals("SELECT * FROM t FOR UPDATE OF c", DB2Dialect.withReadOnlyHint("SELECT * FROM t FOR UPDATE OF c"));
+        assertEquals("SELECT * FROM t FOR READ ONLY", DB2Dialect.withReadOnlyHint("SELECT * FROM t FOR READ ONLY"));
+        assertEquals("UPDATE t SET c = 1", DB2Dialect.withReadOnlyHint("UPDATE t SET c = 1"));
+    }
+
+    @Test
+    public void testDb2UrlTuning() {
+        assertEquals("jdbc:db2://host:50000/SAMPLE:queryDataSize=65535;enableRowsetSupport=1;",
+                Dialects.DB2.prepareUrl("jdbc:db2://host:50000/SAMPLE"));
+        assertEquals("jdbc:db2://host:50000/SAMPLE:queryDataSize=1048576;enableRowsetSupport=1;",
+                Dialects.DB2.prepareUrl("jdbc:db2://host:50000/SAMPLE:queryDataSize=1048576"));
+        assertEquals("jdbc:db2:SAMPLE:queryDataSize=65535;enableRowsetSupport=1;",
+                Dialects.DB2.prepareUrl("jdbc:db2:SAMPLE"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.aisa.database;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * The SQL types a {@link FakeTable} column can have, each with a deterministic value generator.
+ */
+public enum FakeColumnType {
+
+    INTEGER(Types.INTEGER, Integer.class) {
+        @Override
+        Object value(int row) {
+            return row;
+        }
+    },
+    BIGINT(Types.BIGINT, Long.class) {
+        @Override
+        Object value(int row) {
+            return row * 1_000_003L;
+        }
+    },
+    DECIMAL(Types.DECIMAL, BigDecimal.class) {
+        @Override
+        Object value(int row) {
+            return BigDecimal.valueOf(row * 137L + 5, 2);
+        }
+    },
+    DOUBLE(Types.DOUBLE, Double.class) {
+        @Override
+        Object value(int row) {
+            return row * 0.25;
+        }
+    },
+    VARCHAR(Types.VARCHAR, String.class) {
+        @Override
+        Object value(int row) {
+            return "value-" + Integer.toHexString(row * 2_654_435);
+        }
+    },
+    TIMESTAMP(Types.TIMESTAMP, Timestamp.class) {
+        @Override
+        Object value(int row) {
+            return new Timestamp(1_700_000_000_000L + row * 1_000L);
+        }
+    };
+
+    private final int sqlType;
+    private final Class<?> javaClass;
+
+    FakeColumnType(int sqlType, Class<?> javaClass) {
+        this.sqlType = sqlType;
+        this.javaClass = javaClass;
+    }
+
+    /**
+     * Gets the {@link Types} constant reported in the result metadata.
+     *
+     * @return the SQL type
+     */
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Gets the class of the values returned by {@code getObject}.
+     *
+     * @return the Java class
+     */
+    public Class<?> getJavaClass() {
+        return javaClass;
+    }
+
+    /**
+     * Generates the value of a row.
+     */
+    abstract Object value(int row);
+}
@@ -0,0 +1,138 @@
+package com.aisa.database;
+
+import java.sql.*;
+
+/**
+ * A connection to a {@link FakeDatabase}. Commits, rollbacks and validation each cost one round
+ * trip; preparing a statement costs none, as with drivers that prepare on first execution.
+ */
+final class FakeConnection extends AbstractConnection {
+
+    private final FakeDatabase database;
+
+    private volatile boolean autoCommit = true;
+    private volatile boolean readOnly;
+    private volatile int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+    private volatile boolean closed;
+
+    FakeConnection(FakeDatabase database) {
+        this.database = database;
+    }
+
+    FakeDatabase getDatabase() {
+        return database;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return prepareStatement(null);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return prepareStatement(null);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        ensureOpen();
+        if (sql != null) {
+            database.statementPrepared();
+        }
+        return new FakePreparedStatement(this, sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return prepareStatement(sql);
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        ensureOpen();
+        return autoCommit;
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        ensureOpen();
+        if (autoCommit && !this.autoCommit) {
+            database.roundTrip(0);
+        }
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        ensureOpen();
+        database.roundTrip(0);
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        ensureOpen();
+        database.roundTrip(0);
+    }
+
+    @Override
+    public boolean isValid(int timeout) {
+        if (closed) {
+            return false;
+        }
+        database.roundTrip(0);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            database.connectionClosed();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public int getTransactionIsolation() {
+        return transactionIsolation;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) {
+        this.transactionIsolation = level;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    @Override
+    public String toString() {
+        return "FakeConnection{" + database.getUrl() + (closed ? ", closed}" : "}");
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLNonTransientConnectionException("Connection is closed.", "08003");
+        }
+    }
+}
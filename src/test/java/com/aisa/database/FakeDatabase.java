@@ -0,0 +1,499 @@
+package com.aisa.database;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process database served by {@link FakeDriver} under {@code jdbc:fake:<name>}, for load
+ * and scaling tests of pooling, batching and streaming without a real server.
+ *
+ * Queries return the rows of the {@link FakeTable} named after their {@code FROM} clause, or of
+ * the default table. Every round trip to the "server" (connecting, executing, fetching the next
+ * block of {@code fetchSize} rows, committing, validating) waits for the configured latency
+ * plus the per-row cost of the rows it carries. Updates report one affected row, and each
+ * batched row counts as one row. Failures can be injected at random or for the next statements,
+ * and opening more than the connection limit fails like a server refusing connections.
+ *
+ * Databases are created on first use of their URL. URL properties set the initial settings,
+ * for example {@code jdbc:fake:orders?latencyMicros=500&perRowNanos=200&maxConnections=20}; the
+ * properties {@code failureRate} and {@code fetchSize} are also recognized and others are
+ * ignored, so dialects may append their own.
+ */
+public final class FakeDatabase {
+
+    private static final Map<String, FakeDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    private static final Pattern TABLE_REFERENCE =
+            Pattern.compile("(?i)\\b(?:FROM|JOIN|INTO|UPDATE)\\s+([\\w$.\"`\\[\\]]+)");
+
+    private static final Pattern URL_PROPERTY = Pattern.compile("[?&;:](\\w+)=([^&;:]*)");
+
+    /**
+     * Waits shorter than this are spun instead of parked, since parking overshoots by tens of
+     * microseconds.
+     */
+    private static final long SPIN_THRESHOLD_NANOS = 100_000;
+
+    private final String name;
+    private final Map<String, FakeTable> tables = new ConcurrentHashMap<>();
+    private final AtomicInteger failuresRequested = new AtomicInteger();
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger peakConnections = new AtomicInteger();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong prepares = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong rowsTransferred = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile FakeTable defaultTable = FakeTable.generate(10, 3, "BIGINT,VARCHAR,DECIMAL");
+    private volatile long latencyMicros;
+    private volatile long perRowNanos;
+    private volatile double failureRate;
+    private volatile int maxConnections;
+    private volatile int fetchSize = 100;
+
+    private FakeDatabase(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Creates a database with default settings, replacing any database of the same name.
+     *
+     * @param name the database name used in its URL
+     * @return the new database
+     */
+    public static FakeDatabase create(String name) {
+        FakeDatabase database = new FakeDatabase(name);
+        DATABASES.put(name, database);
+        return database;
+    }
+
+    /**
+     * Gets a database created earlier.
+     *
+     * @param name the database name
+     * @return the database, or null if none exists with that name
+     */
+    public static FakeDatabase get(String name) {
+        return DATABASES.get(name);
+    }
+
+    /**
+     * Gets the database of a {@code jdbc:fake:} URL, creating it with the URL properties as its
+     * settings if it does not exist yet.
+     */
+    static FakeDatabase forUrl(String url) throws SQLException {
+        String rest = url.substring(FakeDriver.URL_PREFIX.length());
+        int end = 0;
+        while (end < rest.length() && "?;:&/".indexOf(rest.charAt(end)) < 0) {
+            end++;
+        }
+        String databaseName = rest.substring(0, end);
+        if (databaseName.isEmpty()) {
+            throw new SQLException("Missing database name in URL: " + url);
+        }
+        FakeDatabase existing = DATABASES.get(databaseName);
+        if (existing != null) {
+            return existing;
+        }
+        FakeDatabase database = new FakeDatabase(databaseName);
+        Matcher property = URL_PROPERTY.matcher(rest.substring(end));
+        try {
+            while (property.find()) {
+                database.applyUrlProperty(property.group(1), property.group(2));
+            }
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid property value in URL: " + url, e);
+        }
+        existing = DATABASES.putIfAbsent(databaseName, database);
+        return existing != null ? existing : database;
+    }
+
+    private void applyUrlProperty(String key, String value) {
+        switch (key) {
+            case "latencyMicros":
+                latencyMicros = Long.parseLong(value);
+                break;
+            case "perRowNanos":
+                perRowNanos = Long.parseLong(value);
+                break;
+            case "failureRate":
+                failureRate = Double.parseDouble(value);
+                break;
+            case "maxConnections":
+                maxConnections = Integer.parseInt(value);
+                break;
+            case "fetchSize":
+                fetchSize = Integer.parseInt(value);
+                break;
+            default:
+                // Properties of the real drivers, appended by dialects, have no effect here.
+        }
+    }
+
+    /**
+     * Removes this database, so its URL creates a fresh one on next use. Open connections keep
+     * working.
+     */
+    public void drop() {
+        DATABASES.remove(name, this);
+    }
+
+    /**
+     * Gets the URL that connects to this database.
+     *
+     * @return the {@code jdbc:fake:} URL
+     */
+    public String getUrl() {
+        return FakeDriver.URL_PREFIX + name;
+    }
+
+    /**
+     * Adds a table that queries naming it in their {@code FROM} clause return. Names are
+     * matched case-insensitively and without schema or quotes.
+     *
+     * @param tableName the table name
+     * @param table     the rows of the table
+     */
+    public void addTable(String tableName, FakeTable table) {
+        tables.put(tableName.toLowerCase(Locale.ROOT), table);
+    }
+
+    /**
+     * Sets the table returned by queries that name no added table. By default it has 10 rows of
+     * three columns.
+     *
+     * @param table the default table
+     */
+    public void setDefaultTable(FakeTable table) {
+        this.defaultTable = table;
+    }
+
+    /**
+     * Gets the simulated network latency of each round trip.
+     *
+     * @return the latency in microseconds
+     */
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * Sets the simulated network latency of each round trip. Zero disables it.
+     *
+     * @param latencyMicros the latency in microseconds
+     */
+    public void setLatencyMicros(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+    }
+
+    /**
+     * Gets the simulated cost of each row sent or received.
+     *
+     * @return the cost in nanoseconds per row
+     */
+    public long getPerRowNanos() {
+        return perRowNanos;
+    }
+
+    /**
+     * Sets the simulated cost of each row sent or received. Zero disables it.
+     *
+     * @param perRowNanos the cost in nanoseconds per row
+     */
+    public void setPerRowNanos(long perRowNanos) {
+        this.perRowNanos = perRowNanos;
+    }
+
+    /**
+     * Gets the probability that a statement execution fails.
+     *
+     * @return the failure rate between 0 and 1
+     */
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    /**
+     * Sets the probability that a statement execution fails with an injected
+     * {@link SQLRecoverableException}.
+     *
+     * @param failureRate the failure rate between 0 and 1
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Gets the maximum number of open connections.
+     *
+     * @return the connection limit; 0 for no limit
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Sets the maximum number of open connections. Connecting beyond it fails with SQLState
+     * {@code 08004}.
+     *
+     * @param maxConnections the connection limit; 0 for no limit
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Gets the number of rows sent per round trip when a statement sets no fetch size.
+     *
+     * @return the default fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the number of rows sent per round trip when a statement sets no fetch size.
+     *
+     * @param fetchSize the default fetch size; at least 1
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /**
+     * Makes the next statement executions fail with an injected {@link SQLRecoverableException},
+     * in addition to any random failures.
+     *
+     * @param statements the number of executions that fail
+     */
+    public void failNext(int statements) {
+        failuresRequested.addAndGet(statements);
+    }
+
+    /**
+     * Gets the number of connections currently open.
+     *
+     * @return the open connection count
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * Gets the largest number of connections open at the same time.
+     *
+     * @return the peak connection count
+     */
+    public int getPeakConnections() {
+        return peakConnections.get();
+    }
+
+    /**
+     * Gets the number of connections opened.
+     *
+     * @return the connection count
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Gets the number of queries executed.
+     *
+     * @return the query count
+     */
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    /**
+     * Gets the number of updates executed, not counting batches.
+     *
+     * @return the update count
+     */
+    public long getUpdateCount() {
+        return updates.get();
+    }
+
+    /**
+     * Gets the number of batches executed.
+     *
+     * @return the batch count
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Gets the number of statements prepared with SQL text, which a real server would parse.
+     *
+     * @return the prepare count
+     */
+    public long getPrepareCount() {
+        return prepares.get();
+    }
+
+    /**
+     * Gets the number of simulated round trips.
+     *
+     * @return the round trip count
+     */
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    /**
+     * Gets the number of rows sent to or received from clients.
+     *
+     * @return the row count
+     */
+    public long getRowsTransferred() {
+        return rowsTransferred.get();
+    }
+
+    /**
+     * Gets the number of injected and limit failures.
+     *
+     * @return the failure count
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Sets all counters except the open connection count back to zero.
+     */
+    public void resetStatistics() {
+        peakConnections.set(openConnections.get());
+        connectionsOpened.set(0);
+        queries.set(0);
+        updates.set(0);
+        batches.set(0);
+        prepares.set(0);
+        roundTrips.set(0);
+        rowsTransferred.set(0);
+        failures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "FakeDatabase{name='" + name + "', latencyMicros=" + latencyMicros + ", perRowNanos=" + perRowNanos
+                + ", failureRate=" + failureRate + ", maxConnections=" + maxConnections
+                + ", openConnections=" + openConnections.get() + "}";
+    }
+
+    void connectionOpened() throws SQLException {
+        int limit = maxConnections;
+        int open;
+        do {
+            open = openConnections.get();
+            if (limit > 0 && open >= limit) {
+                failures.incrementAndGet();
+                throw new SQLNonTransientConnectionException(
+                        "Too many connections to fake database " + name + " (limit " + limit + ")", "08004");
+            }
+        } while (!openConnections.compareAndSet(open, open + 1));
+        peakConnections.accumulateAndGet(open + 1, Math::max);
+        connectionsOpened.incrementAndGet();
+        roundTrip(0);
+    }
+
+    void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    void queryExecuted() {
+        queries.incrementAndGet();
+    }
+
+    void updateExecuted() {
+        updates.incrementAndGet();
+    }
+
+    void batchExecuted() {
+        batches.incrementAndGet();
+    }
+
+    void statementPrepared() {
+        prepares.incrementAndGet();
+    }
+
+    /**
+     * Fails the current execution if a failure was requested or drawn.
+     */
+    void checkFailure(String sql) throws SQLException {
+        boolean requested = false;
+        int pending;
+        while ((pending = failuresRequested.get()) > 0) {
+            if (failuresRequested.compareAndSet(pending, pending - 1)) {
+                requested = true;
+                break;
+            }
+        }
+        double rate = failureRate;
+        if (requested || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            failures.incrementAndGet();
+            roundTrip(0);
+            throw new SQLRecoverableException("Injected failure in fake database " + name + ": " + sql, "08006");
+        }
+    }
+
+    /**
+     * Finds the table named after the first {@code FROM}, {@code JOIN}, {@code INTO} or
+     * {@code UPDATE} of the SQL that was added to this database.
+     */
+    FakeTable resolve(String sql) {
+        if (sql != null) {
+            Matcher reference = TABLE_REFERENCE.matcher(sql);
+            while (reference.find()) {
+                String tableName = reference.group(1).replaceAll("[\"`\\[\\]]", "");
+                FakeTable table = tables.get(tableName.substring(tableName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT));
+                if (table != null) {
+                    return table;
+                }
+            }
+        }
+        return defaultTable;
+    }
+
+    /**
+     * Simulates one round trip carrying the given number of rows.
+     */
+    void roundTrip(int rows) {
+        roundTrips.incrementAndGet();
+        rowsTransferred.addAndGet(rows);
+        pause(latencyMicros * 1000 + rows * perRowNanos);
+    }
+
+    private static void pause(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        if (nanos >= SPIN_THRESHOLD_NANOS) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        } else {
+            while (deadline - System.nanoTime() > 0) {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.aisa.database;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver for {@code jdbc:fake:<name>} URLs that connects to in-process
+ * {@link FakeDatabase}s instead of a server.
+ *
+ * The driver registers itself with {@link DriverManager} through {@code META-INF/services}, so
+ * every *UtilLib class and {@link ConnectionPool} can connect to a fake URL like to any other;
+ * the URL and connection properties each dialect adds are accepted and ignored. Use it to
+ * load-test pooling, batching and streaming code with controlled latency and failures.
+ */
+public final class FakeDriver implements Driver {
+
+    /**
+     * The prefix of the URLs this driver accepts.
+     */
+    public static final String URL_PREFIX = "jdbc:fake:";
+
+    private static final FakeDriver INSTANCE = new FakeDriver();
+
+    private static boolean registered;
+
+    static {
+        register();
+    }
+
+    /**
+     * Registers the driver with {@link DriverManager}, for class loaders that do not load JDBC
+     * drivers through {@code META-INF/services}. Calling this method more than once has no effect.
+     */
+    public static synchronized void register() {
+        if (!registered) {
+            try {
+                DriverManager.registerDriver(INSTANCE);
+                registered = true;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to register FakeDriver.", e);
+            }
+        }
+    }
+
+    /**
+     * Connects to the fake database named in the URL, creating it if needed.
+     *
+     * @param url  the {@code jdbc:fake:} URL
+     * @param info ignored
+     * @return a connection, or null if the URL is not a fake URL
+     * @throws SQLException if the database's connection limit is reached
+     */
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        FakeDatabase database = FakeDatabase.forUrl(url);
+        database.connectionOpened();
+        return new FakeConnection(database);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("FakeDriver does not use java.util.logging.");
+    }
+}
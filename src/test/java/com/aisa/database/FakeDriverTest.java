@@ -0,0 +1,142 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FakeDriverTest {
+
+    private FakeDatabase database;
+
+    @BeforeEach
+    public void setUp() {
+        database = FakeDatabase.create("fake-driver-test");
+        database.addTable("orders", FakeTable.of(25, "id BIGINT", "customer_name VARCHAR", "amount DECIMAL"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.drop();
+    }
+
+    @Test
+    public void testUtilLibQueriesNamedTable() throws SQLException {
+        Connection connection = PostgreSQLUtilLib.getConnection(database.getUrl(), "user", "password");
+        try {
+            ResultSet resultSet = PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM app.\"ORDERS\" WHERE id > ?", 0);
+            List<Map<String, Object>> rows = PostgreSQLUtilLib.resultSetToList(resultSet);
+
+            assertEquals(25, rows.size());
+            assertEquals(Arrays.asList("id", "customer_name", "amount"), Arrays.asList(rows.get(0).keySet().toArray()));
+            assertTrue(rows.get(3).get("amount") instanceof BigDecimal);
+            assertEquals(1, database.getQueryCount());
+        } finally {
+            PostgreSQLUtilLib.closeConnection(connection);
+        }
+        assertEquals(0, database.getOpenConnections());
+    }
+
+    @Test
+    public void testRowsArriveInFetchSizeBlocks() throws SQLException {
+        database.setLatencyMicros(1000);
+        try (Connection connection = MySQLUtilLib.getConnection(database.getUrl(), "user", "password")) {
+            database.resetStatistics();
+            long start = System.nanoTime();
+            try (ResultSetIterator rows = MySQLUtilLib.iterateQuery(connection, "SELECT * FROM orders", 10)) {
+                rows.forEachRemaining(row -> { });
+            }
+
+            assertEquals(3, database.getRoundTrips());
+            assertEquals(25, database.getRowsTransferred());
+            assertTrue(System.nanoTime() - start >= 3_000_000);
+        }
+    }
+
+    @Test
+    public void testConnectionLimitIsEnforced() throws SQLException {
+        database.setMaxConnections(2);
+        Connection first = DriverManager.getConnection(database.getUrl());
+        Connection second = DriverManager.getConnection(database.getUrl());
+
+        SQLException e = assertThrows(SQLException.class, () -> DriverManager.getConnection(database.getUrl()));
+        assertEquals("08004", e.getSQLState());
+
+        first.close();
+        DriverManager.getConnection(database.getUrl()).close();
+        second.close();
+        assertEquals(2, database.getPeakConnections());
+        assertEquals(0, database.getOpenConnections());
+    }
+
+    @Test
+    public void testInjectedFailures() throws SQLException {
+        Connection connection = DriverManager.getConnection(database.getUrl());
+        try {
+            database.failNext(1);
+
+            SQLException e = assertThrows(SQLException.class,
+                    () -> MSSQLUtilLib.executeUpdate(connection, "DELETE FROM orders WHERE id = ?", 1));
+            assertTrue(e instanceof SQLRecoverableException);
+            assertEquals(1, MSSQLUtilLib.executeUpdate(connection, "DELETE FROM orders WHERE id = ?", 1));
+
+            database.setFailureRate(1.0);
+            assertThrows(SQLException.class, () -> MSSQLUtilLib.executeQuery(connection, "SELECT * FROM orders"));
+            assertEquals(2, database.getFailureCount());
+        } finally {
+            MSSQLUtilLib.closeConnection(connection);
+        }
+    }
+
+    @Test
+    public void testBatchesCostOneRoundTripEach() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(database.getUrl())) {
+            List<Object[]> rows = Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"});
+            database.resetStatistics();
+
+            List<int[]> counts = DB2UtilLib.executeBatch(connection, "INSERT INTO orders VALUES (?, ?)", rows, 2);
+
+            assertEquals(2, counts.size());
+            assertEquals(2, database.getBatchCount());
+            assertEquals(3, database.getRowsTransferred());
+        }
+    }
+
+    @Test
+    public void testUrlPropertiesConfigureNewDatabase() throws SQLException {
+        String url = "jdbc:fake:fake-driver-url?latencyMicros=250&maxConnections=3&rewriteBatchedStatements=true";
+        try (Connection connection = DB2UtilLib.getConnection(url, "user", "password")) {
+            FakeDatabase created = FakeDatabase.get("fake-driver-url");
+
+            assertEquals(250, created.getLatencyMicros());
+            assertEquals(3, created.getMaxConnections());
+            assertEquals(1, created.getOpenConnections());
+            created.drop();
+        }
+    }
+
+    @Test
+    public void testPoolOverFakeDriverStaysWithinLimit() throws SQLException {
+        database.setMaxConnections(2);
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMaxPoolSize(2);
+        config.setBorrowTimeoutMillis(100);
+        try (ConnectionPool pool = MySQLUtilLib.createConnectionPool(database.getUrl(), "user", "password", config)) {
+            for (int i = 0; i < 10; i++) {
+                try (Connection connection = pool.getConnection()) {
+                    MySQLUtilLib.executeUpdate(connection, "UPDATE orders SET amount = ? WHERE id = ?", 1, i);
+                }
+            }
+            assertTrue(database.getPeakConnections() <= 2);
+            assertEquals(10, database.getUpdateCount());
+        }
+        assertEquals(0, database.getOpenConnections());
+    }
+}
@@ -0,0 +1,228 @@
+package com.aisa.database;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Arrays;
+
+/**
+ * A statement of a {@link FakeConnection}. Bound parameters are kept, so binding costs what it
+ * costs with a real driver, but never sent anywhere. Executing costs one round trip, plus the
+ * per-row cost of the first block of a query result or of the batched rows.
+ */
+final class FakePreparedStatement extends AbstractPreparedStatement {
+
+    private final FakeConnection connection;
+    private final FakeDatabase database;
+    private final String sql;
+
+    private Object[] parameters = new Object[8];
+    private int batchedRows;
+    private int fetchSize;
+    private FakeResultSet resultSet;
+    private boolean closeOnCompletion;
+    private boolean closed;
+
+    FakePreparedStatement(FakeConnection connection, String sql) {
+        this.connection = connection;
+        this.database = connection.getDatabase();
+        this.sql = sql;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return executeQuery(sql);
+    }
+
+    @Override
+    public ResultSet executeQuery(String query) throws SQLException {
+        ensureOpen();
+        closeResultSet();
+        database.checkFailure(query);
+        database.queryExecuted();
+        FakeTable table = database.resolve(query);
+        resultSet = new FakeResultSet(table, this, database, fetchSize > 0 ? fetchSize : database.getFetchSize());
+        return resultSet;
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return executeUpdate(sql);
+    }
+
+    @Override
+    public int executeUpdate(String update) throws SQLException {
+        ensureOpen();
+        closeResultSet();
+        database.checkFailure(update);
+        database.updateExecuted();
+        database.roundTrip(1);
+        return 1;
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        ensureOpen();
+        batchedRows++;
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        ensureOpen();
+        int rows = batchedRows;
+        batchedRows = 0;
+        database.checkFailure(sql);
+        database.batchExecuted();
+        database.roundTrip(rows);
+        int[] counts = new int[rows];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+
+    @Override
+    public void clearBatch() {
+        batchedRows = 0;
+    }
+
+    @Override
+    public void clearParameters() {
+        Arrays.fill(parameters, null);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        set(parameterIndex, null);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        set(parameterIndex, x);
+    }
+
+    @Override
+    public void setFetchSize(int rows) {
+        fetchSize = rows;
+    }
+
+    @Override
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) {
+    }
+
+    @Override
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public void closeOnCompletion() {
+        closeOnCompletion = true;
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() {
+        return closeOnCompletion;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            closeResultSet();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    /**
+     * Called by a result set of this statement when it is closed.
+     */
+    void resultSetClosed(FakeResultSet closedResultSet) {
+        if (resultSet == closedResultSet) {
+            resultSet = null;
+            if (closeOnCompletion) {
+                close();
+            }
+        }
+    }
+
+    private void closeResultSet() {
+        if (resultSet != null) {
+            FakeResultSet current = resultSet;
+            resultSet = null;
+            current.close();
+        }
+    }
+
+    private void set(int parameterIndex, Object value) throws SQLException {
+        ensureOpen();
+        if (parameterIndex < 1) {
+            throw new SQLException("Invalid parameter index: " + parameterIndex);
+        }
+        if (parameterIndex > parameters.length) {
+            parameters = Arrays.copyOf(parameters, Math.max(parameterIndex, parameters.length * 2));
+        }
+        parameters[parameterIndex - 1] = value;
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement is closed.");
+        }
+    }
+}
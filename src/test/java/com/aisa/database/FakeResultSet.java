@@ -0,0 +1,268 @@
+package com.aisa.database;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * A forward-only, read-only result set over the rows of a {@link FakeTable}.
+ *
+ * When served by a {@link FakeDatabase}, rows arrive in blocks of {@code fetchSize}: the first
+ * block with the execution, and each further block in its own round trip when {@link #next()}
+ * reaches it.
+ */
+final class FakeResultSet extends AbstractResultSet {
+
+    private final FakeTable table;
+    private final FakePreparedStatement statement;
+    private final FakeDatabase database;
+
+    private int row = -1;
+    private int fetchedRows;
+    private boolean closed;
+    private boolean lastWasNull;
+    private int fetchSize;
+
+    FakeResultSet(FakeTable table, FakePreparedStatement statement, FakeDatabase database, int fetchSize) {
+        this.table = table;
+        this.statement = statement;
+        this.database = database;
+        this.fetchSize = fetchSize;
+        if (database == null) {
+            fetchedRows = table.getRowCount();
+        } else {
+            fetchBlock();
+        }
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed.");
+        }
+        if (row < table.getRowCount()) {
+            row++;
+        }
+        if (row >= fetchedRows && fetchedRows < table.getRowCount()) {
+            fetchBlock();
+        }
+        return row < table.getRowCount();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            if (statement != null) {
+                statement.resultSetClosed(this);
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return lastWasNull;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() {
+        return new FakeResultSetMetaData(table);
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        for (int column = 0; column < table.getColumnCount(); column++) {
+            if (table.getName(column).equalsIgnoreCase(columnLabel)) {
+                return column + 1;
+            }
+        }
+        throw new SQLException("Unknown column: " + columnLabel);
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        if (closed || row < 0 || row >= table.getRowCount()) {
+            throw new SQLException("ResultSet is not positioned on a row.");
+        }
+        if (columnIndex < 1 || columnIndex > table.getColumnCount()) {
+            throw new SQLException("Column index out of range: " + columnIndex);
+        }
+        Object value = table.value(row, columnIndex - 1);
+        lastWasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        throw new SQLException("Cannot convert " + value.getClass().getName() + " to " + type.getName());
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value instanceof Boolean ? (Boolean) value : number(value).intValue() != 0;
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex)).shortValue();
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex)).intValue();
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex)).longValue();
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex)).floatValue();
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        return number(getObject(columnIndex)).doubleValue();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value == null ? null : value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        Timestamp value = getTimestamp(columnIndex);
+        return value == null ? null : new Date(value.getTime());
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        Timestamp value = getTimestamp(columnIndex);
+        return value == null ? null : new Time(value.getTime());
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        throw new SQLException("Column " + columnIndex + " is not a timestamp.");
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    @Override
+    public Statement getStatement() {
+        return statement;
+    }
+
+    @Override
+    public int getType() {
+        return ResultSet.TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return ResultSet.CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getFetchDirection() {
+        return ResultSet.FETCH_FORWARD;
+    }
+
+    @Override
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public void setFetchSize(int rows) {
+        if (rows > 0) {
+            fetchSize = rows;
+        }
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    private void fetchBlock() {
+        int rows = Math.min(Math.max(1, fetchSize), table.getRowCount() - fetchedRows);
+        fetchedRows += rows;
+        database.roundTrip(rows);
+    }
+
+    private static Number number(Object value) throws SQLException {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        throw new SQLException("Not a numeric value: " + value);
+    }
+}
@@ -0,0 +1,135 @@
+package com.aisa.database;
+
+import java.sql.JDBCType;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Describes the columns of a {@link FakeTable}.
+ */
+final class FakeResultSetMetaData implements ResultSetMetaData {
+
+    private final FakeTable table;
+
+    FakeResultSetMetaData(FakeTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return table.getColumnCount();
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) {
+        return table.getType(column - 1) == FakeColumnType.VARCHAR;
+    }
+
+    @Override
+    public boolean isSearchable(int column) {
+        return true;
+    }
+
+    @Override
+    public boolean isCurrency(int column) {
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) {
+        return columnNullable;
+    }
+
+    @Override
+    public boolean isSigned(int column) {
+        return table.getType(column - 1) != FakeColumnType.VARCHAR;
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) {
+        return 32;
+    }
+
+    @Override
+    public String getColumnLabel(int column) {
+        return table.getName(column - 1);
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return table.getName(column - 1);
+    }
+
+    @Override
+    public String getSchemaName(int column) {
+        return "";
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return table.getType(column - 1) == FakeColumnType.DECIMAL ? 18 : 0;
+    }
+
+    @Override
+    public int getScale(int column) {
+        return table.getType(column - 1) == FakeColumnType.DECIMAL ? 2 : 0;
+    }
+
+    @Override
+    public String getTableName(int column) {
+        return "synthetic";
+    }
+
+    @Override
+    public String getCatalogName(int column) {
+        return "";
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return table.getType(column - 1).getSqlType();
+    }
+
+    @Override
+    public String getColumnTypeName(int column) {
+        return JDBCType.valueOf(getColumnType(column)).getName();
+    }
+
+    @Override
+    public boolean isReadOnly(int column) {
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) {
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) {
+        return table.getType(column - 1).getJavaClass().getName();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException(getClass().getSimpleName() + " does not wrap " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,114 @@
+package com.aisa.database;
+
+import java.sql.ResultSet;
+import java.util.Locale;
+
+/**
+ * An in-memory table of generated rows, served by {@link FakeDatabase} or read directly through
+ * {@link #resultSet()}.
+ *
+ * Each column holds a pool of at most {@value #MAX_DISTINCT_VALUES} distinct values that rows
+ * cycle through, so large tables cost little memory and reading a row allocates nothing in the
+ * table itself; any allocation measured belongs to the code reading the rows.
+ */
+public final class FakeTable {
+
+    static final int MAX_DISTINCT_VALUES = 1024;
+
+    private final int rowCount;
+    private final String[] names;
+    private final FakeColumnType[] types;
+    private final Object[][] values;
+
+    private FakeTable(int rowCount, String[] names, FakeColumnType[] types) {
+        this.rowCount = rowCount;
+        this.names = names;
+        this.types = types;
+        this.values = new Object[types.length][];
+        int distinct = Math.max(1, Math.min(rowCount, MAX_DISTINCT_VALUES));
+        for (int column = 0; column < types.length; column++) {
+            values[column] = new Object[distinct];
+            for (int row = 0; row < distinct; row++) {
+                values[column][row] = types[column].value(row + column);
+            }
+        }
+    }
+
+    /**
+     * Creates a table with columns named {@code col1} to {@code colN} whose types cycle through
+     * the given list.
+     *
+     * @param rowCount    the number of rows
+     * @param columnCount the number of columns
+     * @param typeList    comma-separated {@link FakeColumnType} names, such as {@code "INTEGER,VARCHAR"}
+     * @return the table
+     */
+    public static FakeTable generate(int rowCount, int columnCount, String typeList) {
+        String[] typeNames = typeList.split(",");
+        String[] names = new String[columnCount];
+        FakeColumnType[] types = new FakeColumnType[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = "col" + (i + 1);
+            types[i] = FakeColumnType.valueOf(typeNames[i % typeNames.length].trim().toUpperCase(Locale.ROOT));
+        }
+        return new FakeTable(rowCount, names, types);
+    }
+
+    /**
+     * Creates a table with named columns.
+     *
+     * @param rowCount the number of rows
+     * @param columns  one {@code "name TYPE"} definition per column, such as {@code "id BIGINT"}
+     * @return the table
+     */
+    public static FakeTable of(int rowCount, String... columns) {
+        String[] names = new String[columns.length];
+        FakeColumnType[] types = new FakeColumnType[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String[] parts = columns[i].trim().split("\\s+");
+            names[i] = parts[0];
+            types[i] = FakeColumnType.valueOf(parts[1].toUpperCase(Locale.ROOT));
+        }
+        return new FakeTable(rowCount, names, types);
+    }
+
+    /**
+     * Opens a result set over all rows of the table, without any simulated latency.
+     *
+     * @return a forward-only result set positioned before the first row
+     */
+    public ResultSet resultSet() {
+        return new FakeResultSet(this, null, null, rowCount);
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the column count
+     */
+    public int getColumnCount() {
+        return types.length;
+    }
+
+    String getName(int column) {
+        return names[column];
+    }
+
+    FakeColumnType getType(int column) {
+        return types[column];
+    }
+
+    Object value(int row, int column) {
+        Object[] pool = values[column];
+        return pool[row % pool.length];
+    }
+}
@@ -0,0 +1,140 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class LeakDetectorTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Statement mockStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.createStatement()).thenReturn(mockStatement);
+        when(mockStatement.executeQuery(anyString())).thenReturn(mockResultSet);
+        when(mockResultSet.getStatement()).thenReturn(mockStatement);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        LeakDetector.setEnabled(false);
+        LeakDetector.setThresholdMillis(LeakDetector.DEFAULT_THRESHOLD_MILLIS);
+    }
+
+    @Test
+    public void testQueryClosesStatementAndResultSet() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getString(1)).thenReturn("a", "b");
+        List<String> values = new ArrayList<>();
+
+        long rows = MSSQLUtilLib.query(mockConnection, "SELECT name FROM users", row -> values.add(row.getString(1)));
+
+        assertEquals(2, rows);
+        assertEquals(Arrays.asList("a", "b"), values);
+        verify(mockResultSet).close();
+        verify(mockStatement).close();
+    }
+
+    @Test
+    public void testQueryClosesWhenHandlerThrows() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true);
+
+        assertThrows(SQLException.class, () -> OracleDBUtilLib.query(mockConnection, "SELECT * FROM users", row -> {
+            throw new SQLException("handler failed");
+        }));
+
+        verify(mockResultSet).close();
+        verify(mockStatement).close();
+    }
+
+    @Test
+    public void testExecuteQueryClosesStatementWithResultSet() throws SQLException {
+        PostgreSQLUtilLib.executeQuery(mockConnection, "SELECT * FROM users");
+        verify(mockStatement).closeOnCompletion();
+        verify(mockStatement, never()).close();
+
+        when(mockStatement.executeQuery(anyString())).thenThrow(new SQLException("bad query"));
+        assertThrows(SQLException.class, () -> PostgreSQLUtilLib.executeQuery(mockConnection, "SELECT * FROM missing"));
+        verify(mockStatement).close();
+    }
+
+    @Test
+    public void testOpenStatementIsReportedWithAllocationSite() throws SQLException {
+        LeakDetector.setEnabled(true);
+        LeakDetector.setThresholdMillis(0);
+        Statement closedStatement = mock(Statement.class);
+        when(closedStatement.isClosed()).thenReturn(true);
+        when(closedStatement.executeQuery(anyString())).thenReturn(mock(ResultSet.class));
+
+        DB2UtilLib.executeQuery(mockConnection, "SELECT * FROM leaked");
+        when(mockConnection.createStatement()).thenReturn(closedStatement);
+        DB2UtilLib.executeQuery(mockConnection, "SELECT * FROM closed");
+
+        List<ResourceLeak> leaks = LeakDetector.findLeaks();
+        assertEquals(1, leaks.size());
+        ResourceLeak leak = leaks.get(0);
+        assertEquals("Statement", leak.getResourceType());
+        assertTrue(leak.getSql().startsWith("SELECT * FROM leaked"));
+        assertTrue(Arrays.stream(leak.getAllocationStackTrace())
+                .anyMatch(frame -> frame.getMethodName().equals("testOpenStatementIsReportedWithAllocationSite")));
+        assertEquals(1, LeakDetector.getTrackedCount());
+
+        when(mockStatement.isClosed()).thenReturn(true);
+        assertTrue(LeakDetector.findLeaks().isEmpty());
+        assertEquals(0, LeakDetector.getTrackedCount());
+    }
+
+    @Test
+    public void testCollectedUnclosedStatementIsCounted() throws Exception {
+        FakeDatabase database = FakeDatabase.create("leak-detector-collected");
+        database.addTable("users", FakeTable.of(3, "id BIGINT", "name VARCHAR"));
+        LeakDetector.setEnabled(true);
+        try (Connection connection = DriverManager.getConnection(database.getUrl())) {
+            PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM users WHERE id = 1").close();
+            PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM users WHERE id = 2");
+            assertEquals(1, LeakDetector.getTrackedCount());
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (LeakDetector.getCollectedLeakCount() == 0 && System.currentTimeMillis() < deadline) {
+                System.gc();
+                LeakDetector.findLeaks();
+                Thread.sleep(10);
+            }
+            assertEquals(1, LeakDetector.getCollectedLeakCount());
+            assertEquals(0, LeakDetector.getTrackedCount());
+        } finally {
+            database.drop();
+        }
+    }
+
+    @Test
+    public void testNothingIsTrackedWhenDisabled() throws SQLException {
+        MySQLUtilLib.executeQuery(mockConnection, "SELECT * FROM users");
+
+        assertEquals(0, LeakDetector.getTrackedCount());
+        assertTrue(LeakDetector.findLeaks().isEmpty());
+    }
+}
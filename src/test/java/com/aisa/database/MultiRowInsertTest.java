@@ -0,0 +1,73 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MultiRowInsertTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement fullStatement;
+
+    @Mock
+    private PreparedStatement tailStatement;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.prepareStatement(MultiRowInsert.insertSql("t", Arrays.asList("a", "b"), 2)))
+                .thenReturn(fullStatement);
+        when(mockConnection.prepareStatement(MultiRowInsert.insertSql("t", Arrays.asList("a", "b"), 1)))
+                .thenReturn(tailStatement);
+        when(fullStatement.executeBatch()).thenReturn(new int[]{2});
+        when(tailStatement.executeBatch()).thenReturn(new int[]{1});
+    }
+
+    @Test
+    public void testRowsAreGroupedIntoMultiRowStatements() throws SQLException {
+        List<Object[]> rows = IntStream.range(0, 5).mapToObj(i -> new Object[]{i, "v" + i}).collect(Collectors.toList());
+        DatabaseMetrics.reset();
+
+        List<int[]> counts = DB2UtilLib.bulkInsert(mockConnection, "t", Arrays.asList("a", "b"), rows, 2);
+
+        assertEquals(3, counts.size());
+        assertArrayEquals(new int[]{1}, counts.get(2));
+        verify(fullStatement, times(2)).addBatch();
+        verify(fullStatement).setObject(3, 1);
+        verify(fullStatement).setObject(4, "v3");
+        verify(tailStatement).setObject(1, 4);
+        verify(tailStatement).addBatch();
+        assertEquals(4, DatabaseMetrics.getStatementStats(
+                MultiRowInsert.insertSql("t", Arrays.asList("a", "b"), 2)).getRowsFetched());
+        assertEquals(1, DatabaseMetrics.getStatementStats(
+                MultiRowInsert.insertSql("t", Arrays.asList("a", "b"), 1)).getRowsFetched());
+    }
+
+    @Test
+    public void testInsertSql() {
+        assertEquals("INSERT INTO t (a, b) VALUES (?, ?), (?, ?), (?, ?)",
+                MultiRowInsert.insertSql("t", Arrays.asList("a", "b"), 3));
+    }
+
+    @Test
+    public void testRowsPerInsertRespectsParameterLimit() {
+        assertEquals(100, MultiRowInsert.rowsPerInsert(10, 5000));
+        assertEquals(20, MultiRowInsert.rowsPerInsert(10, 20));
+        assertEquals(32, MultiRowInsert.rowsPerInsert(1000, 5000));
+    }
+}
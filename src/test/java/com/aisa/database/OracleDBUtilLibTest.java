@@ -7,6 +7,8 @@ import java.sql.*;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class OracleDBUtilLibTest {
@@ -35,7 +37,7 @@ class OracleDBUtilLibTest {
         String password = "your_password";
 
         try (MockedStatic<DriverManager> mockedDriverManager = mockStatic(DriverManager.class)) {
-            mockedDriverManager.when(() -> DriverManager.getConnection(url, username, password))
+            mockedDriverManager.when(() -> DriverManager.getConnection(eq(url), any(Properties.class)))
                     .thenReturn(mockConnection);
 
             Connection connection = OracleDBUtilLib.getConnection(url, username, password);
@@ -43,6 +45,79 @@ class OracleDBUtilLibTest {
         }
     }
 
+    @Test
+    void testGetConnectionAppliesTuningDefaults() throws SQLException {
+        String url = "jdbc:oracle:thin:@localhost:1521:xe";
+        Properties properties = new Properties();
+        properties.setProperty("user", "your_username");
+        properties.setProperty("defaultRowPrefetch", "1000");
+
+        try (MockedStatic<DriverManager> mockedDriverManager = mockStatic(DriverManager.class)) {
+            ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+            mockedDriverManager.when(() -> DriverManager.getConnection(eq(url), captor.capture()))
+                    .thenReturn(mockConnection);
+
+            OracleDBUtilLib.getConnection(url, properties);
+
+            Properties used = captor.getValue();
+            assertEquals("your_username", used.getProperty("user"));
+            assertEquals("1000", used.getProperty("defaultRowPrefetch"));
+            assertEquals("32768", used.getProperty("oracle.jdbc.defaultLobPrefetchSize"));
+            assertEquals("50", used.getProperty("oracle.jdbc.implicitStatementCacheSize"));
+        }
+    }
+
+    @Test
+    void testExecuteQueryWithPrefetch() throws SQLException {
+        String query = "SELECT * FROM your_table";
+        oracle.jdbc.OracleStatement mockOracleStatement = mock(oracle.jdbc.OracleStatement.class);
+
+        when(mockConnection.createStatement()).thenReturn(mockStatement);
+        when(mockStatement.isWrapperFor(oracle.jdbc.OracleStatement.class)).thenReturn(true);
+        when(mockStatement.unwrap(oracle.jdbc.OracleStatement.class)).thenReturn(mockOracleStatement);
+        when(mockStatement.executeQuery(query)).thenReturn(mockResultSet);
+
+        assertNotNull(OracleDBUtilLib.executeQueryWithPrefetch(mockConnection, query, 1000, 65536));
+        verify(mockStatement).setFetchSize(1000);
+        verify(mockOracleStatement).setLobPrefetchSize(65536);
+    }
+
+    @Test
+    void testExecuteQueryBindsTwoIntegerParameters() throws SQLException {
+        String query = "SELECT * FROM employees WHERE id = ? AND dept = ?";
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+
+        assertNotNull(OracleDBUtilLib.executeQuery(mockConnection, query, 5, 10));
+        verify(mockPreparedStatement).setObject(1, 5);
+        verify(mockPreparedStatement).setObject(2, 10);
+        verify(mockConnection, never()).createStatement();
+        StatementCache.release(mockConnection);
+    }
+
+    @Test
+    void testBuildMergeSql() {
+        String sql = OracleDBUtilLib.buildMergeSql("employees", Arrays.asList("id"), Arrays.asList("id", "name", "salary"));
+
+        assertEquals("MERGE INTO employees t USING (SELECT ? id, ? name, ? salary FROM dual) s ON (t.id = s.id)"
+                + " WHEN MATCHED THEN UPDATE SET t.name = s.name, t.salary = s.salary"
+                + " WHEN NOT MATCHED THEN INSERT (id, name, salary) VALUES (s.id, s.name, s.salary)", sql);
+    }
+
+    @Test
+    void testBulkInsertBatchesRows() throws SQLException {
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("INSERT INTO employees (id, name) VALUES (?, ?)")).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[]{1, 1});
+
+        List<int[]> counts = OracleDBUtilLib.bulkInsert(mockConnection, "employees", Arrays.asList("id", "name"),
+                Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"}), 100);
+
+        assertEquals(1, counts.size());
+        verify(mockPreparedStatement, times(2)).addBatch();
+    }
+
     @Test
     void testExecuteQuery() throws SQLException {
         String query = "SELECT * FROM your_table";
@@ -0,0 +1,208 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ParallelExtractorTest {
+
+    @Mock
+    private DataSource mockDataSource;
+
+    private final List<Long> tableRows = new ArrayList<>();
+
+    private final Map<String, Boolean> executedPredicates = new ConcurrentHashMap<>();
+
+    private final AtomicInteger partitionQueries = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        for (long id = 1; id <= 100; id++) {
+            tableRows.add(id);
+        }
+        tableRows.add(null);
+        tableRows.add(null);
+        when(mockDataSource.getConnection()).thenAnswer(invocation -> newConnection());
+    }
+
+    @Test
+    public void testExtractReturnsEveryRowExactlyOnce() throws SQLException {
+        ParallelExtractor extractor = new ParallelExtractor(mockDataSource, 3);
+        List<Object> ids = Collections.synchronizedList(new ArrayList<>());
+
+        long count = extractor.extract("orders", "id", row -> ids.add(row.get("id")));
+
+        assertEquals(102, count);
+        List<Object> expected = new ArrayList<>(tableRows);
+        assertEquals(sorted(expected), sorted(ids));
+        assertTrue(executedPredicates.containsKey("SELECT * FROM orders WHERE id IS NULL"));
+        // 3 threads x 4 partitions per thread, plus the NULL partition
+        assertEquals(13, partitionQueries.get());
+    }
+
+    @Test
+    public void testStreamWrapsQueryAndSkipsNullPartition() throws SQLException {
+        tableRows.removeIf(id -> id == null);
+        ParallelExtractor extractor = new ParallelExtractor(mockDataSource, 2);
+        extractor.setPartitionsPerThread(1);
+        extractor.setIncludeNulls(false);
+
+        List<Object> ids;
+        try (Stream<Map<String, Object>> rows = extractor.stream("SELECT id FROM orders", "id")) {
+            ids = rows.map(row -> row.get("id")).collect(Collectors.toList());
+        }
+
+        assertEquals(100, ids.size());
+        assertEquals(new ArrayList<>(Arrays.asList(
+                "SELECT * FROM (SELECT id FROM orders) p WHERE id >= ? AND id < ?",
+                "SELECT * FROM (SELECT id FROM orders) p WHERE id >= ? AND id <= ?")),
+                sorted(new ArrayList<>(executedPredicates.keySet())));
+    }
+
+    @Test
+    public void testPartitionFailureIsRethrown() throws SQLException {
+        ParallelExtractor extractor = new ParallelExtractor(mockDataSource, 2);
+        when(mockDataSource.getConnection()).thenAnswer(invocation -> newConnection())
+                .thenAnswer(invocation -> newConnection())
+                .thenThrow(new SQLException("connection refused"));
+
+        SQLException e = assertThrows(SQLException.class, () -> extractor.extract("orders", "id", row -> { }));
+
+        assertEquals("connection refused", e.getMessage());
+    }
+
+    @Test
+    public void testPartitionRuntimeFailureIsRethrown() throws SQLException {
+        ParallelExtractor extractor = new ParallelExtractor(mockDataSource, 2);
+        when(mockDataSource.getConnection()).thenAnswer(invocation -> newConnection())
+                .thenAnswer(invocation -> newConnection())
+                .thenThrow(new IllegalStateException("driver bug"));
+
+        SQLException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(SQLException.class, () -> extractor.extract("orders", "id", row -> { })));
+        assertEquals("driver bug", e.getCause().getMessage());
+    }
+
+    @Test
+    public void testSplitIntegralRange() throws SQLException {
+        assertEquals(Arrays.asList(0L, 25L, 50L, 75L, 100L), ParallelExtractor.split(0L, 100L, 4));
+        assertEquals(Arrays.asList(1, 2, 3), ParallelExtractor.split(1, 3, 8));
+        assertEquals(Arrays.asList(5, 5), ParallelExtractor.split(5, 5, 4));
+    }
+
+    @Test
+    public void testSplitDateRanges() throws SQLException {
+        assertEquals(Arrays.asList(java.sql.Date.valueOf("2024-01-01"), java.sql.Date.valueOf("2024-01-16"),
+                java.sql.Date.valueOf("2024-01-31")),
+                ParallelExtractor.split(java.sql.Date.valueOf("2024-01-01"), java.sql.Date.valueOf("2024-01-31"), 2));
+
+        Timestamp start = Timestamp.valueOf("2024-01-01 00:00:00");
+        Timestamp end = Timestamp.valueOf("2024-01-01 00:00:10.000000123");
+        List<Object> boundaries = ParallelExtractor.split(start, end, 2);
+        assertEquals(Arrays.asList(start, Timestamp.valueOf("2024-01-01 00:00:05"), end), boundaries);
+    }
+
+    @Test
+    public void testSplitFractionalRangeEndsAtMax() throws SQLException {
+        List<Object> boundaries = ParallelExtractor.split(1.0, 2.7182818284590455, 4);
+        assertEquals(5, boundaries.size());
+        assertEquals(1.0, boundaries.get(0));
+        assertEquals(2.7182818284590455, boundaries.get(4));
+
+        List<Object> decimals = ParallelExtractor.split(new BigDecimal("0.5"), new BigDecimal("9.12345678"), 4);
+        assertEquals(0, new BigDecimal("0.5").compareTo((BigDecimal) decimals.get(0)));
+        assertEquals(new BigDecimal("9.12345678"), decimals.get(4));
+    }
+
+    @Test
+    public void testUnsupportedPartitionTypeFails() {
+        assertThrows(SQLException.class, () -> ParallelExtractor.split("a", "z", 4));
+    }
+
+    private Connection newConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> newStatement(invocation.getArgument(0)));
+        return connection;
+    }
+
+    private PreparedStatement newStatement(String sql) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Object[] params = new Object[2];
+        doAnswer(invocation -> params[(int) invocation.getArgument(0) - 1] = invocation.getArgument(1))
+                .when(statement).setObject(anyInt(), any());
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            if (sql.startsWith("SELECT MIN")) {
+                return resultSet(Collections.singletonList(new Object[]{1L, 100L}));
+            }
+            executedPredicates.put(sql, true);
+            partitionQueries.incrementAndGet();
+            List<Object[]> rows = new ArrayList<>();
+            for (Long id : tableRows) {
+                if (matches(sql, id, params)) {
+                    rows.add(new Object[]{id});
+                }
+            }
+            return resultSet(rows);
+        });
+        return statement;
+    }
+
+    private static boolean matches(String sql, Long id, Object[] params) {
+        if (sql.endsWith("IS NULL")) {
+            return id == null;
+        }
+        if (id == null || id < (Long) params[0]) {
+            return false;
+        }
+        return sql.endsWith("<= ?") ? id <= (Long) params[1] : id < (Long) params[1];
+    }
+
+    private static ResultSet resultSet(List<Object[]> rows) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnName(1)).thenReturn("id");
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        Iterator<Object[]> iterator = rows.iterator();
+        Object[][] current = new Object[1][];
+        when(resultSet.next()).thenAnswer(invocation -> {
+            current[0] = iterator.hasNext() ? iterator.next() : null;
+            return current[0] != null;
+        });
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation -> current[0][(int) invocation.getArgument(0) - 1]);
+        return resultSet;
+    }
+
+    private static <T> List<T> sorted(List<T> values) {
+        List<T> copy = new ArrayList<>(values);
+        copy.sort((a, b) -> a == null ? (b == null ? 0 : -1) : b == null ? 1 : a.toString().compareTo(b.toString()));
+        return copy;
+    }
+}
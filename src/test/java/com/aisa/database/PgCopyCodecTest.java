@@ -0,0 +1,176 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class PgCopyCodecTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PGConnection mockPgConnection;
+
+    @Mock
+    private CopyManager mockCopyManager;
+
+    @Mock
+    private CopyIn mockCopyIn;
+
+    @Mock
+    private CopyOut mockCopyOut;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.unwrap(PGConnection.class)).thenReturn(mockPgConnection);
+        when(mockPgConnection.getCopyAPI()).thenReturn(mockCopyManager);
+        when(mockCopyManager.copyIn(anyString())).thenReturn(mockCopyIn);
+        when(mockCopyManager.copyOut(anyString())).thenReturn(mockCopyOut);
+    }
+
+    @Test
+    public void testTextEscapingRoundTrips() {
+        StringBuilder line = new StringBuilder();
+        PgCopyCodec.appendText(line, "a\tb\\c\nd");
+        line.append('\t');
+        PgCopyCodec.appendText(line, null);
+        line.append('\t');
+        PgCopyCodec.appendText(line, true);
+
+        assertEquals("a\\tb\\\\c\\nd\t\\N\tt", line.toString());
+        assertArrayEquals(new String[]{"a\tb\\c\nd", null, "t"}, PgCopyCodec.parseTextLine(line.toString()));
+    }
+
+    @Test
+    public void testBinaryValuesRoundTrip() throws SQLException {
+        assertRoundTrip("int4", 42);
+        assertRoundTrip("int8", -7L);
+        assertRoundTrip("float8", 2.5d);
+        assertRoundTrip("bool", true);
+        assertRoundTrip("text", "héllo");
+        assertRoundTrip("uuid", UUID.randomUUID());
+        assertRoundTrip("date", LocalDate.of(1999, 12, 31));
+        assertRoundTrip("timestamp", LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123456000));
+        assertRoundTrip("timestamptz", OffsetDateTime.of(2024, 3, 1, 12, 30, 0, 0, ZoneOffset.UTC));
+        for (String numeric : Arrays.asList("0", "10000", "-1.5", "12345678.000901", "0.0001", "1E+5")) {
+            assertRoundTrip("numeric", new BigDecimal(numeric));
+        }
+    }
+
+    @Test
+    public void testCopyInRowsWritesBinaryFormat() throws SQLException {
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            sent.write((byte[]) invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(mockCopyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(mockCopyIn.endCopy()).thenReturn(2L);
+        when(mockCopyIn.getHandledRowCount()).thenReturn(2L);
+        DatabaseMetrics.reset();
+
+        long count = PostgreSQLUtilLib.copyInRows(mockConnection, "users", Arrays.asList("id", "name"),
+                Stream.of(new Object[]{1L, "Ada"}, new Object[]{2L, null}), CopyFormat.BINARY);
+
+        assertEquals(2L, count);
+        verify(mockCopyManager).copyIn("COPY users (id, name) FROM STDIN (FORMAT binary)");
+        PgCopyCodec.RowReader reader = new PgCopyCodec.RowReader(new ByteArrayInputStream(sent.toByteArray()),
+                CopyFormat.BINARY, new String[]{"int8", "text"});
+        assertArrayEquals(new Object[]{1L, "Ada"}, reader.readRow());
+        assertArrayEquals(new Object[]{2L, null}, reader.readRow());
+        assertNull(reader.readRow());
+        StatementStats stats = DatabaseMetrics.getStatementStats("COPY users (id, name) FROM STDIN (FORMAT binary)");
+        assertEquals(1, stats.getExecutionCount());
+        assertEquals(2, stats.getRowsFetched());
+    }
+
+    @Test
+    public void testCopyInRowsCancelsOnBadRow() throws SQLException {
+        when(mockCopyIn.isActive()).thenReturn(true);
+
+        assertThrows(SQLException.class, () -> PostgreSQLUtilLib.copyInRows(mockConnection, "users",
+                Arrays.asList("id", "name"), Arrays.<Object[]>asList(new Object[]{1L}), CopyFormat.TEXT));
+
+        verify(mockCopyIn).cancelCopy();
+    }
+
+    @Test
+    public void testCopyOutRowsReadsTextFormat() throws SQLException {
+        when(mockCopyOut.readFromCopy()).thenReturn("1\tAda\n2\t\\N\n".getBytes(StandardCharsets.UTF_8), (byte[]) null);
+        when(mockCopyOut.readFromCopy(anyBoolean())).thenReturn("1\tAda\n2\t\\N\n".getBytes(StandardCharsets.UTF_8), (byte[]) null);
+        DatabaseMetrics.reset();
+
+        List<Object[]> rows;
+        try (Stream<Object[]> stream = PostgreSQLUtilLib.copyOutRows(mockConnection, "SELECT id, name FROM users", CopyFormat.TEXT)) {
+            rows = stream.collect(Collectors.toList());
+        }
+
+        verify(mockCopyManager).copyOut("COPY (SELECT id, name FROM users) TO STDOUT");
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[]{"1", "Ada"}, rows.get(0));
+        assertArrayEquals(new Object[]{"2", null}, rows.get(1));
+        StatementStats stats = DatabaseMetrics.getStatementStats("COPY (SELECT id, name FROM users) TO STDOUT");
+        assertEquals(1, stats.getExecutionCount());
+        assertEquals(2, stats.getRowsFetched());
+    }
+
+    @Test
+    public void testCopyOutRowsDecodesBinaryFormatByColumnType() throws SQLException {
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        ResultSetMetaData mockMetaData = mock(ResultSetMetaData.class);
+        when(mockConnection.prepareStatement("SELECT id FROM users")).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getColumnCount()).thenReturn(1);
+        when(mockMetaData.getColumnTypeName(1)).thenReturn("int4");
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        PgCopyCodec.RowWriter writer = new PgCopyCodec.RowWriter(data, CopyFormat.BINARY);
+        writer.writeRow(new Object[]{7});
+        writer.finish();
+        when(mockCopyOut.readFromCopy()).thenReturn(data.toByteArray(), (byte[]) null);
+        when(mockCopyOut.readFromCopy(anyBoolean())).thenReturn(data.toByteArray(), (byte[]) null);
+
+        try (Stream<Object[]> stream = PostgreSQLUtilLib.copyOutRows(mockConnection, "SELECT id FROM users", CopyFormat.BINARY)) {
+            assertEquals(7, stream.findFirst().get()[0]);
+        }
+        verify(mockPreparedStatement).close();
+    }
+
+    private static void assertRoundTrip(String typeName, Object value) throws SQLException {
+        Object decoded = PgCopyCodec.decodeBinary(typeName, PgCopyCodec.encodeBinary(value));
+        if (value instanceof BigDecimal) {
+            assertEquals(0, ((BigDecimal) value).compareTo((BigDecimal) decoded), value + " vs " + decoded);
+        } else {
+            assertEquals(value, decoded);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PojoMapperTest {
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @Mock
+    private ResultSetMetaData mockResultSetMetaData;
+
+    public enum Status { ACTIVE, INACTIVE }
+
+    public static class Employee {
+        private long employeeId;
+        private String firstName;
+        private BigDecimal salary;
+        private boolean manager;
+        private LocalDateTime hiredAt;
+        private Status status;
+
+        public void setEmployeeId(long employeeId) {
+            this.employeeId = employeeId;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public void setSalary(BigDecimal salary) {
+            this.salary = salary;
+        }
+
+        public void setManager(boolean manager) {
+            this.manager = manager;
+        }
+
+        public void setHiredAt(LocalDateTime hiredAt) {
+            this.hiredAt = hiredAt;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockResultSet.getMetaData()).thenReturn(mockResultSetMetaData);
+    }
+
+    private void columns(String... names) throws SQLException {
+        when(mockResultSetMetaData.getColumnCount()).thenReturn(names.length);
+        for (int i = 0; i < names.length; i++) {
+            when(mockResultSetMetaData.getColumnName(i + 1)).thenReturn(names[i]);
+        }
+    }
+
+    @Test
+    public void testMapsPrimitiveSettersWithConversion() throws SQLException {
+        columns("EMPLOYEE_ID", "FIRST_NAME", "SALARY", "MANAGER", "HIRED_AT", "STATUS");
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getObject(1)).thenReturn(new BigDecimal("42"));
+        when(mockResultSet.getObject(2)).thenReturn("Ada");
+        when(mockResultSet.getObject(3)).thenReturn(1500);
+        when(mockResultSet.getObject(4)).thenReturn("Y");
+        when(mockResultSet.getObject(5)).thenReturn(Timestamp.valueOf("2024-01-02 03:04:05"));
+        when(mockResultSet.getObject(6)).thenReturn("INACTIVE");
+
+        List<Employee> employees = MySQLUtilLib.mapResultSetToPOJO(mockResultSet, Employee.class);
+
+        assertEquals(1, employees.size());
+        Employee employee = employees.get(0);
+        assertEquals(42L, employee.employeeId);
+        assertEquals("Ada", employee.firstName);
+        assertEquals(new BigDecimal("1500"), employee.salary);
+        assertTrue(employee.manager);
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), employee.hiredAt);
+        assertEquals(Status.INACTIVE, employee.status, "fields without setters are written directly");
+    }
+
+    @Test
+    public void testNullLeavesPrimitiveAtDefault() throws SQLException {
+        columns("id", "name");
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getObject(1)).thenReturn(null);
+        when(mockResultSet.getObject(2)).thenReturn(null);
+
+        List<OracleDBUtilLib.ExamplePOJO> resultList =
+                OracleDBUtilLib.mapResultSetToPOJO(mockResultSet, OracleDBUtilLib.ExamplePOJO.class);
+
+        assertEquals(0, resultList.get(0).getId());
+        assertNull(resultList.get(0).getName());
+    }
+
+    @Test
+    public void testUppercaseOracleColumnsMatchSetters() throws SQLException {
+        columns("ID", "NAME", "UNKNOWN");
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getObject(1)).thenReturn(new BigDecimal("7"), new BigDecimal("8"));
+        when(mockResultSet.getObject(2)).thenReturn("first", "second");
+
+        List<OracleDBUtilLib.ExamplePOJO> resultList =
+                DB2UtilLib.mapResultSetToPOJO(mockResultSet, OracleDBUtilLib.ExamplePOJO.class);
+
+        assertEquals(2, resultList.size());
+        assertEquals(8, resultList.get(1).getId());
+        assertEquals("second", resultList.get(1).getName());
+        verify(mockResultSet, never()).getObject(3);
+    }
+
+    @Test
+    public void testPlanIsCachedPerClassAndColumns() throws SQLException {
+        RowMapper<OracleDBUtilLib.ExamplePOJO> first =
+                PojoMapper.forColumns(new ColumnIndex("ID", "NAME"), OracleDBUtilLib.ExamplePOJO.class);
+        RowMapper<OracleDBUtilLib.ExamplePOJO> second =
+                PojoMapper.forColumns(new ColumnIndex("ID", "NAME"), OracleDBUtilLib.ExamplePOJO.class);
+        RowMapper<OracleDBUtilLib.ExamplePOJO> otherShape =
+                PojoMapper.forColumns(new ColumnIndex("NAME"), OracleDBUtilLib.ExamplePOJO.class);
+
+        assertSame(first, second);
+        assertNotSame(first, otherShape);
+    }
+
+    @Test
+    public void testUnconvertibleValueFails() throws SQLException {
+        columns("ID");
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getObject(1)).thenReturn("not a number");
+
+        assertThrows(SQLException.class,
+                () -> PostgreSQLUtilLib.mapResultSetToPOJO(mockResultSet, OracleDBUtilLib.ExamplePOJO.class));
+    }
+}
@@ -0,0 +1,192 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class QueryResultCacheTest {
+
+    private static final String QUERY = "SELECT code, name FROM countries WHERE region = ?";
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+
+    @Mock
+    private ResultSetMetaData mockMetaData;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private QueryResultCache cache;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenAnswer(invocation -> newResultSet());
+        when(mockMetaData.getColumnCount()).thenReturn(2);
+        when(mockMetaData.getColumnName(1)).thenReturn("code");
+        when(mockMetaData.getColumnName(2)).thenReturn("name");
+        cache = new QueryResultCache(1_000_000, Duration.ofMinutes(5), clock::get);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.close();
+        StatementCache.release(mockConnection);
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache() throws SQLException {
+        List<Map<String, Object>> first = cache.query(mockConnection, QUERY, "EU");
+        List<Map<String, Object>> second = cache.query(mockConnection, "SELECT code, name\n  FROM countries WHERE region = ?;", "EU");
+
+        assertSame(first, second);
+        assertEquals("FR", second.get(0).get("code"));
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    public void testDifferentParametersAreCachedSeparately() throws SQLException {
+        cache.query(mockConnection, QUERY, "EU");
+        cache.query(mockConnection, QUERY, "ASIA");
+
+        verify(mockPreparedStatement, times(2)).executeQuery();
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testCachedRowsAreReadOnly() throws SQLException {
+        List<Map<String, Object>> rows = cache.query(mockConnection, QUERY, "EU");
+
+        assertThrows(UnsupportedOperationException.class, () -> rows.get(0).put("code", "XX"));
+        assertThrows(UnsupportedOperationException.class, () -> rows.remove(0));
+    }
+
+    @Test
+    public void testEntriesExpireAfterTimeToLive() throws SQLException {
+        cache.query(mockConnection, QUERY, "EU");
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        cache.query(mockConnection, QUERY, "EU");
+
+        verify(mockPreparedStatement, times(2)).executeQuery();
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    public void testUpdateThroughFacadeInvalidatesReadingQueries() throws SQLException {
+        cache.query(mockConnection, QUERY, "EU");
+        cache.query(mockConnection, "SELECT * FROM currencies");
+
+        PostgreSQLUtilLib.executeUpdate(mockConnection, "UPDATE app.\"COUNTRIES\" SET name = ? WHERE code = ?", "France", "FR");
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getInvalidationCount());
+        cache.query(mockConnection, QUERY, "EU");
+        verify(mockPreparedStatement, times(3)).executeQuery();
+    }
+
+    @Test
+    public void testUnrecognizedWriteClearsCache() throws SQLException {
+        cache.query(mockConnection, QUERY, "EU");
+
+        QueryResultCache.invalidateForUpdate("CALL refresh_reference_data()");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvictedByWeight() throws SQLException {
+        cache.query(mockConnection, QUERY, "EU");
+        long entryWeight = cache.getWeightBytes();
+        cache.close();
+        cache = new QueryResultCache(entryWeight * 2, Duration.ofMinutes(5), clock::get);
+
+        cache.query(mockConnection, QUERY, "EU");
+        cache.query(mockConnection, QUERY, "ASIA");
+        cache.query(mockConnection, QUERY, "EU");
+        cache.query(mockConnection, QUERY, "AFRICA");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getWeightBytes() <= entryWeight * 2);
+        cache.query(mockConnection, QUERY, "EU");
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testTableExtraction() {
+        assertEquals(new HashSet<>(Arrays.asList("orders", "customers", "regions")), QueryResultCache.readTables(
+                "SELECT * FROM sales.orders o, regions r JOIN [dbo].[Customers] c ON o.cid = c.id WHERE 1 = 1"));
+        assertEquals("orders", QueryResultCache.writeTable("insert into `shop`.`ORDERS` values (?)"));
+        assertEquals("orders", QueryResultCache.writeTable("DELETE FROM orders WHERE id = ?"));
+        assertEquals("orders", QueryResultCache.writeTable("MERGE INTO orders t USING dual ON (1 = 1)"));
+        assertNull(QueryResultCache.writeTable("EXEC refresh_orders"));
+        assertNull(QueryResultCache.writeTable("UPDATE ONLY orders SET status = ?"));
+        assertNull(QueryResultCache.writeTable("UPDATE TOP (10) orders SET status = ?"));
+        assertNull(QueryResultCache.writeTable("DELETE t1, t2 FROM orders t1 JOIN lines t2 ON t1.id = t2.order_id"));
+        assertNull(QueryResultCache.writeTable("UPDATE orders o JOIN lines l ON o.id = l.order_id SET o.total = l.amount"));
+        assertNull(QueryResultCache.writeTable("UPDATE orders, lines SET orders.total = lines.amount"));
+        assertEquals("orders", QueryResultCache.writeTable("UPDATE orders SET total = (SELECT 1 FROM a JOIN b ON a.id = b.id)"));
+    }
+
+    @Test
+    public void testTransactionEndInvalidatesAgain() throws SQLException {
+        Connection other = mock(Connection.class);
+        when(other.getAutoCommit()).thenReturn(true);
+        when(other.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockConnection.getAutoCommit()).thenReturn(false);
+
+        PostgreSQLUtilLib.executeUpdate(mockConnection, "UPDATE countries SET name = ? WHERE code = ?", "France", "FR");
+        cache.query(mockConnection, QUERY, "EU");
+        assertEquals(0, cache.size());
+
+        cache.query(other, QUERY, "EU");
+        assertEquals(1, cache.size());
+
+        PostgreSQLUtilLib.commitTransaction(mockConnection);
+        assertEquals(0, cache.size());
+        cache.query(mockConnection, QUERY, "EU");
+        assertEquals(1, cache.size());
+        StatementCache.release(other);
+    }
+
+    @Test
+    public void testNormalizeKeepsQuotedText() {
+        assertEquals("SELECT 'a  b' FROM t WHERE x = ?",
+                QueryResultCache.normalize("  SELECT   'a  b'\n FROM t\tWHERE x = ? ;"));
+    }
+
+    private ResultSet newResultSet() throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(mockMetaData);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation ->
+                (int) invocation.getArgument(0) == 1 ? "FR" : "France");
+        return resultSet;
+    }
+}
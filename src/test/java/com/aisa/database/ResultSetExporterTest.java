@@ -0,0 +1,117 @@
+package com.aisa.database;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResultSetExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCsvQuotesFieldsAndWritesNulls() throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("note");
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn("1", "2");
+        when(resultSet.getString(2)).thenReturn("say \"hi\", twice", (String) null);
+        ExportOptions options = new ExportOptions();
+        options.setNullValue("NULL");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = ResultSetExporter.export(resultSet, out, ExportFormat.CSV, options);
+
+        assertEquals(2, rows);
+        assertEquals("id,note\n1,\"say \"\"hi\"\", twice\"\n2,NULL\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        verify(resultSet, never()).close();
+    }
+
+    @Test
+    public void testJsonArrayKeepsColumnTypes() throws Exception {
+        FakeTable table = FakeTable.of(20, "id INTEGER", "name VARCHAR", "amount DECIMAL", "created TIMESTAMP");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = ResultSetExporter.export(table.resultSet(), out, ExportFormat.JSON_ARRAY);
+
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals(20, rows);
+        assertEquals(20, json.size());
+        JsonNode third = json.get(2);
+        assertTrue(third.get("id").isInt());
+        assertTrue(third.get("name").isTextual());
+        assertTrue(third.get("amount").isNumber());
+        assertTrue(third.get("created").asText().startsWith("20"));
+    }
+
+    @Test
+    public void testGzipNdjsonThroughChannel() throws Exception {
+        FakeTable table = FakeTable.generate(500, 3, "BIGINT,VARCHAR,DOUBLE");
+        ExportOptions options = new ExportOptions();
+        options.setGzip(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = ResultSetExporter.export(table.resultSet(), Channels.newChannel(out), ExportFormat.NDJSON, options);
+
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertEquals(500, rows);
+        assertEquals(500, lines.size());
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : lines) {
+            assertEquals(3, mapper.readTree(line).size());
+        }
+    }
+
+    @Test
+    public void testExportQueryToFile() throws SQLException, IOException {
+        FakeDatabase database = FakeDatabase.create("exporter-test");
+        try {
+            database.addTable("orders", FakeTable.of(1000, "id BIGINT", "customer_name VARCHAR"));
+            Path file = tempDir.resolve("orders.csv");
+            try (Connection connection = PostgreSQLUtilLib.getConnection(database.getUrl(), "user", "password")) {
+                long rows = PostgreSQLUtilLib.exportQuery(connection, "SELECT * FROM orders", file,
+                        ExportFormat.CSV, new ExportOptions());
+
+                assertEquals(1000, rows);
+            }
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(1001, lines.size());
+            assertEquals("id,customer_name", lines.get(0));
+            assertEquals(0, database.getOpenConnections());
+        } finally {
+            database.drop();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResultSetIteratorTest {
+
+    private static final String QUERY = "SELECT * FROM SAMPLE_DATA_CLOUD_TABLE";
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Statement mockStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @Mock
+    private ResultSetMetaData mockResultSetMetaData;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(mockStatement);
+        when(mockStatement.executeQuery(QUERY)).thenReturn(mockResultSet);
+        when(mockStatement.executeQuery(QUERY + " FOR FETCH ONLY")).thenReturn(mockResultSet);
+        when(mockResultSet.getMetaData()).thenReturn(mockResultSetMetaData);
+        when(mockResultSetMetaData.getColumnCount()).thenReturn(1);
+        when(mockResultSetMetaData.getColumnName(1)).thenReturn("COLUMN_NAME");
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getObject(1)).thenReturn("first", "second");
+    }
+
+    @Test
+    public void testRowsAreFetchedLazily() throws SQLException {
+        ResultSetIterator iterator = MySQLUtilLib.iterateQuery(mockConnection, QUERY, 500);
+        verify(mockStatement, times(1)).setFetchSize(500);
+        verify(mockResultSet, never()).next();
+
+        assertEquals("first", iterator.next().get("COLUMN_NAME"));
+        verify(mockResultSet, times(1)).next();
+        verify(mockResultSet, never()).close();
+
+        assertEquals("second", iterator.next().get("COLUMN_NAME"));
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+        verify(mockResultSet, times(1)).close();
+        verify(mockStatement, times(1)).close();
+    }
+
+    @Test
+    public void testMySqlRowStreamingFetchSizeIsPassedThrough() throws SQLException {
+        try (ResultSetIterator iterator = MySQLUtilLib.iterateQuery(mockConnection, QUERY, Integer.MIN_VALUE)) {
+            verify(mockStatement).setFetchSize(Integer.MIN_VALUE);
+            assertEquals("first", iterator.next().get("COLUMN_NAME"));
+        }
+    }
+
+    @Test
+    public void testStreamReleasesResourcesOnClose() throws SQLException {
+        try (Stream<Map<String, Object>> rows = PostgreSQLUtilLib.streamQuery(mockConnection, QUERY, 100)) {
+            assertEquals("first", rows.findFirst().get().get("COLUMN_NAME"));
+            verify(mockResultSet, never()).close();
+        }
+        verify(mockResultSet, times(1)).close();
+        verify(mockStatement, times(1)).close();
+    }
+
+    @Test
+    public void testExhaustedStreamReleasesResources() throws SQLException {
+        List<Object> values = OracleDBUtilLib.streamQuery(mockConnection, QUERY, 0)
+                .map(row -> row.get("COLUMN_NAME"))
+                .collect(Collectors.toList());
+
+        assertEquals(2, values.size());
+        verify(mockResultSet, times(1)).close();
+        verify(mockStatement, times(1)).close();
+    }
+
+    @Test
+    public void testFetchFailureClosesResources() throws SQLException {
+        when(mockResultSet.next()).thenThrow(new SQLException("connection reset"));
+        ResultSetIterator iterator = DB2UtilLib.iterateQuery(mockConnection, QUERY, 0);
+
+        UncheckedSQLException e = assertThrows(UncheckedSQLException.class, iterator::hasNext);
+        assertEquals("connection reset", e.getCause().getMessage());
+        verify(mockResultSet, times(1)).close();
+        verify(mockStatement, times(1)).close();
+    }
+
+    @Test
+    public void testStatementIsClosedWhenQueryFails() throws SQLException {
+        when(mockStatement.executeQuery(QUERY)).thenThrow(new SQLException("syntax error"));
+
+        assertThrows(SQLException.class, () -> MSSQLUtilLib.iterateQuery(mockConnection, QUERY, 0));
+        verify(mockStatement, times(1)).close();
+    }
+}
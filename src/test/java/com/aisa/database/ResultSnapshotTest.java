@@ -0,0 +1,117 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTripPreservesRowsAndSchema() throws SQLException {
+        FakeTable table = FakeTable.of(30_000, "id BIGINT", "name VARCHAR", "amount DECIMAL",
+                "ratio DOUBLE", "created TIMESTAMP");
+        TabularResult expected = TabularResult.from(table.resultSet());
+        Path file = tempDir.resolve("orders.snapshot");
+
+        assertEquals(30_000, ResultSnapshot.write(table.resultSet(), file, "v1"));
+
+        try (ResultSnapshot snapshot = ResultSnapshot.load(file, "v1")) {
+            assertNotNull(snapshot);
+            assertEquals(Types.DECIMAL, snapshot.getMetaData().getColumnType(3));
+            assertEquals("created", snapshot.getMetaData().getColumnLabel(5));
+            assertEquals(30_000, snapshot.getRowCount());
+            for (int row = 0; row < expected.getRowCount(); row += 997) {
+                assertEquals(expected.getRow(row), snapshot.getRow(row));
+            }
+            assertEquals(expected.get(29_999, "amount"), snapshot.get(29_999, "amount"));
+        }
+    }
+
+    @Test
+    public void testResultSetViewScrollsAndConverts() throws SQLException {
+        Path file = tempDir.resolve("small.snapshot");
+        ResultSnapshot.write(FakeTable.of(5, "id INTEGER", "amount DECIMAL", "created TIMESTAMP").resultSet(), file, "k");
+
+        try (ResultSnapshot snapshot = ResultSnapshot.load(file, "k")) {
+            ResultSet resultSet = snapshot.resultSet();
+            int rows = 0;
+            while (resultSet.next()) {
+                assertEquals(rows, resultSet.getInt("id"));
+                assertEquals(String.valueOf(rows), resultSet.getString(1));
+                assertTrue(resultSet.getBigDecimal("amount").compareTo(BigDecimal.ZERO) > 0);
+                assertNotNull(resultSet.getDate(3));
+                rows++;
+            }
+            assertEquals(5, rows);
+            assertTrue(resultSet.absolute(2));
+            assertEquals(1L, resultSet.getLong(1));
+            assertTrue(resultSet.last());
+            assertEquals(5, resultSet.getRow());
+            assertTrue(resultSet.getObject(3) instanceof Timestamp);
+            resultSet.close();
+            assertThrows(SQLException.class, resultSet::next);
+        }
+    }
+
+    @Test
+    public void testDifferentVersionKeyInvalidatesSnapshot() throws SQLException {
+        Path file = tempDir.resolve("keyed.snapshot");
+        ResultSnapshot.write(FakeTable.of(3, "id INTEGER").resultSet(), file, "schema-41");
+
+        assertNull(ResultSnapshot.load(file, "schema-42"));
+        assertNull(ResultSnapshot.load(tempDir.resolve("missing.snapshot"), "schema-41"));
+        assertNotNull(ResultSnapshot.load(file, "schema-41"));
+    }
+
+    @Test
+    public void testCorruptedBlockIsRejected() throws SQLException, IOException {
+        Path file = tempDir.resolve("corrupt.snapshot");
+        ResultSnapshot.write(FakeTable.of(1000, "id INTEGER", "name VARCHAR").resultSet(), file, "v1");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 20] ^= 0x55;
+        Files.write(file, bytes);
+
+        SQLException e = assertThrows(SQLException.class, () -> ResultSnapshot.load(file, "v1"));
+        assertTrue(e.getMessage().contains("Checksum mismatch"));
+
+        Files.write(file, Arrays.copyOf(bytes, 40));
+        assertThrows(SQLException.class, () -> ResultSnapshot.load(file, "v1"));
+    }
+
+    @Test
+    public void testSnapshotQueryOnlyRunsQueryWhenStale() throws SQLException {
+        FakeDatabase database = FakeDatabase.create("snapshot-test");
+        try {
+            database.addTable("baseline", FakeTable.of(200, "id BIGINT", "customer_name VARCHAR"));
+            Path file = tempDir.resolve("baseline.snapshot");
+            try (Connection connection = DB2UtilLib.getConnection(database.getUrl(), "user", "password")) {
+                database.resetStatistics();
+                DB2UtilLib.snapshotQuery(connection, "SELECT * FROM baseline", file, "v1").close();
+                try (ResultSnapshot snapshot = DB2UtilLib.snapshotQuery(connection, "SELECT * FROM baseline", file, "v1")) {
+                    assertEquals(200, snapshot.getRowCount());
+                }
+                assertEquals(1, database.getQueryCount());
+
+                OracleDBUtilLib.snapshotQuery(connection, "SELECT * FROM baseline", file, "v2").close();
+                assertEquals(2, database.getQueryCount());
+            }
+        } finally {
+            database.drop();
+        }
+    }
+}
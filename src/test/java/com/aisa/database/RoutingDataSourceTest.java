@@ -0,0 +1,291 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoutingDataSourceTest {
+
+    private FakeDatabase primaryDatabase;
+    private FakeDatabase[] replicaDatabases;
+    private ConnectionPool primaryPool;
+    private final List<ConnectionPool> replicaPools = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        primaryDatabase = database("routing-primary");
+        replicaDatabases = new FakeDatabase[]{database("routing-replica-0"), database("routing-replica-1")};
+        primaryPool = new ConnectionPool(primaryDatabase.getUrl(), "user", "password", poolConfig());
+        for (FakeDatabase replica : replicaDatabases) {
+            replicaPools.add(new ConnectionPool(replica.getUrl(), "user", "password", poolConfig()));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        primaryPool.close();
+        for (ConnectionPool pool : replicaPools) {
+            pool.close();
+        }
+        replicaPools.clear();
+        primaryDatabase.drop();
+        for (FakeDatabase replica : replicaDatabases) {
+            replica.drop();
+        }
+    }
+
+    private static FakeDatabase database(String name) {
+        FakeDatabase database = FakeDatabase.create(name);
+        database.addTable("orders", FakeTable.of(5, "id BIGINT", "customer_name VARCHAR"));
+        return database;
+    }
+
+    private static ConnectionPoolConfig poolConfig() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMaxPoolSize(4);
+        config.setEvictionIntervalMillis(60_000);
+        return config;
+    }
+
+    private static RoutingConfig routingConfig(long readYourWritesMillis) {
+        RoutingConfig config = new RoutingConfig();
+        config.setReadYourWritesMillis(readYourWritesMillis);
+        config.setMaxReplicationLagMillis(0);
+        return config;
+    }
+
+    private long replicaQueries() {
+        return replicaDatabases[0].getQueryCount() + replicaDatabases[1].getQueryCount();
+    }
+
+    private static void read(Connection connection) throws SQLException {
+        PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM orders").close();
+    }
+
+    @Test
+    public void testReadsGoToReplicasAndWritesToPrimary() throws SQLException {
+        try (RoutingDataSource router = PostgreSQLUtilLib.createRoutingDataSource(primaryPool, replicaPools, routingConfig(0))) {
+            Connection connection = router.getConnection();
+            read(connection);
+            PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM orders WHERE id = ?", 1).close();
+            assertEquals(1, PostgreSQLUtilLib.executeUpdate(connection, "UPDATE orders SET customer_name = 'x'"));
+            PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM orders FOR UPDATE").close();
+            PostgreSQLUtilLib.closeConnection(connection);
+
+            assertEquals(2, replicaQueries());
+            assertEquals(1, primaryDatabase.getQueryCount());
+            assertEquals(1, primaryDatabase.getUpdateCount());
+            assertEquals(0, router.getOutstandingRequests(0) + router.getOutstandingRequests(1));
+        }
+    }
+
+    @Test
+    public void testReadClassification() {
+        assertTrue(RoutingDataSource.isRead("select * from orders"));
+        assertTrue(RoutingDataSource.isRead("/* report */ (SELECT id FROM orders)"));
+        assertTrue(RoutingDataSource.isRead("-- totals\nWITH t AS (SELECT 1) SELECT * FROM t"));
+        assertFalse(RoutingDataSource.isRead("SELECT * FROM orders FOR UPDATE"));
+        assertFalse(RoutingDataSource.isRead("SELECT * FROM orders LOCK IN SHARE MODE"));
+        assertFalse(RoutingDataSource.isRead("SELECT * INTO archive FROM orders"));
+        assertFalse(RoutingDataSource.isRead("WITH d AS (DELETE FROM orders RETURNING *) SELECT * FROM d"));
+        assertFalse(RoutingDataSource.isRead("INSERT INTO orders VALUES (1, 'x')"));
+        assertFalse(RoutingDataSource.isRead(null));
+    }
+
+    @Test
+    public void testLeastOutstandingCountsReadsInFlight() throws SQLException {
+        try (RoutingDataSource router = MySQLUtilLib.createRoutingDataSource(primaryPool, replicaPools, routingConfig(0))) {
+            Connection first = router.getConnection();
+            Connection second = router.getConnection();
+            ResultSet open = MySQLUtilLib.executeQuery(first, "SELECT * FROM orders");
+            int busy = router.getOutstandingRequests(0) == 1 ? 0 : 1;
+            int idle = 1 - busy;
+            read(second);
+
+            assertEquals(1, router.getOutstandingRequests(busy));
+            assertEquals(0, router.getOutstandingRequests(idle));
+            assertEquals(1, replicaDatabases[idle].getQueryCount());
+
+            // The second connection still holds the idle replica but has nothing in flight
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = router.getConnection()) {
+                    read(connection);
+                }
+            }
+            assertEquals(4, replicaDatabases[idle].getQueryCount());
+            assertEquals(1, replicaDatabases[busy].getQueryCount());
+
+            open.close();
+            assertEquals(0, router.getOutstandingRequests(busy));
+            MySQLUtilLib.executeQuery(first, "SELECT * FROM orders");
+            first.close();
+            second.close();
+            assertEquals(0, router.getOutstandingRequests(0) + router.getOutstandingRequests(1));
+        }
+    }
+
+    @Test
+    public void testLowestLatencyPrefersTheFasterReplica() throws SQLException {
+        replicaDatabases[0].setLatencyMicros(20_000);
+        RoutingConfig config = routingConfig(0);
+        config.setBalancing(ReplicaBalancing.LOWEST_LATENCY);
+        try (RoutingDataSource router = PostgreSQLUtilLib.createRoutingDataSource(primaryPool, replicaPools, config)) {
+            for (int i = 0; i < 10; i++) {
+                try (Connection connection = router.getConnection()) {
+                    read(connection);
+                }
+            }
+            assertEquals(1, replicaDatabases[0].getQueryCount());
+            assertEquals(9, replicaDatabases[1].getQueryCount());
+        }
+    }
+
+    @Test
+    public void testTransactionsAndRecentWritesStayOnPrimary() throws Exception {
+        try (RoutingDataSource router = PostgreSQLUtilLib.createRoutingDataSource(primaryPool, replicaPools, routingConfig(60_000))) {
+            Connection connection = router.getConnection();
+            connection.setAutoCommit(false);
+            read(connection);
+            PostgreSQLUtilLib.executeUpdate(connection, "DELETE FROM orders WHERE id = ?", 1);
+            PostgreSQLUtilLib.commitTransaction(connection);
+            assertTrue(connection.getAutoCommit());
+            connection.close();
+            assertEquals(1, primaryDatabase.getQueryCount());
+            assertEquals(0, replicaQueries());
+
+            try (Connection sameThread = router.getConnection()) {
+                read(sameThread);
+            }
+            assertEquals(2, primaryDatabase.getQueryCount());
+            assertEquals(0, replicaQueries());
+
+            Thread otherThread = new Thread(() -> {
+                try (Connection other = router.getConnection()) {
+                    read(other);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            otherThread.start();
+            otherThread.join();
+            assertEquals(1, replicaQueries());
+        }
+    }
+
+    @Test
+    public void testLaggingAndUnreachableReplicasAreEjected() throws SQLException {
+        LagDialect dialect = new LagDialect();
+        dialect.lags.put(replicaDatabases[0], 30_000L);
+        dialect.lags.put(replicaDatabases[1], 200L);
+        RoutingConfig config = routingConfig(0);
+        config.setMaxReplicationLagMillis(1_000);
+        config.setLagCheckIntervalMillis(60_000);
+        try (RoutingDataSource router = new RoutingDataSource(dialect, primaryPool, replicaPools, config)) {
+            router.checkReplicationLag();
+            assertFalse(router.isReplicaAvailable(0));
+            assertTrue(router.isReplicaAvailable(1));
+            assertEquals(30_000L, router.getReplicationLagMillis(0));
+            for (int i = 0; i < 4; i++) {
+                try (Connection connection = router.getConnection()) {
+                    read(connection);
+                }
+            }
+            assertEquals(0, replicaDatabases[0].getQueryCount());
+            assertEquals(4, replicaDatabases[1].getQueryCount());
+
+            dialect.lags.put(replicaDatabases[0], 0L);
+            router.checkReplicationLag();
+            assertTrue(router.isReplicaAvailable(0));
+        }
+
+        try (ConnectionPool unreachable = new ConnectionPool("jdbc:unknown:replica", "user", "password", poolConfig());
+             RoutingDataSource router = PostgreSQLUtilLib.createRoutingDataSource(primaryPool,
+                     Arrays.asList(unreachable, replicaPools.get(1)), routingConfig(0))) {
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = router.getConnection()) {
+                    read(connection);
+                }
+            }
+            assertFalse(router.isReplicaAvailable(0));
+            assertEquals(7, replicaDatabases[1].getQueryCount());
+            assertEquals(0, primaryDatabase.getQueryCount());
+        }
+
+        try (RoutingDataSource router = PostgreSQLUtilLib.createRoutingDataSource(primaryPool,
+                Collections.<ConnectionPool>emptyList(), routingConfig(0));
+             Connection connection = router.getConnection()) {
+            read(connection);
+            assertEquals(1, primaryDatabase.getQueryCount());
+        }
+    }
+
+    @Test
+    public void testHeldReplicaIsReleasedOnceEjected() throws SQLException {
+        LagDialect dialect = new LagDialect();
+        dialect.lags.put(replicaDatabases[0], 0L);
+        dialect.lags.put(replicaDatabases[1], 0L);
+        RoutingConfig config = routingConfig(0);
+        config.setMaxReplicationLagMillis(1_000);
+        config.setLagCheckIntervalMillis(60_000);
+        try (RoutingDataSource router = new RoutingDataSource(dialect, primaryPool, replicaPools, config);
+             Connection connection = router.getConnection()) {
+            PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM orders WHERE id = ?", 1).close();
+            int held = replicaDatabases[0].getQueryCount() == 1 ? 0 : 1;
+            int other = 1 - held;
+
+            dialect.lags.put(replicaDatabases[held], 30_000L);
+            router.checkReplicationLag();
+            PostgreSQLUtilLib.executeQuery(connection, "SELECT * FROM orders WHERE id = ?", 2).close();
+
+            assertEquals(1, replicaDatabases[held].getQueryCount());
+            assertEquals(1, replicaDatabases[other].getQueryCount());
+            ConnectionPool heldPool = replicaPools.get(held);
+            assertEquals(heldPool.getTotalConnections(), heldPool.getIdleConnections());
+        }
+    }
+
+    /**
+     * Reports the replication lag configured for each fake database.
+     */
+    private static final class LagDialect implements Dialect {
+        private final Map<FakeDatabase, Long> lags = new ConcurrentHashMap<>();
+
+        @Override
+        public String getName() {
+            return "Fake";
+        }
+
+        @Override
+        public String getDriverClassName() {
+            return FakeDriver.class.getName();
+        }
+
+        @Override
+        public boolean acceptsUrl(String jdbcUrl) {
+            return jdbcUrl.startsWith("jdbc:fake:");
+        }
+
+        @Override
+        public DialectProfile getProfile() {
+            return new DialectProfile();
+        }
+
+        @Override
+        public long replicationLagMillis(Connection connection) {
+            FakeDatabase database = ((FakeConnection) ConnectionPool.physicalConnection(connection)).getDatabase();
+            return lags.getOrDefault(database, -1L);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class RowMapperProcessorTest {
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @Mock
+    private ResultSetMetaData mockResultSetMetaData;
+
+    public enum Tier { GOLD, SILVER }
+
+    @GenerateRowMapper
+    public static class Account {
+        private int id;
+        private Long parentId;
+        private String ownerName;
+        private BigDecimal balance;
+        private LocalDate openedOn;
+        private Tier tier;
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public void setParentId(Long parentId) {
+            this.parentId = parentId;
+        }
+
+        public void setOwnerName(String ownerName) {
+            this.ownerName = ownerName;
+        }
+
+        public void setBalance(BigDecimal balance) {
+            this.balance = balance;
+        }
+
+        public void setOpenedOn(LocalDate openedOn) {
+            this.openedOn = openedOn;
+        }
+
+        public void setTier(Tier tier) {
+            this.tier = tier;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockResultSet.getMetaData()).thenReturn(mockResultSetMetaData);
+        when(mockResultSetMetaData.getColumnCount()).thenReturn(6);
+        when(mockResultSetMetaData.getColumnName(1)).thenReturn("ID");
+        when(mockResultSetMetaData.getColumnName(2)).thenReturn("PARENT_ID");
+        when(mockResultSetMetaData.getColumnName(3)).thenReturn("OWNER_NAME");
+        when(mockResultSetMetaData.getColumnName(4)).thenReturn("BALANCE");
+        when(mockResultSetMetaData.getColumnName(5)).thenReturn("OPENED_ON");
+        when(mockResultSetMetaData.getColumnName(6)).thenReturn("TIER");
+    }
+
+    @Test
+    public void testGeneratedMapperIsUsed() throws SQLException {
+        RowMapper<Account> mapper = PojoMapper.forResultSet(mockResultSet, Account.class);
+
+        assertEquals("com.aisa.database.RowMapperProcessorTest_Account_RowMapper", mapper.getClass().getName());
+    }
+
+    @Test
+    public void testGeneratedMapperReadsTypedColumnsByPosition() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getInt(1)).thenReturn(7);
+        when(mockResultSet.getLong(2)).thenReturn(0L);
+        when(mockResultSet.wasNull()).thenReturn(false, true);
+        when(mockResultSet.getString(3)).thenReturn("Ada");
+        when(mockResultSet.getBigDecimal(4)).thenReturn(new BigDecimal("12.50"));
+        when(mockResultSet.getDate(5)).thenReturn(Date.valueOf("2024-03-01"));
+        when(mockResultSet.getString(6)).thenReturn("GOLD");
+
+        List<Account> accounts = MSSQLUtilLib.mapResultSetToPOJO(mockResultSet, Account.class);
+
+        Account account = accounts.get(0);
+        assertEquals(7, account.id);
+        assertNull(account.parentId);
+        assertEquals("Ada", account.ownerName);
+        assertEquals(new BigDecimal("12.50"), account.balance);
+        assertEquals(LocalDate.of(2024, 3, 1), account.openedOn);
+        assertEquals(Tier.GOLD, account.tier);
+        verify(mockResultSet, never()).getObject(anyInt());
+    }
+}
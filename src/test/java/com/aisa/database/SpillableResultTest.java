@@ -0,0 +1,87 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpillableResultTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSmallResultStaysInMemory() throws SQLException, IOException {
+        FakeTable table = FakeTable.of(50, "id INTEGER", "name VARCHAR");
+
+        try (SpillableResult result = SpillableResult.from(table.resultSet(), 1024 * 1024, tempDir)) {
+            assertFalse(result.isSpilled());
+            assertEquals(50, result.getMemoryRowCount());
+            assertEquals(0, result.getSpillBytes());
+            assertEquals(0, countFiles());
+        }
+    }
+
+    @Test
+    public void testSpilledRowsMatchTabularResult() throws SQLException, IOException {
+        FakeTable table = FakeTable.of(2000, "id BIGINT", "name VARCHAR", "amount DECIMAL",
+                "ratio DOUBLE", "created TIMESTAMP");
+        TabularResult expected = TabularResult.from(table.resultSet());
+
+        try (SpillableResult result = SpillableResult.from(table.resultSet(), 20_000, tempDir)) {
+            assertTrue(result.isSpilled());
+            assertTrue(result.getMemoryRowCount() > 0 && result.getMemoryRowCount() < 2000);
+            assertTrue(result.getMemoryBytes() <= 20_000);
+            assertEquals(2000, result.getRowCount());
+            for (int row = 0; row < expected.getRowCount(); row++) {
+                for (int column = 0; column < expected.getColumnCount(); column++) {
+                    assertEquals(expected.get(row, column), result.get(row, column));
+                }
+            }
+            assertTrue(result.get(1999, "amount") instanceof BigDecimal);
+            assertTrue(result.get(1999, "created") instanceof Timestamp);
+            assertEquals(expected.asMaps(), result.asMaps());
+        }
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    public void testSegmentsSplitOnRowBoundaries() throws SQLException {
+        FakeTable table = FakeTable.of(500, "id INTEGER", "name VARCHAR");
+        TabularResult expected = TabularResult.from(table.resultSet());
+
+        try (SpillableResult result = SpillableResult.from(table.resultSet(), 0, tempDir, 1000)) {
+            assertEquals(0, result.getMemoryRowCount());
+            assertTrue(result.getSpillBytes() > 5000);
+            for (int row = 0; row < expected.getRowCount(); row++) {
+                Map<String, Object> spilled = result.getRow(row);
+                assertEquals(expected.getRow(row), spilled);
+            }
+        }
+    }
+
+    @Test
+    public void testClosedResultRejectsSpilledReads() throws SQLException {
+        SpillableResult result = SpillableResult.from(FakeTable.of(10, "id INTEGER").resultSet(), 0, tempDir);
+        result.close();
+
+        assertThrows(IllegalStateException.class, () -> result.get(5, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> SpillableResult.from(
+                FakeTable.of(1, "id INTEGER").resultSet(), 0, tempDir).get(1, 0));
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.aisa.database;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SqlServerBulkLoaderTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Statement mockStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @Mock
+    private ResultSetMetaData mockResultSetMetaData;
+
+    @Mock
+    private SQLServerBulkCopy mockBulkCopy;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.createStatement()).thenReturn(mockStatement);
+        when(mockStatement.executeQuery(anyString())).thenReturn(mockResultSet);
+        when(mockResultSet.getMetaData()).thenReturn(mockResultSetMetaData);
+        when(mockResultSetMetaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(mockResultSetMetaData.getColumnType(2)).thenReturn(Types.TIMESTAMP);
+    }
+
+    @Test
+    public void testIteratorRowsUseDestinationColumnTypes() throws SQLException {
+        BulkCopyOptions options = new BulkCopyOptions();
+        options.addColumnMapping("created", "created_at");
+        Iterator<Object[]> rows = Arrays.asList(
+                new Object[]{1, LocalDateTime.of(2024, 3, 1, 12, 0)},
+                new Object[]{2, null}).iterator();
+
+        SqlServerBulkLoader.IteratorBulkData data = SqlServerBulkLoader.IteratorBulkData.describe(
+                mockConnection, "dbo.staging", Arrays.asList("id", "created"), options, rows);
+
+        verify(mockStatement).executeQuery("SELECT id, created_at FROM dbo.staging WHERE 1 = 0");
+        assertEquals(Types.TIMESTAMP, data.getColumnType(2));
+        assertEquals("created", data.getColumnName(2));
+        assertTrue(data.next());
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 12, 0)), data.getRowData()[1]);
+        assertTrue(data.next());
+        assertFalse(data.next());
+        assertEquals(2, data.getRowCount());
+    }
+
+    @Test
+    public void testOptionsAndMappingsAreApplied() throws SQLException {
+        BulkCopyOptions options = new BulkCopyOptions();
+        options.setBatchSize(10000);
+        options.setTableLock(true);
+        options.setTimeoutSeconds(120);
+        options.addColumnMapping("id", "staging_id");
+        SqlServerBulkLoader.IteratorBulkData data = SqlServerBulkLoader.IteratorBulkData.describe(
+                mockConnection, "staging", Arrays.asList("id"), options, Arrays.<Object[]>asList(new Object[]{1}).iterator());
+        doAnswer(invocation -> {
+            ISQLServerBulkData source = invocation.getArgument(0);
+            while (source.next()) {
+                source.getRowData();
+            }
+            return null;
+        }).when(mockBulkCopy).writeToServer(any(ISQLServerBulkData.class));
+
+        BulkCopyResult result = SqlServerBulkLoader.copy(mockBulkCopy, "staging", data, options);
+
+        ArgumentCaptor<SQLServerBulkCopyOptions> captor = ArgumentCaptor.forClass(SQLServerBulkCopyOptions.class);
+        verify(mockBulkCopy).setBulkCopyOptions(captor.capture());
+        assertEquals(10000, captor.getValue().getBatchSize());
+        assertTrue(captor.getValue().isTableLock());
+        assertEquals(120, captor.getValue().getBulkCopyTimeout());
+        verify(mockBulkCopy).setDestinationTableName("staging");
+        verify(mockBulkCopy).addColumnMapping("id", "staging_id");
+        assertEquals(1, result.getRowCount());
+    }
+
+    @Test
+    public void testResultSetSourceRowsAreCounted() throws SQLException {
+        ResultSet source = mock(ResultSet.class);
+        when(source.next()).thenReturn(true, true, true, false);
+        doAnswer(invocation -> {
+            ResultSet rows = invocation.getArgument(0);
+            while (rows.next()) {
+                rows.getObject(1);
+            }
+            return null;
+        }).when(mockBulkCopy).writeToServer(any(ResultSet.class));
+        DatabaseMetrics.reset();
+
+        BulkCopyResult result = SqlServerBulkLoader.copy(mockBulkCopy, "staging", source, new BulkCopyOptions());
+
+        assertEquals(3, result.getRowCount());
+        verify(source, times(3)).getObject(1);
+        StatementStats stats = DatabaseMetrics.getStatementStats("INSERT BULK staging");
+        assertEquals(1, stats.getExecutionCount());
+        assertEquals(3, stats.getRowsFetched());
+    }
+
+    @Test
+    public void testCountingResultSetPropagatesErrors() throws SQLException {
+        ResultSet source = mock(ResultSet.class);
+        when(source.next()).thenThrow(new SQLException("broken"));
+
+        ResultSet counting = SqlServerBulkLoader.countingResultSet(source, new AtomicLong());
+
+        assertThrows(SQLException.class, counting::next);
+    }
+
+    @Test
+    public void testRowsPerSecond() {
+        BulkCopyResult result = new BulkCopyResult(5000, 2_000_000_000L);
+
+        assertEquals(2500d, result.getRowsPerSecond(), 0.001);
+        assertEquals(2000, result.getElapsedMillis());
+    }
+}
@@ -0,0 +1,157 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class StatementCacheTest {
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        StatementCache.release(mockConnection);
+    }
+
+    @Test
+    public void testStatementIsPreparedOnceAndReused() throws SQLException {
+        when(mockResultSet.isClosed()).thenReturn(true);
+
+        PostgreSQLUtilLib.executeQuery(mockConnection, "SELECT * FROM users WHERE id = ?", 1);
+        PostgreSQLUtilLib.executeQuery(mockConnection, "SELECT * FROM users WHERE id = ?", 2);
+
+        verify(mockConnection, times(1)).prepareStatement("SELECT * FROM users WHERE id = ?");
+        verify(mockPreparedStatement).setObject(1, 1);
+        verify(mockPreparedStatement).setObject(1, 2);
+        verify(mockPreparedStatement, never()).close();
+    }
+
+    @Test
+    public void testOpenResultSetForcesOneOffStatement() throws SQLException {
+        PreparedStatement oneOff = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement, oneOff);
+        when(oneOff.executeQuery()).thenReturn(mock(ResultSet.class));
+        when(mockResultSet.isClosed()).thenReturn(false);
+
+        MySQLUtilLib.executeQuery(mockConnection, "SELECT * FROM users WHERE id = ?", 1);
+        MySQLUtilLib.executeQuery(mockConnection, "SELECT * FROM users WHERE id = ?", 2);
+
+        verify(mockConnection, times(2)).prepareStatement("SELECT * FROM users WHERE id = ?");
+        verify(oneOff).closeOnCompletion();
+        verify(mockPreparedStatement, never()).closeOnCompletion();
+    }
+
+    @Test
+    public void testNamedParametersAreBoundInOrder() throws SQLException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "Ada");
+        params.put("id", 7);
+
+        int count = DB2UtilLib.executeUpdate(mockConnection,
+                "UPDATE users SET name = :name WHERE id = :id", params);
+
+        assertEquals(1, count);
+        verify(mockConnection).prepareStatement("UPDATE users SET name = ? WHERE id = ?");
+        verify(mockPreparedStatement).setObject(1, "Ada");
+        verify(mockPreparedStatement).setObject(2, 7);
+    }
+
+    @Test
+    public void testMissingNamedParameterFails() {
+        assertThrows(SQLException.class, () -> MSSQLUtilLib.executeUpdate(mockConnection,
+                "DELETE FROM users WHERE id = :id", Collections.<String, Object>emptyMap()));
+    }
+
+    @Test
+    public void testNullAndJavaTimeValuesAreConverted() throws SQLException {
+        LocalDateTime when = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+        OracleDBUtilLib.executeUpdate(mockConnection, "INSERT INTO events VALUES (?, ?)", null, when);
+
+        verify(mockPreparedStatement).setNull(1, Types.NULL);
+        verify(mockPreparedStatement).setTimestamp(2, Timestamp.valueOf(when));
+    }
+
+    @Test
+    public void testClosedCachedStatementIsReplaced() throws SQLException {
+        PreparedStatement replacement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement, replacement);
+
+        PostgreSQLUtilLib.executeUpdate(mockConnection, "DELETE FROM users WHERE id = ?", 1);
+        when(mockPreparedStatement.isClosed()).thenReturn(true);
+        PostgreSQLUtilLib.executeUpdate(mockConnection, "DELETE FROM users WHERE id = ?", 2);
+
+        verify(replacement).setObject(1, 2);
+    }
+
+    @Test
+    public void testCloseConnectionClosesCachedStatements() throws SQLException {
+        MySQLUtilLib.executeUpdate(mockConnection, "DELETE FROM users WHERE id = ?", 1);
+
+        MySQLUtilLib.closeConnection(mockConnection);
+
+        verify(mockPreparedStatement).close();
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void testReleasePurgesConnectionsClosedDirectly() throws SQLException {
+        Connection closedDirectly = mock(Connection.class);
+        PreparedStatement orphaned = mock(PreparedStatement.class);
+        when(closedDirectly.prepareStatement(anyString())).thenReturn(orphaned);
+        when(orphaned.executeUpdate()).thenReturn(1);
+        MySQLUtilLib.executeUpdate(closedDirectly, "DELETE FROM users WHERE id = ?", 1);
+        MySQLUtilLib.executeUpdate(mockConnection, "DELETE FROM users WHERE id = ?", 1);
+        when(closedDirectly.isClosed()).thenReturn(true);
+
+        MySQLUtilLib.closeConnection(mockConnection);
+
+        verify(orphaned).close();
+    }
+
+    @Test
+    public void testNamedParameterParsingSkipsLiteralsCommentsAndCasts() {
+        String sql = "SELECT ':skip', \"a:b\", created::date -- :comment\n"
+                + "FROM t /* :block */ WHERE id = :id AND owner = :owner OR id = :id";
+
+        NamedParameterSql parsed = NamedParameterSql.parse(sql);
+
+        assertEquals("SELECT ':skip', \"a:b\", created::date -- :comment\n"
+                + "FROM t /* :block */ WHERE id = ? AND owner = ? OR id = ?", parsed.getSql());
+        assertEquals(Arrays.asList("id", "owner", "id"), parsed.getParameterNames());
+        assertSame(parsed, NamedParameterSql.parse(sql));
+    }
+}
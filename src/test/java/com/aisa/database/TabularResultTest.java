@@ -0,0 +1,72 @@
+package com.aisa.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TabularResultTest {
+
+    /**
+     * Builds an in-memory ResultSet of the given size whose cells all hold the same Integer,
+     * except for the first column, which holds the row number.
+     */
+    private static ResultSet syntheticResultSet(int rowCount, int columnCount) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                TabularResultTest.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columnCount;
+                        case "getColumnName":
+                            return "COLUMN_" + args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        Integer cell = 42;
+        int[] cursor = {0};
+        return (ResultSet) Proxy.newProxyInstance(
+                TabularResultTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMetaData":
+                            return metaData;
+                        case "next":
+                            return ++cursor[0] <= rowCount;
+                        case "getObject":
+                            return (int) args[0] == 1 ? cursor[0] : cell;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void testCellAccessByRowAndColumn() throws SQLException {
+        TabularResult table = OracleDBUtilLib.parseResultSetToTable(syntheticResultSet(3, 4));
+
+        assertEquals(3, table.getRowCount());
+        assertEquals(4, table.getColumnCount());
+        assertEquals(2, table.get(1, 0));
+        assertEquals(2, table.get(1, "COLUMN_1"));
+        assertEquals(42, table.get(2, "COLUMN_4"));
+        assertEquals(3, table.getRow(2).get("COLUMN_1"));
+        assertEquals(3, table.asMaps().size());
+        assertThrows(IllegalArgumentException.class, () -> table.get(0, "MISSING"));
+    }
+
+    @Test
+    public void testLegacyShapeMatchesParseResultSet() throws SQLException {
+        List<List<Map<String, Object>>> legacy = OracleDBUtilLib.parseResultSet(syntheticResultSet(5, 3));
+        TabularResult table = OracleDBUtilLib.parseResultSetToTable(syntheticResultSet(5, 3));
+
+        assertEquals(legacy, table.toLegacyList());
+    }
+}